@@ -0,0 +1,109 @@
+#!/usr/bin/env bash
+# Hedged Order Service calls benchmark for kds-service (order-service.hedging.enabled)
+#
+# Starts the stub Order Service with injected tail latency - TAIL_PERCENT of calls stall for TAIL_MS
+# instead of DELAY_MS - and lets the KDS poll GET /api/orders/active every POLL_INTERVAL_MS, once per mode:
+#   - off:    a stalled poll holds the polling loop for the whole stall
+#   - hedged: a backup request goes out after the p95 of recent latency and the first answer wins
+# Only the idempotent active-orders read is hedged (order-service.hedging.operations); status PATCHes
+# are never duplicated, so they are not measured here.
+# Reports polls completed after WARMUP, their latency percentiles as seen by the KDS, and hedges sent
+# and won, all for operation="active-orders" from /actuator/prometheus.
+#
+# Usage: ./benchmarks/hedging-benchmark.sh
+# Env:   POLL_INTERVAL_MS=10  DELAY_MS=20  TAIL_PERCENT=2  TAIL_MS=3000  DURATION=30  WARMUP=5
+#        MODES="off hedged"  SKIP_BUILD=1
+#
+# Needs JDK 21 on the PATH. Kafka is pointed at an unreachable PLAINTEXT broker; the stub returns no
+# active orders, so polls never publish events and the broker is never on the measured path.
+
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BENCH="$ROOT/benchmarks/virtual-threads"
+POLL_INTERVAL_MS="${POLL_INTERVAL_MS:-10}"
+DELAY_MS="${DELAY_MS:-20}"
+TAIL_PERCENT="${TAIL_PERCENT:-2}"
+TAIL_MS="${TAIL_MS:-3000}"
+DURATION="${DURATION:-30}"
+WARMUP="${WARMUP:-5}"
+MODES="${MODES:-off hedged}"
+STUB_PORT=9090
+KDS_PORT=8085
+
+now_ms() { date +%s%3N; }
+
+cleanup() {
+  [ -n "${KDS_PID:-}" ] && kill "$KDS_PID" 2> /dev/null || true
+  [ -n "${STUB_PID:-}" ] && kill "$STUB_PID" 2> /dev/null || true
+}
+trap cleanup EXIT
+
+# Prometheus lines for the active-orders operation
+scrape() {
+  curl -s "http://localhost:$KDS_PORT/actuator/prometheus" | grep 'operation="active-orders"' || true
+}
+
+# First sample of a series in a scrape (optionally one quantile), 0 if absent
+sample() {
+  awk -v name="$2" -v quantile="${3:-}" '$1 ~ "^" name "[{]" && (quantile == "" || index($1, "quantile=\"" quantile "\"")) {
+    print $2; found = 1; exit } END { if (!found) print 0 }' <<< "$1"
+}
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+  (cd "$ROOT/kds-service" && mvn -B -q package -DskipTests)
+fi
+JAR="$(ls "$ROOT"/kds-service/target/kds-service-*.jar | grep -v original | head -1)"
+
+java "$BENCH/SlowOrderService.java" "$STUB_PORT" "$DELAY_MS" "$TAIL_PERCENT" "$TAIL_MS" &
+STUB_PID=$!
+
+printf '%-7s %7s %12s %8s %8s %8s %7s %5s\n' MODE CALLS "THROUGHPUT/S" P50_MS P99_MS MAX_MS HEDGES WINS
+for mode in $MODES; do
+  hedging=false
+  [ "$mode" = "hedged" ] && hedging=true
+
+  ORDER_SERVICE_HEDGING_ENABLED="$hedging" \
+  ORDER_SERVICE_BASE_URL="http://localhost:$STUB_PORT/api/orders" \
+  WRITE_BEHIND_ENABLED=false \
+  SNAPSHOT_ENABLED=false \
+  SPRING_KAFKA_BOOTSTRAP_SERVERS=localhost:9 \
+  SPRING_KAFKA_PROPERTIES_SECURITY_PROTOCOL=PLAINTEXT \
+    java -jar "$JAR" --server.port="$KDS_PORT" --polling.interval-ms="$POLL_INTERVAL_MS" \
+      --logging.level.root=WARN --logging.level.com.restaurant.kds_service=WARN \
+      --logging.level.org.springframework.kafka=WARN --logging.level.org.apache.kafka=ERROR \
+      > "/tmp/kds-hedging-$mode.log" 2>&1 &
+  KDS_PID=$!
+
+  start=$(now_ms)
+  until curl -sf "http://localhost:$KDS_PORT/api/kitchen/health" > /dev/null 2>&1; do
+    if [ $(( $(now_ms) - start )) -gt 120000 ]; then
+      echo "timeout waiting for kds-service ($mode)" >&2
+      tail -20 "/tmp/kds-hedging-$mode.log" >&2
+      exit 1
+    fi
+    sleep 0.2
+  done
+
+  sleep "$WARMUP"
+  before="$(scrape)"
+  sleep "$DURATION"
+  after="$(scrape)"
+
+  calls=$(awk -v a="$(sample "$after" kds_orderservice_calls_total)" -v b="$(sample "$before" kds_orderservice_calls_total)" \
+    'BEGIN { printf "%d", a - b }')
+  hedges=$(awk -v a="$(sample "$after" kds_orderservice_hedges_total)" -v b="$(sample "$before" kds_orderservice_hedges_total)" \
+    'BEGIN { printf "%d", a - b }')
+  wins=$(awk -v a="$(sample "$after" kds_orderservice_hedge_wins_total)" -v b="$(sample "$before" kds_orderservice_hedge_wins_total)" \
+    'BEGIN { printf "%d", a - b }')
+  # Percentiles cover Micrometer's recent window, max its last few minutes (warm-up included)
+  p50=$(awk -v s="$(sample "$after" kds_orderservice_latency_seconds 0.5)" 'BEGIN { printf "%.1f", s * 1000 }')
+  p99=$(awk -v s="$(sample "$after" kds_orderservice_latency_seconds 0.99)" 'BEGIN { printf "%.1f", s * 1000 }')
+  max=$(awk -v s="$(sample "$after" kds_orderservice_latency_seconds_max)" 'BEGIN { printf "%.1f", s * 1000 }')
+  throughput=$(awk -v c="$calls" -v d="$DURATION" 'BEGIN { printf "%.1f", c / d }')
+  printf '%-7s %7s %12s %8s %8s %8s %7s %5s\n' "$mode" "$calls" "$throughput" "$p50" "$p99" "$max" "$hedges" "$wins"
+
+  kill "$KDS_PID"
+  wait "$KDS_PID" 2> /dev/null || true
+  KDS_PID=""
+done
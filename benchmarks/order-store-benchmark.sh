@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Active-order store footprint benchmark for kds-service (boxed DTOs vs CompactOrder)
+#
+# Replays POLLS Order Service polls of ORDERS active orders with ITEMS items each through Jackson and keeps
+# the latest one the way OrderPollingService does, once per mode in a fresh JVM with a fixed heap:
+#   - boxed:   List<KitchenOrderResponse> (Long ids, BigDecimal prices, LocalDateTime, a String per item name)
+#   - compact: CompactOrder (primitive fields, flat item arrays, dictionary-encoded names and statuses)
+# READS full reads per poll stand in for GET /api/kitchen/orders (compact pays a conversion back to DTOs).
+# Reports retained bytes per order after a full GC, GC count and time, and MB allocated by the run.
+#
+# Usage: ./benchmarks/order-store-benchmark.sh
+# Env:   ORDERS=20000  ITEMS=4  POLLS=200  READS=1  HEAP=512m  MODES="boxed compact"  SKIP_BUILD=1
+
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+ORDERS="${ORDERS:-20000}"
+ITEMS="${ITEMS:-4}"
+POLLS="${POLLS:-200}"
+READS="${READS:-1}"
+HEAP="${HEAP:-512m}"
+MODES="${MODES:-boxed compact}"
+KDS="$ROOT/kds-service"
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+  (cd "$KDS" && mvn -B -q compile dependency:build-classpath -Dmdep.outputFile=target/bench.cp)
+fi
+CP="$KDS/target/classes:$(cat "$KDS/target/bench.cp")"
+
+printf '%-8s %7s %6s %6s %16s %9s %7s %13s\n' MODE ORDERS ITEMS POLLS "RETAINED_B/ORDER" GC_COUNT GC_MS ALLOCATED_MB
+for mode in $MODES; do
+  read -r perOrder gcCount gcMs allocatedMb < <(java -Xms"$HEAP" -Xmx"$HEAP" -XX:+UseG1GC -cp "$CP" \
+    "$ROOT/benchmarks/order-store/OrderStoreFootprint.java" "$mode" "$ORDERS" "$ITEMS" "$POLLS" "$READS")
+  printf '%-8s %7s %6s %6s %16s %9s %7s %13s\n' "$mode" "$ORDERS" "$ITEMS" "$POLLS" "$perOrder" "$gcCount" "$gcMs" "$allocatedMb"
+done
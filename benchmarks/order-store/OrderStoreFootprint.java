@@ -0,0 +1,133 @@
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.service.CompactOrder;
+import com.restaurant.kds_service.service.StringDictionary;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Active-order store footprint: replays POLLS polls of ORDERS active orders (ITEMS items each, JSON
+ * decoded by Jackson like the RestTemplate does) and keeps the latest poll either as the boxed DTO list
+ * (the previous OrderPollingService cache) or as CompactOrder values; each poll is followed by READS
+ * reads of the whole list (a copy for boxed, a conversion back to DTOs for compact).
+ * Prints "<retained bytes/order> <gc count> <gc ms> <allocated MB>".
+ *
+ * Usage: java -cp kds-service/target/classes:<deps> OrderStoreFootprint.java <boxed|compact> <orders> <items> <polls> [reads]
+ */
+public class OrderStoreFootprint {
+
+    private static final String[] STATUSES = {"PENDING", "PREPARING", "READY"};
+    private static final String[] MENU = {
+            "Burger", "Cheeseburger", "Veggie Burger", "Chicken Wrap", "Caesar Salad", "Greek Salad",
+            "Margherita Pizza", "Pepperoni Pizza", "Fries", "Sweet Potato Fries", "Onion Rings", "Club Sandwich",
+            "Fish and Chips", "Grilled Salmon", "Ribeye Steak", "Pasta Carbonara", "Penne Arrabbiata", "Lasagna",
+            "Tomato Soup", "Chicken Noodle Soup", "Chocolate Cake", "Cheesecake", "Ice Cream", "Lemonade",
+            "Iced Tea", "Cola", "Espresso", "Cappuccino", "Fruit Bowl", "Garlic Bread"};
+
+    private static Object retained;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args[0];
+        int orders = Integer.parseInt(args[1]);
+        int items = Integer.parseInt(args[2]);
+        int polls = Integer.parseInt(args[3]);
+        int reads = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        byte[] json = mapper.writeValueAsBytes(generate(orders, items));
+        TypeReference<List<KitchenOrderResponse>> type = new TypeReference<>() {};
+        boolean compact = "compact".equals(mode);
+        StringDictionary statuses = new StringDictionary();
+        StringDictionary itemNames = new StringDictionary();
+        long checksum = 0;
+
+        long gcCount = gcCount();
+        long gcMs = gcTime();
+        long allocated = allocatedBytes();
+        for (int poll = 0; poll < polls; poll++) {
+            List<KitchenOrderResponse> polled = mapper.readValue(json, type);
+            if (compact) {
+                List<CompactOrder> store = new ArrayList<>(polled.size());
+                for (KitchenOrderResponse order : polled) {
+                    store.add(CompactOrder.of(order, statuses, itemNames));
+                }
+                retained = List.copyOf(store);
+                for (int read = 0; read < reads; read++) {
+                    for (CompactOrder order : store) {
+                        checksum += order.toResponse(statuses, itemNames).getItems().size();
+                    }
+                }
+            } else {
+                retained = List.copyOf(polled);
+                for (int read = 0; read < reads; read++) {
+                    checksum += new ArrayList<>(polled).size();
+                }
+            }
+        }
+        allocated = allocatedBytes() - allocated;
+        gcCount = gcCount() - gcCount;
+        gcMs = gcTime() - gcMs;
+
+        long withStore = settledHeapUsed();
+        retained = null;
+        statuses = null;
+        itemNames = null;
+        long withoutStore = settledHeapUsed();
+
+        System.out.printf("%d %d %d %d%n", (withStore - withoutStore) / orders, gcCount, gcMs, allocated >> 20);
+        if (checksum == 42) {
+            System.err.println();
+        }
+    }
+
+    private static List<KitchenOrderResponse> generate(int orders, int items) {
+        Random random = new Random(7);
+        LocalDateTime now = LocalDateTime.now();
+        List<KitchenOrderResponse> result = new ArrayList<>(orders);
+        for (int o = 0; o < orders; o++) {
+            List<KitchenOrderResponse.OrderItem> lines = new ArrayList<>(items);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < items; i++) {
+                int menu = random.nextInt(MENU.length);
+                BigDecimal price = BigDecimal.valueOf(500 + menu * 75L, 2);
+                int quantity = 1 + random.nextInt(3);
+                lines.add(new KitchenOrderResponse.OrderItem((long) o * items + i, (long) menu, MENU[menu], quantity, price));
+                total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+            }
+            result.add(new KitchenOrderResponse(10_000L + o, 1L + random.nextInt(40), 100L + random.nextInt(500),
+                    STATUSES[random.nextInt(STATUSES.length)], total,
+                    now.minusSeconds(random.nextInt(3600)).withNano(random.nextInt(1_000_000) * 1000), lines));
+        }
+        return result;
+    }
+
+    private static long settledHeapUsed() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
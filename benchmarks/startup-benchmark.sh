@@ -0,0 +1,101 @@
+#!/usr/bin/env bash
+# Startup benchmark for the kds-service and waiter-service image variants
+#
+# Builds every Dockerfile target (jvm, cds, aot, native), starts each image RUNS times and reports:
+#   - time-to-ready: docker run -> first HTTP 200 from the service health endpoint
+#   - MEM: container memory usage (docker stats MemUsage, not RSS) right after it became ready, in MiB
+#
+# Runs that time out are reported and left out of the min/avg; OK shows how many runs succeeded
+#
+# Usage: ./benchmarks/startup-benchmark.sh [service...]     (default: kds-service waiter-service)
+# Env:   RUNS=5  VARIANTS="jvm cds aot native"  SKIP_BUILD=1
+#
+# Kafka is pointed at an unreachable PLAINTEXT broker on purpose: both services become ready
+# without it, and the benchmark measures startup cost only, not broker connection time.
+
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${RUNS:-5}"
+VARIANTS="${VARIANTS:-jvm cds aot native}"
+SERVICES=("$@")
+[ ${#SERVICES[@]} -eq 0 ] && SERVICES=(kds-service waiter-service)
+
+health_path() {
+  case "$1" in
+    kds-service) echo "8085 /api/kitchen/health" ;;
+    waiter-service) echo "8086 /api/waiter/health" ;;
+  esac
+}
+
+now_ms() { date +%s%3N; }
+
+build() {
+  local service="$1" variant="$2" target=()
+  [ "$variant" != "jvm" ] && target=(--target "$variant")
+  docker build -q "${target[@]}" -t "$service:$variant" "$ROOT/$service" > /dev/null
+}
+
+# docker stats MemUsage ("312.4MiB", "1.2GiB", "900kB") -> MiB
+to_mib() {
+  awk -v m="$1" 'BEGIN {
+    n = m + 0; u = m; sub(/^[0-9.]+/, "", u)
+    f = (u ~ /^G/) ? 1024 : (u ~ /^M/) ? 1 : (u ~ /^[kK]/) ? 1 / 1024 : 1 / 1048576
+    printf "%.0f", n * f
+  }'
+}
+
+measure() {
+  local service="$1" variant="$2" port path name start ready mem
+  read -r port path < <(health_path "$service")
+  name="startup-bench-$service-$variant"
+  docker rm -f "$name" > /dev/null 2>&1 || true
+
+  start=$(now_ms)
+  docker run -d --name "$name" -p "$port:$port" \
+    -e SPRING_KAFKA_BOOTSTRAP_SERVERS=localhost:9092 \
+    -e SPRING_KAFKA_PROPERTIES_SECURITY_PROTOCOL=PLAINTEXT \
+    -e ORDER_SERVICE_BASE_URL=http://localhost:9/api/orders \
+    -e WEBHOOK_URL=http://localhost:9/webhook \
+    "$service:$variant" > /dev/null
+
+  until curl -sf "http://localhost:$port$path" > /dev/null 2>&1; do
+    if [ $(( $(now_ms) - start )) -gt 120000 ]; then
+      echo "timeout waiting for $service:$variant" >&2
+      docker logs "$name" | tail -20 >&2
+      docker rm -f "$name" > /dev/null
+      return 1
+    fi
+    sleep 0.05
+  done
+  ready=$(( $(now_ms) - start ))
+  mem=$(to_mib "$(docker stats --no-stream --format '{{.MemUsage}}' "$name" | cut -d/ -f1 | tr -d ' ')")
+
+  docker rm -f "$name" > /dev/null
+  echo "$ready $mem"
+}
+
+printf '%-16s %-8s %-6s %14s %14s %14s %14s\n' SERVICE VARIANT OK "READY_MIN_MS" "READY_AVG_MS" "MEM_MIN_MIB" "MEM_AVG_MIB"
+for service in "${SERVICES[@]}"; do
+  for variant in $VARIANTS; do
+    [ -z "${SKIP_BUILD:-}" ] && build "$service" "$variant"
+    ok=0 total=0 min=0 mem_total=0 mem_min=0
+    for _ in $(seq "$RUNS"); do
+      if ! result=$(measure "$service" "$variant"); then
+        continue
+      fi
+      read -r ms mem <<< "$result"
+      ok=$(( ok + 1 ))
+      total=$(( total + ms ))
+      mem_total=$(( mem_total + mem ))
+      if [ "$ok" -eq 1 ] || [ "$ms" -lt "$min" ]; then min=$ms; fi
+      if [ "$ok" -eq 1 ] || [ "$mem" -lt "$mem_min" ]; then mem_min=$mem; fi
+    done
+    if [ "$ok" -eq 0 ]; then
+      printf '%-16s %-8s %-6s %14s %14s %14s %14s\n' "$service" "$variant" "0/$RUNS" - - - -
+      continue
+    fi
+    printf '%-16s %-8s %-6s %14s %14s %14s %14s\n' "$service" "$variant" "$ok/$RUNS" \
+      "$min" "$(( total / ok ))" "$mem_min" "$(( mem_total / ok ))"
+  done
+done
@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# Platform vs virtual threads benchmark for kds-service (spring.threads.virtual.enabled)
+#
+# Starts a stub Order Service that answers every call after DELAY_MS, then runs the kds-service jar once
+# per mode and drives POST /api/kitchen/orders/{id}/preparing (one blocking Order Service PATCH each)
+# from CONCURRENCY closed-loop clients, reporting throughput and latency percentiles:
+#   - platform: Tomcat's 200 request threads cap in-flight calls at 200 / DELAY_MS
+#   - virtual:  one virtual thread per request, bounded only by the Order Service connection pool
+#
+# Usage: ./benchmarks/virtual-threads-benchmark.sh
+# Env:   CONCURRENCY=1000  DELAY_MS=200  DURATION=30  WARMUP=5  MODES="platform virtual"  SKIP_BUILD=1
+#
+# Needs JDK 21 on the PATH. Kafka is pointed at an unreachable PLAINTEXT broker; the PREPARING
+# transition does not publish events, so the broker is never on the measured path. Write-behind and
+# hedging are off so every request makes exactly one blocking call.
+
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BENCH="$ROOT/benchmarks/virtual-threads"
+CONCURRENCY="${CONCURRENCY:-1000}"
+DELAY_MS="${DELAY_MS:-200}"
+DURATION="${DURATION:-30}"
+WARMUP="${WARMUP:-5}"
+MODES="${MODES:-platform virtual}"
+STUB_PORT=9090
+KDS_PORT=8085
+
+now_ms() { date +%s%3N; }
+
+cleanup() {
+  [ -n "${KDS_PID:-}" ] && kill "$KDS_PID" 2> /dev/null || true
+  [ -n "${STUB_PID:-}" ] && kill "$STUB_PID" 2> /dev/null || true
+}
+trap cleanup EXIT
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+  (cd "$ROOT/kds-service" && mvn -B -q package -DskipTests)
+fi
+JAR="$(ls "$ROOT"/kds-service/target/kds-service-*.jar | grep -v original | head -1)"
+
+java "$BENCH/SlowOrderService.java" "$STUB_PORT" "$DELAY_MS" &
+STUB_PID=$!
+
+printf '%-9s %11s %9s %8s %12s %10s %10s %10s\n' MODE CONCURRENCY REQUESTS ERRORS "THROUGHPUT/S" "P50_MS" "P99_MS" "MAX_MS"
+for mode in $MODES; do
+  virtual=false
+  [ "$mode" = "virtual" ] && virtual=true
+
+  VIRTUAL_THREADS_ENABLED="$virtual" \
+  ORDER_SERVICE_BASE_URL="http://localhost:$STUB_PORT/api/orders" \
+  ORDER_SERVICE_MAX_CONNECTIONS="$CONCURRENCY" \
+  ORDER_SERVICE_HEDGING_ENABLED=false \
+  WRITE_BEHIND_ENABLED=false \
+  SNAPSHOT_ENABLED=false \
+  SPRING_KAFKA_BOOTSTRAP_SERVERS=localhost:9 \
+  SPRING_KAFKA_PROPERTIES_SECURITY_PROTOCOL=PLAINTEXT \
+    java -jar "$JAR" --server.port="$KDS_PORT" --logging.level.root=WARN \
+      --logging.level.com.restaurant.kds_service=WARN --logging.level.org.springframework.kafka=WARN \
+      --logging.level.org.apache.kafka=ERROR > "/tmp/kds-$mode.log" 2>&1 &
+  KDS_PID=$!
+
+  start=$(now_ms)
+  until curl -sf "http://localhost:$KDS_PORT/api/kitchen/health" > /dev/null 2>&1; do
+    if [ $(( $(now_ms) - start )) -gt 120000 ]; then
+      echo "timeout waiting for kds-service ($mode)" >&2
+      tail -20 "/tmp/kds-$mode.log" >&2
+      exit 1
+    fi
+    sleep 0.2
+  done
+
+  read -r requests errors throughput p50 p99 max < <(java "$BENCH/LoadGenerator.java" \
+    "http://localhost:$KDS_PORT" "$CONCURRENCY" "$DURATION" "$WARMUP")
+  printf '%-9s %11s %9s %8s %12s %10s %10s %10s\n' "$mode" "$CONCURRENCY" "$requests" "$errors" "$throughput" "$p50" "$p99" "$max"
+
+  kill "$KDS_PID"
+  wait "$KDS_PID" 2> /dev/null || true
+  KDS_PID=""
+done
@@ -0,0 +1,93 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator: CONCURRENCY clients each POST /api/kitchen/orders/{id}/preparing back to
+ * back for the duration and the result line is printed as
+ *   "<requests> <errors> <throughput req/s> <p50 ms> <p99 ms> <max ms>"
+ * Latencies of the first warm-up seconds are discarded.
+ *
+ * Usage: java LoadGenerator.java <baseUrl> <concurrency> <durationSec> [warmupSec]
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        long durationMs = Long.parseLong(args[2]) * 1000;
+        long warmupMs = args.length > 3 ? Long.parseLong(args[3]) * 1000 : 5000;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicLong orderIds = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> perClient = new ArrayList<>();
+        int[] counts = new int[concurrency];
+
+        long start = System.currentTimeMillis();
+        long measureFrom = start + warmupMs;
+        long end = measureFrom + durationMs;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                long[] latencies = new long[1 << 16];
+                perClient.add(latencies);
+                int index = c;
+                clients.execute(() -> {
+                    while (System.currentTimeMillis() < end) {
+                        long id = orderIds.incrementAndGet();
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/kitchen/orders/" + id + "/preparing"))
+                                .timeout(Duration.ofSeconds(60))
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build();
+                        long sent = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long now = System.currentTimeMillis();
+                        if (now < measureFrom || now > end) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        } else if (counts[index] < latencies.length) {
+                            latencies[counts[index]++] = (System.nanoTime() - sent) / 1000;
+                        }
+                    }
+                });
+            }
+        }
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < concurrency; c++) {
+            System.arraycopy(perClient.get(c), 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("%d %d %.1f %.1f %.1f %.1f%n", total, errors.get(), total * 1000.0 / durationMs,
+                percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0.0 : all[all.length - 1] / 1000.0);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1000.0;
+    }
+}
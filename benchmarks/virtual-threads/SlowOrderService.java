@@ -0,0 +1,134 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stub Order Service for the virtual-thread and hedging benchmarks: answers the two calls the KDS makes,
+ * each after a fixed delay. Minimal keep-alive HTTP/1.1 with one virtual thread per connection, so the
+ * stub never queues requests itself and every bit of latency above the delay comes from the KDS.
+ * With tailPercent > 0 that share of requests stalls for tailDelayMs instead (gateway hiccups). A request
+ * whose X-Request-Timeout-Ms is shorter than its delay gets 504 once that time is up, like an upstream
+ * that honours the propagated deadline.
+ *
+ *   GET   /api/orders/active              -> []
+ *   PATCH /api/orders/{id}/status         -> the order with the requested status
+ *
+ * Usage: java SlowOrderService.java [port] [delayMs] [tailPercent] [tailDelayMs]     (default 9090 200 0 3000)
+ */
+public class SlowOrderService {
+
+    private static final Pattern STATUS_PATH = Pattern.compile("/api/orders/(\\d+)/status");
+    private static final Pattern STATUS_BODY = Pattern.compile("\"status\"\\s*:\\s*\"(\\w+)\"");
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        long delayMs = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        double tailPercent = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        long tailDelayMs = args.length > 3 ? Long.parseLong(args[3]) : 3000;
+
+        try (ServerSocket server = new ServerSocket(port, 4096);
+             ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()) {
+            System.out.printf("SlowOrderService listening on %d with %d ms delay, %.1f%% stalled for %d ms%n",
+                    port, delayMs, tailPercent, tailDelayMs);
+            while (true) {
+                Socket socket = server.accept();
+                connections.execute(() -> serve(socket, delayMs, tailPercent, tailDelayMs));
+            }
+        }
+    }
+
+    private static void serve(Socket socket, long delayMs, double tailPercent, long tailDelayMs) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            String requestLine;
+            while ((requestLine = readLine(in)) != null) {
+                int contentLength = 0;
+                boolean chunked = false;
+                long timeoutMs = Long.MAX_VALUE;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                        contentLength = Integer.parseInt(header.substring(15).trim());
+                    } else if (header.regionMatches(true, 0, "Transfer-Encoding:", 0, 18)) {
+                        chunked = header.toLowerCase().contains("chunked");
+                    } else if (header.regionMatches(true, 0, "X-Request-Timeout-Ms:", 0, 21)) {
+                        timeoutMs = Long.parseLong(header.substring(21).trim());
+                    }
+                }
+                String body = new String(chunked ? readChunked(in) : in.readNBytes(contentLength), StandardCharsets.UTF_8);
+                long delay = ThreadLocalRandom.current().nextDouble(100) < tailPercent ? tailDelayMs : delayMs;
+                Thread.sleep(Math.min(delay, timeoutMs));
+                if (delay > timeoutMs) {
+                    write(out, 504, " Gateway Timeout", "{}");
+                } else {
+                    respond(out, requestLine.split(" ")[1], body);
+                }
+            }
+        } catch (IOException e) {
+            // Client closed the connection
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(OutputStream out, String path, String body) throws IOException {
+        int code = 200;
+        String json;
+        Matcher matcher = STATUS_PATH.matcher(path);
+        if (path.endsWith("/active")) {
+            json = "[]";
+        } else if (matcher.matches()) {
+            Matcher status = STATUS_BODY.matcher(body);
+            json = """
+                    {"id":%s,"tableId":%d,"userId":1,"status":"%s","totalAmount":12.50,"createdAt":"2024-01-01T12:00:00",\
+                    "items":[{"id":1,"itemId":1,"itemName":"Burger","quantity":1,"unitPrice":12.50}]}"""
+                    .formatted(matcher.group(1), Long.parseLong(matcher.group(1)) % 20 + 1, status.find() ? status.group(1) : "PREPARING");
+        } else {
+            code = 404;
+            json = "{}";
+        }
+        write(out, code, code == 200 ? " OK" : " Not Found", json);
+    }
+
+    private static void write(OutputStream out, int code, String reason, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        out.write(("HTTP/1.1 " + code + reason + "\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static byte[] readChunked(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int size;
+        do {
+            String sizeLine = readLine(in);
+            size = sizeLine == null ? 0 : Integer.parseInt(sizeLine.split(";")[0].trim(), 16);
+            body.write(in.readNBytes(size));
+            readLine(in);
+        } while (size > 0);
+        return body.toByteArray();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -2,6 +2,7 @@ package com.restaurant.kds_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
@@ -9,7 +10,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class KdsServiceApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(KdsServiceApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(KdsServiceApplication.class, args);
+
+		// AppCDS training run (Dockerfile target "cds"): exit once started so the JVM dumps its class archive
+		if (Boolean.getBoolean("cds.training")) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
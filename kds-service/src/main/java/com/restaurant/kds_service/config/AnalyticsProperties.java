@@ -0,0 +1,39 @@
+package com.restaurant.kds_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prep-time analytics behind GET /api/kitchen/analytics
+ * analytics.stations maps a station to the menu item names it prepares, e.g. {@code grill: [Burger, Steak]};
+ * items outside every station are reported under "unassigned"
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsProperties {
+
+    /**
+     * Rolling window the percentiles cover, split into window-slots sub-windows that expire one at a time
+     */
+    private long windowMinutes = 60;
+
+    private int windowSlots = 6;
+
+    /**
+     * Number of 5-minute throughput windows kept (288 = 24 hours)
+     */
+    private int throughputWindows = 288;
+
+    /**
+     * Distinct menu items tracked individually; further items are folded into "other"
+     */
+    private int maxItems = 500;
+
+    private Map<String, List<String>> stations = new HashMap<>();
+}
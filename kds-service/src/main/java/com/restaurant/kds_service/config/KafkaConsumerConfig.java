@@ -0,0 +1,30 @@
+package com.restaurant.kds_service.config;
+
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka Consumer configuration for the order-served listener (Boot's consumer factory)
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer saslConsumerFactoryCustomizer() {
+        return factory -> {
+            // SASL_SSL configuration for Azure Event Hubs, as for the producer
+            String jaasConfig = System.getenv("JAAS_CONFIG");
+            if (jaasConfig != null && !jaasConfig.isEmpty()) {
+                Map<String, Object> configProps = new HashMap<>();
+                configProps.put("security.protocol", "SASL_SSL");
+                configProps.put("sasl.mechanism", "PLAIN");
+                configProps.put("sasl.jaas.config", jaasConfig);
+                factory.updateConfigs(configProps);
+            }
+        };
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.kafka.support.serializer.JsonSerializer;
 import com.restaurant.kds_service.dto.OrderReadyEvent;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,6 +25,12 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    private final PartitioningProperties partitioningProperties;
+
+    public KafkaProducerConfig(PartitioningProperties partitioningProperties) {
+        this.partitioningProperties = partitioningProperties;
+    }
+
     @Bean
     public ProducerFactory<String, OrderReadyEvent> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -31,6 +38,9 @@ public class KafkaProducerConfig {
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        configProps.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, OrderReadyPartitioner.class);
+        configProps.put(OrderReadyPartitioner.STRATEGY_CONFIG, partitioningProperties.getStrategy());
+        configProps.put(OrderReadyPartitioner.SECTION_BY_TABLE_CONFIG, sectionByTable());
 
         // SASL_SSL configuration for Azure Event Hubs
         String jaasConfig = System.getenv("JAAS_CONFIG");
@@ -43,6 +53,16 @@ public class KafkaProducerConfig {
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
+    private Map<Long, String> sectionByTable() {
+        Map<Long, String> sectionByTable = new HashMap<>();
+        for (Map.Entry<String, List<Long>> section : partitioningProperties.getSections().entrySet()) {
+            for (Long tableId : section.getValue()) {
+                sectionByTable.put(tableId, section.getKey());
+            }
+        }
+        return sectionByTable;
+    }
+
     @Bean
     public KafkaTemplate<String, OrderReadyEvent> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
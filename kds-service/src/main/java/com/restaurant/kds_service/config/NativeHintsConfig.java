@@ -0,0 +1,61 @@
+package com.restaurant.kds_service.config;
+
+import com.restaurant.kds_service.dto.KitchenAnalyticsResponse;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.KitchenTicket;
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import com.restaurant.kds_service.dto.OrderServedEvent;
+import com.restaurant.kds_service.dto.OrderSnapshot;
+import com.restaurant.kds_service.dto.PendingStatusUpdate;
+import com.restaurant.kds_service.dto.RecentOrder;
+import com.restaurant.kds_service.dto.TicketOverdueAlert;
+import com.restaurant.kds_service.dto.UpdateOrderStatusRequest;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * GraalVM native image hints (used by the -Pnative build only)
+ * Lombok DTOs are bound by Jackson via reflection, and the Kafka (de)serializers and partitioner are
+ * instantiated by class name from the client config, so neither is visible to AOT analysis
+ */
+@Configuration
+@RegisterReflectionForBinding({
+        KitchenAnalyticsResponse.class,
+        KitchenAnalyticsResponse.DurationStats.class,
+        KitchenAnalyticsResponse.ThroughputWindow.class,
+        KitchenOrderResponse.class,
+        KitchenOrderResponse.OrderItem.class,
+        KitchenTicket.class,
+        OrderReadyEvent.class,
+        OrderReadyEvent.OrderItem.class,
+        OrderServedEvent.class,
+        OrderSnapshot.class,
+        PendingStatusUpdate.class,
+        RecentOrder.class,
+        TicketOverdueAlert.class,
+        UpdateOrderStatusRequest.class
+})
+@ImportRuntimeHints(NativeHintsConfig.KafkaSerializerHints.class)
+public class NativeHintsConfig {
+
+    static class KafkaSerializerHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : new String[] {
+                    "org.apache.kafka.common.serialization.StringSerializer",
+                    "org.apache.kafka.common.serialization.StringDeserializer",
+                    "org.springframework.kafka.support.serializer.JsonSerializer",
+                    "org.springframework.kafka.support.serializer.JsonDeserializer",
+                    "org.springframework.kafka.support.serializer.ErrorHandlingDeserializer",
+                    "com.restaurant.kds_service.config.OrderReadyPartitioner"}) {
+                hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.restaurant.kds_service.config;
+
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Partitioner for the order-ready topic (see PartitioningProperties)
+ * The record key stays the orderId whatever the strategy; only the partition choice changes.
+ * All strategies hash with murmur2 like the default partitioner - keep in sync with the waiter
+ * service's PartitionOwnership, which computes the same partition for a table or section
+ */
+public class OrderReadyPartitioner implements Partitioner {
+
+    public static final String STRATEGY_ORDER = "order";
+    public static final String STRATEGY_TABLE = "table";
+    public static final String STRATEGY_SECTION = "section";
+
+    // Producer config keys, passed through from KafkaProducerConfig
+    public static final String STRATEGY_CONFIG = "order-ready.partitioning.strategy";
+    public static final String SECTION_BY_TABLE_CONFIG = "order-ready.partitioning.section-by-table";
+
+    private String strategy = STRATEGY_ORDER;
+    private Map<Long, String> sectionByTable = Map.of();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs) {
+        Object configuredStrategy = configs.get(STRATEGY_CONFIG);
+        if (configuredStrategy != null) {
+            strategy = configuredStrategy.toString().trim().toLowerCase();
+        }
+        if (!STRATEGY_ORDER.equals(strategy) && !STRATEGY_TABLE.equals(strategy) && !STRATEGY_SECTION.equals(strategy)) {
+            throw new IllegalArgumentException("Unknown partitioning strategy: " + configuredStrategy);
+        }
+        Object sections = configs.get(SECTION_BY_TABLE_CONFIG);
+        if (sections instanceof Map<?, ?> map) {
+            sectionByTable = Map.copyOf((Map<Long, String>) map);
+        }
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int numPartitions = cluster.partitionsForTopic(topic).size();
+        Long tableId = value instanceof OrderReadyEvent event ? event.getTableId() : null;
+        return partition(strategy, keyBytes, tableId, tableId == null ? null : sectionByTable.get(tableId), numPartitions);
+    }
+
+    /**
+     * Partition for one event; events without a tableId always go by key
+     */
+    static int partition(String strategy, byte[] keyBytes, Long tableId, String section, int numPartitions) {
+        byte[] hashed = keyBytes;
+        if (tableId != null && STRATEGY_SECTION.equals(strategy) && section != null) {
+            hashed = section.getBytes(StandardCharsets.UTF_8);
+        } else if (tableId != null && !STRATEGY_ORDER.equals(strategy)) {
+            hashed = tableId.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        if (hashed == null) {
+            throw new IllegalArgumentException("order-ready records need a key to be partitioned");
+        }
+        return Utils.toPositive(Utils.murmur2(hashed)) % numPartitions;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,27 @@
+package com.restaurant.kds_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How order-ready events are spread over the partitions of the order-ready topic
+ * - order:   by orderId (record key), the Kafka default
+ * - table:   by tableId, so every event for a table lands on one partition in publish order
+ * - section: by section id from partitioning.sections (tables outside any section fall back to table)
+ * strategy and sections must match routing.partitioning / routing.sections on the waiter service,
+ * which derives section ownership from the same mapping
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "partitioning")
+public class PartitioningProperties {
+
+    private String strategy = OrderReadyPartitioner.STRATEGY_ORDER;
+
+    private Map<String, List<Long>> sections = new HashMap<>();
+}
@@ -1,7 +1,13 @@
 package com.restaurant.kds_service.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -10,14 +16,33 @@ import org.springframework.web.client.RestTemplate;
 /**
  * Configuration for REST client to communicate with Order Service via API Gateway
  * Uses Apache HttpClient5 to support PATCH HTTP method
+ * The connection pool is sized by order-service.http.max-connections: HttpClient's default of 5 per
+ * route would cap concurrent Order Service calls far below what Tomcat (and virtual threads) can serve
+ * Reads time out at order-service.hedging.deadline-ms: past it OrderServiceClient has given up on the call,
+ * so an abandoned attempt should not hold its connection any longer
  */
 @Configuration
 public class RestClientConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(
+            @Value("${order-service.http.max-connections:200}") int maxConnections,
+            @Value("${order-service.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${order-service.hedging.deadline-ms:10000}") long deadlineMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(deadlineMs))
+                        .build())
+                .build();
+
         // Create Apache HttpClient5 which supports PATCH
-        CloseableHttpClient httpClient = HttpClients.createDefault();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
 
         // Configure RestTemplate to use Apache HttpClient
         HttpComponentsClientHttpRequestFactory factory =
@@ -26,4 +51,3 @@ public class RestClientConfig {
         return new RestTemplate(factory);
     }
 }
-
@@ -1,12 +1,23 @@
 package com.restaurant.kds_service.controller;
 
+import com.restaurant.kds_service.dto.KitchenAnalyticsResponse;
 import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.KitchenTicket;
+import com.restaurant.kds_service.dto.RecentOrder;
+import com.restaurant.kds_service.service.KitchenAnalytics;
+import com.restaurant.kds_service.service.KitchenEventStream;
 import com.restaurant.kds_service.service.KitchenService;
 import com.restaurant.kds_service.service.OrderPollingService;
+import com.restaurant.kds_service.service.OrderServiceClient;
+import com.restaurant.kds_service.service.RecallBuffer;
+import com.restaurant.kds_service.service.StatusUpdateQueue;
+import com.restaurant.kds_service.service.TicketQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -23,22 +34,87 @@ public class KitchenController {
 
     private final OrderPollingService orderPollingService;
     private final KitchenService kitchenService;
+    private final KitchenAnalytics kitchenAnalytics;
+    private final KitchenEventStream kitchenEventStream;
+    private final RecallBuffer recallBuffer;
+    private final TicketQueue ticketQueue;
+    private final StatusUpdateQueue statusUpdateQueue;
+    private final OrderServiceClient orderServiceClient;
 
-    public KitchenController(OrderPollingService orderPollingService, KitchenService kitchenService) {
+    public KitchenController(OrderPollingService orderPollingService, KitchenService kitchenService,
+                             KitchenAnalytics kitchenAnalytics, KitchenEventStream kitchenEventStream,
+                             RecallBuffer recallBuffer, TicketQueue ticketQueue, StatusUpdateQueue statusUpdateQueue,
+                             OrderServiceClient orderServiceClient) {
         this.orderPollingService = orderPollingService;
         this.kitchenService = kitchenService;
+        this.kitchenAnalytics = kitchenAnalytics;
+        this.kitchenEventStream = kitchenEventStream;
+        this.recallBuffer = recallBuffer;
+        this.ticketQueue = ticketQueue;
+        this.statusUpdateQueue = statusUpdateQueue;
+        this.orderServiceClient = orderServiceClient;
     }
 
     /**
      * Get all active orders for kitchen display
      * Data source: Redis cache (if enabled) then In-memory cache then Empty list
+     * Snapshot headers tell screens whether the data is a warm-start snapshot not yet confirmed by a poll
      */
     @GetMapping("/orders")
     public ResponseEntity<List<KitchenOrderResponse>> getActiveOrders() {
         logger.info("GET /api/kitchen/orders - Fetching active orders");
         List<KitchenOrderResponse> orders = orderPollingService.getActiveOrders();
         logger.info("Returning {} active orders", orders.size());
-        return ResponseEntity.ok(orders);
+        return ResponseEntity.ok()
+                .header("X-Snapshot-Stale", String.valueOf(orderPollingService.isStale()))
+                .header("X-Snapshot-Version", String.valueOf(orderPollingService.getSnapshotVersion()))
+                .header("X-Snapshot-Captured-At", String.valueOf(orderPollingService.getSnapshotCapturedAtEpochMs()))
+                .body(orders);
+    }
+
+    /**
+     * Tickets still being worked (not READY) in display order - rush priority first, then oldest first -
+     * with their age and the highest overdue threshold passed; paged straight off the ticket queue
+     */
+    @GetMapping("/tickets")
+    public ResponseEntity<List<KitchenTicket>> getTickets(@RequestParam(defaultValue = "0") int offset,
+                                                          @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(ticketQueue.size()))
+                .body(orderPollingService.getTickets(Math.max(0, offset), Math.min(Math.max(0, limit), 500)));
+    }
+
+    /**
+     * Rush a ticket to the front (higher level first), or back to normal with level=0
+     */
+    @PostMapping("/orders/{orderId}/priority")
+    public ResponseEntity<Void> setTicketPriority(@PathVariable Long orderId, @RequestParam int level) {
+        return ticketQueue.setPriority(orderId, level) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Orders that recently left the display (bumped READY, served, or dropped by the Order Service),
+     * most recent first, served from the local recall buffer
+     */
+    @GetMapping("/orders/recent")
+    public ResponseEntity<List<RecentOrder>> getRecentOrders(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(recallBuffer.recent(limit));
+    }
+
+    /**
+     * Undo a bump: put a recently removed order back to PREPARING
+     * 404 when the order is not in the recall buffer (too old or never on this display)
+     */
+    @PostMapping("/orders/{orderId}/recall")
+    public ResponseEntity<KitchenOrderResponse> recallOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Table-Id", required = false) String tableId) {
+        logger.info("POST /api/kitchen/orders/{}/recall - Recalling order to PREPARING (userId: {}, tableId: {})",
+                orderId, userId, tableId);
+        KitchenOrderResponse recalled = kitchenService.recallOrder(orderId, authHeader, userId, tableId);
+        return recalled == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(recalled);
     }
 
     /**
@@ -47,6 +123,7 @@ public class KitchenController {
      * 1. Update Order Service status to READY
      * 2. If successful then Publish Kafka event
      * 3. If failed then Return error (no Kafka event)
+     * 404 in write-behind mode when the order is unknown to this KDS
      */
     @PostMapping("/orders/{orderId}/ready")
     public ResponseEntity<KitchenOrderResponse> markOrderReady(
@@ -57,12 +134,15 @@ public class KitchenController {
         logger.info("POST /api/kitchen/orders/{}/ready - Marking order as READY (userId: {}, tableId: {})",
                 orderId, userId, tableId);
         KitchenOrderResponse updatedOrder = kitchenService.markOrderAsReady(orderId, authHeader, userId, tableId);
+        if (updatedOrder == null) {
+            return ResponseEntity.notFound().build();
+        }
         logger.info("Order {} marked as READY successfully", orderId);
         return ResponseEntity.ok(updatedOrder);
     }
 
     /**
-     * Change order status to PREPARING
+     * Change order status to PREPARING (404 in write-behind mode when the order is unknown to this KDS)
      */
     @PostMapping("/orders/{orderId}/preparing")
     public ResponseEntity<KitchenOrderResponse> markOrderPreparing(
@@ -73,12 +153,15 @@ public class KitchenController {
         logger.info("POST /api/kitchen/orders/{}/preparing - Marking order as PREPARING (userId: {}, tableId: {})",
                 orderId, userId, tableId);
         KitchenOrderResponse updatedOrder = kitchenService.updateOrderStatus(orderId, "PREPARING", authHeader, userId, tableId);
+        if (updatedOrder == null) {
+            return ResponseEntity.notFound().build();
+        }
         logger.info("Order {} marked as PREPARING successfully", orderId);
         return ResponseEntity.ok(updatedOrder);
     }
 
     /**
-     * Change order status to CREATED
+     * Change order status to CREATED (404 in write-behind mode when the order is unknown to this KDS)
      */
     @PostMapping("/orders/{orderId}/confirmed")
     public ResponseEntity<KitchenOrderResponse> markOrderConfirmed(
@@ -89,10 +172,33 @@ public class KitchenController {
         logger.info("POST /api/kitchen/orders/{}/confirmed - Marking order as CONFIRMED (userId: {}, tableId: {})",
                 orderId, userId, tableId);
         KitchenOrderResponse updatedOrder = kitchenService.updateOrderStatus(orderId, "CONFIRMED", authHeader, userId, tableId);
+        if (updatedOrder == null) {
+            return ResponseEntity.notFound().build();
+        }
         logger.info("Order {} marked as CONFIRMED successfully", orderId);
         return ResponseEntity.ok(updatedOrder);
     }
 
+    /**
+     * Prep-time percentiles (overall, per station, per item), time in each status, queue depth by status
+     * and throughput per 5-minute window
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<KitchenAnalyticsResponse> getAnalytics() {
+        return ResponseEntity.ok(kitchenAnalytics.getAnalytics());
+    }
+
+    /**
+     * Server-sent events for kitchen screens
+     * order-served: a waiter picked the order up, remove the ticket ({orderId, tableId, servedBy, servedTime})
+     * ticket-overdue: a ticket passed one of tickets.alert-minutes ({orderId, tableId, createdAt, thresholdMinutes})
+     * status-update-rejected: the Order Service refused a write-behind status change ({orderId, status, reason})
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return kitchenEventStream.subscribe();
+    }
+
     /**
      * Health check endpoint
      */
@@ -122,6 +228,12 @@ public class KitchenController {
         
         // Show cached orders count
         status.put("cachedOrdersCount", orderPollingService.getActiveOrders().size());
+        status.put("snapshotVersion", orderPollingService.getSnapshotVersion());
+        status.put("snapshotStale", orderPollingService.isStale());
+        if (statusUpdateQueue.isEnabled()) {
+            status.put("statusWriteBehind", statusUpdateQueue.getStats());
+        }
+        status.put("orderServiceHedging", orderServiceClient.getStats());
         
         // Test order service connectivity
         try {
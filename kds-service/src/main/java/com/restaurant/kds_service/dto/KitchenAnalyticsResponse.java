@@ -0,0 +1,50 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kitchen analytics for the expo screen and capacity planning
+ * prepTime runs from PREPARING (or CONFIRMED when an order skips it) to READY, leadTime from createdAt to READY;
+ * percentiles cover the last windowMinutes, throughput is per 5-minute window, oldest first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenAnalyticsResponse {
+
+    private long generatedAtEpochMs;
+    private long windowMinutes;
+    private Map<String, Integer> queueDepth;
+    private DurationStats prepTime;
+    private DurationStats leadTime;
+    private Map<String, DurationStats> prepTimeByStation;
+    private Map<String, DurationStats> prepTimeByItem;
+    private Map<String, DurationStats> timeInStatus;
+    private List<ThroughputWindow> throughput;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DurationStats {
+        private long count;
+        private long p50Ms;
+        private long p90Ms;
+        private long p95Ms;
+        private long p99Ms;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ThroughputWindow {
+        private long startEpochMs;
+        private long created;
+        private long ready;
+        private long departed;
+    }
+}
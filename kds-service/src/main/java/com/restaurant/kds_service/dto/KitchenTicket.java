@@ -0,0 +1,20 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An entry of the ordered ticket queue (GET /api/kitchen/tickets)
+ * overdueMinutes: the highest tickets.alert-minutes threshold the ticket has passed, 0 while on time
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenTicket {
+
+    private KitchenOrderResponse order;
+    private int priority;
+    private long ageSeconds;
+    private int overdueMinutes;
+}
@@ -20,6 +20,16 @@ public class OrderReadyEvent implements Serializable {
     private Long tableId;
     private List<OrderItem> items;
     private LocalDateTime readyTime;
+    // Identity of the READY transition, fixed when the kitchen bumps the order; every publish of that
+    // transition (retries, repeated bumps, write-behind replays) carries the same id
+    private String eventId;
+
+    /**
+     * Event without a transition id, as published before ids existed
+     */
+    public OrderReadyEvent(Long orderId, Long tableId, List<OrderItem> items, LocalDateTime readyTime) {
+        this(orderId, tableId, items, readyTime, null);
+    }
 
     @Data
     @NoArgsConstructor
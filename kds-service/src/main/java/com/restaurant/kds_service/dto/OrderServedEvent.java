@@ -0,0 +1,22 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event consumed from Kafka when a waiter acknowledges pickup of a READY order
+ * Also pushed as-is to kitchen screens as the "order-served" stream event
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderServedEvent {
+
+    private Long orderId;
+    private Long tableId;
+    private String servedBy;
+    private LocalDateTime servedTime;
+}
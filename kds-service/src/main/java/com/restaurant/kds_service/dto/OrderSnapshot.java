@@ -0,0 +1,21 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Versioned copy of the active orders list as last seen from the Order Service
+ * Persisted locally so a restarted KDS can serve screens before its first poll
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSnapshot {
+
+    private long version;
+    private long capturedAtEpochMs;
+    private List<KitchenOrderResponse> orders;
+}
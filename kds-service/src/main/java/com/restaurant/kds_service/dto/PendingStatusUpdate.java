@@ -0,0 +1,30 @@
+package com.restaurant.kds_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A status change accepted by the KDS and not yet confirmed by the Order Service (write-behind mode)
+ * One per order: a later change replaces the status and seq. userId and tableId are forwarded on replay;
+ * the caller's Authorization header is not kept (replays use write-behind.service-token), and one left
+ * in a queue file written by an older version is ignored on load.
+ * eventId is the order-ready event id for a READY change (null otherwise), published once it is confirmed.
+ * attempts counts replays that failed in a way that may be down to this change (see StatusUpdateQueue).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PendingStatusUpdate {
+
+    private Long orderId;
+    private String status;
+    private long seq;
+    private long acceptedAtEpochMs;
+    private String eventId;
+    private String userId;
+    private String tableId;
+    private int attempts;
+}
@@ -0,0 +1,19 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An order that recently left the kitchen display, as held by the recall buffer
+ * reason: READY (bumped), SERVED (picked up) or LEFT_ACTIVE (dropped from the Order Service's active list)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecentOrder {
+
+    private KitchenOrderResponse order;
+    private String reason;
+    private long leftAtEpochMs;
+}
@@ -0,0 +1,21 @@
+package com.restaurant.kds_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to kitchen screens as the "ticket-overdue" stream event when a ticket passes an alert threshold
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketOverdueAlert {
+
+    private Long orderId;
+    private Long tableId;
+    private LocalDateTime createdAt;
+    private int thresholdMinutes;
+}
@@ -0,0 +1,177 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact in-memory form of an active order, as held by OrderPollingService
+ *
+ * Ids are primitives, createdAt is the local date-time as nanoseconds since the epoch (read as UTC, so
+ * no zone is involved), amounts are unscaled longs with their scale, and status and item names are
+ * StringDictionary codes. Items are flattened into two arrays of ITEM_FIELDS entries per item:
+ * longs = {id, itemId, unitPrice unscaled}, ints = {itemName code, quantity, unitPrice scale}.
+ * Nulls are kept as sentinels, so converting back yields an equal KitchenOrderResponse.
+ * Amounts with more than 18 significant digits are rounded to fit a long.
+ */
+public final class CompactOrder {
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int ITEM_FIELDS = 3;
+    private static final MathContext LONG_PRECISION = new MathContext(18);
+
+    private final long id;
+    private final long tableId;
+    private final long userId;
+    private final int status;
+    private final long totalUnscaled;
+    private final int totalScale;
+    private final long createdAtEpochNanos;
+    // null when the order had no item list at all
+    private final long[] itemLongs;
+    private final int[] itemInts;
+
+    private CompactOrder(long id, long tableId, long userId, int status, long totalUnscaled, int totalScale,
+                         long createdAtEpochNanos, long[] itemLongs, int[] itemInts) {
+        this.id = id;
+        this.tableId = tableId;
+        this.userId = userId;
+        this.status = status;
+        this.totalUnscaled = totalUnscaled;
+        this.totalScale = totalScale;
+        this.createdAtEpochNanos = createdAtEpochNanos;
+        this.itemLongs = itemLongs;
+        this.itemInts = itemInts;
+    }
+
+    public static CompactOrder of(KitchenOrderResponse order, StringDictionary statuses, StringDictionary itemNames) {
+        long[] itemLongs = null;
+        int[] itemInts = null;
+        List<KitchenOrderResponse.OrderItem> items = order.getItems();
+        if (items != null) {
+            itemLongs = new long[items.size() * ITEM_FIELDS];
+            itemInts = new int[items.size() * ITEM_FIELDS];
+            for (int i = 0; i < items.size(); i++) {
+                KitchenOrderResponse.OrderItem item = items.get(i);
+                int at = i * ITEM_FIELDS;
+                BigDecimal unitPrice = fitLong(item.getUnitPrice());
+                itemLongs[at] = toLong(item.getId());
+                itemLongs[at + 1] = toLong(item.getItemId());
+                itemLongs[at + 2] = unitPrice == null ? 0 : unitPrice.unscaledValue().longValue();
+                itemInts[at] = itemNames.encode(item.getItemName());
+                itemInts[at + 1] = item.getQuantity() == null ? NULL_INT : item.getQuantity();
+                itemInts[at + 2] = unitPrice == null ? NULL_INT : unitPrice.scale();
+            }
+        }
+        BigDecimal total = fitLong(order.getTotalAmount());
+        return new CompactOrder(
+                toLong(order.getId()),
+                toLong(order.getTableId()),
+                toLong(order.getUserId()),
+                statuses.encode(order.getStatus()),
+                total == null ? 0 : total.unscaledValue().longValue(),
+                total == null ? NULL_INT : total.scale(),
+                toEpochNanos(order.getCreatedAt()),
+                itemLongs,
+                itemInts);
+    }
+
+    /**
+     * Back to the API/persistence representation
+     */
+    public KitchenOrderResponse toResponse(StringDictionary statuses, StringDictionary itemNames) {
+        List<KitchenOrderResponse.OrderItem> items = null;
+        if (itemLongs != null) {
+            items = new ArrayList<>(itemLongs.length / ITEM_FIELDS);
+            for (int at = 0; at < itemLongs.length; at += ITEM_FIELDS) {
+                items.add(new KitchenOrderResponse.OrderItem(
+                        toBoxed(itemLongs[at]),
+                        toBoxed(itemLongs[at + 1]),
+                        itemNames.decode(itemInts[at]),
+                        itemInts[at + 1] == NULL_INT ? null : itemInts[at + 1],
+                        toDecimal(itemLongs[at + 2], itemInts[at + 2])));
+            }
+        }
+        return new KitchenOrderResponse(toBoxed(id), toBoxed(tableId), toBoxed(userId), statuses.decode(status),
+                toDecimal(totalUnscaled, totalScale), toLocalDateTime(createdAtEpochNanos), items);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Long getTableId() {
+        return toBoxed(tableId);
+    }
+
+    public String getStatus(StringDictionary statuses) {
+        return statuses.decode(status);
+    }
+
+    /**
+     * createdAt as stored, for ordering only; orders without one sort last
+     */
+    public long getCreatedAtSortKey() {
+        return createdAtEpochNanos == NULL_LONG ? Long.MAX_VALUE : createdAtEpochNanos;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return toLocalDateTime(createdAtEpochNanos);
+    }
+
+    public int getItemCount() {
+        return itemLongs == null ? 0 : itemLongs.length / ITEM_FIELDS;
+    }
+
+    private static long toLong(Long value) {
+        return value == null ? NULL_LONG : value;
+    }
+
+    private static Long toBoxed(long value) {
+        return value == NULL_LONG ? null : value;
+    }
+
+    private static BigDecimal fitLong(BigDecimal value) {
+        return value == null || value.unscaledValue().bitLength() < 64 ? value : value.round(LONG_PRECISION);
+    }
+
+    private static BigDecimal toDecimal(long unscaled, int scale) {
+        return scale == NULL_INT ? null : new BigDecimal(BigInteger.valueOf(unscaled), scale);
+    }
+
+    private static long toEpochNanos(LocalDateTime time) {
+        return time == null ? NULL_LONG : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochNanos) {
+        return epochNanos == NULL_LONG ? null : LocalDateTime.ofEpochSecond(
+                Math.floorDiv(epochNanos, 1_000_000_000L), (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CompactOrder that)) {
+            return false;
+        }
+        return id == that.id && tableId == that.tableId && userId == that.userId && status == that.status
+                && totalUnscaled == that.totalUnscaled && totalScale == that.totalScale
+                && createdAtEpochNanos == that.createdAtEpochNanos
+                && Arrays.equals(itemLongs, that.itemLongs) && Arrays.equals(itemInts, that.itemInts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id) * 31 + Long.hashCode(createdAtEpochNanos) + status;
+    }
+}
@@ -0,0 +1,339 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.config.AnalyticsProperties;
+import com.restaurant.kds_service.dto.KitchenAnalyticsResponse;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming prep-time analytics built from order status transitions
+ *
+ * Transitions come from two sources: diffs between consecutive polls of the active orders list
+ * (timestamped at poll time, so accurate to polling.interval-ms) and the KDS's own status updates
+ * (timestamped when the Order Service confirms them). Each transition is folded straight into
+ * fixed-size state - rolling log-bucket histograms per item, station and status, queue depth
+ * counters and a ring of 5-minute throughput windows - and no raw history is kept. The response
+ * is rebuilt only after something changed or a histogram sub-window expired.
+ */
+@Service
+public class KitchenAnalytics {
+
+    private static final Logger logger = LoggerFactory.getLogger(KitchenAnalytics.class);
+
+    static final long THROUGHPUT_WINDOW_MS = TimeUnit.MINUTES.toMillis(5);
+    static final String READY = "READY";
+    private static final String PREPARING = "PREPARING";
+    private static final String CONFIRMED = "CONFIRMED";
+    private static final String OTHER_ITEMS = "other";
+    private static final String UNASSIGNED_STATION = "unassigned";
+
+    private final long windowMs;
+    private final long slotMs;
+    private final int slots;
+    private final int maxItems;
+    private final long pollGuardMs;
+    private final Map<String, String> stationByItem = new HashMap<>();
+
+    // All state below is guarded by this
+    private final Map<Long, TrackedOrder> orders = new HashMap<>();
+    private final Map<String, Integer> queueDepth = new TreeMap<>();
+    private final RollingHistogram prepTime;
+    private final RollingHistogram leadTime;
+    private final Map<String, RollingHistogram> prepTimeByStation = new HashMap<>();
+    private final Map<String, RollingHistogram> prepTimeByItem = new HashMap<>();
+    private final Map<String, RollingHistogram> timeInStatus = new HashMap<>();
+    private final long[] throughputEpochs;
+    private final long[][] throughputCounts;
+    private boolean primed;
+    private long version;
+
+    private KitchenAnalyticsResponse cached;
+    private long cachedVersion = -1;
+    private long cachedSlotEpoch = -1;
+
+    public KitchenAnalytics(
+            AnalyticsProperties properties,
+            @Value("${polling.interval-ms:3000}") long pollingIntervalMs) {
+        this.pollGuardMs = 2 * pollingIntervalMs;
+        this.windowMs = TimeUnit.MINUTES.toMillis(properties.getWindowMinutes());
+        this.slots = Math.max(1, properties.getWindowSlots());
+        this.slotMs = Math.max(1, windowMs / slots);
+        this.maxItems = properties.getMaxItems();
+        for (Map.Entry<String, List<String>> station : properties.getStations().entrySet()) {
+            for (String item : station.getValue()) {
+                stationByItem.put(item.toLowerCase(Locale.ROOT), station.getKey());
+            }
+        }
+        this.prepTime = new RollingHistogram(slots, slotMs);
+        this.leadTime = new RollingHistogram(slots, slotMs);
+        this.throughputEpochs = new long[Math.max(1, properties.getThroughputWindows())];
+        this.throughputCounts = new long[throughputEpochs.length][3];
+        Arrays.fill(throughputEpochs, -1);
+        logger.info("KitchenAnalytics initialized - window: {}min in {} slots, {} stations, {} throughput windows",
+                properties.getWindowMinutes(), slots, properties.getStations().size(), throughputEpochs.length);
+    }
+
+    /**
+     * Diff a freshly polled active orders list against the previous one
+     * Orders present on the very first poll are only tracked from their next transition on,
+     * as the time they entered their current status is unknown
+     */
+    public void observeSnapshot(List<KitchenOrderResponse> activeOrders) {
+        observeSnapshot(activeOrders, System.currentTimeMillis());
+    }
+
+    synchronized void observeSnapshot(List<KitchenOrderResponse> activeOrders, long nowMs) {
+        Set<Long> present = new HashSet<>();
+        for (KitchenOrderResponse order : activeOrders) {
+            if (order.getId() == null || order.getStatus() == null) {
+                continue;
+            }
+            present.add(order.getId());
+            observe(order, order.getStatus(), nowMs, true);
+        }
+        Iterator<Map.Entry<Long, TrackedOrder>> iterator = orders.entrySet().iterator();
+        while (iterator.hasNext()) {
+            TrackedOrder tracked = iterator.next().getValue();
+            if (!present.contains(tracked.orderId)) {
+                // Left the active list: served, or cancelled
+                recordDwell(tracked, nowMs);
+                adjustDepth(tracked.status, -1);
+                countThroughput(nowMs, 2);
+                iterator.remove();
+                version++;
+            }
+        }
+        primed = true;
+    }
+
+    /**
+     * Status change the KDS itself made and the Order Service confirmed
+     */
+    public void recordTransition(KitchenOrderResponse order, String status) {
+        recordTransition(order, status, System.currentTimeMillis());
+    }
+
+    synchronized void recordTransition(KitchenOrderResponse order, String status, long nowMs) {
+        if (order == null || order.getId() == null || status == null) {
+            return;
+        }
+        observe(order, status, nowMs, false);
+    }
+
+    private void observe(KitchenOrderResponse order, String rawStatus, long nowMs, boolean fromPoll) {
+        String status = rawStatus.toUpperCase(Locale.ROOT);
+        TrackedOrder tracked = orders.get(order.getId());
+        if (tracked == null) {
+            tracked = new TrackedOrder(order);
+            orders.put(order.getId(), tracked);
+            if (primed || !fromPoll) {
+                countThroughput(nowMs, 0);
+            }
+            if (fromPoll) {
+                // Entered its status at an unknown time between polls, except a new order still in CREATED
+                tracked.status = status;
+                tracked.sinceMs = primed && "CREATED".equals(status) && tracked.createdAtMs > 0
+                        ? Math.min(tracked.createdAtMs, nowMs) : -1;
+                adjustDepth(status, 1);
+                version++;
+                return;
+            }
+        }
+        if (status.equals(tracked.status)) {
+            return;
+        }
+        if (fromPoll && nowMs - tracked.updatedByKdsAtMs < pollGuardMs) {
+            // A poll that started before our own update can still carry the previous status
+            return;
+        }
+        if (!fromPoll) {
+            tracked.updatedByKdsAtMs = nowMs;
+        }
+        recordDwell(tracked, nowMs);
+        adjustDepth(tracked.status, -1);
+        adjustDepth(status, 1);
+        if (CONFIRMED.equals(status) && tracked.confirmedAtMs < 0) {
+            tracked.confirmedAtMs = nowMs;
+        } else if (PREPARING.equals(status) && tracked.preparingAtMs < 0) {
+            tracked.preparingAtMs = nowMs;
+        } else if (READY.equals(status)) {
+            recordReady(tracked, nowMs);
+        }
+        tracked.status = status;
+        tracked.sinceMs = nowMs;
+        version++;
+    }
+
+    private void recordReady(TrackedOrder tracked, long nowMs) {
+        countThroughput(nowMs, 1);
+        long startedMs = tracked.preparingAtMs >= 0 ? tracked.preparingAtMs : tracked.confirmedAtMs;
+        if (startedMs >= 0) {
+            long prepMs = nowMs - startedMs;
+            prepTime.add(prepMs, nowMs);
+            Set<String> stations = new LinkedHashSet<>();
+            for (String item : tracked.items) {
+                String key = prepTimeByItem.containsKey(item) || prepTimeByItem.size() < maxItems ? item : OTHER_ITEMS;
+                histogram(prepTimeByItem, key).add(prepMs, nowMs);
+                stations.add(stationByItem.getOrDefault(item.toLowerCase(Locale.ROOT), UNASSIGNED_STATION));
+            }
+            for (String station : stations) {
+                histogram(prepTimeByStation, station).add(prepMs, nowMs);
+            }
+        }
+        if (tracked.createdAtMs > 0 && tracked.createdAtMs <= nowMs) {
+            leadTime.add(nowMs - tracked.createdAtMs, nowMs);
+        }
+    }
+
+    private void recordDwell(TrackedOrder tracked, long nowMs) {
+        if (tracked.sinceMs >= 0 && tracked.status != null) {
+            histogram(timeInStatus, tracked.status).add(nowMs - tracked.sinceMs, nowMs);
+        }
+    }
+
+    private RollingHistogram histogram(Map<String, RollingHistogram> histograms, String key) {
+        return histograms.computeIfAbsent(key, k -> new RollingHistogram(slots, slotMs));
+    }
+
+    private void adjustDepth(String status, int delta) {
+        if (status == null) {
+            return;
+        }
+        queueDepth.merge(status, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    /**
+     * @param counter 0 = created, 1 = ready, 2 = departed
+     */
+    private void countThroughput(long nowMs, int counter) {
+        long epoch = nowMs / THROUGHPUT_WINDOW_MS;
+        int index = (int) (epoch % throughputEpochs.length);
+        if (throughputEpochs[index] != epoch) {
+            throughputEpochs[index] = epoch;
+            Arrays.fill(throughputCounts[index], 0);
+        }
+        throughputCounts[index][counter]++;
+    }
+
+    public KitchenAnalyticsResponse getAnalytics() {
+        return getAnalytics(System.currentTimeMillis());
+    }
+
+    synchronized KitchenAnalyticsResponse getAnalytics(long nowMs) {
+        long slotEpoch = nowMs / slotMs;
+        if (cached != null && cachedVersion == version && cachedSlotEpoch == slotEpoch) {
+            return cached;
+        }
+        List<KitchenAnalyticsResponse.ThroughputWindow> throughput = new ArrayList<>(throughputEpochs.length);
+        long currentEpoch = nowMs / THROUGHPUT_WINDOW_MS;
+        for (long epoch = currentEpoch - throughputEpochs.length + 1; epoch <= currentEpoch; epoch++) {
+            int index = (int) (epoch % throughputEpochs.length);
+            long[] counts = epoch >= 0 && throughputEpochs[index] == epoch ? throughputCounts[index] : new long[3];
+            throughput.add(new KitchenAnalyticsResponse.ThroughputWindow(epoch * THROUGHPUT_WINDOW_MS,
+                    counts[0], counts[1], counts[2]));
+        }
+        cached = new KitchenAnalyticsResponse(nowMs, TimeUnit.MILLISECONDS.toMinutes(windowMs),
+                new TreeMap<>(queueDepth), prepTime.stats(nowMs), leadTime.stats(nowMs),
+                stats(prepTimeByStation, nowMs), stats(prepTimeByItem, nowMs), stats(timeInStatus, nowMs), throughput);
+        cachedVersion = version;
+        cachedSlotEpoch = slotEpoch;
+        return cached;
+    }
+
+    private static Map<String, KitchenAnalyticsResponse.DurationStats> stats(Map<String, RollingHistogram> histograms, long nowMs) {
+        Map<String, KitchenAnalyticsResponse.DurationStats> result = new TreeMap<>();
+        for (Map.Entry<String, RollingHistogram> entry : histograms.entrySet()) {
+            KitchenAnalyticsResponse.DurationStats stats = entry.getValue().stats(nowMs);
+            if (stats.getCount() > 0) {
+                result.put(entry.getKey(), stats);
+            }
+        }
+        return result;
+    }
+
+    private static final class TrackedOrder {
+        private final Long orderId;
+        private final long createdAtMs;
+        private final List<String> items = new ArrayList<>();
+        private String status;
+        private long sinceMs = -1;
+        private long confirmedAtMs = -1;
+        private long preparingAtMs = -1;
+        private long updatedByKdsAtMs = Long.MIN_VALUE / 2;
+
+        private TrackedOrder(KitchenOrderResponse order) {
+            this.orderId = order.getId();
+            this.createdAtMs = order.getCreatedAt() == null ? -1
+                    : order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (order.getItems() != null) {
+                for (KitchenOrderResponse.OrderItem item : order.getItems()) {
+                    if (item.getItemName() != null) {
+                        items.add(item.getItemName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Log histogram over a sliding window: one sub-histogram per slot, reused once it falls out of the window
+     */
+    static final class RollingHistogram {
+        private final LogHistogram[] histograms;
+        private final long[] epochs;
+        private final long slotMs;
+
+        RollingHistogram(int slots, long slotMs) {
+            this.histograms = new LogHistogram[slots];
+            this.epochs = new long[slots];
+            this.slotMs = slotMs;
+            Arrays.fill(epochs, -1);
+        }
+
+        void add(long valueMs, long nowMs) {
+            long epoch = nowMs / slotMs;
+            int index = (int) (epoch % histograms.length);
+            if (histograms[index] == null) {
+                histograms[index] = new LogHistogram();
+            } else if (epochs[index] != epoch) {
+                histograms[index].clear();
+            }
+            epochs[index] = epoch;
+            histograms[index].add(Math.max(0, valueMs));
+        }
+
+        LogHistogram merged(long nowMs) {
+            long oldest = nowMs / slotMs - histograms.length + 1;
+            LogHistogram merged = new LogHistogram();
+            for (int i = 0; i < histograms.length; i++) {
+                if (histograms[i] != null && epochs[i] >= oldest) {
+                    merged.merge(histograms[i]);
+                }
+            }
+            return merged;
+        }
+
+        KitchenAnalyticsResponse.DurationStats stats(long nowMs) {
+            LogHistogram merged = merged(nowMs);
+            return new KitchenAnalyticsResponse.DurationStats(merged.getCount(), merged.quantile(0.5),
+                    merged.quantile(0.9), merged.quantile(0.95), merged.quantile(0.99));
+        }
+    }
+}
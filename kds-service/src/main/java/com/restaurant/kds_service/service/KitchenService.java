@@ -2,6 +2,8 @@ package com.restaurant.kds_service.service;
 
 import com.restaurant.kds_service.dto.KitchenOrderResponse;
 import com.restaurant.kds_service.dto.OrderReadyEvent;
+import com.restaurant.kds_service.dto.PendingStatusUpdate;
+import com.restaurant.kds_service.dto.RecentOrder;
 import com.restaurant.kds_service.dto.UpdateOrderStatusRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,31 +12,47 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.stream.Collectors;
 
 /**
  * Service for kitchen operations
  * Orchestrates Order Service updates and Kafka event publishing
+ * With write-behind.enabled, status changes are accepted locally and replayed by StatusUpdateQueue;
+ * the order-ready event then follows the Order Service's confirmation
  */
 @Service
 public class KitchenService {
 
     private static final Logger logger = LoggerFactory.getLogger(KitchenService.class);
 
-    private final RestTemplate restTemplate;
+    private final OrderServiceClient orderServiceClient;
     private final KafkaPublisherService kafkaPublisherService;
+    private final KitchenAnalytics kitchenAnalytics;
     private final String orderServiceBaseUrl;
+    private final RecallBuffer recallBuffer;
+    private final OrderPollingService orderPollingService;
+    private final StatusUpdateQueue statusUpdateQueue;
 
     public KitchenService(
-            RestTemplate restTemplate,
+            OrderServiceClient orderServiceClient,
             KafkaPublisherService kafkaPublisherService,
-            @Value("${order-service.base-url}") String orderServiceBaseUrl) {
-        this.restTemplate = restTemplate;
+            KitchenAnalytics kitchenAnalytics,
+            @Value("${order-service.base-url}") String orderServiceBaseUrl,
+            RecallBuffer recallBuffer,
+            OrderPollingService orderPollingService,
+            StatusUpdateQueue statusUpdateQueue) {
+        this.orderServiceClient = orderServiceClient;
         this.kafkaPublisherService = kafkaPublisherService;
+        this.kitchenAnalytics = kitchenAnalytics;
         this.orderServiceBaseUrl = orderServiceBaseUrl;
+        this.recallBuffer = recallBuffer;
+        this.orderPollingService = orderPollingService;
+        this.statusUpdateQueue = statusUpdateQueue;
+        statusUpdateQueue.setConfirmationListener(this::statusConfirmed);
     }
 
     /**
@@ -42,40 +60,34 @@ public class KitchenService {
      * 1. Update Order Service status
      * 2. If successful → Publish Kafka event
      * 3. If failed → Throw exception (no Kafka event)
+     * In write-behind mode the order is READY locally at once and steps 1-2 happen on replay;
+     * null then means the order is unknown to this KDS and nothing was queued
      */
     public KitchenOrderResponse markOrderAsReady(Long orderId, String authHeader, String userId, String tableId) {
         logger.info("Marking order {} as READY (userId: {}, tableId: {})", orderId, userId, tableId);
+        if (statusUpdateQueue.isEnabled()) {
+            return acceptLocally(orderId, "READY", userId, tableId);
+        }
 
         // Step 1: Update Order Service
+        long readyAt = readyAtEpochMs(orderId);
         String url = orderServiceBaseUrl + "/" + orderId + "/status";
         UpdateOrderStatusRequest request = new UpdateOrderStatusRequest("READY");
 
         // Add authorization headers
-        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-        headers.set("User-Agent", "PostmanRuntime/7.43.0");
-        headers.set("Accept", "application/json");
-        headers.set("Content-Type", "application/json");
-
+        org.springframework.http.HttpHeaders headers = OrderServiceClient.statusUpdateHeaders(authHeader, userId, tableId);
         if (authHeader != null) {
             String sanitizedToken = authHeader.trim();
-            headers.set("Authorization", sanitizedToken);
             String maskedToken = sanitizedToken.length() > 10 ? sanitizedToken.substring(0, 10) + "..." : "short-token";
             logger.info("Forwarding Authorization header: {}", maskedToken);
         }
-        if (userId != null) {
-            headers.set("X-User-ID", userId);
-            logger.debug("Adding X-User-ID header: {}", userId);
-        }
-        if (tableId != null) {
-            headers.set("X-Table-ID", tableId);
-            logger.debug("Adding X-Table-ID header: {}", tableId);
-        }
 
         HttpEntity<UpdateOrderStatusRequest> requestEntity = new HttpEntity<>(request, headers);
 
         try {
             logger.info("Calling Order Service to update order {} status to READY", orderId);
-            ResponseEntity<KitchenOrderResponse> response = restTemplate.exchange(
+            ResponseEntity<KitchenOrderResponse> response = orderServiceClient.exchange(
+                    OrderServiceClient.UPDATE_STATUS,
                     url,
                     HttpMethod.PATCH,
                     requestEntity,
@@ -88,9 +100,12 @@ public class KitchenService {
             }
 
             logger.info("Order {} status updated successfully in Order Service", orderId);
+            kitchenAnalytics.recordTransition(updatedOrder, "READY");
+            recallBuffer.record(updatedOrder, RecallBuffer.READY, readyAt);
+            orderPollingService.statusChanged(updatedOrder);
 
             // Step 2: Publish Kafka event (only if Order Service update succeeded)
-            publishOrderReadyEvent(updatedOrder);
+            publishOrderReadyEvent(updatedOrder, toLocalDateTime(readyAt), readyEventId(orderId, readyAt));
 
             return updatedOrder;
 
@@ -103,38 +118,26 @@ public class KitchenService {
     /**
      * Update order status to any status (CREATED, PREPARING, READY, etc.)
      * Generic method for status updates without Kafka events
+     * In write-behind mode null means the order is unknown to this KDS and nothing was queued
      */
     public KitchenOrderResponse updateOrderStatus(Long orderId, String status, String authHeader, String userId, String tableId) {
         logger.info("Updating order {} status to {} (userId: {}, tableId: {})", orderId, status, userId, tableId);
+        if (statusUpdateQueue.isEnabled()) {
+            return acceptLocally(orderId, status, userId, tableId);
+        }
 
         String url = orderServiceBaseUrl + "/" + orderId + "/status";
         UpdateOrderStatusRequest request = new UpdateOrderStatusRequest(status);
 
         // Add authorization headers
-        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-        headers.set("User-Agent", "PostmanRuntime/7.43.0");
-        headers.set("Accept", "application/json");
-        headers.set("Content-Type", "application/json");
-
-        if (authHeader != null) {
-            String sanitizedToken = authHeader.trim();
-            headers.set("Authorization", sanitizedToken);
-            logger.debug("Adding Authorization header");
-        }
-        if (userId != null) {
-            headers.set("X-User-ID", userId);
-            logger.debug("Adding X-User-ID header: {}", userId);
-        }
-        if (tableId != null) {
-            headers.set("X-Table-ID", tableId);
-            logger.debug("Adding X-Table-ID header: {}", tableId);
-        }
+        org.springframework.http.HttpHeaders headers = OrderServiceClient.statusUpdateHeaders(authHeader, userId, tableId);
 
         HttpEntity<UpdateOrderStatusRequest> requestEntity = new HttpEntity<>(request, headers);
 
         try {
             logger.info("Calling Order Service to update order {} status to {}", orderId, status);
-            ResponseEntity<KitchenOrderResponse> response = restTemplate.exchange(
+            ResponseEntity<KitchenOrderResponse> response = orderServiceClient.exchange(
+                    OrderServiceClient.UPDATE_STATUS,
                     url,
                     HttpMethod.PATCH,
                     requestEntity,
@@ -147,6 +150,11 @@ public class KitchenService {
             }
 
             logger.info("Order {} status updated successfully to {} in Order Service", orderId, status);
+            kitchenAnalytics.recordTransition(updatedOrder, status);
+            if (!RecallBuffer.READY.equals(status)) {
+                recallBuffer.clearReady(orderId);
+            }
+            orderPollingService.statusChanged(updatedOrder);
             return updatedOrder;
 
         } catch (Exception e) {
@@ -155,10 +163,105 @@ public class KitchenService {
         }
     }
 
+    /**
+     * Write-behind: queue the change for the Order Service and show it on the display right away
+     * Returns the order as displayed (or as last seen in the recall buffer) with the new status, or null
+     * for an order this KDS has not seen - that one is refused rather than queued, since only the Order
+     * Service could tell whether it exists and the change would be dropped on replay anyway
+     * The caller's Authorization header is not queued: replays use the write-behind service token
+     */
+    private KitchenOrderResponse acceptLocally(Long orderId, String status, String userId, String tableId) {
+        KitchenOrderResponse order = orderPollingService.findOrder(orderId);
+        boolean onDisplay = order != null;
+        if (!onDisplay) {
+            RecentOrder recent = recallBuffer.find(orderId);
+            order = recent != null ? recent.getOrder() : null;
+        }
+        if (order == null) {
+            logger.info("Order {} -> {} refused: order not seen by this KDS", orderId, status);
+            return null;
+        }
+        boolean ready = "READY".equals(status);
+        long acceptedAt = ready ? readyAtEpochMs(orderId) : System.currentTimeMillis();
+        statusUpdateQueue.submit(orderId, status, acceptedAt, ready ? readyEventId(orderId, acceptedAt) : null,
+                userId, tableId);
+        order.setStatus(status);
+        kitchenAnalytics.recordTransition(order, status);
+        if (!ready) {
+            recallBuffer.clearReady(orderId);
+        }
+        if (onDisplay) {
+            if (ready) {
+                recallBuffer.record(order, RecallBuffer.READY, acceptedAt);
+            }
+            orderPollingService.statusChanged(order);
+        }
+        logger.info("Order {} -> {} accepted locally, queued for the Order Service", orderId, status);
+        return order;
+    }
+
+    /**
+     * The Order Service confirmed a queued change: show its copy of the order and, for READY, emit the
+     * order-ready event stamped with the time the kitchen bumped it
+     */
+    private void statusConfirmed(PendingStatusUpdate update, KitchenOrderResponse order) {
+        orderPollingService.statusChanged(order);
+        if ("READY".equals(update.getStatus())) {
+            String eventId = update.getEventId() != null ? update.getEventId()
+                    : readyEventId(update.getOrderId(), update.getAcceptedAtEpochMs());
+            publishOrderReadyEvent(order, toLocalDateTime(update.getAcceptedAtEpochMs()), eventId);
+        }
+    }
+
+    /**
+     * When the order's current READY transition happened: a repeated bump (double-tap or client retry)
+     * belongs to the same transition only while the displayed order is still READY; an order that went
+     * back to another status in between (here or in the Order Service) is starting a new transition
+     */
+    private long readyAtEpochMs(Long orderId) {
+        KitchenOrderResponse displayed = orderPollingService.findOrder(orderId);
+        if (displayed == null || !RecallBuffer.READY.equals(displayed.getStatus())) {
+            return System.currentTimeMillis();
+        }
+        RecentOrder recent = recallBuffer.find(orderId);
+        return recent != null && RecallBuffer.READY.equals(recent.getReason())
+                ? recent.getLeftAtEpochMs() : System.currentTimeMillis();
+    }
+
+    /**
+     * Order-ready event id: one per READY transition, so duplicates of it can be dropped downstream
+     */
+    static String readyEventId(Long orderId, long readyAtEpochMs) {
+        return orderId + "-ready-" + readyAtEpochMs;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    /**
+     * Recall a recently bumped/served order back to PREPARING
+     * The order is looked up in the local recall buffer (no Order Service query); only the status
+     * update goes upstream, and the ticket is back on display without waiting for the next poll
+     *
+     * @return the updated order, or null when it is not in the recall buffer
+     */
+    public KitchenOrderResponse recallOrder(Long orderId, String authHeader, String userId, String tableId) {
+        if (recallBuffer.find(orderId) == null) {
+            logger.info("Order {} is not in the recall buffer", orderId);
+            return null;
+        }
+        KitchenOrderResponse recalled = updateOrderStatus(orderId, "PREPARING", authHeader, userId, tableId);
+        recallBuffer.remove(orderId);
+        orderPollingService.restore(recalled);
+        logger.info("Order {} recalled to PREPARING", orderId);
+        return recalled;
+    }
+
     /**
      * Publish order-ready event to Kafka
      */
-    private void publishOrderReadyEvent(KitchenOrderResponse order) {
+    private void publishOrderReadyEvent(KitchenOrderResponse order, LocalDateTime readyTime, String eventId) {
         try {
             OrderReadyEvent event = new OrderReadyEvent(
                     order.getId(),
@@ -169,7 +272,8 @@ public class KitchenService {
                                     item.getQuantity()
                             ))
                             .collect(Collectors.toList()),
-                    LocalDateTime.now() // Assuming 'readyTime' is the parameter name in OrderReadyEvent constructor
+                    readyTime,
+                    eventId
             );
 
             kafkaPublisherService.publishOrderReadyEvent(event);
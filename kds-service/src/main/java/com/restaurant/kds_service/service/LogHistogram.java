@@ -0,0 +1,72 @@
+package com.restaurant.kds_service.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size histogram of millisecond durations with logarithmic buckets
+ * Bucket i holds values in (GAMMA^(i-1), GAMMA^i], so a quantile read back from the bucket midpoint is
+ * within 2% of the true value whatever the distribution; histograms merge by adding bucket counts.
+ * Durations above MAX_MS are counted in the last bucket.
+ */
+public final class LogHistogram {
+
+    static final double GAMMA = 1.04;
+    static final long MAX_MS = TimeUnit.HOURS.toMillis(12);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    static final int BUCKETS = (int) Math.ceil(Math.log(MAX_MS) / LOG_GAMMA) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+
+    public void add(long valueMs) {
+        counts[bucketOf(valueMs)]++;
+        total++;
+    }
+
+    public void merge(LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * @param quantile 0..1
+     * @return estimated duration in ms at that quantile, 0 when empty
+     */
+    public long quantile(double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(BUCKETS - 1);
+    }
+
+    static int bucketOf(long valueMs) {
+        if (valueMs <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, (int) Math.ceil(Math.log(valueMs) / LOG_GAMMA));
+    }
+
+    private static long valueOf(int bucket) {
+        return bucket == 0 ? 1 : Math.round(2 * Math.pow(GAMMA, bucket) / (GAMMA + 1));
+    }
+}
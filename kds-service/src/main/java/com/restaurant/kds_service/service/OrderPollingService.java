@@ -1,6 +1,9 @@
 package com.restaurant.kds_service.service;
 
 import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.KitchenTicket;
+import com.restaurant.kds_service.dto.OrderSnapshot;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +16,16 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Service responsible for polling Order Service at configurable interval
@@ -31,30 +38,78 @@ public class OrderPollingService {
     private static final Logger logger = LoggerFactory.getLogger(OrderPollingService.class);
     private static final String REDIS_KEY = "kds:active-orders";
 
-    private final RestTemplate restTemplate;
+    private final OrderServiceClient orderServiceClient;
     private final String orderServiceBaseUrl;
     private final boolean redisEnabled;
     private final long pollingIntervalMs;
+    private final OrderSnapshotStore snapshotStore;
+    private final KitchenAnalytics kitchenAnalytics;
+    private final long servedSuppressMs;
+    private final RecallBuffer recallBuffer;
+    private final TicketQueue ticketQueue;
+    private final StatusUpdateQueue statusUpdateQueue;
 
     @Autowired(required = false)
     private RedisTemplate<String, List<KitchenOrderResponse>> redisTemplate;
 
-    // In-memory backup (always maintained regardless of Redis)
-    private final List<KitchenOrderResponse> inMemoryOrders = new CopyOnWriteArrayList<>();
+    // In-memory backup (always maintained regardless of Redis), held compact and replaced as a whole;
+    // KitchenOrderResponse objects only exist at the API, snapshot and Redis boundaries
+    private final StringDictionary statuses = new StringDictionary();
+    private final StringDictionary itemNames = new StringDictionary();
+    private volatile List<CompactOrder> inMemoryOrders = List.of();
+
+    // Orders a waiter picked up, hidden until the Order Service drops them from /active (orderId -> served at)
+    private final Map<Long, Long> servedOrders = new ConcurrentHashMap<>();
+
+    // Snapshot metadata - stale until the first successful poll after startup
+    private volatile long snapshotVersion = 0;
+    private volatile long snapshotCapturedAtEpochMs = 0;
+    private volatile boolean stale = false;
 
     public OrderPollingService(
-            RestTemplate restTemplate,
+            OrderServiceClient orderServiceClient,
             @Value("${order-service.base-url}") String orderServiceBaseUrl,
             @Value("${redis.enabled:false}") boolean redisEnabled,
-            @Value("${polling.interval-ms:3000}") long pollingIntervalMs) {
-        this.restTemplate = restTemplate;
+            @Value("${polling.interval-ms:3000}") long pollingIntervalMs,
+            OrderSnapshotStore snapshotStore,
+            KitchenAnalytics kitchenAnalytics,
+            @Value("${served.suppress-minutes:30}") long servedSuppressMinutes,
+            RecallBuffer recallBuffer,
+            TicketQueue ticketQueue,
+            StatusUpdateQueue statusUpdateQueue) {
+        this.orderServiceClient = orderServiceClient;
         this.orderServiceBaseUrl = orderServiceBaseUrl;
         this.redisEnabled = redisEnabled;
         this.pollingIntervalMs = pollingIntervalMs;
+        this.snapshotStore = snapshotStore;
+        this.kitchenAnalytics = kitchenAnalytics;
+        this.servedSuppressMs = TimeUnit.MINUTES.toMillis(servedSuppressMinutes);
+        this.recallBuffer = recallBuffer;
+        this.ticketQueue = ticketQueue;
+        this.statusUpdateQueue = statusUpdateQueue;
         logger.info("OrderPollingService initialized - polling interval: {}ms ({}s)",
                 pollingIntervalMs, pollingIntervalMs / 1000.0);
     }
 
+    /**
+     * Warm start: load the last persisted snapshot before the web server starts accepting traffic
+     * Served flagged as stale until the first successful poll reconciles it
+     */
+    @PostConstruct
+    public void warmStart() {
+        snapshotStore.load().ifPresent(snapshot -> {
+            if (snapshot.getOrders() != null) {
+                inMemoryOrders = compact(snapshot.getOrders());
+                syncTickets(inMemoryOrders);
+            }
+            snapshotVersion = snapshot.getVersion();
+            snapshotCapturedAtEpochMs = snapshot.getCapturedAtEpochMs();
+            stale = true;
+            logger.info("Warm start - serving {} orders from snapshot v{} (stale until first poll)",
+                    inMemoryOrders.size(), snapshotVersion);
+        });
+    }
+
     /**
      * Poll Order Service at configurable interval (default: 3 seconds)
      * This is the ONLY way data enters the KDS system
@@ -69,7 +124,8 @@ public class OrderPollingService {
             HttpHeaders headers = new HttpHeaders();
             HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
 
-            ResponseEntity<List<KitchenOrderResponse>> response = restTemplate.exchange(
+            ResponseEntity<List<KitchenOrderResponse>> response = orderServiceClient.exchange(
+                    OrderServiceClient.ACTIVE_ORDERS,
                     url,
                     HttpMethod.GET,
                     requestEntity,
@@ -82,20 +138,7 @@ public class OrderPollingService {
             }
 
             logger.info("Polled {} active orders from Order Service", activeOrders.size());
-
-            // Update in-memory cache (always)
-            inMemoryOrders.clear();
-            inMemoryOrders.addAll(activeOrders);
-
-            // Update Redis cache if enabled
-            if (redisEnabled && redisTemplate != null) {
-                try {
-                    redisTemplate.opsForValue().set(REDIS_KEY, activeOrders, 10, TimeUnit.SECONDS);
-                    logger.debug("Updated Redis cache with {} orders", activeOrders.size());
-                } catch (Exception e) {
-                    logger.warn("Failed to update Redis cache (non-critical): {}", e.getMessage());
-                }
-            }
+            applyPoll(activeOrders);
 
         } catch (Exception e) {
             logger.error("Failed to poll Order Service: {}", e.getMessage());
@@ -104,6 +147,175 @@ public class OrderPollingService {
         }
     }
 
+    /**
+     * Replace the cached orders with a poll result, minus orders already served
+     * Status changes the Order Service has not confirmed yet (write-behind) win over the polled status
+     */
+    private synchronized void applyPoll(List<KitchenOrderResponse> polled) {
+        long now = System.currentTimeMillis();
+        for (KitchenOrderResponse order : polled) {
+            String pendingStatus = statusUpdateQueue.pendingStatus(order.getId());
+            if (pendingStatus != null) {
+                order.setStatus(pendingStatus);
+            }
+        }
+        // Forget served orders once the Order Service stops listing them (or after the suppress window),
+        // and show them again when it lists them as anything but READY (recalled, or acked too early)
+        servedOrders.entrySet().removeIf(served -> now - served.getValue() > servedSuppressMs
+                || polled.stream().noneMatch(order -> served.getKey().equals(order.getId())
+                        && RecallBuffer.READY.equals(order.getStatus())));
+        List<KitchenOrderResponse> activeOrders = polled.stream()
+                .filter(order -> !servedOrders.containsKey(order.getId()))
+                .collect(Collectors.toList());
+        kitchenAnalytics.observeSnapshot(activeOrders);
+
+        // Update in-memory cache (always) and persist a new snapshot version if anything changed
+        List<CompactOrder> compacted = compact(activeOrders);
+        boolean changed = !compacted.equals(inMemoryOrders);
+        if (changed) {
+            rememberDeparted(inMemoryOrders, compacted);
+            inMemoryOrders = compacted;
+            syncTickets(compacted);
+        }
+        if (changed || stale) {
+            publishSnapshot(activeOrders);
+        }
+        stale = false;
+        cacheInRedis(activeOrders);
+    }
+
+    /**
+     * A waiter picked the order up: drop it from the cached orders now rather than on a later poll,
+     * and keep hiding it while the Order Service lists it as READY
+     * Returns the removed order, or null when it was not on display
+     * @throws IllegalStateException when the order is on display but not READY
+     */
+    public synchronized KitchenOrderResponse markServed(Long orderId) {
+        CompactOrder removed = inMemoryOrders.stream()
+                .filter(order -> order.getId() == orderId)
+                .findFirst().orElse(null);
+        if (removed != null && !RecallBuffer.READY.equals(removed.getStatus(statuses))) {
+            throw new IllegalStateException("order " + orderId + " is " + removed.getStatus(statuses) + ", not READY");
+        }
+        servedOrders.put(orderId, System.currentTimeMillis());
+        if (removed == null) {
+            return null;
+        }
+        List<CompactOrder> remaining = new ArrayList<>(inMemoryOrders);
+        remaining.remove(removed);
+        inMemoryOrders = List.copyOf(remaining);
+        ticketQueue.remove(orderId);
+        List<KitchenOrderResponse> activeOrders = expand(inMemoryOrders);
+        publishSnapshot(activeOrders);
+        cacheInRedis(activeOrders);
+        KitchenOrderResponse served = removed.toResponse(statuses, itemNames);
+        recallBuffer.record(served, RecallBuffer.SERVED);
+        return served;
+    }
+
+    /**
+     * Put a recalled order back on display right away (also un-hiding it if it was marked served);
+     * the next poll reconciles it with the Order Service as usual
+     */
+    public synchronized void restore(KitchenOrderResponse order) {
+        servedOrders.remove(order.getId());
+        replace(order, true);
+    }
+
+    /**
+     * A status change made through this KDS: show it (and re-queue the ticket) now rather than on the
+     * next poll; orders not on display are left to the poll
+     */
+    public synchronized void statusChanged(KitchenOrderResponse order) {
+        replace(order, false);
+    }
+
+    /**
+     * The order as currently displayed, or null when it is not on display
+     */
+    public KitchenOrderResponse findOrder(Long orderId) {
+        for (CompactOrder order : inMemoryOrders) {
+            if (order.getId() == orderId) {
+                return order.toResponse(statuses, itemNames);
+            }
+        }
+        return null;
+    }
+
+    private void replace(KitchenOrderResponse order, boolean addIfMissing) {
+        CompactOrder updated = CompactOrder.of(order, statuses, itemNames);
+        List<CompactOrder> orders = new ArrayList<>(inMemoryOrders);
+        int index = 0;
+        while (index < orders.size() && orders.get(index).getId() != updated.getId()) {
+            index++;
+        }
+        if (index < orders.size()) {
+            orders.set(index, updated);
+        } else if (addIfMissing) {
+            orders.add(updated);
+        } else {
+            return;
+        }
+        inMemoryOrders = List.copyOf(orders);
+        if (ticketQueue.isTicket(order.getStatus())) {
+            ticketQueue.upsert(updated);
+        } else {
+            ticketQueue.remove(updated.getId());
+        }
+        List<KitchenOrderResponse> activeOrders = expand(inMemoryOrders);
+        publishSnapshot(activeOrders);
+        cacheInRedis(activeOrders);
+    }
+
+    private void syncTickets(List<CompactOrder> orders) {
+        ticketQueue.sync(orders.stream().filter(order -> ticketQueue.isTicket(order.getStatus(statuses))).toList());
+    }
+
+    /**
+     * A page of the ticket queue - priority first, then oldest first - with ages as of now
+     */
+    public List<KitchenTicket> getTickets(int offset, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<KitchenTicket> tickets = new ArrayList<>();
+        for (TicketQueue.Ticket ticket : ticketQueue.page(offset, limit)) {
+            KitchenOrderResponse order = ticket.getOrder().toResponse(statuses, itemNames);
+            long ageSeconds = order.getCreatedAt() == null ? 0 : Duration.between(order.getCreatedAt(), now).getSeconds();
+            tickets.add(new KitchenTicket(order, ticket.getPriority(), ageSeconds, ticket.getOverdueMinutes()));
+        }
+        return tickets;
+    }
+
+    /**
+     * Orders the Order Service stopped listing go to the recall buffer, unless they already did
+     * when bumped or served here
+     */
+    private void rememberDeparted(List<CompactOrder> previous, List<CompactOrder> current) {
+        Set<Long> currentIds = current.stream().map(CompactOrder::getId).collect(Collectors.toSet());
+        for (CompactOrder order : previous) {
+            if (!currentIds.contains(order.getId()) && recallBuffer.find(order.getId()) == null) {
+                recallBuffer.record(order.toResponse(statuses, itemNames), RecallBuffer.LEFT_ACTIVE);
+            }
+        }
+    }
+
+    private void publishSnapshot(List<KitchenOrderResponse> activeOrders) {
+        snapshotVersion++;
+        snapshotCapturedAtEpochMs = System.currentTimeMillis();
+        snapshotStore.submit(new OrderSnapshot(snapshotVersion, snapshotCapturedAtEpochMs, activeOrders));
+    }
+
+    private void cacheInRedis(List<KitchenOrderResponse> activeOrders) {
+        // Update Redis cache if enabled
+        if (redisEnabled && redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(REDIS_KEY, activeOrders, 10, TimeUnit.SECONDS);
+                logger.debug("Updated Redis cache with {} orders", activeOrders.size());
+            } catch (Exception e) {
+                logger.warn("Failed to update Redis cache (non-critical): {}", e.getMessage());
+            }
+        }
+    }
+
     /**
      * Get active orders from cache
      * Priority: Redis (if enabled) → In-memory → Empty list
@@ -123,8 +335,35 @@ public class OrderPollingService {
         }
 
         // Fallback to in-memory
-        logger.debug("Serving {} orders from in-memory cache", inMemoryOrders.size());
-        return new ArrayList<>(inMemoryOrders);
+        List<CompactOrder> orders = inMemoryOrders;
+        logger.debug("Serving {} orders from in-memory cache", orders.size());
+        return expand(orders);
+    }
+
+    private List<CompactOrder> compact(List<KitchenOrderResponse> orders) {
+        return orders.stream().map(order -> CompactOrder.of(order, statuses, itemNames)).toList();
+    }
+
+    private List<KitchenOrderResponse> expand(List<CompactOrder> orders) {
+        List<KitchenOrderResponse> expanded = new ArrayList<>(orders.size());
+        for (CompactOrder order : orders) {
+            expanded.add(order.toResponse(statuses, itemNames));
+        }
+        return expanded;
+    }
+
+    /**
+     * True while serving a snapshot loaded from disk that no poll has confirmed yet
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    public long getSnapshotVersion() {
+        return snapshotVersion;
     }
-}
 
+    public long getSnapshotCapturedAtEpochMs() {
+        return snapshotCapturedAtEpochMs;
+    }
+}
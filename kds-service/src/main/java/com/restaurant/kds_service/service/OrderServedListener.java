@@ -0,0 +1,73 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderServedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Consumes pickup acknowledgements published by the waiter service (order-served topic)
+ * Every KDS replica holds its own copy of the active orders, so each one reads the topic in its
+ * own group (group-prefix + served.instance-id); a replica that restarts with the same instance id still
+ * applies the acks published while it was down. The ticket is cleared and screens are told right away.
+ * Acks for orders on display but not READY are ignored
+ */
+@Service
+public class OrderServedListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderServedListener.class);
+
+    private final OrderPollingService orderPollingService;
+    private final KitchenEventStream eventStream;
+    private final boolean enabled;
+    private final String instanceId;
+
+    public OrderServedListener(OrderPollingService orderPollingService, KitchenEventStream eventStream,
+                               @Value("${served.enabled:true}") boolean enabled,
+                               @Value("${served.instance-id:}") String instanceId) {
+        this.orderPollingService = orderPollingService;
+        this.eventStream = eventStream;
+        this.enabled = enabled;
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * Replicas sharing an instance id share a group, and each ack would reach only one of them; a
+     * HOSTNAME-style id that changes on restart would instead start a new group at latest every time
+     */
+    @PostConstruct
+    void checkInstanceId() {
+        if (enabled && (instanceId == null || instanceId.isBlank())) {
+            throw new IllegalStateException("served.enabled needs a stable, per-replica served.instance-id "
+                    + "(SERVED_INSTANCE_ID, e.g. the StatefulSet pod name), or served.enabled=false");
+        }
+    }
+
+    @KafkaListener(id = "orderServedListener", idIsGroup = false, topics = "${spring.kafka.topic.order-served}",
+                   groupId = "${served.group-prefix:kds-served}-${served.instance-id:}",
+                   autoStartup = "${served.enabled:true}",
+                   properties = {"auto.offset.reset=latest", "enable.auto.commit=false"})
+    public void onOrderServed(OrderServedEvent event) {
+        if (event == null || event.getOrderId() == null) {
+            logger.warn("Ignoring order-served event without orderId: {}", event);
+            return;
+        }
+        KitchenOrderResponse removed;
+        try {
+            removed = orderPollingService.markServed(event.getOrderId());
+        } catch (IllegalStateException e) {
+            logger.warn("Ignoring order-served event: {}", e.getMessage());
+            return;
+        }
+        if (event.getTableId() == null && removed != null) {
+            event.setTableId(removed.getTableId());
+        }
+        eventStream.publish("order-served", event);
+        logger.info("Order {} served by {} - {}", event.getOrderId(), event.getServedBy(),
+                removed != null ? "ticket cleared" : "not on this display");
+    }
+}
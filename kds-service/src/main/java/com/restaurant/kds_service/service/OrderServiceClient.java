@@ -0,0 +1,291 @@
+package com.restaurant.kds_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Hedged, deadline-bound calls to the Order Service, for the operations listed in
+ * order-service.hedging.operations - by default only the read-only GET /active. A PATCH /{id}/status
+ * is not hedged by default: cancelling the losing attempt does not recall a request already on the
+ * wire, so a hedged status change can land after a newer one and undo it.
+ *
+ * When an attempt has not answered after the order-service.hedging.percentile latency of recent calls,
+ * a backup attempt is sent and the first successful response wins. A 4xx from either attempt is final;
+ * any other failure waits for the attempt still running. Every attempt carries the time left of the
+ * order-service.hedging.deadline-ms budget in X-Request-Timeout-Ms, and the caller gets a
+ * ResourceAccessException once the budget is spent. Latency is sampled from primary attempts only,
+ * so hedging does not pull its own delay down; a primary abandoned for a faster backup (or at the
+ * deadline) is sampled at the time it had taken so far, a lower bound of its real latency.
+ * Metrics per operation: kds.orderservice.calls, .latency (as seen by the caller), .hedges (backup
+ * sent), .hedge.wins (backup answered first) and the current .hedge.delay.
+ */
+@Service
+public class OrderServiceClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderServiceClient.class);
+
+    public static final String DEADLINE_HEADER = "X-Request-Timeout-Ms";
+    public static final String ACTIVE_ORDERS = "active-orders";
+    public static final String UPDATE_STATUS = "update-status";
+
+    // Recent-latency window per operation: the delay is read from the last 1-2 windows of samples
+    private static final int SAMPLE_WINDOW = 1000;
+    private static final int MIN_SAMPLES = 20;
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean hedgingEnabled;
+    private final Set<String> hedgedOperations;
+    private final double quantile;
+    private final long initialDelayMs;
+    private final long minDelayMs;
+    private final long deadlineMs;
+    private final ExecutorService attempts;
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    public OrderServiceClient(
+            RestTemplate restTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${order-service.hedging.enabled:true}") boolean hedgingEnabled,
+            @Value("${order-service.hedging.operations:" + ACTIVE_ORDERS + "}") String hedgedOperations,
+            @Value("${order-service.hedging.percentile:95}") double percentile,
+            @Value("${order-service.hedging.initial-delay-ms:500}") long initialDelayMs,
+            @Value("${order-service.hedging.min-delay-ms:50}") long minDelayMs,
+            @Value("${order-service.hedging.deadline-ms:10000}") long deadlineMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("order-service.hedging.percentile must be between 0 and 100: " + percentile);
+        }
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgedOperations = Arrays.stream(hedgedOperations.split(","))
+                .map(String::trim).filter(name -> !name.isEmpty()).collect(Collectors.toUnmodifiableSet());
+        this.quantile = percentile / 100;
+        this.initialDelayMs = initialDelayMs;
+        this.minDelayMs = minDelayMs;
+        this.deadlineMs = deadlineMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.attempts = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-service-attempt-", 0).factory())
+                : Executors.newCachedThreadPool(r -> {
+                    Thread thread = new Thread(r, "order-service-attempt-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        logger.info("OrderServiceClient initialized - hedging: {} for {}, at p{} (initially {}ms, at least {}ms), deadline: {}ms",
+                hedgingEnabled, this.hedgedOperations, percentile, initialDelayMs, minDelayMs, deadlineMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        attempts.shutdownNow();
+    }
+
+    /**
+     * Headers for a PATCH /{id}/status call, whether made directly or replayed from the write-behind queue
+     * authorization, userId and tableId are forwarded when not null
+     */
+    public static HttpHeaders statusUpdateHeaders(String authorization, String userId, String tableId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("User-Agent", "PostmanRuntime/7.43.0");
+        headers.set("Accept", "application/json");
+        headers.set("Content-Type", "application/json");
+        if (authorization != null) {
+            headers.set("Authorization", authorization.trim());
+        }
+        if (userId != null) {
+            headers.set("X-User-ID", userId);
+            logger.debug("Adding X-User-ID header: {}", userId);
+        }
+        if (tableId != null) {
+            headers.set("X-Table-ID", tableId);
+            logger.debug("Adding X-Table-ID header: {}", tableId);
+        }
+        return headers;
+    }
+
+    public <T> ResponseEntity<T> exchange(String operation, String url, HttpMethod method, HttpEntity<?> request,
+                                          ParameterizedTypeReference<T> responseType) {
+        return execute(operation, remainingMs -> restTemplate.exchange(url, method, withDeadline(request, remainingMs), responseType));
+    }
+
+    public <T> ResponseEntity<T> exchange(String operation, String url, HttpMethod method, HttpEntity<?> request,
+                                          Class<T> responseType) {
+        return execute(operation, remainingMs -> restTemplate.exchange(url, method, withDeadline(request, remainingMs), responseType));
+    }
+
+    /**
+     * Calls, hedges, hedge wins and the current hedge delay per operation
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        operations.forEach((name, operation) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("calls", (long) operation.calls.count());
+            entry.put("hedges", (long) operation.hedges.count());
+            entry.put("hedgeWins", (long) operation.hedgeWins.count());
+            entry.put("hedgeDelayMs", operation.hedgeDelayMs);
+            stats.put(name, entry);
+        });
+        return stats;
+    }
+
+    private <T> T execute(String name, LongFunction<T> call) {
+        Operation operation = operations.computeIfAbsent(name, Operation::new);
+        operation.calls.increment();
+        long start = System.nanoTime();
+        try {
+            return hedgingEnabled && hedgedOperations.contains(name)
+                    ? executeHedged(name, operation, start, call) : call.apply(deadlineMs);
+        } finally {
+            operation.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T executeHedged(String name, Operation operation, long start, LongFunction<T> call) {
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(attempts);
+        List<Future<T>> started = new ArrayList<>(2);
+        // Set once the primary's latency is sampled: by the primary when it answers, or on abandoning it
+        AtomicBoolean sampled = new AtomicBoolean();
+        Future<T> primary = completion.submit(() -> {
+            T result = call.apply(remainingMs(deadline));
+            if (sampled.compareAndSet(false, true)) {
+                operation.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return result;
+        });
+        started.add(primary);
+        long hedgeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(operation.hedgeDelayMs);
+        RuntimeException failure = null;
+        int running = 1;
+        try {
+            while (running > 0) {
+                boolean hedged = started.size() > 1;
+                long waitNanos = (hedged ? deadline : Math.min(deadline, hedgeAt)) - System.nanoTime();
+                Future<T> done = completion.poll(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (hedged || System.nanoTime() - deadline >= 0) {
+                        throw new ResourceAccessException("Order Service " + name + " exceeded its " + deadlineMs + "ms deadline");
+                    }
+                    operation.hedges.increment();
+                    logger.debug("Order Service {} slower than {}ms, sending a backup request", name, operation.hedgeDelayMs);
+                    started.add(completion.submit(() -> call.apply(remainingMs(deadline))));
+                    running++;
+                    continue;
+                }
+                running--;
+                try {
+                    T result = done.get();
+                    if (done != primary) {
+                        operation.hedgeWins.increment();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+                            ? runtime : new ResourceAccessException("Order Service " + name + " failed: " + e.getCause());
+                    // The Order Service answered: the other attempt would get the same answer
+                    if (cause instanceof HttpClientErrorException) {
+                        throw cause;
+                    }
+                    failure = cause;
+                }
+            }
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted waiting for Order Service " + name);
+        } finally {
+            if (!primary.isDone() && sampled.compareAndSet(false, true)) {
+                // Censored: the primary took at least this long
+                operation.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            started.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    private long remainingMs(long deadline) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private static HttpEntity<?> withDeadline(HttpEntity<?> request, long remainingMs) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(request.getHeaders());
+        headers.set(DEADLINE_HEADER, String.valueOf(remainingMs));
+        return new HttpEntity<>(request.getBody(), headers);
+    }
+
+    private final class Operation {
+        private final Counter calls;
+        private final Counter hedges;
+        private final Counter hedgeWins;
+        private final Timer latency;
+        // Guarded by this; samples rotate from current to previous every SAMPLE_WINDOW calls
+        private LogHistogram current = new LogHistogram();
+        private LogHistogram previous = new LogHistogram();
+        private volatile long hedgeDelayMs = initialDelayMs;
+
+        private Operation(String name) {
+            Tags tags = Tags.of("operation", name);
+            this.calls = meterRegistry.counter("kds.orderservice.calls", tags);
+            this.hedges = meterRegistry.counter("kds.orderservice.hedges", tags);
+            this.hedgeWins = meterRegistry.counter("kds.orderservice.hedge.wins", tags);
+            this.latency = Timer.builder("kds.orderservice.latency")
+                    .description("Order Service call latency as seen by the caller, backup requests included")
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            meterRegistry.gauge("kds.orderservice.hedge.delay", tags, this, operation -> operation.hedgeDelayMs);
+        }
+
+        synchronized void record(long latencyMs) {
+            current.add(latencyMs);
+            if (current.getCount() >= SAMPLE_WINDOW) {
+                LogHistogram emptied = previous;
+                previous = current;
+                current = emptied;
+                current.clear();
+            }
+            if (current.getCount() + previous.getCount() >= MIN_SAMPLES) {
+                LogHistogram recent = new LogHistogram();
+                recent.merge(previous);
+                recent.merge(current);
+                hedgeDelayMs = Math.max(minDelayMs, recent.quantile(quantile));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.restaurant.kds_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.kds_service.dto.OrderSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Persists the latest active-orders snapshot to a local file
+ * Writes go to a temp file which is then atomically renamed over the previous snapshot,
+ * so a crash mid-write never leaves a half-written file behind
+ * Callers on the request path use {@link #submit}: a single writer thread persists the newest snapshot
+ * handed to it, so bursts of changes collapse into one write and nobody waits on the fsync
+ */
+@Service
+public class OrderSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSnapshotStore.class);
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path snapshotFile;
+
+    // Newest snapshot not yet picked up by the writer; null when the writer is idle or has taken it
+    private final AtomicReference<OrderSnapshot> pendingSnapshot = new AtomicReference<>();
+    private final ExecutorService writer;
+
+    public OrderSnapshotStore(
+            ObjectMapper objectMapper,
+            @Value("${snapshot.enabled:true}") boolean enabled,
+            @Value("${snapshot.path:data/kds-active-orders.json}") String snapshotPath) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.snapshotFile = Paths.get(snapshotPath).toAbsolutePath();
+        this.writer = enabled ? Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "order-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        logger.info("OrderSnapshotStore initialized - enabled: {}, file: {}", enabled, snapshotFile);
+    }
+
+    /**
+     * Load the last persisted snapshot, if any
+     * A missing or unreadable file is treated as "no snapshot" - the poller will fill the cache
+     */
+    public Optional<OrderSnapshot> load() {
+        if (!enabled || !Files.isRegularFile(snapshotFile)) {
+            return Optional.empty();
+        }
+        try {
+            OrderSnapshot snapshot = objectMapper.readValue(snapshotFile.toFile(), OrderSnapshot.class);
+            logger.info("Loaded order snapshot v{} with {} orders from {}",
+                    snapshot.getVersion(), snapshot.getOrders() == null ? 0 : snapshot.getOrders().size(), snapshotFile);
+            return Optional.of(snapshot);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable order snapshot {}: {}", snapshotFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Hand a snapshot to the writer thread and return at once
+     * A snapshot still waiting to be written is replaced rather than queued behind - only the newest matters.
+     * Once the writer has shut down the snapshot is written on the caller's thread instead
+     */
+    public void submit(OrderSnapshot snapshot) {
+        if (!enabled) {
+            return;
+        }
+        if (pendingSnapshot.getAndSet(snapshot) == null) {
+            try {
+                writer.execute(this::writePending);
+            } catch (RejectedExecutionException e) {
+                // A poll or status change racing shutdown: flush() may already have written its last snapshot
+                writePending();
+            }
+        }
+    }
+
+    /**
+     * Stop the writer and write whatever snapshot it had not picked up yet, so shutdown keeps the latest state
+     */
+    @PreDestroy
+    public void flush() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Order snapshot writer did not finish within 5s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writePending();
+    }
+
+    private void writePending() {
+        OrderSnapshot snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot != null) {
+            save(snapshot);
+        }
+    }
+
+    /**
+     * Write the snapshot to disk (temp file + fsync + atomic rename)
+     * Failures are logged only - persistence is a startup optimization, never a reason to fail a poll
+     */
+    public synchronized void save(OrderSnapshot snapshot) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            AtomicFiles.write(snapshotFile, objectMapper.writeValueAsBytes(snapshot));
+            logger.debug("Persisted order snapshot v{} ({} orders)", snapshot.getVersion(), snapshot.getOrders().size());
+        } catch (IOException e) {
+            logger.warn("Failed to persist order snapshot (non-critical): {}", e.getMessage());
+        }
+    }
+}
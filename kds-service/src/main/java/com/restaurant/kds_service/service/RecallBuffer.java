@@ -0,0 +1,140 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.RecentOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, time-windowed recall buffer of orders that recently left the display
+ * (bumped READY, picked up, or dropped by the Order Service), behind GET /api/kitchen/orders/recent
+ *
+ * A fixed ring of CompactOrder entries: the oldest entry is overwritten once recall.capacity is
+ * reached, and entries older than recall.window-minutes are skipped on read. When an order left more
+ * than once, only its latest entry is returned. Recalls look orders up here, never in the Order Service.
+ */
+@Service
+public class RecallBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecallBuffer.class);
+
+    public static final String READY = "READY";
+    public static final String SERVED = "SERVED";
+    public static final String LEFT_ACTIVE = "LEFT_ACTIVE";
+
+    private final StringDictionary statuses = new StringDictionary();
+    private final StringDictionary itemNames = new StringDictionary();
+    private final long windowMs;
+
+    // Guarded by this; slot i holds orders[i] (null once recalled), why it left and when
+    private final CompactOrder[] orders;
+    private final String[] reasons;
+    private final long[] leftAtEpochMs;
+    private int next;
+    private int size;
+
+    public RecallBuffer(
+            @Value("${recall.capacity:200}") int capacity,
+            @Value("${recall.window-minutes:30}") long windowMinutes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("recall.capacity must be positive: " + capacity);
+        }
+        this.orders = new CompactOrder[capacity];
+        this.reasons = new String[capacity];
+        this.leftAtEpochMs = new long[capacity];
+        this.windowMs = TimeUnit.MINUTES.toMillis(windowMinutes);
+        logger.info("RecallBuffer initialized - capacity: {}, window: {}min", capacity, windowMinutes);
+    }
+
+    public void record(KitchenOrderResponse order, String reason) {
+        record(order, reason, System.currentTimeMillis());
+    }
+
+    synchronized void record(KitchenOrderResponse order, String reason, long nowEpochMs) {
+        if (order == null || order.getId() == null) {
+            return;
+        }
+        orders[next] = CompactOrder.of(order, statuses, itemNames);
+        reasons[next] = reason;
+        leftAtEpochMs[next] = nowEpochMs;
+        next = (next + 1) % orders.length;
+        size = Math.min(size + 1, orders.length);
+    }
+
+    /**
+     * Orders that left within the window, most recent first
+     */
+    public List<RecentOrder> recent(int limit) {
+        return recent(limit, System.currentTimeMillis());
+    }
+
+    synchronized List<RecentOrder> recent(int limit, long nowEpochMs) {
+        List<RecentOrder> recent = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < size && recent.size() < limit; i++) {
+            int slot = slotFromNewest(i);
+            if (nowEpochMs - leftAtEpochMs[slot] > windowMs) {
+                break;
+            }
+            if (orders[slot] != null && seen.add(orders[slot].getId())) {
+                recent.add(entry(slot));
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * Latest entry for an order within the window, or null
+     */
+    public synchronized RecentOrder find(Long orderId) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            int slot = slotFromNewest(i);
+            if (now - leftAtEpochMs[slot] > windowMs) {
+                return null;
+            }
+            if (orders[slot] != null && orders[slot].getId() == orderId) {
+                return entry(slot);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forget an order once it is back on the display
+     */
+    public synchronized void remove(Long orderId) {
+        for (int slot = 0; slot < orders.length; slot++) {
+            if (orders[slot] != null && orders[slot].getId() == orderId) {
+                orders[slot] = null;
+            }
+        }
+    }
+
+    /**
+     * Forget an order's READY entries once it moves to another status, so a later bump is a new transition
+     */
+    public synchronized void clearReady(Long orderId) {
+        for (int slot = 0; slot < orders.length; slot++) {
+            if (orders[slot] != null && orders[slot].getId() == orderId && READY.equals(reasons[slot])) {
+                orders[slot] = null;
+            }
+        }
+    }
+
+    private int slotFromNewest(int age) {
+        return Math.floorMod(next - 1 - age, orders.length);
+    }
+
+    private RecentOrder entry(int slot) {
+        return new RecentOrder(orders[slot].toResponse(statuses, itemNames), reasons[slot], leftAtEpochMs[slot]);
+    }
+}
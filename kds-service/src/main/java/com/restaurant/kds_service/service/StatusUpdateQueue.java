@@ -0,0 +1,377 @@
+package com.restaurant.kds_service.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.PendingStatusUpdate;
+import com.restaurant.kds_service.dto.UpdateOrderStatusRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Write-behind mode for kitchen status changes (write-behind.enabled)
+ *
+ * A change is accepted into a local queue, persisted to write-behind.path (temp file + fsync + atomic
+ * rename) and shown on the display at once; a single replay thread then sends it to the Order Service.
+ * The caller's Authorization header is neither kept nor written to disk: replays authenticate with
+ * write-behind.service-token instead.
+ * The queue holds at most one entry per order - CREATED -> PREPARING -> READY made while upstream is
+ * unreachable collapses to one READY call - and entries are replayed oldest change first. A failed call
+ * (connection error, 5xx, 401, 408, 429) pauses the whole replay with exponential backoff, since the Order
+ * Service is down (or the service token refused) for every order alike; any other 4xx drops the entry and raises "status-update-rejected"
+ * on the stream, and the next poll shows the Order Service's status again. Failures that may be down to the
+ * change itself (500, an unexpected error or empty response) also count against the entry: after
+ * write-behind.max-attempts it is rejected the same way, so one poison change cannot hold up the rest. Confirmed changes go to the
+ * confirmation listener (KitchenService), which emits the Kafka event for READY.
+ */
+@Service
+public class StatusUpdateQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusUpdateQueue.class);
+
+    private final OrderServiceClient orderServiceClient;
+    private final ObjectMapper objectMapper;
+    private final KitchenEventStream eventStream;
+    private final String orderServiceBaseUrl;
+    private final boolean enabled;
+    private final Path queueFile;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final int maxAttempts;
+    private final String serviceToken;
+
+    // Guarded by this; orderId -> latest unconfirmed change
+    private final Map<Long, PendingStatusUpdate> pending = new LinkedHashMap<>();
+    private long nextSeq = 1;
+    private int consecutiveFailures;
+    private long retryAtEpochMs;
+    private long coalesced;
+    private long confirmed;
+    private long rejected;
+    private long queueVersion;
+
+    // Guarded by fileLock; the newest queue version on disk, so an older snapshot is never written over it
+    private final Object fileLock = new Object();
+    private long writtenVersion;
+
+    private volatile BiConsumer<PendingStatusUpdate, KitchenOrderResponse> confirmationListener = (update, order) -> { };
+    private ScheduledExecutorService replayer;
+
+    public StatusUpdateQueue(
+            OrderServiceClient orderServiceClient,
+            ObjectMapper objectMapper,
+            KitchenEventStream eventStream,
+            @Value("${order-service.base-url}") String orderServiceBaseUrl,
+            @Value("${write-behind.enabled:false}") boolean enabled,
+            @Value("${write-behind.path:data/kds-pending-status-updates.json}") String queuePath,
+            @Value("${write-behind.service-token:}") String serviceToken,
+            @Value("${write-behind.initial-backoff-ms:1000}") long initialBackoffMs,
+            @Value("${write-behind.max-backoff-ms:60000}") long maxBackoffMs,
+            @Value("${write-behind.max-attempts:5}") int maxAttempts) {
+        this.orderServiceClient = orderServiceClient;
+        this.objectMapper = objectMapper;
+        this.eventStream = eventStream;
+        this.orderServiceBaseUrl = orderServiceBaseUrl;
+        this.enabled = enabled;
+        this.queueFile = Paths.get(queuePath).toAbsolutePath();
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.maxAttempts = maxAttempts;
+        this.serviceToken = serviceToken == null || serviceToken.isBlank() ? null : serviceToken.trim();
+        logger.info("StatusUpdateQueue initialized - write-behind enabled: {}, file: {}, backoff: {}-{}ms",
+                enabled, queueFile, initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * Reload changes left unconfirmed by the previous run and start the replay thread
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (serviceToken == null) {
+            logger.warn("write-behind.service-token is not set - status changes are replayed without Authorization");
+        }
+        load();
+        replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "status-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayer.scheduleWithFixedDelay(this::replay, 0, Math.min(initialBackoffMs, 1000), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (replayer != null) {
+            replayer.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setConfirmationListener(BiConsumer<PendingStatusUpdate, KitchenOrderResponse> confirmationListener) {
+        this.confirmationListener = confirmationListener;
+    }
+
+    /**
+     * Accept a status change; replaces any change still pending for the same order
+     */
+    public PendingStatusUpdate submit(Long orderId, String status, String userId, String tableId) {
+        return submit(orderId, status, System.currentTimeMillis(), null, userId, tableId);
+    }
+
+    /**
+     * Accept a status change made at {@code acceptedAtEpochMs}, with the order-ready event id for a READY change
+     */
+    public PendingStatusUpdate submit(Long orderId, String status, long acceptedAtEpochMs, String eventId,
+                                      String userId, String tableId) {
+        PendingStatusUpdate update;
+        QueueSnapshot snapshot;
+        synchronized (this) {
+            update = new PendingStatusUpdate(orderId, status, nextSeq++, acceptedAtEpochMs, eventId, userId, tableId, 0);
+            PendingStatusUpdate replaced = pending.remove(orderId);
+            if (replaced != null) {
+                coalesced++;
+                logger.info("Order {}: pending {} replaced by {} before reaching the Order Service",
+                        orderId, replaced.getStatus(), status);
+            }
+            pending.put(orderId, update);
+            snapshot = snapshot();
+        }
+        persist(snapshot);
+        if (replayer != null && !replayer.isShutdown()) {
+            replayer.execute(this::replay);
+        }
+        return update;
+    }
+
+    /**
+     * The status the kitchen set for this order that the Order Service has not confirmed yet, or null
+     */
+    public synchronized String pendingStatus(Long orderId) {
+        PendingStatusUpdate update = pending.get(orderId);
+        return update == null ? null : update.getStatus();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("oldestPendingMs", pending.values().stream()
+                .mapToLong(update -> System.currentTimeMillis() - update.getAcceptedAtEpochMs()).max().orElse(0));
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("retryInMs", Math.max(0, retryAtEpochMs - System.currentTimeMillis()));
+        stats.put("coalesced", coalesced);
+        stats.put("confirmed", confirmed);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+
+    /**
+     * Send pending changes oldest first until the queue is empty or a call fails; replay thread only
+     */
+    void replay() {
+        try {
+            PendingStatusUpdate next;
+            while ((next = nextDue()) != null) {
+                if (!send(next)) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Status write-behind replay failed", e);
+        }
+    }
+
+    private synchronized PendingStatusUpdate nextDue() {
+        if (System.currentTimeMillis() < retryAtEpochMs) {
+            return null;
+        }
+        return pending.values().stream().min(Comparator.comparingLong(PendingStatusUpdate::getSeq)).orElse(null);
+    }
+
+    /**
+     * @return false when the Order Service could not be reached and the replay should back off
+     */
+    private boolean send(PendingStatusUpdate update) {
+        String url = orderServiceBaseUrl + "/" + update.getOrderId() + "/status";
+        HttpEntity<UpdateOrderStatusRequest> request = new HttpEntity<>(new UpdateOrderStatusRequest(update.getStatus()),
+                OrderServiceClient.statusUpdateHeaders(serviceToken, update.getUserId(), update.getTableId()));
+        KitchenOrderResponse order;
+        try {
+            order = orderServiceClient.exchange(OrderServiceClient.UPDATE_STATUS, url, HttpMethod.PATCH, request,
+                    KitchenOrderResponse.class).getBody();
+        } catch (HttpClientErrorException e) {
+            // 401 is the service token, not this change: keep the queue until the operator fixes it
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || e.getStatusCode() == HttpStatus.REQUEST_TIMEOUT
+                    || e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                return failed(update, e.getMessage());
+            }
+            reject(update, e.getStatusCode().value() + " " + e.getStatusText());
+            return true;
+        } catch (HttpServerErrorException e) {
+            // 502/503/504 come from the gateway while the Order Service is down, not from this change
+            if (e.getStatusCode() == HttpStatus.BAD_GATEWAY || e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE
+                    || e.getStatusCode() == HttpStatus.GATEWAY_TIMEOUT) {
+                return failed(update, e.getMessage());
+            }
+            return failedAttempt(update, e.getStatusCode().value() + " " + e.getStatusText());
+        } catch (ResourceAccessException e) {
+            return failed(update, e.getMessage());
+        } catch (Exception e) {
+            return failedAttempt(update, e.getMessage());
+        }
+        if (order == null) {
+            return failedAttempt(update, "Order Service returned null response");
+        }
+        boolean latest;
+        QueueSnapshot snapshot;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            confirmed++;
+            latest = removeIfLatest(update);
+            snapshot = latest ? snapshot() : null;
+        }
+        persist(snapshot);
+        logger.info("Order {} status {} confirmed by the Order Service ({}ms after it was accepted)",
+                update.getOrderId(), update.getStatus(), System.currentTimeMillis() - update.getAcceptedAtEpochMs());
+        // A newer change arrived while this one was in flight: it is replayed next and confirms in its turn
+        if (latest) {
+            confirmationListener.accept(update, order);
+        }
+        return true;
+    }
+
+    private synchronized boolean failed(PendingStatusUpdate update, String reason) {
+        consecutiveFailures++;
+        long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(consecutiveFailures - 1, 20));
+        retryAtEpochMs = System.currentTimeMillis() + backoffMs;
+        logger.warn("Order Service unavailable replaying order {} -> {} ({} pending, retry in {}ms): {}",
+                update.getOrderId(), update.getStatus(), pending.size(), backoffMs, reason);
+        return false;
+    }
+
+    /**
+     * A failure that may be this change's own: back off as usual, or reject it once it has used up
+     * max-attempts so the changes queued behind it are replayed
+     */
+    private boolean failedAttempt(PendingStatusUpdate update, String reason) {
+        int attempts;
+        synchronized (this) {
+            attempts = update.getAttempts() + 1;
+            update.setAttempts(attempts);
+        }
+        if (attempts < maxAttempts) {
+            return failed(update, reason);
+        }
+        reject(update, reason + " (" + attempts + " attempts)");
+        return true;
+    }
+
+    private void reject(PendingStatusUpdate update, String reason) {
+        QueueSnapshot snapshot;
+        synchronized (this) {
+            rejected++;
+            if (!removeIfLatest(update)) {
+                return;
+            }
+            snapshot = snapshot();
+        }
+        persist(snapshot);
+        logger.error("Order Service rejected order {} -> {}, dropping it: {}", update.getOrderId(), update.getStatus(), reason);
+        eventStream.publish("status-update-rejected", Map.of(
+                "orderId", update.getOrderId(), "status", update.getStatus(), "reason", reason));
+    }
+
+    private boolean removeIfLatest(PendingStatusUpdate update) {
+        PendingStatusUpdate current = pending.get(update.getOrderId());
+        if (current == null || current.getSeq() != update.getSeq()) {
+            return false;
+        }
+        pending.remove(update.getOrderId());
+        return true;
+    }
+
+    synchronized void load() {
+        if (!Files.isRegularFile(queueFile)) {
+            return;
+        }
+        try {
+            List<PendingStatusUpdate> updates = objectMapper.readValue(queueFile.toFile(),
+                    new TypeReference<List<PendingStatusUpdate>>() {});
+            for (PendingStatusUpdate update : updates) {
+                pending.put(update.getOrderId(), update);
+                nextSeq = Math.max(nextSeq, update.getSeq() + 1);
+            }
+            logger.info("Loaded {} unconfirmed status changes from {}", pending.size(), queueFile);
+        } catch (IOException e) {
+            logger.error("Ignoring unreadable status write-behind queue {}: {}", queueFile, e.getMessage());
+        }
+    }
+
+    /**
+     * The queue as JSON, numbered so writes can be ordered; callers hold the lock
+     */
+    private QueueSnapshot snapshot() {
+        try {
+            return new QueueSnapshot(++queueVersion, pending.size(),
+                    objectMapper.writeValueAsBytes(new ArrayList<>(pending.values())));
+        } catch (IOException e) {
+            logger.warn("Failed to serialize status write-behind queue ({} pending): {}", pending.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write a queue snapshot to disk (temp file + fsync + atomic rename) outside the queue lock, so replay
+     * and polls are not held up by the fsync; a snapshot older than the one on disk is skipped, its changes
+     * being part of the newer one. A failed write is logged only - the change stays queued in memory and
+     * is still replayed
+     */
+    private void persist(QueueSnapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        synchronized (fileLock) {
+            if (snapshot.version() <= writtenVersion) {
+                return;
+            }
+            try {
+                AtomicFiles.write(queueFile, snapshot.json());
+                writtenVersion = snapshot.version();
+            } catch (IOException e) {
+                logger.warn("Failed to persist status write-behind queue ({} pending): {}", snapshot.pending(), e.getMessage());
+            }
+        }
+    }
+
+    private record QueueSnapshot(long version, int pending, byte[] json) {
+    }
+}
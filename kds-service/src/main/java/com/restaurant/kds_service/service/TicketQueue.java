@@ -0,0 +1,327 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.TicketOverdueAlert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kitchen tickets kept in display order - priority first, then oldest createdAt - behind GET /api/kitchen/tickets
+ *
+ * OrderPollingService feeds it incrementally: a poll re-keys only orders that changed, a status change
+ * or recall touches one entry, so pages are read straight off the skip list with no per-request sort.
+ * Orders in tickets.done-statuses (READY by default) are not tickets. Each ticket's tickets.alert-minutes
+ * thresholds go on a hashed timer wheel when it enters the queue; when one comes due and the ticket is
+ * still queued, a "ticket-overdue" event goes to the kitchen screens. Tickets already past a threshold
+ * when first seen (e.g. after a restart) raise only the highest one.
+ */
+@Service
+public class TicketQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketQueue.class);
+    private static final int WHEEL_SLOTS = 512;
+
+    private final KitchenEventStream eventStream;
+    private final int[] alertMinutes;
+    private final Set<String> doneStatuses = new HashSet<>();
+    private final long tickMs;
+    private final TimerWheel wheel = new TimerWheel();
+
+    private final ConcurrentSkipListMap<TicketKey, Ticket> queue = new ConcurrentSkipListMap<>();
+    private final Map<Long, Ticket> byId = new ConcurrentHashMap<>();
+    // Rush priorities set via the API, kept across polls until the order leaves the queue
+    private final Map<Long, Integer> priorities = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService ticker;
+
+    public TicketQueue(
+            KitchenEventStream eventStream,
+            @Value("${tickets.alert-minutes:10,20}") int[] alertMinutes,
+            @Value("${tickets.done-statuses:READY}") String[] doneStatuses,
+            @Value("${tickets.wheel-tick-ms:1000}") long tickMs) {
+        this.eventStream = eventStream;
+        this.alertMinutes = alertMinutes.clone();
+        Arrays.sort(this.alertMinutes);
+        for (String status : doneStatuses) {
+            this.doneStatuses.add(status.trim().toUpperCase(Locale.ROOT));
+        }
+        this.tickMs = tickMs;
+        logger.info("TicketQueue initialized - alerts at {} minutes, done statuses: {}, wheel: {} x {}ms",
+                Arrays.toString(this.alertMinutes), this.doneStatuses, WHEEL_SLOTS, tickMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ticket-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Whether an order in this status belongs on the ticket queue
+     */
+    public boolean isTicket(String status) {
+        return status == null || !doneStatuses.contains(status.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Make the queue hold exactly these orders; unchanged ones are not touched
+     */
+    public synchronized void sync(List<CompactOrder> orders) {
+        Set<Long> ids = new HashSet<>();
+        for (CompactOrder order : orders) {
+            ids.add(order.getId());
+            upsert(order);
+        }
+        List<Long> gone = byId.keySet().stream().filter(id -> !ids.contains(id)).toList();
+        gone.forEach(this::removeEntry);
+    }
+
+    public synchronized void upsert(CompactOrder order) {
+        Ticket existing = byId.get(order.getId());
+        if (existing != null && existing.order.equals(order)) {
+            return;
+        }
+        TicketKey key = new TicketKey(priorities.getOrDefault(order.getId(), 0), order.getCreatedAtSortKey(), order.getId());
+        boolean sameAge = existing != null && existing.key.createdAt == key.createdAt;
+        Ticket ticket = new Ticket(order, key, sameAge ? existing.overdueMinutes : 0);
+        if (existing != null) {
+            queue.remove(existing.key);
+        }
+        queue.put(key, ticket);
+        byId.put(order.getId(), ticket);
+        if (!sameAge) {
+            scheduleAlerts(ticket);
+        }
+    }
+
+    public synchronized void remove(long orderId) {
+        removeEntry(orderId);
+    }
+
+    private void removeEntry(long orderId) {
+        Ticket ticket = byId.remove(orderId);
+        if (ticket != null) {
+            queue.remove(ticket.key);
+        }
+        priorities.remove(orderId);
+    }
+
+    /**
+     * Move a ticket up (higher first) or back to normal (0)
+     *
+     * @return false when the order is not on the queue
+     */
+    public synchronized boolean setPriority(long orderId, int priority) {
+        Ticket ticket = byId.get(orderId);
+        if (ticket == null) {
+            return false;
+        }
+        priorities.put(orderId, priority);
+        TicketKey key = new TicketKey(priority, ticket.key.createdAt, orderId);
+        Ticket moved = new Ticket(ticket.order, key, ticket.overdueMinutes);
+        queue.remove(ticket.key);
+        queue.put(key, moved);
+        byId.put(orderId, moved);
+        return true;
+    }
+
+    /**
+     * Tickets in display order, read directly off the skip list
+     */
+    public List<Ticket> page(int offset, int limit) {
+        List<Ticket> page = new ArrayList<>(Math.min(limit, 256));
+        Iterator<Ticket> tickets = queue.values().iterator();
+        for (int skipped = 0; skipped < offset && tickets.hasNext(); skipped++) {
+            tickets.next();
+        }
+        while (page.size() < limit && tickets.hasNext()) {
+            page.add(tickets.next());
+        }
+        return page;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void scheduleAlerts(Ticket ticket) {
+        LocalDateTime createdAt = ticket.order.getCreatedAt();
+        if (createdAt == null) {
+            return;
+        }
+        long createdAtMs = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long now = System.currentTimeMillis();
+        int passed = 0;
+        for (int minutes : alertMinutes) {
+            long dueMs = createdAtMs + TimeUnit.MINUTES.toMillis(minutes);
+            if (dueMs <= now) {
+                passed = minutes;
+            } else {
+                wheel.schedule(ticket, minutes, dueMs - now);
+            }
+        }
+        if (passed > 0) {
+            wheel.schedule(ticket, passed, 0);
+        }
+    }
+
+    /**
+     * Advance the wheel one slot and raise the alerts that came due
+     */
+    void tick() {
+        try {
+            for (Timeout due : wheel.advance()) {
+                fire(due);
+            }
+        } catch (Exception e) {
+            logger.error("Ticket alert tick failed", e);
+        }
+    }
+
+    private void fire(Timeout due) {
+        TicketOverdueAlert alert;
+        synchronized (this) {
+            Ticket current = byId.get(due.ticket.order.getId());
+            // Left the queue, or re-entered with another createdAt (its own alerts are scheduled)
+            if (current == null || current.key.createdAt != due.ticket.key.createdAt
+                    || current.overdueMinutes >= due.minutes) {
+                return;
+            }
+            current.overdueMinutes = due.minutes;
+            alert = new TicketOverdueAlert(current.order.getId(), current.order.getTableId(),
+                    current.order.getCreatedAt(), due.minutes);
+        }
+        logger.info("Ticket {} (table {}) passed {} minutes", alert.getOrderId(), alert.getTableId(), alert.getThresholdMinutes());
+        eventStream.publish("ticket-overdue", alert);
+    }
+
+    /**
+     * A queued order with its sort key and the highest alert threshold already raised for it
+     */
+    public static final class Ticket {
+        private final CompactOrder order;
+        private final TicketKey key;
+        private volatile int overdueMinutes;
+
+        private Ticket(CompactOrder order, TicketKey key, int overdueMinutes) {
+            this.order = order;
+            this.key = key;
+            this.overdueMinutes = overdueMinutes;
+        }
+
+        public CompactOrder getOrder() {
+            return order;
+        }
+
+        public int getPriority() {
+            return key.priority;
+        }
+
+        public int getOverdueMinutes() {
+            return overdueMinutes;
+        }
+    }
+
+    private static final class TicketKey implements Comparable<TicketKey> {
+        private final int priority;
+        private final long createdAt;
+        private final long orderId;
+
+        private TicketKey(int priority, long createdAt, long orderId) {
+            this.priority = priority;
+            this.createdAt = createdAt;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public int compareTo(TicketKey other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            int byAge = Long.compare(createdAt, other.createdAt);
+            return byAge != 0 ? byAge : Long.compare(orderId, other.orderId);
+        }
+    }
+
+    private static final class Timeout {
+        private final Ticket ticket;
+        private final int minutes;
+        private long rounds;
+
+        private Timeout(Ticket ticket, int minutes, long rounds) {
+            this.ticket = ticket;
+            this.minutes = minutes;
+            this.rounds = rounds;
+        }
+    }
+
+    /**
+     * Hashed timer wheel: WHEEL_SLOTS slots of tickMs each; timeouts further out than one turn wait
+     * out their remaining rounds in the slot. Cancellation is lazy - a due timeout is checked against
+     * the queue when it fires - so scheduling and leaving the queue are both O(1).
+     */
+    private final class TimerWheel {
+        // Slot lists are created on first use
+        private final List<List<Timeout>> slots = new ArrayList<>(Collections.nCopies(WHEEL_SLOTS, null));
+        private int cursor;
+
+        synchronized void schedule(Ticket ticket, int minutes, long delayMs) {
+            long ticks = Math.max(1, (delayMs + tickMs - 1) / tickMs);
+            int slot = (int) ((cursor + ticks) % WHEEL_SLOTS);
+            if (slots.get(slot) == null) {
+                slots.set(slot, new ArrayList<>());
+            }
+            slots.get(slot).add(new Timeout(ticket, minutes, (ticks - 1) / WHEEL_SLOTS));
+        }
+
+        synchronized List<Timeout> advance() {
+            cursor = (cursor + 1) % WHEEL_SLOTS;
+            List<Timeout> slot = slots.get(cursor);
+            if (slot == null || slot.isEmpty()) {
+                return List.of();
+            }
+            List<Timeout> due = new ArrayList<>();
+            Iterator<Timeout> timeouts = slot.iterator();
+            while (timeouts.hasNext()) {
+                Timeout timeout = timeouts.next();
+                if (timeout.rounds == 0) {
+                    due.add(timeout);
+                    timeouts.remove();
+                } else {
+                    timeout.rounds--;
+                }
+            }
+            return due;
+        }
+    }
+}
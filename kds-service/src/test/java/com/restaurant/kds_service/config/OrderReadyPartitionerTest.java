@@ -0,0 +1,61 @@
+package com.restaurant.kds_service.config;
+
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the order-ready partitioning strategies
+ */
+class OrderReadyPartitionerTest {
+
+    @Test
+    void testOrderStrategy_MatchesDefaultKeyHashing() {
+        // Arrange
+        byte[] key = "42".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        int partition = OrderReadyPartitioner.partition(OrderReadyPartitioner.STRATEGY_ORDER, key, 7L, "terrace", 12);
+
+        // Assert
+        assertEquals(Utils.toPositive(Utils.murmur2(key)) % 12, partition);
+    }
+
+    @Test
+    void testTableStrategy_AllOrdersOfATableShareAPartition() {
+        // Arrange
+        Set<Integer> partitions = new HashSet<>();
+
+        // Act
+        for (long orderId = 1; orderId <= 50; orderId++) {
+            partitions.add(OrderReadyPartitioner.partition(OrderReadyPartitioner.STRATEGY_TABLE,
+                    Long.toString(orderId).getBytes(StandardCharsets.UTF_8), 7L, null, 12));
+        }
+
+        // Assert
+        assertEquals(1, partitions.size());
+    }
+
+    @Test
+    void testSectionStrategy_TablesOfASectionShareAPartition() {
+        // Arrange
+        byte[] key = "1".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        int table20 = OrderReadyPartitioner.partition("section", key, 20L, "terrace", 12);
+        int table21 = OrderReadyPartitioner.partition("section", "2".getBytes(StandardCharsets.UTF_8), 21L, "terrace", 12);
+        int unmapped = OrderReadyPartitioner.partition("section", key, 99L, null, 12);
+
+        // Assert - tables outside any section fall back to table hashing
+        assertEquals(table20, table21);
+        assertEquals(OrderReadyPartitioner.partition("table", key, 99L, null, 12), unmapped);
+        assertThrows(IllegalArgumentException.class, () -> new OrderReadyPartitioner()
+                .configure(Map.of(OrderReadyPartitioner.STRATEGY_CONFIG, "round-robin")));
+    }
+}
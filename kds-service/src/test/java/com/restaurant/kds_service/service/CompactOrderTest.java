@@ -0,0 +1,55 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compact active-order representation
+ */
+class CompactOrderTest {
+
+    private final StringDictionary statuses = new StringDictionary();
+    private final StringDictionary itemNames = new StringDictionary();
+
+    @Test
+    void testRoundTrip_PreservesValuesAndNulls() {
+        // Arrange
+        KitchenOrderResponse order = new KitchenOrderResponse(7L, 3L, null, "PREPARING", new BigDecimal("23.50"),
+                LocalDateTime.of(2024, 5, 1, 18, 30, 15, 123_456_789), List.of(
+                        new KitchenOrderResponse.OrderItem(1L, 10L, "Burger", 2, new BigDecimal("8.75")),
+                        new KitchenOrderResponse.OrderItem(2L, 11L, null, null, null)));
+        KitchenOrderResponse bare = new KitchenOrderResponse(8L, null, null, null, null, null, null);
+
+        // Act
+        KitchenOrderResponse restored = CompactOrder.of(order, statuses, itemNames).toResponse(statuses, itemNames);
+        KitchenOrderResponse restoredBare = CompactOrder.of(bare, statuses, itemNames).toResponse(statuses, itemNames);
+
+        // Assert
+        assertEquals(order, restored);
+        assertEquals(bare, restoredBare);
+    }
+
+    @Test
+    void testOf_SharesDictionaryCodesAcrossOrders() {
+        // Arrange
+        KitchenOrderResponse first = new KitchenOrderResponse(1L, 1L, 1L, "READY", BigDecimal.TEN, null,
+                List.of(new KitchenOrderResponse.OrderItem(1L, 10L, "Burger", 1, BigDecimal.TEN)));
+        KitchenOrderResponse second = new KitchenOrderResponse(2L, 1L, 1L, new String("READY"), BigDecimal.TEN, null,
+                List.of(new KitchenOrderResponse.OrderItem(2L, 10L, new String("Burger"), 1, BigDecimal.TEN)));
+
+        // Act
+        CompactOrder.of(first, statuses, itemNames);
+        CompactOrder.of(second, statuses, itemNames);
+
+        // Assert - each distinct string is held once
+        assertEquals(1, statuses.size());
+        assertEquals(1, itemNames.size());
+        assertEquals(CompactOrder.of(first, statuses, itemNames), CompactOrder.of(first, statuses, itemNames));
+    }
+}
@@ -46,7 +46,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @TestPropertySource(properties = {
         "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
         "kafka.topic.order-ready=order-ready-test",
-        "redis.enabled=false"
+        "spring.kafka.topic.order-ready=order-ready-test",
+        "redis.enabled=false",
+        "served.enabled=false"
 })
 class KafkaProducerIntegrationTest {
 
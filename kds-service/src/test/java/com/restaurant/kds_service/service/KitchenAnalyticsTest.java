@@ -0,0 +1,123 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.config.AnalyticsProperties;
+import com.restaurant.kds_service.dto.KitchenAnalyticsResponse;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for prep-time analytics built from status transitions
+ */
+class KitchenAnalyticsTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long T0 = TimeUnit.DAYS.toMillis(20_000);
+
+    @Test
+    void testPollDiffs_TimestampTransitionsAndTrackDepth() {
+        // Arrange - orders 1 and 2 were already there on the first poll, order 3 arrives later
+        KitchenAnalytics analytics = analytics();
+        analytics.observeSnapshot(List.of(order(1L, "PREPARING", "Burger"), order(2L, "CONFIRMED", "Mojito")), T0);
+
+        // Act
+        analytics.observeSnapshot(List.of(order(1L, "READY", "Burger"), order(2L, "PREPARING", "Mojito"),
+                order(3L, "CREATED", "Burger")), T0 + MINUTE);
+        analytics.observeSnapshot(List.of(order(2L, "READY", "Mojito"), order(3L, "CREATED", "Burger")), T0 + 13 * MINUTE);
+        KitchenAnalyticsResponse result = analytics.getAnalytics(T0 + 13 * MINUTE);
+
+        // Assert - order 1's PREPARING start was never seen, order 2 prepared for 12 minutes
+        assertEquals(Map.of("CREATED", 1, "READY", 1), result.getQueueDepth());
+        assertEquals(1, result.getPrepTime().getCount());
+        assertEquals(12 * MINUTE, result.getPrepTime().getP50Ms(), 12 * MINUTE * 0.02);
+        assertEquals(Set.of("bar"), result.getPrepTimeByStation().keySet());
+        assertTrue(result.getPrepTimeByItem().containsKey("Mojito"));
+        assertEquals(1, result.getTimeInStatus().get("PREPARING").getCount());
+        long ready = result.getThroughput().stream().mapToLong(KitchenAnalyticsResponse.ThroughputWindow::getReady).sum();
+        long departed = result.getThroughput().stream().mapToLong(KitchenAnalyticsResponse.ThroughputWindow::getDeparted).sum();
+        assertEquals(2, ready);
+        assertEquals(1, departed);
+    }
+
+    @Test
+    void testOwnUpdates_NotUndoneByAnOlderPoll() {
+        // Arrange
+        KitchenAnalytics analytics = analytics();
+        analytics.observeSnapshot(List.of(), T0);
+        analytics.observeSnapshot(List.of(order(5L, "CONFIRMED", "Steak")), T0 + MINUTE);
+
+        // Act - marked PREPARING then READY through the KDS, while a poll still shows PREPARING
+        analytics.recordTransition(order(5L, "PREPARING", "Steak"), "PREPARING", T0 + 2 * MINUTE);
+        analytics.recordTransition(order(5L, "READY", "Steak"), "READY", T0 + 10 * MINUTE);
+        analytics.observeSnapshot(List.of(order(5L, "PREPARING", "Steak")), T0 + 10 * MINUTE + 1000);
+        KitchenAnalyticsResponse result = analytics.getAnalytics(T0 + 11 * MINUTE);
+
+        // Assert
+        assertEquals(Map.of("READY", 1), result.getQueueDepth());
+        assertEquals(1, result.getPrepTime().getCount());
+        assertEquals(8 * MINUTE, result.getPrepTime().getP50Ms(), 8 * MINUTE * 0.02);
+        assertEquals(Set.of("grill"), result.getPrepTimeByStation().keySet());
+    }
+
+    @Test
+    void testRollingWindow_OldSamplesExpireAndResponseIsCached() {
+        // Arrange - 60 minute window in 6 slots
+        KitchenAnalytics analytics = analytics();
+        analytics.observeSnapshot(List.of(), T0);
+        analytics.observeSnapshot(List.of(order(7L, "CONFIRMED", "Soup")), T0);
+        analytics.observeSnapshot(List.of(order(7L, "PREPARING", "Soup")), T0 + MINUTE);
+        analytics.recordTransition(order(7L, "READY", "Soup"), "READY", T0 + 5 * MINUTE);
+
+        // Act
+        KitchenAnalyticsResponse first = analytics.getAnalytics(T0 + 6 * MINUTE);
+        KitchenAnalyticsResponse again = analytics.getAnalytics(T0 + 6 * MINUTE + 1);
+        KitchenAnalyticsResponse later = analytics.getAnalytics(T0 + 80 * MINUTE);
+
+        // Assert
+        assertSame(first, again, "Nothing changed and no slot expired");
+        assertEquals(1, first.getPrepTime().getCount());
+        assertEquals(Set.of("unassigned"), first.getPrepTimeByStation().keySet());
+        assertEquals(0, later.getPrepTime().getCount());
+        assertTrue(later.getTimeInStatus().isEmpty());
+        assertEquals(Map.of("READY", 1), later.getQueueDepth(), "Depth is current state, not windowed");
+    }
+
+    @Test
+    void testHistogram_QuantilesWithinRelativeError() {
+        // Arrange
+        LogHistogram histogram = new LogHistogram();
+        LogHistogram other = new LogHistogram();
+
+        // Act - 1..1000 seconds, split over two mergeable histograms
+        for (long seconds = 1; seconds <= 1000; seconds++) {
+            (seconds % 2 == 0 ? histogram : other).add(seconds * 1000);
+        }
+        histogram.merge(other);
+
+        // Assert
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_000, histogram.quantile(0.5), 500_000 * 0.02);
+        assertEquals(990_000, histogram.quantile(0.99), 990_000 * 0.02);
+        LogHistogram tiny = new LogHistogram();
+        tiny.add(0);
+        assertEquals(1, tiny.quantile(0.5));
+    }
+
+    private static KitchenAnalytics analytics() {
+        AnalyticsProperties properties = new AnalyticsProperties();
+        properties.setStations(Map.of("grill", List.of("burger", "Steak"), "bar", List.of("Mojito")));
+        return new KitchenAnalytics(properties, 3000);
+    }
+
+    private static KitchenOrderResponse order(Long id, String status, String item) {
+        return new KitchenOrderResponse(id, 4L, 9L, status, BigDecimal.TEN, null,
+                List.of(new KitchenOrderResponse.OrderItem(1L, 1L, item, 1, BigDecimal.TEN)));
+    }
+}
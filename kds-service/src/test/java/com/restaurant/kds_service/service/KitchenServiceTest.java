@@ -0,0 +1,160 @@
+package com.restaurant.kds_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for order-ready event identity across repeated bumps and write-behind acceptance
+ */
+class KitchenServiceTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final KafkaPublisherService publisher = mock(KafkaPublisherService.class);
+    private final RecallBuffer recallBuffer = new RecallBuffer(10, 30);
+    private final OrderPollingService orderPollingService = mock(OrderPollingService.class);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testMarkOrderAsReady_RepeatedBumpRepublishesSameEvent() {
+        // Arrange
+        KitchenService service = service();
+        patchReturns(order(7L));
+        when(orderPollingService.findOrder(7L)).thenReturn(order(7L));
+
+        // Act - the client retries the bump after a timeout
+        service.markOrderAsReady(7L, null, null, null);
+        service.markOrderAsReady(7L, null, null, null);
+
+        // Assert - same transition, same id and readyTime
+        List<OrderReadyEvent> events = published(2);
+        assertNotNull(events.get(0).getEventId());
+        assertEquals(events.get(0).getEventId(), events.get(1).getEventId());
+        assertEquals(events.get(0).getReadyTime(), events.get(1).getReadyTime());
+    }
+
+    @Test
+    void testMarkOrderAsReady_RecalledOrderGetsNewEventId() throws InterruptedException {
+        // Arrange
+        KitchenService service = service();
+        patchReturns(order(7L));
+        service.markOrderAsReady(7L, null, null, null);
+
+        // Act - recalled to PREPARING, then bumped again a moment later
+        recallBuffer.remove(7L);
+        Thread.sleep(5);
+        service.markOrderAsReady(7L, null, null, null);
+
+        // Assert
+        List<OrderReadyEvent> events = published(2);
+        assertNotEquals(events.get(0).getEventId(), events.get(1).getEventId());
+    }
+
+    @Test
+    void testMarkOrderAsReady_BumpAfterStatusChangeGetsNewEventId() throws InterruptedException {
+        // Arrange - bumped, then sent back to PREPARING through the generic status update
+        KitchenService service = service();
+        patchReturns(order(7L));
+        service.markOrderAsReady(7L, null, null, null);
+        patchReturns(order(7L, "PREPARING"));
+        service.updateOrderStatus(7L, "PREPARING", null, null, null);
+
+        // Act - bumped again well within the recall window
+        Thread.sleep(5);
+        patchReturns(order(7L));
+        service.markOrderAsReady(7L, null, null, null);
+
+        // Assert - a genuine second READY, not a repeat the waiter may drop
+        List<OrderReadyEvent> events = published(2);
+        assertNotEquals(events.get(0).getEventId(), events.get(1).getEventId());
+        assertNotEquals(events.get(0).getReadyTime(), events.get(1).getReadyTime());
+    }
+
+    @Test
+    void testMarkOrderAsReady_DisplayedOrderNoLongerReadyGetsNewEventId() throws InterruptedException {
+        // Arrange - bumped here, then put back to PREPARING in the Order Service and picked up by a poll
+        KitchenService service = service();
+        patchReturns(order(7L));
+        service.markOrderAsReady(7L, null, null, null);
+        when(orderPollingService.findOrder(7L)).thenReturn(order(7L, "PREPARING"));
+
+        // Act
+        Thread.sleep(5);
+        service.markOrderAsReady(7L, null, null, null);
+
+        // Assert
+        List<OrderReadyEvent> events = published(2);
+        assertNotEquals(events.get(0).getEventId(), events.get(1).getEventId());
+    }
+
+    @Test
+    void testMarkOrderAsReady_WriteBehindRefusesUnknownOrder() {
+        // Arrange - write-behind on, order 7 on display, order 99 never seen
+        OrderServiceClient client = new OrderServiceClient(restTemplate, new SimpleMeterRegistry(), false, OrderServiceClient.ACTIVE_ORDERS, 95, 500, 50, 10000, false);
+        StatusUpdateQueue statusUpdateQueue = new StatusUpdateQueue(client, new ObjectMapper(), new KitchenEventStream(1000),
+                "http://orders", true, dir.resolve("pending.json").toString(), "", 1000, 60000, 5);
+        OrderPollingService orderPollingService = mock(OrderPollingService.class);
+        when(orderPollingService.findOrder(7L)).thenReturn(order(7L));
+        KitchenService service = new KitchenService(client, publisher, mock(KitchenAnalytics.class), "http://orders",
+                recallBuffer, orderPollingService, statusUpdateQueue);
+
+        // Act
+        KitchenOrderResponse unknown = service.markOrderAsReady(99L, null, null, null);
+        KitchenOrderResponse known = service.markOrderAsReady(7L, null, null, null);
+
+        // Assert - nothing queued for the unknown order, no Order Service call either way
+        assertNull(unknown);
+        assertNull(statusUpdateQueue.pendingStatus(99L));
+        assertEquals("READY", known.getStatus());
+        assertEquals("READY", statusUpdateQueue.pendingStatus(7L));
+        verifyNoInteractions(restTemplate);
+    }
+
+    private KitchenService service() {
+        OrderServiceClient client = new OrderServiceClient(restTemplate, new SimpleMeterRegistry(), false, OrderServiceClient.ACTIVE_ORDERS, 95, 500, 50, 10000, false);
+        StatusUpdateQueue statusUpdateQueue = new StatusUpdateQueue(client, new ObjectMapper(), new KitchenEventStream(1000),
+                "http://orders", false, "unused-queue.json", "", 1000, 60000, 5);
+        return new KitchenService(client, publisher, mock(KitchenAnalytics.class), "http://orders", recallBuffer,
+                orderPollingService, statusUpdateQueue);
+    }
+
+    private void patchReturns(KitchenOrderResponse order) {
+        when(restTemplate.exchange(any(String.class), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class))).thenReturn(ResponseEntity.ok(order));
+    }
+
+    private List<OrderReadyEvent> published(int times) {
+        ArgumentCaptor<OrderReadyEvent> events = ArgumentCaptor.forClass(OrderReadyEvent.class);
+        verify(publisher, times(times)).publishOrderReadyEvent(events.capture());
+        return events.getAllValues();
+    }
+
+    private static KitchenOrderResponse order(Long id) {
+        return order(id, "READY");
+    }
+
+    private static KitchenOrderResponse order(Long id, String status) {
+        return new KitchenOrderResponse(id, 5L, 42L, status, new BigDecimal("10.00"), LocalDateTime.now(),
+                List.of(new KitchenOrderResponse.OrderItem(1L, 10L, "Burger", 1, new BigDecimal("10.00"))));
+    }
+}
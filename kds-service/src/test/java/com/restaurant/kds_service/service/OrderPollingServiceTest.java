@@ -0,0 +1,132 @@
+package com.restaurant.kds_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.kds_service.config.AnalyticsProperties;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for served acknowledgements on top of the polled active orders
+ */
+class OrderPollingServiceTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+    @Test
+    void testMarkServed_RemovesTicketAndHidesItUntilOrderServiceDropsIt() {
+        // Arrange - orders 1 and 2 on display
+        OrderPollingService service = service();
+        pollReturns(order(1L), order(2L));
+        service.pollActiveOrders();
+        long version = service.getSnapshotVersion();
+
+        // Act
+        KitchenOrderResponse removed = service.markServed(1L);
+
+        // Assert - gone immediately, as a new snapshot version
+        assertEquals(1L, removed.getId());
+        assertEquals(List.of(2L), ids(service));
+        assertTrue(service.getSnapshotVersion() > version);
+
+        // Act - the Order Service still lists order 1 on the next poll
+        service.pollActiveOrders();
+
+        // Assert
+        assertEquals(List.of(2L), ids(service));
+    }
+
+    @Test
+    void testMarkServed_ForgottenOnceOrderServiceStopsListingIt() {
+        // Arrange
+        OrderPollingService service = service();
+        pollReturns(order(1L));
+        service.pollActiveOrders();
+        service.markServed(1L);
+
+        // Act - dropped by the Order Service, then (hypothetically) listed again
+        pollReturns();
+        service.pollActiveOrders();
+        pollReturns(order(1L));
+        service.pollActiveOrders();
+
+        // Assert - the suppression ended with the first poll that no longer listed it
+        assertEquals(List.of(1L), ids(service));
+        assertNull(service.markServed(99L));
+    }
+
+    @Test
+    void testMarkServed_RejectsOrderThatIsNotReady() {
+        // Arrange - order 3 is still being prepared
+        OrderPollingService service = service();
+        pollReturns(order(3L, "PREPARING"));
+        service.pollActiveOrders();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> service.markServed(3L));
+        assertEquals(List.of(3L), ids(service));
+    }
+
+    @Test
+    void testMarkServed_ShownAgainWhenOrderServiceReportsItNotReady() {
+        // Arrange
+        OrderPollingService service = service();
+        pollReturns(order(1L));
+        service.pollActiveOrders();
+        service.markServed(1L);
+
+        // Act - the kitchen recalled it before the Order Service saw the pickup
+        pollReturns(order(1L, "PREPARING"));
+        service.pollActiveOrders();
+
+        // Assert
+        assertEquals(List.of(1L), ids(service));
+    }
+
+    private OrderPollingService service() {
+        OrderSnapshotStore snapshotStore = new OrderSnapshotStore(new ObjectMapper(), false, "unused.json");
+        KitchenAnalytics analytics = new KitchenAnalytics(new AnalyticsProperties(), 3000);
+        return new OrderPollingService(client(), "http://orders", false, 3000, snapshotStore, analytics, 30,
+                new RecallBuffer(10, 30), new TicketQueue(new KitchenEventStream(1000), new int[] {10}, new String[] {"READY"}, 1000),
+                new StatusUpdateQueue(client(), new ObjectMapper(), new KitchenEventStream(1000), "http://orders",
+                        false, "unused-queue.json", "", 1000, 60000, 5));
+    }
+
+    private OrderServiceClient client() {
+        return new OrderServiceClient(restTemplate, new SimpleMeterRegistry(), false, OrderServiceClient.ACTIVE_ORDERS, 95, 500, 50, 10000, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pollReturns(KitchenOrderResponse... orders) {
+        when(restTemplate.exchange(eq("http://orders/active"), eq(HttpMethod.GET), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(List.of(orders)));
+    }
+
+    private static List<Long> ids(OrderPollingService service) {
+        return service.getActiveOrders().stream().map(KitchenOrderResponse::getId).toList();
+    }
+
+    private static KitchenOrderResponse order(Long id) {
+        return order(id, "READY");
+    }
+
+    private static KitchenOrderResponse order(Long id, String status) {
+        return new KitchenOrderResponse(id, 5L, 42L, status, new BigDecimal("10.00"), LocalDateTime.now(),
+                List.of(new KitchenOrderResponse.OrderItem(1L, 10L, "Burger", 1, new BigDecimal("10.00"))));
+    }
+}
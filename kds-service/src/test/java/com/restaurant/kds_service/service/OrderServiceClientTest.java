@@ -0,0 +1,151 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for hedged, deadline-bound Order Service calls
+ */
+class OrderServiceClientTest {
+
+    private static final ParameterizedTypeReference<List<KitchenOrderResponse>> ORDERS = new ParameterizedTypeReference<>() {};
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderServiceClient client = new OrderServiceClient(restTemplate, meterRegistry, true,
+            OrderServiceClient.ACTIVE_ORDERS, 95, 50, 10, 1000, false);
+
+    @AfterEach
+    void stop() {
+        client.stop();
+    }
+
+    @Test
+    void testExchange_BackupRequestWinsWhenFirstAttemptStalls() {
+        // Arrange - the first attempt stalls for 3s, the backup answers at once
+        AtomicInteger attempts = new AtomicInteger();
+        when(restTemplate.exchange(eq("http://orders/active"), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ORDERS))).thenAnswer(invocation -> {
+            if (attempts.getAndIncrement() == 0) {
+                Thread.sleep(3000);
+            }
+            return ResponseEntity.ok(List.of());
+        });
+
+        // Act
+        long start = System.currentTimeMillis();
+        ResponseEntity<List<KitchenOrderResponse>> response = activeOrders();
+
+        // Assert - answered by the backup after the 50ms initial delay, well inside the stall
+        assertNotNull(response.getBody());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(1.0, meterRegistry.counter("kds.orderservice.hedges", "operation", "active-orders").count());
+        assertEquals(1.0, meterRegistry.counter("kds.orderservice.hedge.wins", "operation", "active-orders").count());
+
+        // Assert - both attempts carried the time left of the 1000ms deadline
+        ArgumentCaptor<HttpEntity<?>> requests = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(2)).exchange(any(String.class), any(HttpMethod.class), requests.capture(), eq(ORDERS));
+        List<Long> remaining = requests.getAllValues().stream()
+                .map(request -> Long.parseLong(request.getHeaders().getFirst(OrderServiceClient.DEADLINE_HEADER))).toList();
+        assertTrue(remaining.get(0) <= 1000 && remaining.get(1) < remaining.get(0));
+    }
+
+    @Test
+    void testExchange_FailsOnceDeadlineIsSpent() {
+        // Arrange - every attempt stalls past the deadline
+        when(restTemplate.exchange(any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(ORDERS)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(5000);
+                    return ResponseEntity.ok(List.of());
+                });
+
+        // Act
+        long start = System.currentTimeMillis();
+        assertThrows(ResourceAccessException.class, this::activeOrders);
+
+        // Assert - gave up at the 1000ms deadline with one backup sent
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue(elapsed >= 900 && elapsed < 3000, "elapsed " + elapsed);
+        assertEquals(1.0, meterRegistry.counter("kds.orderservice.hedges", "operation", "active-orders").count());
+    }
+
+    @Test
+    void testExchange_StatusUpdateIsNotHedgedByDefault() {
+        // Arrange - a slow PATCH must not be duplicated on the wire
+        when(restTemplate.exchange(eq("http://orders/7/status"), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class))).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return ResponseEntity.ok(new KitchenOrderResponse());
+        });
+
+        // Act
+        ResponseEntity<KitchenOrderResponse> response = client.exchange(OrderServiceClient.UPDATE_STATUS,
+                "http://orders/7/status", HttpMethod.PATCH, HttpEntity.EMPTY, KitchenOrderResponse.class);
+
+        // Assert - one attempt, well past the 50ms hedge delay
+        assertNotNull(response.getBody());
+        verify(restTemplate, times(1)).exchange(any(String.class), any(HttpMethod.class), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class));
+        assertEquals(0.0, meterRegistry.counter("kds.orderservice.hedges", "operation", "update-status").count());
+        assertEquals(1, meterRegistry.timer("kds.orderservice.latency", "operation", "update-status").count());
+    }
+
+    @Test
+    void testExchange_AbandonedPrimaryStillRaisesHedgeDelay() {
+        // Arrange - 20 calls at ~30ms set the delay, then every primary stalls and a ~40ms backup wins
+        AtomicInteger attempts = new AtomicInteger();
+        when(restTemplate.exchange(any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(ORDERS)))
+                .thenAnswer(invocation -> {
+                    int attempt = attempts.getAndIncrement();
+                    if (attempt < 20) {
+                        Thread.sleep(30);
+                    } else if (attempt % 2 == 0) {
+                        Thread.sleep(5000);
+                    } else {
+                        Thread.sleep(40);
+                    }
+                    return ResponseEntity.ok(List.of());
+                });
+        for (int i = 0; i < 20; i++) {
+            activeOrders();
+        }
+        long settledDelay = hedgeDelayMs();
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            activeOrders();
+        }
+
+        // Assert - the abandoned primaries were sampled at the ~70ms they had taken, not left out
+        assertTrue(settledDelay < 60, "settled delay " + settledDelay);
+        assertTrue(hedgeDelayMs() >= 60, "delay after stalls " + hedgeDelayMs());
+    }
+
+    private ResponseEntity<List<KitchenOrderResponse>> activeOrders() {
+        return client.exchange(OrderServiceClient.ACTIVE_ORDERS, "http://orders/active", HttpMethod.GET,
+                HttpEntity.EMPTY, ORDERS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long hedgeDelayMs() {
+        return (long) ((Map<String, Object>) client.getStats().get(OrderServiceClient.ACTIVE_ORDERS)).get("hedgeDelayMs");
+    }
+}
@@ -0,0 +1,112 @@
+package com.restaurant.kds_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.OrderSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the local order snapshot used on warm start
+ */
+class OrderSnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void testSaveThenLoad_RoundTripsVersionAndOrders() {
+        // Arrange
+        Path file = tempDir.resolve("snapshot.json");
+        OrderSnapshotStore store = new OrderSnapshotStore(objectMapper, true, file.toString());
+        KitchenOrderResponse order = new KitchenOrderResponse(
+                101L, 5L, 42L, "PREPARING", new BigDecimal("45.50"),
+                LocalDateTime.of(2026, 2, 12, 14, 30, 0),
+                Arrays.asList(new KitchenOrderResponse.OrderItem(1L, 10L, "Chicken Pizza", 2, new BigDecimal("15.99"))));
+
+        // Act
+        store.save(new OrderSnapshot(7L, 1_700_000_000_000L, List.of(order)));
+        Optional<OrderSnapshot> loaded = store.load();
+
+        // Assert
+        assertTrue(loaded.isPresent(), "Snapshot should be readable after save");
+        assertEquals(7L, loaded.get().getVersion());
+        assertEquals(1_700_000_000_000L, loaded.get().getCapturedAtEpochMs());
+        assertEquals(List.of(order), loaded.get().getOrders());
+        assertFalse(Files.exists(tempDir.resolve("snapshot.json.tmp")), "Temp file should be renamed away");
+    }
+
+    @Test
+    void testSubmit_WritesNewestSnapshotByFlush() {
+        // Arrange
+        Path file = tempDir.resolve("snapshot.json");
+        OrderSnapshotStore store = new OrderSnapshotStore(objectMapper, true, file.toString());
+
+        // Act
+        for (long version = 1; version <= 20; version++) {
+            store.submit(new OrderSnapshot(version, version, List.of()));
+        }
+        store.flush();
+
+        // Assert
+        Optional<OrderSnapshot> loaded = store.load();
+        assertTrue(loaded.isPresent(), "Submitted snapshot should be on disk after flush");
+        assertEquals(20L, loaded.get().getVersion(), "Only the newest submitted snapshot matters");
+    }
+
+    @Test
+    void testSubmit_AfterFlushWritesOnCallerThread() {
+        // Arrange - the store has already been flushed on shutdown
+        Path file = tempDir.resolve("snapshot.json");
+        OrderSnapshotStore store = new OrderSnapshotStore(objectMapper, true, file.toString());
+        store.submit(new OrderSnapshot(1L, 1L, List.of()));
+        store.flush();
+
+        // Act - a late poll still publishes a snapshot
+        assertDoesNotThrow(() -> store.submit(new OrderSnapshot(2L, 2L, List.of())));
+
+        // Assert
+        assertEquals(2L, store.load().orElseThrow().getVersion());
+    }
+
+    @Test
+    void testLoad_CorruptFileIsIgnored() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("snapshot.json");
+        Files.writeString(file, "{not json");
+        OrderSnapshotStore store = new OrderSnapshotStore(objectMapper, true, file.toString());
+
+        // Act + Assert
+        assertTrue(store.load().isEmpty(), "Corrupt snapshot must not prevent startup");
+    }
+
+    @Test
+    void testDisabled_NothingWritten() {
+        // Arrange
+        Path file = tempDir.resolve("snapshot.json");
+        OrderSnapshotStore store = new OrderSnapshotStore(objectMapper, false, file.toString());
+
+        // Act
+        store.save(new OrderSnapshot(1L, 0L, List.of()));
+
+        // Assert
+        assertFalse(Files.exists(file));
+        assertTrue(store.load().isEmpty());
+    }
+}
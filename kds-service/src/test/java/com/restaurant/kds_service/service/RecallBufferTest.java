@@ -0,0 +1,60 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.RecentOrder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the recall buffer of recently removed orders
+ */
+class RecallBufferTest {
+
+    @Test
+    void testRecent_NewestFirstOneEntryPerOrderAndBoundedByCapacity() {
+        // Arrange - capacity 3, order 1 leaves twice
+        RecallBuffer buffer = new RecallBuffer(3, 30);
+        long now = System.currentTimeMillis();
+        buffer.record(order(1L), RecallBuffer.READY, now - 4000);
+        buffer.record(order(2L), RecallBuffer.READY, now - 3000);
+        buffer.record(order(3L), RecallBuffer.LEFT_ACTIVE, now - 2000);
+        buffer.record(order(1L), RecallBuffer.SERVED, now - 1000);
+
+        // Act
+        List<RecentOrder> recent = buffer.recent(10, now);
+
+        // Assert - order 1's first entry was in the oldest slot, overwritten by its latest
+        assertEquals(List.of(1L, 3L, 2L), recent.stream().map(entry -> entry.getOrder().getId()).toList());
+        assertEquals(RecallBuffer.SERVED, recent.get(0).getReason());
+        assertEquals("Burger", recent.get(0).getOrder().getItems().get(0).getItemName());
+    }
+
+    @Test
+    void testRecent_SkipsEntriesOutsideWindowAndRecalledOrders() {
+        // Arrange - 30 minute window
+        RecallBuffer buffer = new RecallBuffer(10, 30);
+        long now = System.currentTimeMillis();
+        buffer.record(order(1L), RecallBuffer.READY, now - 31 * 60_000);
+        buffer.record(order(2L), RecallBuffer.READY, now - 1000);
+        buffer.record(order(3L), RecallBuffer.READY, now - 500);
+
+        // Act
+        buffer.remove(3L);
+        List<RecentOrder> recent = buffer.recent(10, now);
+
+        // Assert
+        assertEquals(List.of(2L), recent.stream().map(entry -> entry.getOrder().getId()).toList());
+        assertNotNull(buffer.find(2L));
+        assertNull(buffer.find(3L));
+    }
+
+    private static KitchenOrderResponse order(Long id) {
+        return new KitchenOrderResponse(id, 5L, 42L, "READY", new BigDecimal("10.00"), LocalDateTime.now(),
+                List.of(new KitchenOrderResponse.OrderItem(1L, 10L, "Burger", 1, new BigDecimal("10.00"))));
+    }
+}
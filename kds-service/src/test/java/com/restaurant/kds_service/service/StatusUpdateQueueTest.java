@@ -0,0 +1,188 @@
+package com.restaurant.kds_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.PendingStatusUpdate;
+import com.restaurant.kds_service.dto.UpdateOrderStatusRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the write-behind queue of kitchen status changes
+ */
+class StatusUpdateQueueTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplay_CoalescesPerOrderAndBacksOffWhileOrderServiceIsDown() {
+        // Arrange - PREPARING then READY for order 7 while the Order Service is unreachable
+        StatusUpdateQueue queue = queue();
+        patchFails(new ResourceAccessException("Connection refused"));
+        queue.submit(7L, "PREPARING", "42", "5");
+        queue.submit(7L, "READY", "42", "5");
+
+        // Act - the second replay falls inside the backoff
+        queue.replay();
+        queue.replay();
+
+        // Assert - one call, for the latest status only
+        assertEquals(List.of("READY"), patchedStatuses(1));
+        assertEquals("READY", queue.pendingStatus(7L));
+        assertEquals(1L, queue.getStats().get("coalesced"));
+
+        // Act - the KDS restarts with the change still unconfirmed
+        StatusUpdateQueue restarted = queue();
+        restarted.load();
+
+        // Assert
+        assertEquals("READY", restarted.pendingStatus(7L));
+    }
+
+    @Test
+    void testReplay_ConfirmedChangeGoesToListenerOnce() {
+        // Arrange
+        StatusUpdateQueue queue = queue();
+        List<PendingStatusUpdate> confirmed = new ArrayList<>();
+        queue.setConfirmationListener((update, order) -> confirmed.add(update));
+        KitchenOrderResponse order = new KitchenOrderResponse();
+        order.setId(7L);
+        order.setStatus("READY");
+        when(restTemplate.exchange(eq("http://orders/7/status"), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class))).thenReturn(ResponseEntity.ok(order));
+        queue.submit(7L, "READY", null, null);
+
+        // Act
+        queue.replay();
+        queue.replay();
+
+        // Assert
+        assertEquals(1, confirmed.size());
+        assertEquals("READY", confirmed.get(0).getStatus());
+        assertNull(queue.pendingStatus(7L));
+        assertEquals(List.of("READY"), patchedStatuses(1));
+    }
+
+    @Test
+    void testReplay_RejectedChangeIsDroppedWithoutBackoff() {
+        // Arrange - the Order Service refuses order 7, order 8 is queued behind it
+        StatusUpdateQueue queue = queue();
+        patchFails(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", null, null, null));
+        queue.submit(7L, "READY", null, null);
+        queue.submit(8L, "PREPARING", null, null);
+
+        // Act
+        queue.replay();
+
+        // Assert - both were tried in order, neither is retried
+        assertEquals(List.of("READY", "PREPARING"), patchedStatuses(2));
+        assertNull(queue.pendingStatus(7L));
+        assertNull(queue.pendingStatus(8L));
+        assertEquals(2L, queue.getStats().get("rejected"));
+    }
+
+    @Test
+    void testReplay_ChangeFailingWithServerErrorIsRejectedAfterMaxAttempts() {
+        // Arrange - order 7 keeps getting a 500, order 8 is queued behind it (no backoff between replays)
+        StatusUpdateQueue queue = queue(0);
+        when(restTemplate.exchange(eq("http://orders/7/status"), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class)))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", null, null, null));
+        KitchenOrderResponse order = new KitchenOrderResponse();
+        order.setId(8L);
+        order.setStatus("PREPARING");
+        when(restTemplate.exchange(eq("http://orders/8/status"), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class))).thenReturn(ResponseEntity.ok(order));
+        queue.submit(7L, "READY", null, null);
+        queue.submit(8L, "PREPARING", null, null);
+
+        // Act
+        queue.replay();
+        queue.replay();
+
+        // Assert - still retrying order 7, order 8 waits behind it
+        assertEquals("READY", queue.pendingStatus(7L));
+        assertEquals("PREPARING", queue.pendingStatus(8L));
+
+        // Act - the third failure uses up max-attempts
+        queue.replay();
+
+        // Assert - order 7 is dropped and order 8 goes through in the same replay
+        assertNull(queue.pendingStatus(7L));
+        assertNull(queue.pendingStatus(8L));
+        assertEquals(1L, queue.getStats().get("rejected"));
+        assertEquals(List.of("READY", "READY", "READY", "PREPARING"), patchedStatuses(4));
+    }
+
+    @Test
+    void testReplay_UnauthorizedKeepsChangeAndAuthenticatesWithServiceToken() throws Exception {
+        // Arrange - the Order Service refuses the service token
+        StatusUpdateQueue queue = queue();
+        patchFails(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", null, null, null));
+        queue.submit(7L, "READY", "42", "5");
+
+        // Act
+        queue.replay();
+
+        // Assert - kept for a retry with backoff, not dropped
+        assertEquals("READY", queue.pendingStatus(7L));
+        assertEquals(0L, queue.getStats().get("rejected"));
+        assertEquals(1, queue.getStats().get("consecutiveFailures"));
+        assertEquals("Bearer service", patchRequests(1).get(0).getHeaders().getFirst("Authorization"));
+        assertFalse(Files.readString(dir.resolve("pending.json")).contains("Bearer"));
+    }
+
+    private StatusUpdateQueue queue() {
+        return queue(1000);
+    }
+
+    private StatusUpdateQueue queue(long initialBackoffMs) {
+        return new StatusUpdateQueue(client(), new ObjectMapper(), new KitchenEventStream(1000), "http://orders",
+                true, dir.resolve("pending.json").toString(), "Bearer service", initialBackoffMs, 60000, 3);
+    }
+
+    private OrderServiceClient client() {
+        return new OrderServiceClient(restTemplate, new SimpleMeterRegistry(), false, OrderServiceClient.ACTIVE_ORDERS, 95, 500, 50, 10000, false);
+    }
+
+    private void patchFails(RuntimeException error) {
+        when(restTemplate.exchange(any(String.class), eq(HttpMethod.PATCH), any(HttpEntity.class),
+                eq(KitchenOrderResponse.class))).thenThrow(error);
+    }
+
+    private List<String> patchedStatuses(int calls) {
+        return patchRequests(calls).stream().map(request -> request.getBody().getStatus()).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<HttpEntity<UpdateOrderStatusRequest>> patchRequests(int calls) {
+        ArgumentCaptor<HttpEntity<UpdateOrderStatusRequest>> requests =
+                ArgumentCaptor.forClass((Class<HttpEntity<UpdateOrderStatusRequest>>) (Class<?>) HttpEntity.class);
+        verify(restTemplate, times(calls)).exchange(any(String.class), eq(HttpMethod.PATCH), requests.capture(),
+                eq(KitchenOrderResponse.class));
+        return requests.getAllValues();
+    }
+}
@@ -0,0 +1,87 @@
+package com.restaurant.kds_service.service;
+
+import com.restaurant.kds_service.dto.KitchenOrderResponse;
+import com.restaurant.kds_service.dto.TicketOverdueAlert;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ordered ticket queue and its overdue alerts
+ */
+class TicketQueueTest {
+
+    private final KitchenEventStream eventStream = mock(KitchenEventStream.class);
+    private final StringDictionary statuses = new StringDictionary();
+    private final StringDictionary itemNames = new StringDictionary();
+
+    @Test
+    void testPage_OldestFirstWithRushPriorityAhead() {
+        // Arrange
+        TicketQueue queue = new TicketQueue(eventStream, new int[] {10}, new String[] {"READY"}, 1000);
+        LocalDateTime now = LocalDateTime.now();
+        queue.sync(List.of(order(1L, now.minusMinutes(5)), order(2L, now.minusMinutes(8)), order(3L, now.minusMinutes(1))));
+
+        // Act
+        queue.setPriority(3L, 1);
+        queue.sync(List.of(order(1L, now.minusMinutes(5)), order(3L, now.minusMinutes(1)), order(4L, now.minusMinutes(2))));
+
+        // Assert - order 2 left with the poll, 3 stays rushed
+        assertEquals(List.of(3L, 1L, 4L), ids(queue.page(0, 10)));
+        assertEquals(List.of(4L), ids(queue.page(2, 10)));
+    }
+
+    @Test
+    void testTick_AlertsOverdueTicketOnceEvenWhenUpdated() {
+        // Arrange - already past the 10 minute threshold, not yet the 20 minute one
+        TicketQueue queue = new TicketQueue(eventStream, new int[] {10, 20}, new String[] {"READY"}, 10);
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(12);
+        queue.upsert(order(1L, createdAt));
+
+        // Act - a status change for the same ticket in between
+        queue.tick();
+        queue.upsert(CompactOrder.of(new KitchenOrderResponse(1L, 5L, 42L, "PREPARING", null, createdAt, List.of()),
+                statuses, itemNames));
+        queue.tick();
+
+        // Assert
+        verify(eventStream, times(1)).publish(eq("ticket-overdue"),
+                argThat(alert -> ((TicketOverdueAlert) alert).getThresholdMinutes() == 10));
+        assertEquals(10, queue.page(0, 1).get(0).getOverdueMinutes());
+    }
+
+    @Test
+    void testTick_NoAlertForTicketThatLeftBeforeDue() {
+        // Arrange - due in about 50ms, i.e. within a few 10ms ticks
+        TicketQueue queue = new TicketQueue(eventStream, new int[] {10}, new String[] {"READY"}, 10);
+        LocalDateTime almostDue = LocalDateTime.now().minusMinutes(10).plusNanos(50_000_000);
+        queue.upsert(order(1L, almostDue));
+        queue.upsert(order(2L, almostDue));
+
+        // Act
+        queue.remove(1L);
+        for (int i = 0; i < 10; i++) {
+            queue.tick();
+        }
+
+        // Assert
+        verify(eventStream, times(1)).publish(eq("ticket-overdue"), any());
+        verify(eventStream).publish(eq("ticket-overdue"), argThat(alert -> ((TicketOverdueAlert) alert).getOrderId() == 2L));
+    }
+
+    private CompactOrder order(Long id, LocalDateTime createdAt) {
+        return CompactOrder.of(new KitchenOrderResponse(id, 5L, 42L, "CONFIRMED", null, createdAt, List.of()),
+                statuses, itemNames);
+    }
+
+    private static List<Long> ids(List<TicketQueue.Ticket> tickets) {
+        return tickets.stream().map(ticket -> ticket.getOrder().getId()).toList();
+    }
+}
@@ -2,16 +2,17 @@ package com.example.waiter_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class WaiterServiceApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(WaiterServiceApplication.class, args);
-	}
+		ConfigurableApplicationContext context = SpringApplication.run(WaiterServiceApplication.class, args);
 
-	@org.springframework.context.annotation.Bean
-	public org.springframework.web.client.RestTemplate restTemplate() {
-		return new org.springframework.web.client.RestTemplate();
+		// AppCDS training run (Dockerfile target "cds"): exit once started so the JVM dumps its class archive
+		if (Boolean.getBoolean("cds.training")) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 }
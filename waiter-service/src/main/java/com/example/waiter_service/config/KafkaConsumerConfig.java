@@ -0,0 +1,78 @@
+package com.example.waiter_service.config;
+
+import com.example.waiter_service.service.FreshnessHorizon;
+import com.example.waiter_service.service.KeyOrderedDispatcher;
+import com.example.waiter_service.service.PartitionOwnership;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Kafka listener container factories for the waiter service
+ * Boot's default factory stays in place for single-record listeners
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * Batch listener factory: one listener call per poll (max-poll-records), offsets committed
+     * only when the listener acknowledges the whole batch after hand-off.
+     * Concurrency comes from spring.kafka.listener.concurrency - anything above the
+     * partition count of the topic just leaves consumers idle.
+     * Rebalances are reported to PartitionOwnership, which tracks the partitions this replica owns,
+     * to KeyOrderedDispatcher, which commits completed work before a partition moves away, and to
+     * FreshnessHorizon, which fast-forwards newly assigned partitions past stale records
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            MeterRegistry meterRegistry,
+            PartitionOwnership partitionOwnership,
+            KeyOrderedDispatcher keyOrderedDispatcher,
+            FreshnessHorizon freshnessHorizon,
+            @Value("${processing.idle-commit-ms:1000}") long idleCommitMs) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, timedConsumerFactory(kafkaConsumerFactory, meterRegistry));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(
+                new CompositeRebalanceListener(keyOrderedDispatcher, partitionOwnership, freshnessHorizon));
+        if (keyOrderedDispatcher.isEnabled()) {
+            // Idle events let records that complete after the last poll still be committed
+            factory.getContainerProperties().setIdleEventInterval(idleCommitMs);
+        }
+        return factory;
+    }
+
+    /**
+     * Order-ready consumers only: Boot's consumer factory settings (properties, listeners, post-processors)
+     * with the same value deserializer chain as application.yaml (ErrorHandlingDeserializer ->
+     * JsonDeserializer), built here so the JSON step can be timed. Each consumer gets its own instance,
+     * still configured from the spring.json.* consumer properties; other consumers built from Boot's
+     * factory (e.g. the table-readiness reader) keep their own deserializers
+     */
+    static DefaultKafkaConsumerFactory<Object, Object> timedConsumerFactory(ConsumerFactory<Object, Object> kafkaConsumerFactory,
+                                                                          MeterRegistry meterRegistry) {
+        Timer deserializeTimer = Timer.builder("waiter.listener.stage")
+                .description("Time spent per record in each order-ready processing stage")
+                .tag("stage", "deserialize")
+                .register(meterRegistry);
+        DefaultKafkaConsumerFactory<Object, Object> factory =
+                new DefaultKafkaConsumerFactory<>(kafkaConsumerFactory.getConfigurationProperties());
+        kafkaConsumerFactory.getListeners().forEach(factory::addListener);
+        kafkaConsumerFactory.getPostProcessors().forEach(factory::addPostProcessor);
+        factory.setValueDeserializerSupplier(
+                () -> new ErrorHandlingDeserializer<>(new TimedDeserializer<>(new JsonDeserializer<>(), deserializeTimer)));
+        return factory;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.waiter_service.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Topics owned by the waiter tier, created by KafkaAdmin on startup when missing
+ * (order-ready belongs to the KDS and is not declared here)
+ */
+@Configuration
+public class KafkaTopicConfig {
+
+    /**
+     * Compacted table-readiness topic, keyed tableId:orderId: one record per ready order, tombstoned
+     * once the order is served or expires and eventually removed
+     */
+    @Bean
+    @ConditionalOnProperty(name = "table-readiness.enabled", havingValue = "true")
+    public NewTopic tableReadinessTopic(
+            @Value("${spring.kafka.topic.table-readiness:table-readiness-v2}") String topic,
+            @Value("${table-readiness.partitions:3}") int partitions,
+            @Value("${table-readiness.replication-factor:1}") short replicationFactor) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(replicationFactor)
+                .compact()
+                // Hourly segments and a one-hour tombstone retention keep the log close to the live tables
+                .config(TopicConfig.SEGMENT_MS_CONFIG, String.valueOf(3_600_000))
+                .config(TopicConfig.DELETE_RETENTION_MS_CONFIG, String.valueOf(3_600_000))
+                .config(TopicConfig.MIN_CLEANABLE_DIRTY_RATIO_CONFIG, "0.1")
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.waiter_service.config;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.dto.OrderServedEvent;
+import com.example.waiter_service.dto.TableReadiness;
+import com.example.waiter_service.dto.WebhookSubscription;
+import com.example.waiter_service.dto.WebhookSubscriptionStatus;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * GraalVM native image hints (used by the -Pnative build only)
+ * The Lombok DTOs are bound by Jackson (Kafka JsonDeserializer and STOMP payloads) via reflection,
+ * and the Kafka (de)serializers are instantiated by class name from application.yaml
+ */
+@Configuration
+@RegisterReflectionForBinding({
+        OrderReadyEvent.class,
+        OrderReadyEvent.OrderItem.class,
+        OrderServedEvent.class,
+        TableReadiness.class,
+        WebhookSubscription.class,
+        WebhookSubscriptionStatus.class
+})
+@ImportRuntimeHints(NativeHintsConfig.KafkaSerializerHints.class)
+public class NativeHintsConfig {
+
+    static class KafkaSerializerHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : new String[] {
+                    "org.apache.kafka.common.serialization.StringSerializer",
+                    "org.apache.kafka.common.serialization.StringDeserializer",
+                    "org.springframework.kafka.support.serializer.JsonSerializer",
+                    "org.springframework.kafka.support.serializer.JsonDeserializer",
+                    "org.springframework.kafka.support.serializer.ErrorHandlingDeserializer"}) {
+                hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+        }
+    }
+}
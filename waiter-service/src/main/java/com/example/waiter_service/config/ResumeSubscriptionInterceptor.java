@@ -0,0 +1,50 @@
+package com.example.waiter_service.config;
+
+import com.example.waiter_service.service.EventReplayService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Replays missed events into a STOMP subscription that carries "resume-after: {seq}" and
+ * "resume-epoch: {epoch}" headers
+ * Runs after the broker has handled the SUBSCRIBE frame, i.e. once the subscription is live,
+ * so nothing can fall between the replay and the first live message
+ */
+public class ResumeSubscriptionInterceptor implements ExecutorChannelInterceptor {
+
+    // Looked up lazily: the replay service depends on messaging beans built from WebSocketConfig
+    private final ObjectProvider<EventReplayService> eventReplayService;
+
+    public ResumeSubscriptionInterceptor(ObjectProvider<EventReplayService> eventReplayService) {
+        this.eventReplayService = eventReplayService;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getMessageType() != SimpMessageType.SUBSCRIBE) {
+            return;
+        }
+        String resumeAfter = accessor.getFirstNativeHeader(EventReplayService.RESUME_AFTER_HEADER);
+        if (resumeAfter == null) {
+            return;
+        }
+        try {
+            eventReplayService.getObject().replayToSubscription(accessor.getSessionId(),
+                    accessor.getSubscriptionId(), accessor.getDestination(), Long.parseLong(resumeAfter.trim()),
+                    accessor.getFirstNativeHeader(EventReplayService.RESUME_EPOCH_HEADER));
+        } catch (NumberFormatException ignored) {
+            // Malformed header - the client simply gets live events only
+        }
+    }
+}
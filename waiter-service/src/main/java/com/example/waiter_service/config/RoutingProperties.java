@@ -0,0 +1,53 @@
+package com.example.waiter_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Floor layout used to scope WebSocket destinations
+ * routing.sections maps a section id to the table ids it serves, e.g. {@code terrace: [1, 2, 3]}
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "routing")
+public class RoutingProperties {
+
+    /**
+     * Also publish every event to the legacy /topic/orders destination (a client subscribed to it and to
+     * a scoped topic receives each event twice); events without a table always go there
+     */
+    private boolean broadcastAll = true;
+
+    private Map<String, List<Long>> sections = new HashMap<>();
+
+    /**
+     * Partitioning strategy the KDS publishes with (order, table or section); must match its
+     * partitioning.strategy and partitioning.sections for section ownership to be right
+     */
+    private String partitioning = "order";
+
+    /**
+     * This replica's id, also the consumer client id suffix other replicas read it back from
+     */
+    private String replicaId = "local";
+
+    /**
+     * Public URL of a replica, {replica} and {host} are substituted, e.g. http://{replica}.waiter:8086
+     */
+    private String replicaUrlTemplate = "";
+
+    /**
+     * Reject STOMP subscriptions to sections and tables owned by another replica (fanout.mode=local only)
+     */
+    private boolean enforceOwnership = false;
+
+    /**
+     * How often the consumer group assignment is re-read to find other replicas' partitions
+     */
+    private long ownerRefreshMs = 5000;
+}
@@ -0,0 +1,26 @@
+package com.example.waiter_service.config;
+
+import com.example.waiter_service.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * Client outbound channel hook that lets WebSocketSessionMonitor count, conflate or drop
+ * messages for lagging sessions before they reach the session's send buffer
+ */
+public class SessionBackpressureInterceptor implements ChannelInterceptor {
+
+    // Looked up lazily: the monitor depends on the outbound channel this interceptor is installed on
+    private final ObjectProvider<WebSocketSessionMonitor> sessionMonitor;
+
+    public SessionBackpressureInterceptor(ObjectProvider<WebSocketSessionMonitor> sessionMonitor) {
+        this.sessionMonitor = sessionMonitor;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        return sessionMonitor.getObject().beforeSend(message);
+    }
+}
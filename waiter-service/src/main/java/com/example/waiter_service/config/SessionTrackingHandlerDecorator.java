@@ -0,0 +1,33 @@
+package com.example.waiter_service.config;
+
+import com.example.waiter_service.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * Registers each new WebSocket session with WebSocketSessionMonitor and hands the STOMP handler
+ * the monitor's write-tracking session instead of the raw one
+ */
+public class SessionTrackingHandlerDecorator extends WebSocketHandlerDecorator {
+
+    private final ObjectProvider<WebSocketSessionMonitor> sessionMonitor;
+
+    public SessionTrackingHandlerDecorator(WebSocketHandler delegate, ObjectProvider<WebSocketSessionMonitor> sessionMonitor) {
+        super(delegate);
+        this.sessionMonitor = sessionMonitor;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        super.afterConnectionEstablished(sessionMonitor.getObject().track(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        sessionMonitor.getObject().untrack(session.getId(), closeStatus);
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
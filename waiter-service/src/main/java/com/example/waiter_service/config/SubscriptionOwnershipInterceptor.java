@@ -0,0 +1,51 @@
+package com.example.waiter_service.config;
+
+import com.example.waiter_service.dto.SectionOwner;
+import com.example.waiter_service.service.PartitionOwnership;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * Rejects SUBSCRIBE frames for /topic/sections/{sectionId} and /topic/tables/{tableId} when another
+ * replica owns the section or table (routing.enforce-ownership); the STOMP ERROR frame names the owner
+ * so the client can reconnect there. Destinations whose owner is not known yet are let through.
+ */
+public class SubscriptionOwnershipInterceptor implements ChannelInterceptor {
+
+    private static final String SECTIONS_PREFIX = "/topic/sections/";
+    private static final String TABLES_PREFIX = "/topic/tables/";
+
+    private final ObjectProvider<PartitionOwnership> partitionOwnership;
+
+    public SubscriptionOwnershipInterceptor(ObjectProvider<PartitionOwnership> partitionOwnership) {
+        this.partitionOwnership = partitionOwnership;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        SectionOwner owner = null;
+        if (destination != null && destination.startsWith(SECTIONS_PREFIX)) {
+            owner = partitionOwnership.getObject().ownerOfSection(destination.substring(SECTIONS_PREFIX.length()));
+        } else if (destination != null && destination.startsWith(TABLES_PREFIX)) {
+            try {
+                owner = partitionOwnership.getObject().ownerOfTable(Long.parseLong(destination.substring(TABLES_PREFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // Not a table id - nothing is ever published there
+            }
+        }
+        if (owner != null && !owner.isLocal() && owner.getReplicaId() != null) {
+            throw new MessageDeliveryException(message, destination + " is served by replica " + owner.getReplicaId()
+                    + (owner.getUrl() == null ? "" : " at " + owner.getUrl()));
+        }
+        return message;
+    }
+}
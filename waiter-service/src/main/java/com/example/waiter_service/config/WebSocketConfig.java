@@ -1,15 +1,56 @@
 package com.example.waiter_service.config;
 
+import com.example.waiter_service.service.EventReplayService;
+import com.example.waiter_service.service.PartitionOwnership;
+import com.example.waiter_service.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ObjectProvider<EventReplayService> eventReplayService;
+    private final ObjectProvider<WebSocketSessionMonitor> sessionMonitor;
+    private final ObjectProvider<PartitionOwnership> partitionOwnership;
+
+    // Per-session transport limits: a session over either one is closed (SESSION_NOT_RELIABLE)
+    @Value("${websocket.session.send-buffer-size-limit:262144}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.session.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.session.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    // Only meaningful when each replica delivers its own partitions' events (fanout.mode=local)
+    @Value("${routing.enforce-ownership:false}")
+    private boolean enforceOwnership;
+
+    @Value("${fanout.mode:local}")
+    private String fanoutMode;
+
+    // Boot's virtual-thread switch does not reach the STOMP channels, which keep their own pools
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public WebSocketConfig(ObjectProvider<EventReplayService> eventReplayService,
+                           ObjectProvider<WebSocketSessionMonitor> sessionMonitor,
+                           ObjectProvider<PartitionOwnership> partitionOwnership) {
+        this.eventReplayService = eventReplayService;
+        this.sessionMonitor = sessionMonitor;
+        this.partitionOwnership = partitionOwnership;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
@@ -20,4 +61,31 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws-waiter").setAllowedOriginPatterns("*").withSockJS();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(handler -> new SessionTrackingHandlerDecorator(handler, sessionMonitor));
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new ResumeSubscriptionInterceptor(eventReplayService));
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-inbound-"));
+        }
+        if (enforceOwnership && "local".equalsIgnoreCase(fanoutMode)) {
+            registration.interceptors(new SubscriptionOwnershipInterceptor(partitionOwnership));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new SessionBackpressureInterceptor(sessionMonitor));
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("ws-outbound-"));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.waiter_service.config;
+
+import com.example.waiter_service.dto.WebhookSubscription;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Webhook subscribers registered at startup (webhook.subscribers), on top of the single webhook.url
+ * More can be added and removed at runtime via /api/waiter/webhooks/subscriptions, with the admin token
+ * as a bearer token and only to the allowed hosts; the runtime API is off while either is unset
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "webhook")
+public class WebhookSubscriptionProperties {
+
+    private List<WebhookSubscription> subscribers = new ArrayList<>();
+
+    // Bearer token required to register or remove subscribers at runtime
+    private String adminToken = "";
+
+    // Hosts runtime subscribers may point at: exact names, or ".example.com" for any subdomain
+    private List<String> allowedHosts = new ArrayList<>();
+}
@@ -0,0 +1,34 @@
+package com.example.waiter_service.controller;
+
+import com.example.waiter_service.dto.OrderServedEvent;
+import com.example.waiter_service.service.ServedAckService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * STOMP pickup acknowledgements from waiter devices that already hold a WebSocket session
+ * SEND /app/orders/served {"orderId": 42, "tableId": 14, "servedBy": "waiter-7"}
+ */
+@Controller
+public class ServedAckMessageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServedAckMessageController.class);
+
+    private final ServedAckService servedAckService;
+
+    public ServedAckMessageController(ServedAckService servedAckService) {
+        this.servedAckService = servedAckService;
+    }
+
+    @MessageMapping("/orders/served")
+    public void orderServed(OrderServedEvent ack) {
+        try {
+            servedAckService.acknowledge(ack);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Fire-and-forget destination: nothing to reply to, so a malformed or early ack is only logged
+            logger.warn("Ignoring served ack: {}", e.getMessage());
+        }
+    }
+}
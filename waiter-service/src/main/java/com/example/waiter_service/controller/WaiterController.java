@@ -1,12 +1,38 @@
 package com.example.waiter_service.controller;
 
-import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.config.RoutingProperties;
+import com.example.waiter_service.dto.EventReplayResponse;
+import com.example.waiter_service.dto.OrderHistoryEntry;
+import com.example.waiter_service.dto.OrderServedEvent;
+import com.example.waiter_service.dto.SectionOwner;
+import com.example.waiter_service.dto.TableReadiness;
+import com.example.waiter_service.dto.WebSocketSessionStats;
+import com.example.waiter_service.dto.WebhookDeadLetter;
+import com.example.waiter_service.dto.WebhookSubscription;
+import com.example.waiter_service.dto.WebhookSubscriptionStatus;
+import com.example.waiter_service.service.EventDeduplicator;
+import com.example.waiter_service.service.EventReplayService;
+import com.example.waiter_service.service.FreshnessHorizon;
 import com.example.waiter_service.service.KafkaConsumerService;
+import com.example.waiter_service.service.KafkaDiagnostics;
+import com.example.waiter_service.service.KafkaLagHealthIndicator;
+import com.example.waiter_service.service.OrderHistoryStore;
+import com.example.waiter_service.service.PartitionOwnership;
+import com.example.waiter_service.service.RecentOrderBuffer;
+import com.example.waiter_service.service.ServedAckService;
+import com.example.waiter_service.service.TableReadinessView;
+import com.example.waiter_service.service.WebSocketSessionMonitor;
+import com.example.waiter_service.service.WebhookDispatcher;
+import com.example.waiter_service.service.WebhookSubscriptionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 
 @RestController
@@ -20,6 +46,48 @@ public class WaiterController {
     @Autowired
     private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
 
+    @Autowired
+    private WebhookDispatcher webhookDispatcher;
+
+    @Autowired
+    private WebhookSubscriptionRegistry webhookSubscriptions;
+
+    @Autowired
+    private RoutingProperties routingProperties;
+
+    @Autowired
+    private RecentOrderBuffer recentOrderBuffer;
+
+    @Autowired
+    private EventReplayService eventReplayService;
+
+    @Autowired
+    private OrderHistoryStore orderHistoryStore;
+
+    @Autowired
+    private KafkaDiagnostics kafkaDiagnostics;
+
+    @Autowired
+    private WebSocketSessionMonitor webSocketSessionMonitor;
+
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+
+    @Autowired
+    private KafkaLagHealthIndicator kafkaLagHealthIndicator;
+
+    @Autowired
+    private PartitionOwnership partitionOwnership;
+
+    @Autowired
+    private TableReadinessView tableReadinessView;
+
+    @Autowired
+    private ServedAckService servedAckService;
+
+    @Autowired
+    private FreshnessHorizon freshnessHorizon;
+
     @GetMapping("/debug/kafka")
     public ResponseEntity<Map<String, Object>> getKafkaStatus() {
         Map<String, Object> status = new HashMap<>();
@@ -27,10 +95,20 @@ public class WaiterController {
             status.put(container.getListenerId(), container.isRunning());
         }
         status.put("listenerCount", kafkaListenerEndpointRegistry.getListenerContainers().size());
-        status.put("messageCount", kafkaConsumerService.getMessageCount());
-        status.put("receivedOrderCount", kafkaConsumerService.getReceivedOrders().size());
-        status.put("errors", kafkaConsumerService.getErrors());
-        status.put("rawMessages", kafkaConsumerService.getRawMessages());
+        status.put("messageCount", kafkaDiagnostics.getRecordCount());
+        status.put("partitionLag", kafkaLagHealthIndicator.partitionLag());
+        status.put("receivedOrderCount", recentOrderBuffer.size());
+        status.put("lastSequence", recentOrderBuffer.getLastSequence());
+        status.put("diagnostics", kafkaDiagnostics.getStatus());
+        status.put("errors", kafkaDiagnostics.getErrors());
+        status.put("rawMessages", kafkaDiagnostics.getSamples());
+        status.put("webhookQueueDepth", webhookDispatcher.getQueueDepth());
+        status.put("duplicateDeliveriesSuppressed", eventDeduplicator.getSuppressedDeliveries());
+        status.put("duplicateWebhooksSuppressed", eventDeduplicator.getSuppressedWebhooks());
+        status.put("staleRecordsSkipped", freshnessHorizon.getSkipped());
+        status.put("historyRecords", orderHistoryStore.getRecordCount());
+        status.put("historySegments", orderHistoryStore.getSegmentCount());
+        status.put("historyBytes", orderHistoryStore.getSizeBytes());
         
         // JAAS_CONFIG diagnostic (masked for security)
         String jaas = System.getenv("JAAS_CONFIG");
@@ -49,6 +127,19 @@ public class WaiterController {
         return ResponseEntity.ok(status);
     }
 
+    // Toggle the diagnostics tap at runtime, e.g. POST /debug/kafka?enabled=true&sampleEvery=10
+    @PostMapping("/debug/kafka")
+    public ResponseEntity<Map<String, Object>> configureKafkaDiagnostics(
+            @RequestParam boolean enabled,
+            @RequestParam(required = false) Integer sampleEvery,
+            @RequestParam(defaultValue = "false") boolean clear) {
+        kafkaDiagnostics.configure(enabled, sampleEvery);
+        if (clear) {
+            kafkaDiagnostics.clear();
+        }
+        return ResponseEntity.ok(kafkaDiagnostics.getStatus());
+    }
+
     @GetMapping("/health")
     public String health() {
         return "Waiter Service is running on port 8086!";
@@ -56,8 +147,138 @@ public class WaiterController {
 
     // Matches the user's requested URL: /api/waiter/received-orders
     @GetMapping("/received-orders")
-    public ResponseEntity<List<OrderReadyEvent>> getReceivedOrders() {
-        return ResponseEntity.ok(kafkaConsumerService.getReceivedOrders());
+    public ResponseEntity<?> getReceivedOrders(
+            @RequestParam(required = false) Long tableId,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be positive"));
+        }
+        return ResponseEntity.ok(kafkaConsumerService.getReceivedOrders(tableId, limit));
+    }
+
+    // Delta resume after a reconnect: events delivered after the client's last seen "seq" and "epoch" headers
+    @GetMapping("/events")
+    public ResponseEntity<EventReplayResponse> getEventsAfter(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) String epoch,
+            @RequestParam(required = false) Long tableId) {
+        return ResponseEntity.ok(eventReplayService.eventsAfter(after, epoch, tableId));
+    }
+
+    // Long-term history from the local store (not Kafka), oldest first
+    // e.g. /history?from=2024-05-01T18:00:00&to=2024-05-01T20:00:00&tableId=14
+    @GetMapping("/history")
+    public ResponseEntity<List<OrderHistoryEntry>> getHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long tableId,
+            @RequestParam(defaultValue = "500") int limit) {
+        long fromEpochMs = from.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long toEpochMs = to == null ? Long.MAX_VALUE : to.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return ResponseEntity.ok(orderHistoryStore.query(fromEpochMs, toEpochMs, tableId, Math.min(limit, 5000)));
+    }
+
+    // Pickup acknowledgement: clears the ticket on the KDS via the order-served topic
+    // Optional body: {"tableId": 14, "servedBy": "waiter-7"}; 409 when the order is not ready
+    @PostMapping("/orders/{orderId}/served")
+    public ResponseEntity<?> markOrderServed(@PathVariable Long orderId,
+                                             @RequestBody(required = false) OrderServedEvent ack) {
+        OrderServedEvent request = ack != null ? ack : new OrderServedEvent();
+        request.setOrderId(orderId);
+        try {
+            return ResponseEntity.accepted().body(servedAckService.acknowledge(request));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Ready-but-not-served orders per table, from the local table-readiness view
+    @GetMapping("/tables/ready")
+    public ResponseEntity<List<TableReadiness>> getReadyTables() {
+        return ResponseEntity.ok(tableReadinessView.getTables());
+    }
+
+    @GetMapping("/tables/{tableId}/ready")
+    public ResponseEntity<TableReadiness> getReadyTable(@PathVariable Long tableId) {
+        TableReadiness table = tableReadinessView.getTable(tableId);
+        return table == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(table);
+    }
+
+    // Section -> table ids, so devices know which /topic/sections/{sectionId} to subscribe to
+    @GetMapping("/routing/sections")
+    public ResponseEntity<Map<String, List<Long>>> getSections() {
+        return ResponseEntity.ok(routingProperties.getSections());
+    }
+
+    // Which replica to connect to for a section or table (table/section partitioning)
+    @GetMapping("/routing/owner")
+    public ResponseEntity<SectionOwner> getOwner(@RequestParam(required = false) String section,
+                                                 @RequestParam(required = false) Long tableId) {
+        SectionOwner owner = tableId != null ? partitionOwnership.ownerOfTable(tableId)
+                : section != null ? partitionOwnership.ownerOfSection(section) : null;
+        return owner == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(owner);
+    }
+
+    @GetMapping("/routing/owners")
+    public ResponseEntity<Map<String, SectionOwner>> getOwners() {
+        return ResponseEntity.ok(partitionOwnership.sectionOwners());
+    }
+
+    // Outbound backlog per connected WebSocket session
+    @GetMapping("/websocket/sessions")
+    public ResponseEntity<List<WebSocketSessionStats>> getWebSocketSessions() {
+        return ResponseEntity.ok(webSocketSessionMonitor.getSessionStats());
+    }
+
+    @GetMapping("/webhooks/dead-letters")
+    public ResponseEntity<List<WebhookDeadLetter>> getWebhookDeadLetters() {
+        return ResponseEntity.ok(webhookDispatcher.getDeadLetters());
+    }
+
+    @PostMapping("/webhooks/dead-letters/replay")
+    public ResponseEntity<Map<String, Object>> replayWebhookDeadLetters() {
+        return ResponseEntity.ok(Map.of("replayed", webhookDispatcher.replayDeadLetters()));
+    }
+
+    // Filtered webhook subscribers, each with its own delivery lane
+    // e.g. {"id": "pos", "url": "https://pos.local/hook", "sections": ["terrace"], "ratePerSecond": 5}
+    @GetMapping("/webhooks/subscriptions")
+    public ResponseEntity<List<WebhookSubscriptionStatus>> getWebhookSubscriptions() {
+        return ResponseEntity.ok(webhookSubscriptions.getSubscriptions());
+    }
+
+    @GetMapping("/webhooks/subscriptions/{id}")
+    public ResponseEntity<WebhookSubscriptionStatus> getWebhookSubscription(@PathVariable String id) {
+        WebhookSubscriptionStatus status = webhookSubscriptions.getSubscription(id);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    // Registering and removing subscribers needs "Authorization: Bearer <webhook.admin-token>"
+    @PostMapping("/webhooks/subscriptions")
+    public ResponseEntity<?> registerWebhookSubscription(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                         @RequestBody WebhookSubscription subscription) {
+        if (!webhookSubscriptions.isAuthorized(authorization)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "webhook admin token required"));
+        }
+        try {
+            return ResponseEntity.ok(webhookSubscriptions.register(subscription));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/webhooks/subscriptions/{id}")
+    public ResponseEntity<Void> removeWebhookSubscription(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                          @PathVariable String id) {
+        if (!webhookSubscriptions.isAuthorized(authorization)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return webhookSubscriptions.remove(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/webhooks/subscriptions/{id}/dead-letters")
+    public ResponseEntity<List<WebhookDeadLetter>> getWebhookSubscriptionDeadLetters(@PathVariable String id) {
+        return ResponseEntity.ok(webhookSubscriptions.getDeadLetters(id));
     }
 
 }
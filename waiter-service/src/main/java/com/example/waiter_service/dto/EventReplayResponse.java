@@ -0,0 +1,23 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Events missed since a given sequence number
+ * truncated = true means some of them already fell out of the replay journal, or the cursor belongs
+ * to another epoch (the service restarted), so the client should fall back to a full refetch
+ * and resume from epoch + lastSequence
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventReplayResponse {
+    private String epoch;
+    private long lastSequence;
+    private boolean truncated;
+    private List<SequencedOrderEvent> events;
+}
@@ -0,0 +1,18 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order-ready event as recorded in the local history store, with the time this replica received it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderHistoryEntry {
+    private LocalDateTime receivedAt;
+    private OrderReadyEvent event;
+}
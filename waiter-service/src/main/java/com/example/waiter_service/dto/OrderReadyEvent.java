@@ -16,6 +16,8 @@ public class OrderReadyEvent implements Serializable {
     private Long tableId;
     private List<OrderItem> items;
     private LocalDateTime readyTime;
+    // Set by the KDS once per READY transition; duplicates of the transition share it (null from older producers)
+    private String eventId;
 
     @Data
     @NoArgsConstructor
@@ -0,0 +1,21 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pickup acknowledgement for a READY order, published to the order-served topic for the KDS
+ * Also the payload of STOMP /app/orders/served; tableId, servedBy and servedTime are optional there
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderServedEvent {
+    private Long orderId;
+    private Long tableId;
+    private String servedBy;
+    private LocalDateTime servedTime;
+}
@@ -0,0 +1,22 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The waiter replica that consumes a section's (or table's) order-ready partition
+ * replicaId and url are null while no replica holds the partition or the group has not been read yet;
+ * local is true when this replica is the owner, or when partitioning is by order and any replica serves it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SectionOwner {
+    private String section;
+    private Long tableId;
+    private Integer partition;
+    private String replicaId;
+    private String url;
+    private boolean local;
+}
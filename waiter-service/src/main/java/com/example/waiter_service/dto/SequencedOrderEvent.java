@@ -0,0 +1,16 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order-ready event together with the sequence number it was delivered under
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequencedOrderEvent {
+    private long sequence;
+    private OrderReadyEvent event;
+}
@@ -0,0 +1,19 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Current ready-but-not-served orders of one table, oldest first, as grouped by the table-readiness view
+ * from its per-order records
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableReadiness {
+    private Long tableId;
+    private List<OrderReadyEvent> orders;
+}
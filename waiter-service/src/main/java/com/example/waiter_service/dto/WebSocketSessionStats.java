@@ -0,0 +1,20 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbound backlog of one WebSocket session
+ * lagMs is how long the session has had messages pending without completing a write
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketSessionStats {
+    private String sessionId;
+    private int pendingMessages;
+    private long lagMs;
+    private int conflatedTables;
+    private long conflatedTotal;
+}
@@ -0,0 +1,21 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Webhook delivery that was given up on (retries exhausted or queue full)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookDeadLetter {
+    private List<OrderReadyEvent> events;
+    private String reason;
+    private int attempts;
+    private LocalDateTime failedAt;
+}
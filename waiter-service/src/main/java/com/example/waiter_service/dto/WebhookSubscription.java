@@ -0,0 +1,28 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A webhook subscriber and the order-ready events it wants
+ * Filters are ANDed across dimensions and ORed within one; an empty filter matches everything
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookSubscription {
+    private String id;
+    private String url;
+    private Set<Long> tableIds = new HashSet<>();
+    // Section ids from routing.sections
+    private Set<String> sections = new HashSet<>();
+    // Matched case-insensitively against the event's item names
+    private Set<String> itemNames = new HashSet<>();
+    // Deliveries per second, 0 for unlimited
+    private double ratePerSecond;
+    private int queueCapacity = 500;
+}
@@ -0,0 +1,19 @@
+package com.example.waiter_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A webhook subscriber together with the state of its delivery lane
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookSubscriptionStatus {
+    private WebhookSubscription subscription;
+    private int queueDepth;
+    private long delivered;
+    private long failed;
+    private int deadLetters;
+}
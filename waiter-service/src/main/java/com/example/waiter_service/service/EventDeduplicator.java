@@ -0,0 +1,208 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderHistoryEntry;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops re-delivered order-ready events (at-least-once Kafka delivery, KDS retries and double-taps)
+ *
+ * An event's identity is the eventId the KDS fixes once per READY transition (retries and repeated
+ * bumps carry the same id), hashed to a 64-bit key; events from producers without an eventId fall
+ * back to orderId plus readyTime. Keys live in a
+ * time-windowed set of two generations of primitive open-addressing hash tables: lookups check
+ * both, and once the current generation is dedup.window-minutes old (or half full) the older one
+ * is cleared and reused. A key is therefore remembered for at least one window, and memory is
+ * fixed at two long[] tables per stage.
+ *
+ * WebSocket delivery and webhook dispatch are tracked separately, because in kafka fan-out mode
+ * they run on different listeners that each see every event. On startup the delivery window is seeded
+ * from the local order history and the webhook window only from confirmed webhook deliveries
+ * (WebhookDeliveryLog): the history is written before the webhook is dispatched, so it cannot
+ * say whether the webhook went out.
+ */
+@Service
+public class EventDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDeduplicator.class);
+
+    private final OrderHistoryStore orderHistory;
+    private final WebhookDeliveryLog webhookDeliveries;
+    private final long windowMs;
+    private final WindowedKeySet delivered;
+    private final WindowedKeySet webhooked;
+    private final Counter duplicateDeliveries;
+    private final Counter duplicateWebhooks;
+
+    public EventDeduplicator(
+            OrderHistoryStore orderHistory,
+            WebhookDeliveryLog webhookDeliveries,
+            MeterRegistry meterRegistry,
+            @Value("${dedup.window-minutes:30}") long windowMinutes,
+            @Value("${dedup.generation-capacity:65536}") int generationCapacity) {
+        this.orderHistory = orderHistory;
+        this.webhookDeliveries = webhookDeliveries;
+        this.windowMs = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.delivered = new WindowedKeySet(generationCapacity, windowMs);
+        this.webhooked = new WindowedKeySet(generationCapacity, windowMs);
+        this.duplicateDeliveries = meterRegistry.counter("waiter.events.duplicates", "stage", "delivery");
+        this.duplicateWebhooks = meterRegistry.counter("waiter.events.duplicates", "stage", "webhook");
+    }
+
+    /**
+     * Seed the delivery window with what the history recorded, and the webhook window with the
+     * deliveries the webhook confirmed, within the last window
+     */
+    @PostConstruct
+    public void rebuildFromHistory() throws IOException {
+        long now = System.currentTimeMillis();
+        List<OrderHistoryEntry> recent = orderHistory.query(now - windowMs, Long.MAX_VALUE, null, Integer.MAX_VALUE);
+        for (OrderHistoryEntry entry : recent) {
+            long key = keyOf(entry.getEvent());
+            if (key != 0) {
+                delivered.add(key, now);
+            }
+        }
+        long[] confirmed = webhookDeliveries.confirmedSince(now - windowMs);
+        for (long key : confirmed) {
+            webhooked.add(key, now);
+        }
+        logger.info("EventDeduplicator initialized - window: {}min, seeded {} events from history, "
+                + "{} confirmed webhook deliveries", TimeUnit.MILLISECONDS.toMinutes(windowMs), recent.size(),
+                confirmed.length);
+    }
+
+    /**
+     * @return true the first time this event is offered for WebSocket delivery, false for a duplicate
+     */
+    public boolean firstDelivery(OrderReadyEvent event) {
+        return first(delivered, event, duplicateDeliveries);
+    }
+
+    /**
+     * @return true the first time this event is offered for webhook dispatch, false for a duplicate
+     */
+    public boolean firstWebhook(OrderReadyEvent event) {
+        return first(webhooked, event, duplicateWebhooks);
+    }
+
+    private boolean first(WindowedKeySet seen, OrderReadyEvent event, Counter duplicates) {
+        long key = keyOf(event);
+        if (key == 0 || seen.add(key, System.currentTimeMillis())) {
+            return true;
+        }
+        duplicates.increment();
+        logger.debug("Suppressed duplicate order-ready event - orderId: {}, eventId: {}, readyTime: {}",
+                event.getOrderId(), event.getEventId(), event.getReadyTime());
+        return false;
+    }
+
+    public double getSuppressedDeliveries() {
+        return duplicateDeliveries.count();
+    }
+
+    public double getSuppressedWebhooks() {
+        return duplicateWebhooks.count();
+    }
+
+    /**
+     * 64-bit identity of an event, or 0 when it has neither an eventId nor an orderId (never deduplicated)
+     */
+    static long keyOf(OrderReadyEvent event) {
+        if (event.getEventId() != null) {
+            // FNV-1a over the id, then mixed
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < event.getEventId().length(); i++) {
+                hash = (hash ^ event.getEventId().charAt(i)) * 0x100000001B3L;
+            }
+            long key = mix(hash);
+            return key == 0 ? 1 : key;
+        }
+        if (event.getOrderId() == null) {
+            return 0;
+        }
+        long readyTime = event.getReadyTime() == null ? 0
+                : event.getReadyTime().toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + event.getReadyTime().getNano();
+        long key = mix(event.getOrderId() * 0x9E3779B97F4A7C15L ^ mix(readyTime));
+        return key == 0 ? 1 : key;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Two generations of linear-probing long hash sets (0 = empty slot)
+     */
+    static final class WindowedKeySet {
+        private final long generationMs;
+        private final int maxEntries;
+        private long[] current;
+        private long[] previous;
+        private int currentSize;
+        private long currentStartedAtMs = -1;
+
+        WindowedKeySet(int capacity, long generationMs) {
+            int slots = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            this.current = new long[slots];
+            this.previous = new long[slots];
+            this.maxEntries = slots / 2;
+            this.generationMs = generationMs;
+        }
+
+        /**
+         * @return true if the key was not in the window and has been added
+         */
+        synchronized boolean add(long key, long nowMs) {
+            if (currentStartedAtMs < 0) {
+                currentStartedAtMs = nowMs;
+            }
+            if (contains(current, key) || contains(previous, key)) {
+                return false;
+            }
+            if (currentSize >= maxEntries || nowMs - currentStartedAtMs >= generationMs) {
+                long[] recycled = previous;
+                Arrays.fill(recycled, 0);
+                previous = current;
+                current = recycled;
+                currentSize = 0;
+                currentStartedAtMs = nowMs;
+            }
+            int mask = current.length - 1;
+            int slot = (int) key & mask;
+            while (current[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            current[slot] = key;
+            currentSize++;
+            return true;
+        }
+
+        private static boolean contains(long[] table, long key) {
+            int mask = table.length - 1;
+            int slot = (int) key & mask;
+            long value;
+            while ((value = table[slot]) != 0) {
+                if (value == key) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.EventReplayResponse;
+import com.example.waiter_service.dto.SequencedOrderEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gap-free resume for reconnecting waiter clients
+ * Missed events are served from the RecentOrderBuffer journal by sequence number, either over REST
+ * (GET /api/waiter/events?after=&epoch=) or pushed straight into a new STOMP subscription that carries
+ * "resume-after" and "resume-epoch" headers.
+ * A cursor from another epoch (the service restarted and sequences began again at 1) or ahead of the
+ * journal is stale: the whole journal is replayed and the response is flagged truncated
+ */
+@Service
+public class EventReplayService {
+
+    public static final String RESUME_AFTER_HEADER = "resume-after";
+    public static final String RESUME_EPOCH_HEADER = "resume-epoch";
+
+    private static final Logger logger = LoggerFactory.getLogger(EventReplayService.class);
+
+    private final RecentOrderBuffer journal;
+    private final OrderBroadcaster orderBroadcaster;
+    private final MessageChannel clientOutboundChannel;
+
+    public EventReplayService(RecentOrderBuffer journal, OrderBroadcaster orderBroadcaster,
+                              @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel) {
+        this.journal = journal;
+        this.orderBroadcaster = orderBroadcaster;
+        this.clientOutboundChannel = clientOutboundChannel;
+    }
+
+    /**
+     * Journaled events after the cursor; epoch may be null for clients that predate it
+     */
+    public EventReplayResponse eventsAfter(long afterSequence, String epoch, Long tableId) {
+        String currentEpoch = journal.getEpoch();
+        long lastSequence = journal.getLastSequence();
+        boolean stale = isStale(afterSequence, epoch, lastSequence);
+        List<SequencedOrderEvent> events = new ArrayList<>();
+        for (RecentOrderBuffer.Entry entry : journal.entriesAfter(stale ? 0 : afterSequence, tableId)) {
+            // The watermark may have moved on since it was read; stop at the cursor handed back
+            if (entry.getSequence() <= lastSequence) {
+                events.add(new SequencedOrderEvent(entry.getSequence(), entry.getEvent()));
+            }
+        }
+        return new EventReplayResponse(currentEpoch, lastSequence, stale || isTruncated(afterSequence), events);
+    }
+
+    /**
+     * Send every journaled event after {@code afterSequence} that belongs to the destination directly to
+     * one subscription. Must run after the broker registered the subscription: anything appended after
+     * that point reaches the client live, so replay plus live traffic leaves no gap (clients drop
+     * duplicates by the "seq" header)
+     */
+    public void replayToSubscription(String sessionId, String subscriptionId, String destination,
+                                     long afterSequence, String epoch) {
+        boolean stale = isStale(afterSequence, epoch, journal.getLastSequence());
+        List<RecentOrderBuffer.Entry> missed = journal.entriesAfter(stale ? 0 : afterSequence,
+                OrderBroadcaster.tableIdOf(destination));
+        int sent = 0;
+        for (RecentOrderBuffer.Entry entry : missed) {
+            if (!orderBroadcaster.isDeliveredTo(destination, entry.getEvent())) {
+                continue;
+            }
+            try {
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+                accessor.setSessionId(sessionId);
+                accessor.setSubscriptionId(subscriptionId);
+                accessor.setDestination(destination);
+                accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+                accessor.setNativeHeader(OrderBroadcaster.SEQUENCE_HEADER, String.valueOf(entry.getSequence()));
+                accessor.setNativeHeader(OrderBroadcaster.EPOCH_HEADER, journal.getEpoch());
+                accessor.setNativeHeader("replay", "true");
+                clientOutboundChannel.send(MessageBuilder.createMessage(
+                        orderBroadcaster.serialize(entry.getEvent()), accessor.getMessageHeaders()));
+                sent++;
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to serialize replayed event seq {}", entry.getSequence(), e);
+            }
+        }
+        if (stale) {
+            logger.warn("Session {} resumed {} with stale cursor {}@{} (journal {}@{}) - replayed the whole journal, "
+                    + "client must refetch", sessionId, destination, afterSequence, epoch, journal.getLastSequence(),
+                    journal.getEpoch());
+        } else if (isTruncated(afterSequence)) {
+            logger.warn("Session {} resumed {} after seq {} but journal starts at {} - client must refetch",
+                    sessionId, destination, afterSequence, journal.getOldestSequence());
+        }
+        logger.debug("Replayed {} event(s) to session {} on {} after seq {}", sent, sessionId, destination, afterSequence);
+    }
+
+    /**
+     * Cursor issued by another epoch, or ahead of the published watermark (nothing past it was handed out)
+     */
+    private boolean isStale(long afterSequence, String epoch, long lastSequence) {
+        return (epoch != null && !epoch.equals(journal.getEpoch())) || afterSequence > lastSequence;
+    }
+
+    private boolean isTruncated(long afterSequence) {
+        return journal.getLastSequence() > afterSequence && afterSequence + 1 < journal.getOldestSequence();
+    }
+}
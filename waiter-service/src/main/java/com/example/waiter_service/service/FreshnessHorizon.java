@@ -0,0 +1,134 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catch-up mode: order-ready events older than catch-up.horizon-minutes are never delivered
+ *
+ * On every partition assignment (startup, rebalance, a new group or expired offsets with
+ * auto-offset-reset=earliest) partitions whose position is behind the horizon are seeked to the first
+ * record at or after it, looked up by record timestamp - the backlog is skipped without being fetched.
+ * Records that still arrive stale (a seek that failed, lag built up while running, or an old readyTime
+ * on a fresh record with catch-up.time-source=ready) are dropped one by one before any processing,
+ * each logged with its offset and orderId. Both paths count towards waiter.catchup.skipped; skipped
+ * records are committed like processed ones.
+ * readyTime carries no zone, so time-source=ready needs catch-up.ready-time-zone set to the zone the
+ * KDS writes it in; a wrong guess would silently drop (or keep) every event by the zone offset.
+ */
+@Service
+public class FreshnessHorizon implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FreshnessHorizon.class);
+
+    private final boolean enabled;
+    private final long horizonMs;
+    private final boolean useReadyTime;
+    private final ZoneId readyTimeZone;
+    private final Duration lookupTimeout;
+    private final Counter seekSkipped;
+    private final Counter filterSkipped;
+
+    public FreshnessHorizon(
+            MeterRegistry meterRegistry,
+            @Value("${catch-up.enabled:false}") boolean enabled,
+            @Value("${catch-up.horizon-minutes:15}") long horizonMinutes,
+            @Value("${catch-up.time-source:record}") String timeSource,
+            @Value("${catch-up.ready-time-zone:}") String readyTimeZone,
+            @Value("${catch-up.lookup-timeout-ms:5000}") long lookupTimeoutMs) {
+        this.enabled = enabled;
+        this.horizonMs = TimeUnit.MINUTES.toMillis(horizonMinutes);
+        this.useReadyTime = "ready".equalsIgnoreCase(timeSource);
+        if (useReadyTime && (readyTimeZone == null || readyTimeZone.isBlank())) {
+            throw new IllegalArgumentException("catch-up.time-source=ready needs catch-up.ready-time-zone");
+        }
+        this.readyTimeZone = useReadyTime ? ZoneId.of(readyTimeZone) : null;
+        this.lookupTimeout = Duration.ofMillis(lookupTimeoutMs);
+        this.seekSkipped = meterRegistry.counter("waiter.catchup.skipped", "mode", "seek");
+        this.filterSkipped = meterRegistry.counter("waiter.catchup.skipped", "mode", "filter");
+        logger.info("FreshnessHorizon initialized - enabled: {}, horizon: {}min, time source: {}",
+                enabled, horizonMinutes, useReadyTime ? "readyTime in " + this.readyTimeZone : "record timestamp");
+    }
+
+    /**
+     * Seek newly assigned partitions past everything older than the horizon; runs on the consumer thread
+     * On failure the partition is left where it was and the per-record check does the skipping
+     */
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!enabled || partitions.isEmpty()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - horizonMs;
+        Map<TopicPartition, Long> query = new HashMap<>();
+        partitions.forEach(partition -> query.put(partition, cutoff));
+        try {
+            Map<TopicPartition, OffsetAndTimestamp> fresh = consumer.offsetsForTimes(query, lookupTimeout);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, lookupTimeout);
+            for (TopicPartition partition : partitions) {
+                OffsetAndTimestamp first = fresh.get(partition);
+                // No record at or after the cutoff: everything up to the end is stale
+                long target = first != null ? first.offset() : endOffsets.getOrDefault(partition, 0L);
+                long position = consumer.position(partition, lookupTimeout);
+                if (target > position) {
+                    consumer.seek(partition, target);
+                    seekSkipped.increment(target - position);
+                    logger.info("Catch-up: {} fast-forwarded from offset {} to {} ({} stale records skipped)",
+                            partition, position, target, target - position);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Catch-up seek failed for {}, stale records will be filtered instead: {}",
+                    partitions, e.getMessage());
+        }
+    }
+
+    /**
+     * @return false (and counted as skipped) for a record older than the horizon
+     */
+    public boolean isFresh(ConsumerRecord<String, OrderReadyEvent> record) {
+        if (!enabled) {
+            return true;
+        }
+        long eventTime = eventTime(record);
+        long cutoff = System.currentTimeMillis() - horizonMs;
+        if (eventTime >= cutoff) {
+            return true;
+        }
+        filterSkipped.increment();
+        logger.info("Catch-up: skipped stale record {}-{}@{} (orderId {}), {} ms past the horizon",
+                record.topic(), record.partition(), record.offset(),
+                record.value() == null ? null : record.value().getOrderId(), cutoff - eventTime);
+        return false;
+    }
+
+    public double getSkipped() {
+        return seekSkipped.count() + filterSkipped.count();
+    }
+
+    private long eventTime(ConsumerRecord<String, OrderReadyEvent> record) {
+        OrderReadyEvent event = record.value();
+        if (useReadyTime && event != null && event.getReadyTime() != null) {
+            return event.getReadyTime().atZone(readyTimeZone).toInstant().toEpochMilli();
+        }
+        // No timestamp at all (pre-0.10 message format): nothing to judge by, deliver it
+        return record.timestamp() < 0 ? Long.MAX_VALUE : record.timestamp();
+    }
+}
@@ -1,93 +1,221 @@
 package com.example.waiter_service.service;
 
 import com.example.waiter_service.dto.OrderReadyEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class KafkaConsumerService {
 
+    public static final String LISTENER_ID = "orderReadyListener";
+    public static final String GROUP_ID = "waiter-group-v2";
+
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private OrderBroadcaster orderBroadcaster;
 
     @Autowired
-    private WebhookService webhookService;
-
-    private final List<OrderReadyEvent> receivedOrders = Collections.synchronizedList(new ArrayList<>());
-    private final List<String> rawMessages = Collections.synchronizedList(new ArrayList<>());
-    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
-    private int messageCount = 0;
-
-    @KafkaListener(topics = "${spring.kafka.topic.order-ready}", groupId = "waiter-group-v2")
-    public void listen(ConsumerRecord<String, OrderReadyEvent> record) {
-        messageCount++;
-        System.out.println(">>> KAFKA MESSAGE RECEIVED! Count: " + messageCount);
-        System.out.println(">>> Topic: " + record.topic() + ", Partition: " + record.partition() + ", Offset: " + record.offset());
-        System.out.println(">>> Key: " + record.key());
-        System.out.println(">>> Value: " + record.value());
-        
-        try {
-            OrderReadyEvent event = record.value();
-            if (event != null) {
-                System.out.println(">>> Deserialized event - orderId: " + event.getOrderId() + ", tableId: " + event.getTableId());
-                receivedOrders.add(0, event);
-                if (receivedOrders.size() > 50) {
-                    receivedOrders.remove(receivedOrders.size() - 1);
-                }
-                messagingTemplate.convertAndSend("/topic/orders", event);
-                webhookService.sendOrderReadyNotification(event);
+    private WebhookDispatcher webhookDispatcher;
+
+    @Autowired
+    private WebhookSubscriptionRegistry webhookSubscriptions;
+
+    // local: this replica's group listener does everything; kafka: every replica also runs the fan-out relay
+    @Value("${fanout.mode:local}")
+    private String fanoutMode;
+
+    @Value("${fanout.instance-id:}")
+    private String fanoutInstanceId;
+
+    @Autowired
+    private RecentOrderBuffer recentOrders;
+
+    @Autowired
+    private OrderHistoryStore orderHistory;
+
+    @Autowired
+    private KafkaDiagnostics diagnostics;
+
+    @Autowired
+    private EventDeduplicator deduplicator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private KeyOrderedDispatcher keyOrderedDispatcher;
+
+    @Autowired
+    private TableReadinessView tableReadiness;
+
+    @Autowired
+    private FreshnessHorizon freshnessHorizon;
+
+    private Timer batchTimer;
+    private Timer broadcastTimer;
+    private Timer historyTimer;
+    private Timer webhookTimer;
+    private final Map<Integer, Counter> recordsByPartition = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initMetrics() {
+        batchTimer = Timer.builder("waiter.listener.batch")
+                .description("Time to process one polled batch, including the offset commit hand-off")
+                .register(meterRegistry);
+        broadcastTimer = stageTimer("websocket");
+        historyTimer = stageTimer("history");
+        webhookTimer = stageTimer("webhook");
+    }
+
+    /**
+     * The relay group is named after fanout.instance-id, so the id has to survive restarts: falling back
+     * to something like a Deployment pod's HOSTNAME would start a new group at latest on every restart,
+     * losing the events published while the replica was down and leaving the old group behind
+     */
+    @PostConstruct
+    void checkFanoutInstanceId() {
+        if (isKafkaFanout() && (fanoutInstanceId == null || fanoutInstanceId.isBlank())) {
+            throw new IllegalStateException("fanout.mode=kafka needs a stable, per-replica fanout.instance-id "
+                    + "(FANOUT_INSTANCE_ID, e.g. the StatefulSet pod name)");
+        }
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("waiter.listener.stage")
+                .description("Time spent per record in each order-ready processing stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Batch listener: receives one poll's worth of records, broadcasts them to WebSocket in one pass,
+     * hands webhook delivery off to the async dispatcher, and only then commits the batch offsets.
+     * In kafka fan-out mode local delivery is left to the relay below, so only the webhook work happens here.
+     * In key-ordered processing mode records go to KeyOrderedDispatcher lanes instead, and only offsets
+     * completed so far are committed (the batch timer then measures the hand-off)
+     */
+    @KafkaListener(id = LISTENER_ID, idIsGroup = false, topics = "${spring.kafka.topic.order-ready}",
+                   groupId = GROUP_ID, containerFactory = "batchListenerContainerFactory")
+    public void listen(List<ConsumerRecord<String, OrderReadyEvent>> records, Acknowledgment acknowledgment,
+                       Consumer<?, ?> consumer) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean deliverLocally = !isKafkaFanout();
+        for (ConsumerRecord<String, OrderReadyEvent> record : records) {
+            // Counted and sampled here only, so fan-out mode does not see each record twice
+            diagnostics.recordReceived(record);
+            partitionCounter(record.partition()).increment();
+            if (keyOrderedDispatcher.isEnabled()) {
+                keyOrderedDispatcher.submit(record, () -> process(record, deliverLocally, true));
             } else {
-                String errMsg = "Event was null after deserialization at offset " + record.offset();
-                System.out.println(">>> ERROR: " + errMsg);
-                errors.add(errMsg);
+                process(record, deliverLocally, true);
             }
-        } catch (Exception e) {
-            String errMsg = "Error processing message at offset " + record.offset() + ": " + e.getMessage();
-            System.out.println(">>> ERROR: " + errMsg);
-            errors.add(errMsg);
-            e.printStackTrace();
         }
+        if (keyOrderedDispatcher.isEnabled()) {
+            keyOrderedDispatcher.commitCompleted(consumer);
+        } else {
+            acknowledgment.acknowledge();
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
-    // Raw string listener on a DIFFERENT consumer group to independently verify messages
-    @KafkaListener(topics = "${spring.kafka.topic.order-ready}", groupId = "waiter-debug-raw-v1",
-                   properties = {
-                       "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
-                       "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer"
-                   })
-    public void listenRaw(ConsumerRecord<String, String> record) {
-        String raw = "RAW[offset=" + record.offset() + "]: " + record.value();
-        System.out.println(">>> " + raw);
-        rawMessages.add(0, raw);
-        if (rawMessages.size() > 20) {
-            rawMessages.remove(rawMessages.size() - 1);
+    /**
+     * Commit records that completed after the last poll (key-ordered mode); runs on the consumer thread
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        Consumer<?, ?> consumer = event.getConsumer();
+        if (keyOrderedDispatcher.isEnabled() && GROUP_ID.equals(consumer.groupMetadata().groupId())) {
+            keyOrderedDispatcher.commitCompleted(consumer);
         }
     }
 
-    public List<OrderReadyEvent> getReceivedOrders() {
-        return new ArrayList<>(receivedOrders);
+    private Counter partitionCounter(int partition) {
+        return recordsByPartition.computeIfAbsent(partition, p -> Counter.builder("waiter.kafka.partition.records")
+                .description("Order-ready records processed by the shared consumer group, per partition")
+                .tag("partition", String.valueOf(p))
+                .register(meterRegistry));
     }
 
-    public List<String> getRawMessages() {
-        return new ArrayList<>(rawMessages);
+    /**
+     * Multi-replica fan-out (fanout.mode=kafka): each replica reads the topic in its own consumer group,
+     * prefix + fanout.instance-id, and delivers every event to the WebSocket sessions connected to it.
+     * The group commits after each batch, so a restarted replica resumes where it left off as long as it
+     * keeps its instance id (required in this mode, see checkFanoutInstanceId); a new id starts at latest.
+     * Webhooks stay with the shared group so they still fire once per event
+     */
+    @KafkaListener(id = "fanoutRelay", idIsGroup = false, topics = "${spring.kafka.topic.order-ready}",
+                   groupId = "${fanout.group-prefix:waiter-fanout}-${fanout.instance-id:}",
+                   containerFactory = "batchListenerContainerFactory",
+                   autoStartup = "#{'${fanout.mode:local}' == 'kafka'}",
+                   properties = {"auto.offset.reset=latest", "enable.auto.commit=false"})
+    public void relay(List<ConsumerRecord<String, OrderReadyEvent>> records, Acknowledgment acknowledgment) {
+        for (ConsumerRecord<String, OrderReadyEvent> record : records) {
+            process(record, true, false);
+        }
+        acknowledgment.acknowledge();
+    }
+
+    private boolean isKafkaFanout() {
+        return "kafka".equalsIgnoreCase(fanoutMode);
     }
 
-    public List<String> getErrors() {
-        return new ArrayList<>(errors);
+    private void process(ConsumerRecord<String, OrderReadyEvent> record, boolean deliverLocally, boolean dispatchWebhook) {
+        try {
+            OrderReadyEvent event = record.value();
+            if (event == null) {
+                diagnostics.recordNullValue(record);
+                return;
+            }
+            if (!freshnessHorizon.isFresh(record)) {
+                // Older than the catch-up horizon: not delivered, journaled or webhooked
+                return;
+            }
+            if (deliverLocally && deduplicator.firstDelivery(event)) {
+                long start = System.nanoTime();
+                orderHistory.append(event);
+                long appended = System.nanoTime();
+                historyTimer.record(appended - start, TimeUnit.NANOSECONDS);
+                // Lanes and listener threads get here concurrently and broadcast in parallel; append returns
+                // once every lower sequence is in the journal, so a resume cursor never runs ahead of it.
+                // Frames keep their order per ordering key, not across keys
+                long sequence = recentOrders.append(event);
+                orderBroadcaster.broadcast(event, sequence);
+                broadcastTimer.record(System.nanoTime() - appended, TimeUnit.NANOSECONDS);
+            }
+            if (dispatchWebhook && deduplicator.firstWebhook(event)) {
+                // Shared group only and past the dedup check, so each event updates the compacted table
+                // state once and a redelivery after the pickup ack cannot put the served order back
+                tableReadiness.orderReady(event, record.timestamp());
+                // Hand-off to the async dispatcher; delivery itself is waiter.webhook.delivery.latency
+                long start = System.nanoTime();
+                webhookDispatcher.dispatch(event);
+                webhookSubscriptions.dispatch(event);
+                webhookTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } catch (Exception e) {
+            diagnostics.recordProcessingError(record, e);
+        }
     }
 
-    public int getMessageCount() {
-        return messageCount;
+    /**
+     * Most recent events, newest first, optionally for one table only (tableId may be null)
+     * Served straight from the replay journal
+     */
+    public List<OrderReadyEvent> getReceivedOrders(Long tableId, int limit) {
+        return recentOrders.latest(tableId, limit);
     }
 }
@@ -0,0 +1,212 @@
+package com.example.waiter_service.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime-toggleable diagnostics tap on the order-ready listener
+ *
+ * Replaces the old raw debug consumer group and per-record stdout prints:
+ * - counters (records, null values, deserialization/processing errors) are always on - LongAdder
+ *   increments, no allocation
+ * - when enabled, one in every sample-every records from the main listener is captured into a small
+ *   ring buffer, with the raw payload recovered from the deserializer's error header if it failed
+ * - failures always go to a bounded error ring; that path is exceptional, not per record
+ * When disabled the per-record cost is a single volatile read.
+ */
+@Service
+public class KafkaDiagnostics {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaDiagnostics.class);
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(KafkaDiagnostics.class);
+    private static final int MAX_VALUE_CHARS = 2000;
+
+    private volatile boolean enabled;
+    private volatile int sampleEvery;
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private final BoundedLog samples;
+    private final BoundedLog errors;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder nullValues = new LongAdder();
+    private final LongAdder deserializationErrors = new LongAdder();
+    private final LongAdder processingErrors = new LongAdder();
+
+    public KafkaDiagnostics(
+            MeterRegistry meterRegistry,
+            @Value("${diagnostics.kafka.enabled:false}") boolean enabled,
+            @Value("${diagnostics.kafka.sample-every:1}") int sampleEvery,
+            @Value("${diagnostics.kafka.sample-capacity:20}") int sampleCapacity,
+            @Value("${diagnostics.kafka.error-capacity:50}") int errorCapacity) {
+        this.enabled = enabled;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.samples = new BoundedLog(sampleCapacity);
+        this.errors = new BoundedLog(errorCapacity);
+
+        registerCounter(meterRegistry, "received", records);
+        registerCounter(meterRegistry, "null_value", nullValues);
+        registerCounter(meterRegistry, "deserialization_error", deserializationErrors);
+        registerCounter(meterRegistry, "processing_error", processingErrors);
+    }
+
+    private static void registerCounter(MeterRegistry meterRegistry, String outcome, LongAdder adder) {
+        FunctionCounter.builder("waiter.kafka.records", adder, LongAdder::sum)
+                .description("Order-ready records seen by the waiter listeners")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called for every record the listeners process
+     */
+    public void recordReceived(ConsumerRecord<?, ?> record) {
+        records.increment();
+        if (enabled && sampleCounter.incrementAndGet() % sampleEvery == 0) {
+            samples.add(describe(record, valueOf(record)));
+        }
+    }
+
+    /**
+     * Record arrived with a null value - either a tombstone or a payload the ErrorHandlingDeserializer rejected
+     */
+    public void recordNullValue(ConsumerRecord<?, ?> record) {
+        DeserializationException failure = SerializationUtils.getExceptionFromHeader(
+                record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+        if (failure != null) {
+            deserializationErrors.increment();
+            addError("Deserialization failed at " + position(record) + ": " + failure.getMessage()
+                    + " - raw: " + truncate(new String(failure.getData(), StandardCharsets.UTF_8)));
+        } else {
+            nullValues.increment();
+            addError("Null value at " + position(record));
+        }
+    }
+
+    public void recordProcessingError(ConsumerRecord<?, ?> record, Exception e) {
+        processingErrors.increment();
+        addError("Error processing " + position(record) + ": " + e.getMessage());
+    }
+
+    private void addError(String message) {
+        logger.warn(message);
+        errors.add(message);
+    }
+
+    /**
+     * Switch sampling on or off at runtime; sampleEvery (1 = every record) is only changed when given
+     */
+    public void configure(boolean enabled, Integer sampleEvery) {
+        if (sampleEvery != null) {
+            this.sampleEvery = Math.max(1, sampleEvery);
+        }
+        this.enabled = enabled;
+        logger.info("Kafka diagnostics {} - sampling 1 in {}", enabled ? "enabled" : "disabled", this.sampleEvery);
+    }
+
+    public void clear() {
+        samples.clear();
+        errors.clear();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("sampleEvery", sampleEvery);
+        status.put("records", records.sum());
+        status.put("nullValues", nullValues.sum());
+        status.put("deserializationErrors", deserializationErrors.sum());
+        status.put("processingErrors", processingErrors.sum());
+        return status;
+    }
+
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    public List<String> getSamples() {
+        return samples.newestFirst();
+    }
+
+    public List<String> getErrors() {
+        return errors.newestFirst();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private static String valueOf(ConsumerRecord<?, ?> record) {
+        if (record.value() != null) {
+            return String.valueOf(record.value());
+        }
+        Header header = record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER);
+        return header == null ? "null" : "<undeserializable, see errors>";
+    }
+
+    private static String describe(ConsumerRecord<?, ?> record, String value) {
+        return "RAW[" + position(record) + ", key=" + record.key() + ", ts=" + record.timestamp() + "]: " + truncate(value);
+    }
+
+    private static String position(ConsumerRecord<?, ?> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    private static String truncate(String value) {
+        return value.length() <= MAX_VALUE_CHARS ? value : value.substring(0, MAX_VALUE_CHARS) + "...";
+    }
+
+    /**
+     * Fixed-size ring of strings; writers claim a slot with an atomic counter, readers copy newest first
+     */
+    private static final class BoundedLog {
+        private final AtomicReferenceArray<String> slots;
+        private final AtomicLong written = new AtomicLong();
+
+        BoundedLog(int capacity) {
+            this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+        }
+
+        void add(String message) {
+            long index = written.getAndIncrement();
+            slots.set((int) (index % slots.length()), message);
+        }
+
+        List<String> newestFirst() {
+            long newest = written.get();
+            int available = (int) Math.min(newest, slots.length());
+            List<String> result = new ArrayList<>(available);
+            for (long index = newest - 1; index >= newest - available; index--) {
+                String message = slots.get((int) (index % slots.length()));
+                if (message != null) {
+                    result.add(message);
+                }
+            }
+            return result;
+        }
+
+        void clear() {
+            for (int i = 0; i < slots.length(); i++) {
+                slots.set(i, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.waiter_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer lag of the shared order-ready listener, read from the Kafka client's own per-partition
+ * records-lag metrics (no extra admin or consumer connections)
+ *
+ * Exposed as the "kafkaLag" health contributor (GET /actuator/health/lag): DOWN once the highest
+ * partition lag has stayed above consumer-lag.threshold for consumer-lag.sustain-ms, which is the
+ * scale-out signal for the autoscaler. Also exported as waiter.kafka.consumer.lag (max/sum) and
+ * waiter.kafka.consumer.partition.lag gauges. The lag map is built once per consumer-lag.cache-ms and
+ * shared by every gauge and the health check, so one scrape walks the client metrics once rather
+ * than once per partition gauge.
+ */
+@Component
+public class KafkaLagHealthIndicator implements HealthIndicator {
+
+    private static final String FETCH_MANAGER_GROUP = "consumer-fetch-manager-metrics";
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> partitionGauges = ConcurrentHashMap.newKeySet();
+    private final long threshold;
+    private final long sustainMs;
+    private final long cacheNanos;
+    private volatile long laggingSinceMs = -1;
+    // Guarded by this
+    private Map<String, Double> cachedLag = Map.of();
+    private long cachedAtNanos;
+    private boolean cached;
+
+    public KafkaLagHealthIndicator(
+            KafkaListenerEndpointRegistry listenerRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${consumer-lag.threshold:1000}") long threshold,
+            @Value("${consumer-lag.sustain-ms:30000}") long sustainMs,
+            @Value("${consumer-lag.cache-ms:1000}") long cacheMs) {
+        this.listenerRegistry = listenerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+        this.sustainMs = sustainMs;
+        this.cacheNanos = TimeUnit.MILLISECONDS.toNanos(cacheMs);
+
+        Gauge.builder("waiter.kafka.consumer.lag", this, indicator -> indicator.partitionLag().values().stream()
+                        .mapToDouble(Double::doubleValue).max().orElse(0))
+                .description("Highest per-partition lag of the order-ready consumer group on this replica")
+                .tag("aggregate", "max")
+                .register(meterRegistry);
+        Gauge.builder("waiter.kafka.consumer.lag", this, indicator -> indicator.partitionLag().values().stream()
+                        .mapToDouble(Double::doubleValue).sum())
+                .description("Total lag over the partitions assigned to this replica")
+                .tag("aggregate", "sum")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Double> lag = partitionLag();
+        double maxLag = lag.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        long now = System.currentTimeMillis();
+        if (maxLag <= threshold) {
+            laggingSinceMs = -1;
+        } else if (laggingSinceMs < 0) {
+            laggingSinceMs = now;
+        }
+        boolean lagging = laggingSinceMs >= 0 && now - laggingSinceMs >= sustainMs;
+        Health.Builder builder = lagging ? Health.down() : Health.up();
+        builder.withDetail("maxLag", maxLag)
+                .withDetail("threshold", threshold)
+                .withDetail("partitions", lag);
+        if (laggingSinceMs >= 0) {
+            builder.withDetail("aboveThresholdForMs", now - laggingSinceMs);
+        }
+        return builder.build();
+    }
+
+    /**
+     * records-lag per assigned partition ("topic-partition" -> records behind the log end),
+     * at most consumer-lag.cache-ms old
+     */
+    public synchronized Map<String, Double> partitionLag() {
+        long now = System.nanoTime();
+        if (!cached || now - cachedAtNanos >= cacheNanos) {
+            cachedLag = Collections.unmodifiableMap(readPartitionLag());
+            cachedAtNanos = now;
+            cached = true;
+        }
+        return cachedLag;
+    }
+
+    private Map<String, Double> readPartitionLag() {
+        Map<String, Double> lag = new TreeMap<>();
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(KafkaConsumerService.LISTENER_ID);
+        if (container == null || !container.isRunning()) {
+            return lag;
+        }
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : clientMetrics.entrySet()) {
+                MetricName name = metric.getKey();
+                String partition = name.tags().get("partition");
+                if (partition == null || !"records-lag".equals(name.name()) || !FETCH_MANAGER_GROUP.equals(name.group())) {
+                    continue;
+                }
+                Object value = metric.getValue().metricValue();
+                if (value instanceof Number number && !Double.isNaN(number.doubleValue())) {
+                    String topicPartition = name.tags().get("topic") + "-" + partition;
+                    lag.put(topicPartition, number.doubleValue());
+                    registerPartitionGauge(topicPartition, name.tags().get("topic"), partition);
+                }
+            }
+        }
+        return lag;
+    }
+
+    /**
+     * Per-partition gauge, registered the first time the partition is assigned here;
+     * reports NaN while the partition is assigned to another replica
+     */
+    private void registerPartitionGauge(String topicPartition, String topic, String partition) {
+        if (partitionGauges.add(topicPartition)) {
+            Gauge.builder("waiter.kafka.consumer.partition.lag", this,
+                            indicator -> indicator.partitionLag().getOrDefault(topicPartition, Double.NaN))
+                    .description("Records behind the log end for one assigned order-ready partition")
+                    .tag("topic", topic)
+                    .tag("partition", partition)
+                    .register(meterRegistry);
+        }
+    }
+}
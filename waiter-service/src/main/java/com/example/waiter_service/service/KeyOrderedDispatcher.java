@@ -0,0 +1,255 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Key-ordered parallel processing for the shared order-ready listener (processing.mode=key-ordered)
+ *
+ * Records are handed from the consumer thread to processing.workers single-threaded lanes chosen by
+ * their ordering key (tableId, or orderId), so events for one table stay in order while a slow one
+ * no longer holds up other tables on the same partition. Completion is tracked per partition in
+ * offset order and only the highest contiguous completed offset is committed - from the consumer
+ * thread, on the next poll or idle event - so a rebalance or crash never skips an unprocessed record.
+ * An offset counts as committed only once the broker confirms it; a failed commit is offered again
+ * on the next poll or idle event, so an idle partition does not keep a stale position.
+ * At most processing.max-in-flight records are outstanding; beyond that the consumer thread waits.
+ * Lanes reach the replay journal in completion order rather than Kafka order across tables; the
+ * listener journals and broadcasts each event under one lock, so WebSocket clients still receive
+ * sequence numbers in increasing order and a resume cursor never passes an event not yet sent.
+ */
+@Service
+public class KeyOrderedDispatcher implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyOrderedDispatcher.class);
+
+    private final boolean enabled;
+    private final boolean orderByTable;
+    private final int maxInFlight;
+    private final long revokeDrainTimeoutMs;
+    private final ExecutorService[] lanes;
+    private final Semaphore permits;
+
+    // Each partition's tracker is only touched by the consumer thread it is assigned to
+    private final Map<TopicPartition, PartitionTracker> trackers = new ConcurrentHashMap<>();
+
+    public KeyOrderedDispatcher(
+            MeterRegistry meterRegistry,
+            @Value("${processing.mode:sequential}") String mode,
+            @Value("${processing.ordering-key:table}") String orderingKey,
+            @Value("${processing.workers:8}") int workers,
+            @Value("${processing.max-in-flight:1000}") int maxInFlight,
+            @Value("${processing.revoke-drain-timeout-ms:10000}") long revokeDrainTimeoutMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.enabled = "key-ordered".equalsIgnoreCase(mode);
+        this.orderByTable = !"order".equalsIgnoreCase(orderingKey);
+        this.maxInFlight = maxInFlight;
+        this.revokeDrainTimeoutMs = revokeDrainTimeoutMs;
+        this.permits = new Semaphore(maxInFlight);
+        this.lanes = new ExecutorService[enabled ? workers : 0];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "order-lane-" + i;
+            // A lane stays single-threaded either way; a virtual one just doesn't pin a platform thread while blocked
+            lanes[i] = virtualThreads
+                    ? Executors.newSingleThreadExecutor(Thread.ofVirtual().name(name).factory())
+                    : Executors.newSingleThreadExecutor(r -> {
+                        Thread thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        Gauge.builder("waiter.listener.in.flight", this, dispatcher -> dispatcher.getInFlight())
+                .description("Order-ready records handed to processing lanes but not completed yet")
+                .register(meterRegistry);
+        logger.info("KeyOrderedDispatcher initialized - mode: {}, ordering key: {}, lanes: {}, max in flight: {}, virtual threads: {}",
+                mode, orderByTable ? "table" : "order", lanes.length, maxInFlight, virtualThreads);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Queue a record's processing on its lane; called on the consumer thread in offset order
+     */
+    public void submit(ConsumerRecord<String, OrderReadyEvent> record, Runnable work) throws InterruptedException {
+        permits.acquire();
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        PendingRecord pending = trackers.computeIfAbsent(partition, tp -> new PartitionTracker()).track(record.offset());
+        lanes[laneOf(record)].execute(() -> {
+            try {
+                work.run();
+            } finally {
+                pending.done = true;
+                permits.release();
+            }
+        });
+    }
+
+    int laneOf(ConsumerRecord<String, OrderReadyEvent> record) {
+        OrderReadyEvent event = record.value();
+        Object key = null;
+        if (event != null) {
+            key = orderByTable && event.getTableId() != null ? event.getTableId() : event.getOrderId();
+        }
+        if (key == null) {
+            key = record.key() != null ? record.key() : record.partition();
+        }
+        return Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    /**
+     * Commit the consumer's partitions up to their highest contiguous completed offset; consumer thread only
+     * (with listener concurrency above 1 each consumer commits just its own assignment)
+     */
+    public void commitCompleted(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = completedOffsets(consumer.assignment());
+        if (!offsets.isEmpty()) {
+            // The callback runs on this consumer thread too, during a later poll
+            consumer.commitAsync(offsets, (attempted, e) -> {
+                if (e != null) {
+                    logger.warn("Offset commit failed for {}, offering it again: {}", attempted.keySet(), e.getMessage());
+                }
+                attempted.forEach((partition, offset) -> {
+                    PartitionTracker tracker = trackers.get(partition);
+                    if (tracker != null) {
+                        tracker.commitCompleted(offset.offset(), e == null);
+                    }
+                });
+            });
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> completedOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionTracker tracker = trackers.get(partition);
+            if (tracker != null && tracker.advance()) {
+                tracker.offered = tracker.committable;
+                offsets.put(partition, new OffsetAndMetadata(tracker.committable));
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Give records of revoked partitions a chance to finish, then commit what completed so the new
+     * owner resumes right after it; anything still running past the timeout is redelivered there
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!isSharedGroup(consumer) || trackers.isEmpty()) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + revokeDrainTimeoutMs;
+        try {
+            while (partitions.stream().map(trackers::get).anyMatch(tracker -> tracker != null && !tracker.drained())
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = completedOffsets(partitions);
+        try {
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+            }
+        } catch (Exception e) {
+            logger.warn("Offset commit on revocation failed for {}: {}", offsets.keySet(), e.getMessage());
+        }
+        partitions.forEach(trackers::remove);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (isSharedGroup(consumer)) {
+            // No longer ours to commit; in-flight records still complete and are simply not tracked
+            partitions.forEach(trackers::remove);
+        }
+    }
+
+    private static boolean isSharedGroup(Consumer<?, ?> consumer) {
+        return KafkaConsumerService.GROUP_ID.equals(consumer.groupMetadata().groupId());
+    }
+
+    private static final class PendingRecord {
+        private final long offset;
+        private volatile boolean done;
+
+        private PendingRecord(long offset) {
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Records of one partition in offset order; the head is the oldest not yet committable
+     */
+    private static final class PartitionTracker {
+        private final ArrayDeque<PendingRecord> pending = new ArrayDeque<>();
+        private long committable = -1;
+        // Confirmed by the broker, and sent in a commit not yet answered
+        private long committed = -1;
+        private long offered = -1;
+
+        PendingRecord track(long offset) {
+            PendingRecord record = new PendingRecord(offset);
+            pending.addLast(record);
+            return record;
+        }
+
+        /**
+         * Pop the completed prefix; true when there is an offset to commit that is neither confirmed
+         * nor waiting on a commit already sent
+         */
+        boolean advance() {
+            while (!pending.isEmpty() && pending.peekFirst().done) {
+                committable = pending.pollFirst().offset + 1;
+            }
+            return committable > committed && committable > offered;
+        }
+
+        void commitCompleted(long offset, boolean succeeded) {
+            if (succeeded) {
+                committed = Math.max(committed, offset);
+            } else if (offered == offset) {
+                offered = committed;
+            }
+        }
+
+        boolean drained() {
+            return pending.stream().allMatch(record -> record.done);
+        }
+    }
+}
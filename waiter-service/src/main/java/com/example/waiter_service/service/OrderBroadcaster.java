@@ -0,0 +1,129 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.config.RoutingProperties;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes order-ready events to scoped STOMP destinations
+ * - /topic/tables/{tableId}     waiters serving a single table
+ * - /topic/sections/{sectionId} waiters serving a section (from routing.sections)
+ * - /topic/orders               legacy firehose, only while routing.broadcast-all is on
+ * The payload is serialized once and the same bytes are sent to every destination.
+ * Every message carries "seq" and "epoch" headers (replay journal cursor) so clients can resume after
+ * a reconnect, and a "table" header when the event has a table id
+ */
+@Service
+public class OrderBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderBroadcaster.class);
+    public static final String SEQUENCE_HEADER = "seq";
+    public static final String EPOCH_HEADER = "epoch";
+    public static final String TABLE_HEADER = "table";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final String epoch;
+    private final boolean broadcastAll;
+    private final Map<Long, String> sectionByTable = new HashMap<>();
+
+    public OrderBroadcaster(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper,
+                            RoutingProperties routingProperties, RecentOrderBuffer journal) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.epoch = journal.getEpoch();
+        this.broadcastAll = routingProperties.isBroadcastAll();
+        for (Map.Entry<String, List<Long>> section : routingProperties.getSections().entrySet()) {
+            for (Long tableId : section.getValue()) {
+                String previous = sectionByTable.put(tableId, section.getKey());
+                if (previous != null) {
+                    logger.warn("Table {} is configured in sections {} and {} - using {}",
+                            tableId, previous, section.getKey(), section.getKey());
+                }
+            }
+        }
+        logger.info("OrderBroadcaster initialized - {} sections, {} mapped tables, broadcast-all: {}",
+                routingProperties.getSections().size(), sectionByTable.size(), broadcastAll);
+    }
+
+    public void broadcast(OrderReadyEvent event, long sequence) throws JsonProcessingException {
+        byte[] payload = serialize(event);
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON);
+        headers.put(SEQUENCE_HEADER, String.valueOf(sequence));
+        headers.put(EPOCH_HEADER, epoch);
+        if (event.getTableId() != null) {
+            // Conflation key for lagging sessions (see WebSocketSessionMonitor)
+            headers.put(TABLE_HEADER, event.getTableId().toString());
+        }
+
+        Long tableId = event.getTableId();
+        if (broadcastAll || tableId == null) {
+            // A tableless event has no scoped destination, so the firehose is its only one
+            messagingTemplate.convertAndSend("/topic/orders", payload, headers);
+        }
+        if (tableId != null) {
+            messagingTemplate.convertAndSend("/topic/tables/" + tableId, payload, headers);
+            String sectionId = sectionByTable.get(tableId);
+            if (sectionId != null) {
+                messagingTemplate.convertAndSend("/topic/sections/" + sectionId, payload, headers);
+            }
+        }
+    }
+
+    public byte[] serialize(OrderReadyEvent event) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    /**
+     * Whether broadcast() would have sent this event to the given destination
+     */
+    public boolean isDeliveredTo(String destination, OrderReadyEvent event) {
+        Long tableId = event.getTableId();
+        if ("/topic/orders".equals(destination)) {
+            return broadcastAll || tableId == null;
+        }
+        if (tableId == null) {
+            return false;
+        }
+        if (destination.startsWith("/topic/tables/")) {
+            return destination.substring("/topic/tables/".length()).equals(tableId.toString());
+        }
+        if (destination.startsWith("/topic/sections/")) {
+            return destination.substring("/topic/sections/".length()).equals(sectionByTable.get(tableId));
+        }
+        return false;
+    }
+
+    /**
+     * Table id encoded in a /topic/tables/{tableId} destination, or null for any other destination
+     */
+    public static Long tableIdOf(String destination) {
+        if (destination == null || !destination.startsWith("/topic/tables/")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(destination.substring("/topic/tables/".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Section serving the given table, or null when the table is not mapped
+     */
+    public String sectionFor(Long tableId) {
+        return tableId == null ? null : sectionByTable.get(tableId);
+    }
+}
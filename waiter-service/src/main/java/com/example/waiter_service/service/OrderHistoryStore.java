@@ -0,0 +1,483 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderHistoryEntry;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded, append-only history of received order-ready events
+ *
+ * Events are appended to segment files ({@code <first-timestamp>.log}) through a FileChannel;
+ * a segment is sealed once it reaches history.segment-bytes and a new one is started.
+ * Each record is {@code [payload length][crc32][received-at ms][table id][JSON payload]}.
+ * Writes are not fsynced individually - the active segment is forced every flush interval,
+ * which keeps append latency at a page-cache write.
+ *
+ * Reads go through memory-mapped segments. Every segment keeps an in-memory time index
+ * (record timestamps and file positions, in append order so they are sorted) and a per-table
+ * index (record numbers per table id), both rebuilt by scanning the files on startup.
+ * A torn or corrupt tail left by a crash is detected by length/CRC and truncated.
+ *
+ * Retention drops whole sealed segments that are older than history.retention.max-age-hours
+ * or that push the store over history.retention.max-bytes.
+ */
+@Service
+public class OrderHistoryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderHistoryStore.class);
+
+    static final int HEADER_BYTES = 24;
+    private static final long NO_TABLE = Long.MIN_VALUE;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxAgeMs;
+    private final long maxBytes;
+    private final long flushIntervalMs;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private volatile Segment active;
+    private long lastTimestamp;
+    private ScheduledExecutorService maintenance;
+
+    public OrderHistoryStore(
+            ObjectMapper objectMapper,
+            @Value("${history.enabled:true}") boolean enabled,
+            @Value("${history.path:data/order-history}") String path,
+            @Value("${history.segment-bytes:67108864}") long segmentBytes,
+            @Value("${history.retention.max-age-hours:168}") long maxAgeHours,
+            @Value("${history.retention.max-bytes:1073741824}") long maxBytes,
+            @Value("${history.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Paths.get(path).toAbsolutePath();
+        // Record positions are ints
+        this.segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+        this.maxAgeMs = TimeUnit.HOURS.toMillis(maxAgeHours);
+        this.maxBytes = maxBytes;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            logger.info("OrderHistoryStore disabled");
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            Segment segment = Segment.recover(file);
+            segments.add(segment);
+            lastTimestamp = Math.max(lastTimestamp, segment.lastTimestamp());
+        }
+        if (!segments.isEmpty() && segments.get(segments.size() - 1).size < segmentBytes) {
+            active = segments.get(segments.size() - 1);
+            active.openForAppend();
+        }
+        enforceRetention();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-history-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::enforceRetention, 1, 1, TimeUnit.MINUTES);
+        logger.info("OrderHistoryStore opened - {} segments, {} records, {} bytes in {}",
+                segments.size(), getRecordCount(), getSizeBytes(), directory);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        synchronized (writeLock) {
+            if (active != null) {
+                try {
+                    active.seal();
+                } catch (IOException e) {
+                    logger.warn("Failed to seal order history segment on shutdown: {}", e.getMessage());
+                }
+                active = null;
+            }
+        }
+    }
+
+    /**
+     * Append an event, stamped with the current time
+     * Failures are logged only - the history is a record, never a reason to drop live delivery
+     */
+    public void append(OrderReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(event);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+            synchronized (writeLock) {
+                // Keep timestamps non-decreasing so the time index stays sorted even if the clock steps back
+                long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+                record.putInt(payload.length)
+                        .putInt((int) crc.getValue())
+                        .putLong(timestamp)
+                        .putLong(event.getTableId() == null ? NO_TABLE : event.getTableId())
+                        .put(payload)
+                        .flip();
+                if (active == null || (active.count > 0 && active.size + record.remaining() > segmentBytes)) {
+                    roll(timestamp);
+                }
+                active.append(record, timestamp, event.getTableId());
+                lastTimestamp = timestamp;
+            }
+        } catch (IOException e) {
+            logger.error("Failed to append order {} to history: {}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    private void roll(long timestamp) throws IOException {
+        if (active != null) {
+            active.seal();
+        }
+        long name = timestamp;
+        Path file;
+        while (Files.exists(file = directory.resolve(String.format("%020d%s", name, SEGMENT_SUFFIX)))) {
+            name++;
+        }
+        active = Segment.create(file);
+        segments.add(active);
+    }
+
+    /**
+     * Events received in [fromEpochMs, toEpochMs], oldest first, optionally for one table only
+     */
+    public List<OrderHistoryEntry> query(long fromEpochMs, long toEpochMs, Long tableId, int limit) {
+        List<OrderHistoryEntry> result = new ArrayList<>();
+        if (!enabled || limit <= 0) {
+            return result;
+        }
+        for (Segment segment : segments) {
+            int count = segment.count;
+            if (count == 0 || segment.timestamps[count - 1] < fromEpochMs) {
+                continue;
+            }
+            if (segment.timestamps[0] > toEpochMs) {
+                break;
+            }
+            try {
+                if (!segment.collect(fromEpochMs, toEpochMs, tableId, limit, result, objectMapper)) {
+                    break;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read order history segment " + segment.file.getFileName(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Force the active segment to disk
+     */
+    void flush() {
+        try {
+            Segment current = active;
+            if (current != null) {
+                current.force();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to flush order history: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete sealed segments past the age limit, then the oldest sealed ones while over the size limit
+     */
+    void enforceRetention() {
+        long cutoff = System.currentTimeMillis() - maxAgeMs;
+        long totalBytes = getSizeBytes();
+        for (Segment segment : segments) {
+            if (segment == active) {
+                break;
+            }
+            boolean expired = segment.count == 0 || segment.lastTimestamp() < cutoff;
+            if (!expired && totalBytes <= maxBytes) {
+                break;
+            }
+            segments.remove(segment);
+            totalBytes -= segment.size;
+            try {
+                Files.deleteIfExists(segment.file);
+                logger.info("Deleted order history segment {} ({} records, {})",
+                        segment.file.getFileName(), segment.count, expired ? "expired" : "size limit");
+            } catch (IOException e) {
+                logger.warn("Failed to delete order history segment {}: {}", segment.file, e.getMessage());
+            }
+        }
+    }
+
+    public long getRecordCount() {
+        long records = 0;
+        for (Segment segment : segments) {
+            records += segment.count;
+        }
+        return records;
+    }
+
+    public long getSizeBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.size;
+        }
+        return bytes;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    /**
+     * One segment file plus its in-memory indexes
+     * Only the store's writer mutates it; readers see a consistent prefix because the index arrays
+     * are published before the volatile record count that bounds them
+     */
+    private static final class Segment {
+        private final Path file;
+        private FileChannel writeChannel;
+        private volatile MappedByteBuffer sealedView;
+
+        private volatile long[] timestamps = new long[256];
+        private volatile int[] positions = new int[256];
+        private volatile int count;
+        private volatile long size;
+        private final Map<Long, IntList> recordsByTable = new ConcurrentHashMap<>();
+
+        private Segment(Path file) {
+            this.file = file;
+        }
+
+        static Segment create(Path file) throws IOException {
+            Segment segment = new Segment(file);
+            segment.writeChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return segment;
+        }
+
+        /**
+         * Rebuild the indexes by scanning the file; anything after the last intact record is truncated
+         */
+        static Segment recover(Path file) throws IOException {
+            Segment segment = new Segment(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long fileSize = channel.size();
+                MappedByteBuffer view = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                int position = 0;
+                CRC32 crc = new CRC32();
+                while (position + HEADER_BYTES <= fileSize) {
+                    int length = view.getInt(position);
+                    if (length < 0 || position + HEADER_BYTES + (long) length > fileSize) {
+                        break;
+                    }
+                    crc.reset();
+                    crc.update(view.slice(position + HEADER_BYTES, length));
+                    if ((int) crc.getValue() != view.getInt(position + 4)) {
+                        break;
+                    }
+                    long tableId = view.getLong(position + 16);
+                    segment.index(position, view.getLong(position + 8), tableId == NO_TABLE ? null : tableId);
+                    position += HEADER_BYTES + length;
+                }
+                if (position < fileSize) {
+                    logger.warn("Truncating torn tail of order history segment {} at byte {} of {}",
+                            file.getFileName(), position, fileSize);
+                    channel.truncate(position);
+                }
+                segment.size = position;
+            }
+            return segment;
+        }
+
+        void openForAppend() throws IOException {
+            writeChannel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            sealedView = null;
+        }
+
+        void append(ByteBuffer record, long timestamp, Long tableId) throws IOException {
+            int position = (int) size;
+            int length = record.remaining();
+            while (record.hasRemaining()) {
+                writeChannel.write(record);
+            }
+            // Size first: a reader that sees the new count must also see bytes covering the record
+            size = position + length;
+            index(position, timestamp, tableId);
+        }
+
+        private void index(int position, long timestamp, Long tableId) {
+            int next = count;
+            if (next == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, next * 2);
+                positions = Arrays.copyOf(positions, next * 2);
+            }
+            timestamps[next] = timestamp;
+            positions[next] = position;
+            if (tableId != null) {
+                recordsByTable.computeIfAbsent(tableId, id -> new IntList()).add(next);
+            }
+            count = next + 1;
+        }
+
+        void force() throws IOException {
+            FileChannel channel = writeChannel;
+            if (channel != null && channel.isOpen()) {
+                channel.force(false);
+            }
+        }
+
+        void seal() throws IOException {
+            if (writeChannel != null) {
+                writeChannel.force(false);
+                writeChannel.close();
+                writeChannel = null;
+            }
+        }
+
+        long lastTimestamp() {
+            int records = count;
+            return records == 0 ? 0 : timestamps[records - 1];
+        }
+
+        /**
+         * Sealed segments are mapped once and cached; the active one is mapped up to its current size
+         */
+        private ByteBuffer readView(long upTo) throws IOException {
+            MappedByteBuffer view = sealedView;
+            if (view != null && view.capacity() >= upTo) {
+                return view;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                view = channel.map(FileChannel.MapMode.READ_ONLY, 0, upTo);
+            }
+            if (writeChannel == null) {
+                sealedView = view;
+            }
+            return view;
+        }
+
+        /**
+         * Add matching records to the result
+         *
+         * @return false once the limit is reached or a record past toEpochMs was seen
+         */
+        boolean collect(long fromEpochMs, long toEpochMs, Long tableId, int limit,
+                        List<OrderHistoryEntry> result, ObjectMapper objectMapper) throws IOException {
+            int records = count;
+            long bytes = size;
+            long[] times = timestamps;
+            int[] offsets = positions;
+            ByteBuffer view = readView(bytes);
+
+            int[] selection = null;
+            int selected = records;
+            if (tableId != null) {
+                IntList tableRecords = recordsByTable.get(tableId);
+                if (tableRecords == null) {
+                    return true;
+                }
+                selected = tableRecords.size;
+                selection = tableRecords.values;
+                // Ignore table entries for records appended after the count was read
+                while (selected > 0 && selection[selected - 1] >= records) {
+                    selected--;
+                }
+            }
+
+            // Binary search for the first record at or after fromEpochMs
+            int low = 0;
+            int high = selected;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int record = selection == null ? mid : selection[mid];
+                if (times[record] < fromEpochMs) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            for (int i = low; i < selected; i++) {
+                int record = selection == null ? i : selection[i];
+                if (times[record] > toEpochMs) {
+                    return false;
+                }
+                int position = offsets[record];
+                byte[] payload = new byte[view.getInt(position)];
+                view.get(position + HEADER_BYTES, payload);
+                result.add(new OrderHistoryEntry(toLocalDateTime(times[record]),
+                        objectMapper.readValue(payload, OrderReadyEvent.class)));
+                if (result.size() >= limit) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Append-only int list with the same publish-before-count visibility as the segment index
+     */
+    private static final class IntList {
+        private volatile int[] values = new int[16];
+        private volatile int size;
+
+        void add(int value) {
+            int next = size;
+            if (next == values.length) {
+                values = Arrays.copyOf(values, next * 2);
+            }
+            values[next] = value;
+            size = next + 1;
+        }
+    }
+}
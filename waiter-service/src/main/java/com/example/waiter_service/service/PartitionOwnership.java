@@ -0,0 +1,257 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.config.RoutingProperties;
+import com.example.waiter_service.dto.SectionOwner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Which waiter replica owns which tables and sections
+ *
+ * With routing.partitioning=table or section the KDS publishes every event of a table (or section)
+ * to one partition of the order-ready topic (same murmur2 hashing as its OrderReadyPartitioner), so
+ * the replica the consumer group assigns that partition to is the only one that receives - and holds
+ * state for - those tables. Local partitions are tracked from rebalance callbacks of the shared group;
+ * the rest of the assignment is read from the group description every routing.owner-refresh-ms.
+ * Replicas are recognised by their consumer client id, "waiter-{routing.replica-id}-{n}".
+ */
+@Service
+public class PartitionOwnership implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionOwnership.class);
+
+    public static final String CLIENT_ID_PREFIX = "waiter-";
+    private static final Pattern CLIENT_ID = Pattern.compile(Pattern.quote(CLIENT_ID_PREFIX) + "(.+)-\\d+");
+
+    private final KafkaAdmin kafkaAdmin;
+    private final String topic;
+    private final String strategy;
+    private final String replicaId;
+    private final String replicaUrlTemplate;
+    private final long refreshMs;
+    private final Map<Long, String> sectionByTable = new HashMap<>();
+
+    private final Set<Integer> localPartitions = ConcurrentHashMap.newKeySet();
+    private volatile int partitionCount;
+    private volatile Map<Integer, Owner> owners = Map.of();
+    private AdminClient adminClient;
+    private ScheduledExecutorService refresher;
+
+    public PartitionOwnership(
+            KafkaAdmin kafkaAdmin,
+            RoutingProperties routingProperties,
+            @Value("${spring.kafka.topic.order-ready}") String topic) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.topic = topic;
+        this.strategy = routingProperties.getPartitioning().trim().toLowerCase();
+        this.replicaId = routingProperties.getReplicaId();
+        this.replicaUrlTemplate = routingProperties.getReplicaUrlTemplate();
+        this.refreshMs = routingProperties.getOwnerRefreshMs();
+        for (Map.Entry<String, List<Long>> section : routingProperties.getSections().entrySet()) {
+            for (Long tableId : section.getValue()) {
+                sectionByTable.put(tableId, section.getKey());
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isPartitioned()) {
+            logger.info("PartitionOwnership disabled - order-ready events are partitioned by {}", strategy);
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "partition-ownership");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshOwners, 0, refreshMs, TimeUnit.MILLISECONDS);
+        logger.info("PartitionOwnership initialized - strategy: {}, replica: {}, {} mapped tables",
+                strategy, replicaId, sectionByTable.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    public boolean isPartitioned() {
+        return "table".equals(strategy) || "section".equals(strategy);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!isSharedGroup(consumer)) {
+            return;
+        }
+        partitionCount = consumer.partitionsFor(topic).size();
+        partitions.stream().filter(tp -> topic.equals(tp.topic())).forEach(tp -> localPartitions.add(tp.partition()));
+        logger.info("Order-ready partitions owned by this replica: {}", getLocalPartitions());
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (isSharedGroup(consumer)) {
+            partitions.stream().filter(tp -> topic.equals(tp.topic())).forEach(tp -> localPartitions.remove(tp.partition()));
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        onPartitionsRevokedAfterCommit(consumer, partitions);
+    }
+
+    private static boolean isSharedGroup(Consumer<?, ?> consumer) {
+        return KafkaConsumerService.GROUP_ID.equals(consumer.groupMetadata().groupId());
+    }
+
+    public SectionOwner ownerOfSection(String section) {
+        List<Long> tables = sectionByTable.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(section)).map(Map.Entry::getKey).toList();
+        if (tables.isEmpty()) {
+            return null;
+        }
+        // Under table partitioning a section's tables can sit on several partitions - clients should ask per table
+        return owner(section, null, partitionFor(tables.get(0)));
+    }
+
+    public SectionOwner ownerOfTable(Long tableId) {
+        return owner(sectionByTable.get(tableId), tableId, partitionFor(tableId));
+    }
+
+    /**
+     * Owner of every configured section
+     */
+    public Map<String, SectionOwner> sectionOwners() {
+        Map<String, SectionOwner> result = new TreeMap<>();
+        for (String section : Set.copyOf(sectionByTable.values())) {
+            result.put(section, ownerOfSection(section));
+        }
+        return result;
+    }
+
+    public Set<Integer> getLocalPartitions() {
+        return new TreeSet<>(localPartitions);
+    }
+
+    private SectionOwner owner(String section, Long tableId, int partition) {
+        if (partition < 0) {
+            return new SectionOwner(section, tableId, null, isPartitioned() ? null : replicaId, null, !isPartitioned());
+        }
+        Owner owner = owners.get(partition);
+        if (localPartitions.contains(partition)) {
+            return new SectionOwner(section, tableId, partition, replicaId, urlOf(replicaId, owner == null ? null : owner.host), true);
+        }
+        return owner == null
+                ? new SectionOwner(section, tableId, partition, null, null, false)
+                : new SectionOwner(section, tableId, partition, owner.replicaId, urlOf(owner.replicaId, owner.host), false);
+    }
+
+    /**
+     * Partition the KDS publishes a table's events to, or -1 when unknown
+     */
+    int partitionFor(Long tableId) {
+        int partitions = partitionCount;
+        if (!isPartitioned() || tableId == null || partitions <= 0) {
+            return -1;
+        }
+        return partition(strategy, tableId, sectionByTable.get(tableId), partitions);
+    }
+
+    /**
+     * Mirrors the KDS OrderReadyPartitioner for events that carry a tableId
+     */
+    static int partition(String strategy, long tableId, String section, int numPartitions) {
+        String hashed = "section".equals(strategy) && section != null ? section : Long.toString(tableId);
+        return Utils.toPositive(Utils.murmur2(hashed.getBytes(StandardCharsets.UTF_8))) % numPartitions;
+    }
+
+    /**
+     * Re-read the shared group's assignment; failures keep the last known owners
+     */
+    void refreshOwners() {
+        try {
+            if (adminClient == null) {
+                adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+            }
+            if (partitionCount == 0) {
+                // A replica without partitions of its own still has to map tables to partitions
+                partitionCount = adminClient.describeTopics(List.of(topic)).allTopicNames()
+                        .get(refreshMs, TimeUnit.MILLISECONDS).get(topic).partitions().size();
+            }
+            ConsumerGroupDescription group = adminClient.describeConsumerGroups(List.of(KafkaConsumerService.GROUP_ID))
+                    .describedGroups().get(KafkaConsumerService.GROUP_ID).get(refreshMs, TimeUnit.MILLISECONDS);
+            Map<Integer, Owner> refreshed = new HashMap<>();
+            for (MemberDescription member : group.members()) {
+                for (TopicPartition tp : member.assignment().topicPartitions()) {
+                    if (topic.equals(tp.topic())) {
+                        refreshed.put(tp.partition(), new Owner(replicaOf(member.clientId()), member.host()));
+                    }
+                }
+            }
+            owners = refreshed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not read the {} group assignment: {}", KafkaConsumerService.GROUP_ID, e.getMessage());
+        }
+    }
+
+    static String replicaOf(String clientId) {
+        Matcher matcher = CLIENT_ID.matcher(clientId);
+        return matcher.matches() ? matcher.group(1) : clientId;
+    }
+
+    private String urlOf(String replica, String host) {
+        if (replicaUrlTemplate == null || replicaUrlTemplate.isBlank()) {
+            return null;
+        }
+        String url = replicaUrlTemplate.replace("{replica}", replica);
+        if (host != null) {
+            url = url.replace("{host}", host.startsWith("/") ? host.substring(1) : host);
+        }
+        return url.contains("{host}") ? null : url;
+    }
+
+    private static final class Owner {
+        private final String replicaId;
+        private final String host;
+
+        private Owner(String replicaId, String host) {
+            this.replicaId = replicaId;
+            this.host = host;
+        }
+    }
+}
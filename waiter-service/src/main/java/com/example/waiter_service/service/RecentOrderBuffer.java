@@ -0,0 +1,319 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Fixed-capacity, lock-free ring buffer of the most recent order-ready events
+ *
+ * Every append gets a monotonically increasing sequence number (starting at 1) and lands in
+ * slot {@code sequence % capacity}, overwriting the entry that is {@code capacity} sequences older.
+ * Any number of listener threads may append concurrently; readers walk the slots directly
+ * (no lock, no copy of the buffer) and skip slots whose sequence does not match the one expected,
+ * i.e. entries that were overwritten.
+ *
+ * Readers only see sequences up to the published watermark: the highest sequence below which every
+ * entry has been written and linked. Writers advance it after they finish, and append() returns once
+ * its own sequence is published, so a sequence handed to a client (as a live "seq" header or a resume
+ * cursor) never runs ahead of an entry still being written - resuming from it cannot skip that entry.
+ *
+ * Per-table lookup uses an index of the newest sequence per table plus a "previous sequence for
+ * the same table" link stored in each entry, so a table's events are found without a full scan.
+ *
+ * Sequences restart at 1 with every process, so each buffer also has a random epoch; a resume cursor
+ * is only meaningful together with the epoch it was issued under.
+ */
+@Component
+public class RecentOrderBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentOrderBuffer.class);
+
+    // Far beyond the few memory operations a live writer has left between taking and publishing a sequence
+    private static final long STUCK_WRITER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final AtomicLongFieldUpdater<Entry> PREVIOUS_FOR_TABLE =
+            AtomicLongFieldUpdater.newUpdater(Entry.class, "previousForTable");
+
+    private final int capacity;
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong issuedSequence = new AtomicLong();
+    private final AtomicLong publishedSequence = new AtomicLong();
+    private final ConcurrentHashMap<Long, AtomicLong> latestByTable = new ConcurrentHashMap<>();
+
+    public RecentOrderBuffer(@Value("${recent-orders.capacity:50}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("recent-orders.capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Append an event and return its sequence number, once it and every earlier sequence are published
+     */
+    public long append(OrderReadyEvent event) {
+        long sequence = issuedSequence.incrementAndGet();
+        try {
+            Entry entry = new Entry(sequence, event, System.currentTimeMillis());
+            int slot = slotOf(sequence);
+
+            // A slower writer holding an older sequence for the same slot must not overwrite a newer entry
+            Entry current;
+            do {
+                current = slots.get(slot);
+            } while ((current == null || current.sequence < sequence) && !slots.compareAndSet(slot, current, entry));
+
+            try {
+                if (event.getTableId() != null) {
+                    linkIntoTableChain(event.getTableId(), entry);
+                }
+            } finally {
+                // Released even if linking failed: later writers must not wait on this sequence
+                entry.complete = true;
+            }
+        } finally {
+            publish(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Advance the published watermark over every finished entry, then wait for earlier writers still in
+     * flight (they only have a few memory operations left; whichever finishes last advances past us).
+     * A sequence still unfinished after STUCK_WRITER_NANOS belongs to a writer that died before its entry
+     * was in place (e.g. OutOfMemoryError) and is skipped, so it cannot stall every later append
+     */
+    private void publish(long sequence) {
+        long waitingFor = 0;
+        long deadline = 0;
+        while (true) {
+            advancePublished();
+            long published = publishedSequence.get();
+            if (published >= sequence) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (waitingFor != published + 1) {
+                waitingFor = published + 1;
+                deadline = now + STUCK_WRITER_NANOS;
+            } else if (now - deadline > 0 && publishedSequence.compareAndSet(published, waitingFor)) {
+                logger.warn("Journal sequence {} was never written, skipping it", waitingFor);
+                continue;
+            }
+            // yield rather than spin so a virtual-thread writer cannot pin the carrier its predecessor needs
+            Thread.yield();
+        }
+    }
+
+    /**
+     * A slot already holding a newer sequence counts as finished - the older entry will never be written
+     */
+    private void advancePublished() {
+        while (true) {
+            long published = publishedSequence.get();
+            long next = published + 1;
+            if (next > issuedSequence.get()) {
+                break;
+            }
+            Entry entry = slots.get(slotOf(next));
+            boolean finished = entry != null && (entry.sequence > next || (entry.sequence == next && entry.complete));
+            if (!finished) {
+                break;
+            }
+            publishedSequence.compareAndSet(published, next);
+        }
+    }
+
+    /**
+     * Insert the entry into its table's chain, which is ordered newest-first by sequence.
+     * Normally the new entry simply becomes the head; with concurrent writers a newer entry may
+     * already be there, in which case it is spliced in behind it with a CAS on the predecessor's link
+     */
+    private void linkIntoTableChain(Long tableId, Entry entry) {
+        AtomicLong head = latestByTable.computeIfAbsent(tableId, id -> new AtomicLong());
+        while (true) {
+            long headSequence = head.get();
+            if (headSequence < entry.sequence) {
+                entry.previousForTable = headSequence;
+                if (head.compareAndSet(headSequence, entry.sequence)) {
+                    return;
+                }
+                continue;
+            }
+            Entry node = entryAt(headSequence);
+            while (node != null) {
+                long previous = node.previousForTable;
+                if (previous < entry.sequence) {
+                    entry.previousForTable = previous;
+                    if (PREVIOUS_FOR_TABLE.compareAndSet(node, previous, entry.sequence)) {
+                        return;
+                    }
+                    continue;
+                }
+                node = entryAt(previous);
+            }
+            // Chain fell out of the window while we walked it - nothing older to link to
+            entry.previousForTable = 0;
+            return;
+        }
+    }
+
+    /**
+     * Visit entries newest-first until the visitor returns false or the window is exhausted
+     */
+    public void forEachNewestFirst(Predicate<Entry> visitor) {
+        long newest = publishedSequence.get();
+        long oldest = Math.max(1, newest - capacity + 1);
+        for (long sequence = newest; sequence >= oldest; sequence--) {
+            Entry entry = entryAt(sequence);
+            if (entry != null && !visitor.test(entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visit one table's entries newest-first until the visitor returns false or the chain leaves the window
+     */
+    public void forEachForTable(Long tableId, Predicate<Entry> visitor) {
+        AtomicLong head = latestByTable.get(tableId);
+        if (head == null) {
+            return;
+        }
+        long published = publishedSequence.get();
+        Entry entry = entryAt(head.get());
+        while (entry != null && entry.sequence > published) {
+            entry = entryAt(entry.previousForTable);
+        }
+        while (entry != null && visitor.test(entry)) {
+            entry = entryAt(entry.previousForTable);
+        }
+    }
+
+    /**
+     * Newest-first list of up to {@code limit} events, optionally restricted to one table
+     */
+    public List<OrderReadyEvent> latest(Long tableId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        List<OrderReadyEvent> result = new ArrayList<>(Math.min(limit, capacity));
+        Predicate<Entry> collector = entry -> {
+            result.add(entry.event);
+            return result.size() < limit;
+        };
+        if (tableId == null) {
+            forEachNewestFirst(collector);
+        } else {
+            forEachForTable(tableId, collector);
+        }
+        return result;
+    }
+
+    /**
+     * Entries with a sequence greater than {@code afterSequence}, oldest first, optionally for one table
+     */
+    public List<Entry> entriesAfter(long afterSequence, Long tableId) {
+        List<Entry> result = new ArrayList<>();
+        Predicate<Entry> collector = entry -> {
+            if (entry.sequence <= afterSequence) {
+                return false;
+            }
+            result.add(entry);
+            return true;
+        };
+        if (tableId == null) {
+            forEachNewestFirst(collector);
+        } else {
+            forEachForTable(tableId, collector);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Oldest sequence still guaranteed to be in the buffer
+     */
+    public long getOldestSequence() {
+        return Math.max(1, publishedSequence.get() - capacity + 1);
+    }
+
+    /**
+     * Entry for the sequence, or null if it was never written, is still being written or was overwritten
+     * Readers must also check it against the published watermark
+     */
+    private Entry entryAt(long sequence) {
+        if (sequence <= 0) {
+            return null;
+        }
+        Entry entry = slots.get(slotOf(sequence));
+        return entry != null && entry.sequence == sequence ? entry : null;
+    }
+
+    private int slotOf(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    /**
+     * Identifies this buffer's sequence space; changes on every restart
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Published watermark: every sequence up to it is readable, none after it is yet
+     */
+    public long getLastSequence() {
+        return publishedSequence.get();
+    }
+
+    public int size() {
+        return (int) Math.min(publishedSequence.get(), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public static final class Entry {
+        private final long sequence;
+        private final OrderReadyEvent event;
+        private final long receivedAtEpochMs;
+        private volatile long previousForTable;
+        private volatile boolean complete;
+
+        private Entry(long sequence, OrderReadyEvent event, long receivedAtEpochMs) {
+            this.sequence = sequence;
+            this.event = event;
+            this.receivedAtEpochMs = receivedAtEpochMs;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public OrderReadyEvent getEvent() {
+            return event;
+        }
+
+        public long getReceivedAtEpochMs() {
+            return receivedAtEpochMs;
+        }
+    }
+}
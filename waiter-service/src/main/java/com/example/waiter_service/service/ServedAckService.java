@@ -0,0 +1,69 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderServedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pickup acknowledgements from waiters (POST /api/waiter/orders/{orderId}/served or STOMP /app/orders/served)
+ * Each ack is published to the order-served topic, keyed by orderId, so every KDS replica clears the
+ * ticket right away instead of on a later poll; the order also leaves the table-readiness view
+ * With the view enabled only orders it holds (ready and not served yet) can be acknowledged; without
+ * it the waiter has no record of what is ready, and the KDS ignores acks for orders it shows as not READY
+ */
+@Service
+public class ServedAckService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServedAckService.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TableReadinessView tableReadiness;
+    private final String topic;
+    private final Counter published;
+    private final Counter failed;
+
+    public ServedAckService(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            TableReadinessView tableReadiness,
+            MeterRegistry meterRegistry,
+            @Value("${spring.kafka.topic.order-served:order-served}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.tableReadiness = tableReadiness;
+        this.topic = topic;
+        this.published = meterRegistry.counter("waiter.served.acks", "outcome", "published");
+        this.failed = meterRegistry.counter("waiter.served.acks", "outcome", "failed");
+    }
+
+    /**
+     * Publish an order-served event; the missing tableId is taken from the table-readiness view when known
+     * @throws IllegalStateException when the table-readiness view is enabled and does not hold the order as ready
+     */
+    public OrderServedEvent acknowledge(OrderServedEvent ack) {
+        if (ack == null || ack.getOrderId() == null) {
+            throw new IllegalArgumentException("orderId is required");
+        }
+        if (tableReadiness.isEnabled() && !tableReadiness.isReady(ack.getOrderId())) {
+            throw new IllegalStateException("order " + ack.getOrderId() + " is not ready for pickup");
+        }
+        Long tableId = tableReadiness.orderServed(ack.getTableId(), ack.getOrderId());
+        OrderServedEvent event = new OrderServedEvent(ack.getOrderId(), tableId != null ? tableId : ack.getTableId(),
+                ack.getServedBy(), ack.getServedTime() != null ? ack.getServedTime() : LocalDateTime.now());
+        kafkaTemplate.send(topic, event.getOrderId().toString(), event).whenComplete((result, e) -> {
+            if (e != null) {
+                failed.increment();
+                logger.error("Failed to publish order-served for order {}: {}", event.getOrderId(), e.getMessage());
+            } else {
+                published.increment();
+            }
+        });
+        logger.info("Order {} served (table {}, by {})", event.getOrderId(), event.getTableId(), event.getServedBy());
+        return event;
+    }
+}
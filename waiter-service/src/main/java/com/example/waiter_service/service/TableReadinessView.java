@@ -0,0 +1,358 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.dto.TableReadiness;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local materialized view of the compacted table-readiness topic (table-readiness.enabled)
+ *
+ * The topic holds one record per order that is ready but not served yet, keyed tableId:orderId and
+ * tombstoned once the order is served or expires, so its size follows the live orders rather than the
+ * order-ready history. Every write covers a single order, so replicas never read-modify-write a shared
+ * table state: the replica that processes an order-ready event in the shared group writes the order,
+ * whichever replica takes the pickup ack tombstones it, and the view groups the orders by table.
+ * Every replica reads the topic from the beginning before the web server and the Kafka listeners start
+ * (the lifecycle phase below), then keeps reading it on a background thread. The preload waits at most table-readiness.bootstrap-timeout-ms;
+ * past that the replica starts with what it has and catches up in the background.
+ * Orders leave the view when a waiter acknowledges pickup (ServedAckService); ones never acknowledged
+ * are tombstoned after table-readiness.max-age-minutes by a single replica (see expireOrders).
+ * Age is measured from the order-ready record's Kafka timestamp, carried over as the timestamp of the
+ * table-readiness record, since the event's readyTime has no reliable zone.
+ */
+@Service
+public class TableReadinessView implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableReadinessView.class);
+
+    // Before the embedded web server (DEFAULT_PHASE - 2048) and the listener containers (MAX_VALUE - 100)
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PartitionOwnership partitionOwnership;
+    private final String topic;
+    private final boolean enabled;
+    private final long bootstrapTimeoutMs;
+    private final long maxAgeMs;
+
+    private final Map<Long, Map<Long, ReadyOrder>> tables = new ConcurrentHashMap<>();
+    private final AtomicLong recordsRead = new AtomicLong();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private volatile boolean running;
+    private volatile KafkaConsumer<String, OrderReadyEvent> consumer;
+    private Thread reader;
+    private ScheduledExecutorService expiry;
+
+    public TableReadinessView(
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            PartitionOwnership partitionOwnership,
+            MeterRegistry meterRegistry,
+            @Value("${spring.kafka.topic.table-readiness:table-readiness-v2}") String topic,
+            @Value("${table-readiness.enabled:false}") boolean enabled,
+            @Value("${table-readiness.bootstrap-timeout-ms:30000}") long bootstrapTimeoutMs,
+            @Value("${table-readiness.max-age-minutes:240}") long maxAgeMinutes) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.partitionOwnership = partitionOwnership;
+        this.topic = topic;
+        this.enabled = enabled;
+        this.bootstrapTimeoutMs = bootstrapTimeoutMs;
+        this.maxAgeMs = TimeUnit.MINUTES.toMillis(maxAgeMinutes);
+
+        Gauge.builder("waiter.table.readiness.tables", tables, Map::size)
+                .description("Tables with ready, unserved orders in the local table-readiness view")
+                .register(meterRegistry);
+        Gauge.builder("waiter.table.readiness.orders", this, view -> view.getOrderCount())
+                .description("Ready, unserved orders in the local table-readiness view")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Load the topic into the view, waiting up to the bootstrap timeout, then keep following it
+     */
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        reader = new Thread(this::readLoop, "table-readiness");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            if (loaded.await(bootstrapTimeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.info("Table-readiness view loaded - {} tables, {} orders from {} records in {} ms",
+                        tables.size(), getOrderCount(), recordsRead.get(), System.currentTimeMillis() - startedAt);
+            } else {
+                logger.warn("Table-readiness view not loaded within {} ms ({} tables so far) - catching up in the background",
+                        bootstrapTimeoutMs, tables.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        expiry = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "table-readiness-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMs = Math.max(1000, Math.min(maxAgeMs / 4, TimeUnit.MINUTES.toMillis(1)));
+        expiry.scheduleWithFixedDelay(this::expireOrders, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+        KafkaConsumer<String, OrderReadyEvent> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (reader != null) {
+            reader.interrupt();
+            try {
+                reader.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void readLoop() {
+        while (running) {
+            try (KafkaConsumer<String, OrderReadyEvent> created = createConsumer()) {
+                consumer = created;
+                List<TopicPartition> partitions = new ArrayList<>();
+                for (PartitionInfo info : created.partitionsFor(topic, Duration.ofMillis(bootstrapTimeoutMs))) {
+                    partitions.add(new TopicPartition(topic, info.partition()));
+                }
+                if (partitions.isEmpty()) {
+                    // Nothing to load yet: KafkaTopicConfig could not create the topic, or it is not visible yet
+                    loaded.countDown();
+                    throw new IllegalStateException("topic " + topic + " does not exist yet");
+                }
+                created.assign(partitions);
+                created.seekToBeginning(partitions);
+                Map<TopicPartition, Long> endOffsets = created.endOffsets(partitions);
+                while (running) {
+                    for (ConsumerRecord<String, OrderReadyEvent> record : created.poll(Duration.ofMillis(500))) {
+                        recordsRead.incrementAndGet();
+                        apply(record.key(), record.value(), record.timestamp());
+                    }
+                    if (loaded.getCount() > 0 && partitions.stream().allMatch(tp -> created.position(tp) >= endOffsets.get(tp))) {
+                        loaded.countDown();
+                    }
+                }
+            } catch (WakeupException e) {
+                return;
+            } catch (Exception e) {
+                logger.warn("Table-readiness reader failed, retrying in 5s: {}", e.getMessage());
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } finally {
+                consumer = null;
+            }
+        }
+    }
+
+    /**
+     * Standalone consumer with the shared connection settings: manually assigned, no group, no commits
+     */
+    private KafkaConsumer<String, OrderReadyEvent> createConsumer() {
+        Map<String, Object> props = new HashMap<>(consumerFactory.getConfigurationProperties());
+        props.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, props.getOrDefault(ConsumerConfig.CLIENT_ID_CONFIG, "waiter") + "-table-readiness");
+        return new KafkaConsumer<>(props, new StringDeserializer(), new JsonDeserializer<>(OrderReadyEvent.class, false));
+    }
+
+    /**
+     * Apply a record of the topic: a value puts the order on its table, a tombstone removes it
+     */
+    void apply(String key, OrderReadyEvent order, long timestamp) {
+        int separator = key == null ? -1 : key.indexOf(':');
+        Long tableId;
+        Long orderId;
+        try {
+            tableId = Long.valueOf(key.substring(0, separator));
+            orderId = Long.valueOf(key.substring(separator + 1));
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring table-readiness record with key {}", key);
+            return;
+        }
+        if (order == null) {
+            remove(tableId, orderId);
+        } else {
+            put(tableId, orderId, order, timestamp);
+        }
+    }
+
+    /**
+     * Record an order as ready on its table; called by the replica that processes the event in the
+     * shared group, once per event (the caller filters duplicates, so a redelivery after the pickup ack
+     * does not bring a served order back). readyAtEpochMs is the order-ready record's Kafka timestamp
+     */
+    public void orderReady(OrderReadyEvent event, long readyAtEpochMs) {
+        if (!enabled || event.getTableId() == null || event.getOrderId() == null) {
+            return;
+        }
+        long readyAt = put(event.getTableId(), event.getOrderId(), event, readyAtEpochMs);
+        kafkaTemplate.send(topic, null, readyAt, keyOf(event.getTableId(), event.getOrderId()), event);
+    }
+
+    /**
+     * Put an order on its table; a record without a timestamp is aged from now. Returns the timestamp used
+     */
+    private long put(Long tableId, Long orderId, OrderReadyEvent order, long timestamp) {
+        long readyAt = timestamp >= 0 ? timestamp : System.currentTimeMillis();
+        tables.computeIfAbsent(tableId, id -> new ConcurrentHashMap<>()).put(orderId, new ReadyOrder(order, readyAt));
+        return readyAt;
+    }
+
+    /**
+     * True when the order is ready and not served yet, as far as this view knows
+     */
+    public boolean isReady(Long orderId) {
+        return tables.values().stream().anyMatch(orders -> orders.containsKey(orderId));
+    }
+
+    /**
+     * Remove a served order; returns its table (looked up when tableId is null), or null when not in the view
+     */
+    public Long orderServed(Long tableId, Long orderId) {
+        if (!enabled) {
+            return null;
+        }
+        Long table = tableId;
+        if (table == null) {
+            table = tables.entrySet().stream()
+                    .filter(entry -> entry.getValue().containsKey(orderId))
+                    .map(Map.Entry::getKey)
+                    .findFirst().orElse(null);
+        }
+        if (table != null && remove(table, orderId)) {
+            kafkaTemplate.send(topic, keyOf(table, orderId), null);
+        }
+        return table;
+    }
+
+    /**
+     * Drop orders that were never marked served. Under table or section partitioning the owner of the
+     * table sweeps it; otherwise the replica holding partition 0 of the shared group sweeps every table,
+     * so one replica writes the tombstones
+     */
+    void expireOrders() {
+        if (!partitionOwnership.isPartitioned() && !partitionOwnership.getLocalPartitions().contains(0)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - maxAgeMs;
+        for (Map.Entry<Long, Map<Long, ReadyOrder>> table : tables.entrySet()) {
+            if (partitionOwnership.isPartitioned() && !partitionOwnership.ownerOfTable(table.getKey()).isLocal()) {
+                continue;
+            }
+            for (ReadyOrder order : List.copyOf(table.getValue().values())) {
+                Long orderId = order.event().getOrderId();
+                if (order.readyAtEpochMs() < cutoff && remove(table.getKey(), orderId)) {
+                    kafkaTemplate.send(topic, keyOf(table.getKey(), orderId), null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove an order from the local view, dropping the table once it is empty; false when it was not there
+     */
+    private boolean remove(Long tableId, Long orderId) {
+        boolean[] removed = new boolean[1];
+        tables.computeIfPresent(tableId, (id, orders) -> {
+            removed[0] = orders.remove(orderId) != null;
+            return orders.isEmpty() ? null : orders;
+        });
+        return removed[0];
+    }
+
+    static String keyOf(Long tableId, Long orderId) {
+        return tableId + ":" + orderId;
+    }
+
+    public TableReadiness getTable(Long tableId) {
+        Map<Long, ReadyOrder> orders = tables.get(tableId);
+        return orders == null ? null : toTable(tableId, orders);
+    }
+
+    /**
+     * Every table with ready orders, by tableId
+     */
+    public List<TableReadiness> getTables() {
+        List<TableReadiness> result = new ArrayList<>();
+        tables.forEach((tableId, orders) -> result.add(toTable(tableId, orders)));
+        result.removeIf(table -> table.getOrders().isEmpty());
+        result.sort(Comparator.comparing(TableReadiness::getTableId));
+        return result;
+    }
+
+    public int getOrderCount() {
+        return tables.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private static TableReadiness toTable(Long tableId, Map<Long, ReadyOrder> orders) {
+        List<OrderReadyEvent> sorted = orders.values().stream()
+                .sorted(Comparator.comparingLong(ReadyOrder::readyAtEpochMs))
+                .map(ReadyOrder::event)
+                .toList();
+        return new TableReadiness(tableId, sorted);
+    }
+
+    private record ReadyOrder(OrderReadyEvent event, long readyAtEpochMs) {
+    }
+}
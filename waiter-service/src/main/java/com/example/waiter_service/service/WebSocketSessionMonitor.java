@@ -0,0 +1,340 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.WebSocketSessionStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-session outbound backpressure for waiter WebSockets
+ *
+ * Every STOMP MESSAGE frame is counted when the broker hands it to the client outbound channel
+ * and again when it is actually written to the socket; the difference is the session's backlog.
+ * Once a session has conflation.threshold messages pending, further order events for it are held
+ * back per (subscription, table) - a newer event for the same table replaces the held one - and
+ * flushed once the backlog drains below conflation.resume-below. Flushed events carry a
+ * "conflated: true" header; their "seq" gaps tell the client to backfill via /api/waiter/events.
+ * A session that makes no write progress for slow-session.max-lag-ms is disconnected, on top of
+ * the send-buffer and send-time limits enforced by the WebSocket transport itself; the check runs on
+ * every send and on a slow-session.check-interval-ms timer, so an idle stuck session is closed too.
+ * Metrics are aggregated over all sessions (no per-session series); per-session detail is served by
+ * GET /api/waiter/websocket/sessions.
+ */
+@Service
+public class WebSocketSessionMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionMonitor.class);
+
+    public static final String CONFLATED_HEADER = "conflated";
+    private static final byte[] MESSAGE_COMMAND = "MESSAGE".getBytes(StandardCharsets.US_ASCII);
+
+    private final MessageChannel clientOutboundChannel;
+    private final boolean conflationEnabled;
+    private final int conflationThreshold;
+    private final int resumeBelow;
+    private final long maxLagNanos;
+    private final long checkIntervalMs;
+    private ScheduledExecutorService lagChecker;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final Counter conflated;
+    private final Counter queuedMessages;
+    private final Counter writtenMessages;
+    private final Counter slowDisconnects;
+    private final Counter limitDisconnects;
+
+    public WebSocketSessionMonitor(
+            @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            MeterRegistry meterRegistry,
+            @Value("${websocket.conflation.enabled:true}") boolean conflationEnabled,
+            @Value("${websocket.conflation.threshold:32}") int conflationThreshold,
+            @Value("${websocket.conflation.resume-below:8}") int resumeBelow,
+            @Value("${websocket.slow-session.max-lag-ms:30000}") long maxLagMs,
+            @Value("${websocket.slow-session.check-interval-ms:1000}") long checkIntervalMs) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.conflationEnabled = conflationEnabled;
+        this.conflationThreshold = conflationThreshold;
+        this.resumeBelow = Math.min(resumeBelow, conflationThreshold);
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+        this.checkIntervalMs = checkIntervalMs;
+
+        Gauge.builder("waiter.websocket.sessions", sessions, Map::size)
+                .description("Open waiter WebSocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("waiter.websocket.outbound.pending", this, WebSocketSessionMonitor::totalPending)
+                .description("Messages queued for all sessions but not yet written")
+                .register(meterRegistry);
+        Gauge.builder("waiter.websocket.conflated.tables", this, WebSocketSessionMonitor::totalHeld)
+                .description("Events currently held back for conflation, over all sessions")
+                .register(meterRegistry);
+        Gauge.builder("waiter.websocket.session.max.lag", this, monitor -> monitor.highestLagNanos(System.nanoTime()) / 1e6)
+                .description("Highest per-session outbound lag")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.conflated = meterRegistry.counter("waiter.websocket.conflated");
+        this.queuedMessages = meterRegistry.counter("waiter.websocket.outbound.messages", "state", "queued");
+        this.writtenMessages = meterRegistry.counter("waiter.websocket.outbound.messages", "state", "written");
+        this.slowDisconnects = meterRegistry.counter("waiter.websocket.disconnects", "reason", "max_lag");
+        this.limitDisconnects = meterRegistry.counter("waiter.websocket.disconnects", "reason", "transport_limit");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (checkIntervalMs <= 0) {
+            return;
+        }
+        lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "websocket-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::closeLaggingSessions, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+    }
+
+    /**
+     * Start tracking a new session; the returned decorator must be the one handed to the STOMP handler
+     * so that completed writes are observed
+     */
+    public WebSocketSession track(WebSocketSession session) {
+        SessionState state = new SessionState(session);
+        sessions.put(session.getId(), state);
+        return new WriteTrackingSession(session, state);
+    }
+
+    public void untrack(String sessionId, CloseStatus status) {
+        SessionState state = sessions.remove(sessionId);
+        if (state == null) {
+            return;
+        }
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(status) && !state.closedForLag.get()) {
+            // ConcurrentWebSocketSessionDecorator hit the send-buffer or send-time limit
+            limitDisconnects.increment();
+            logger.warn("WebSocket session {} closed after exceeding transport send limits", sessionId);
+        }
+    }
+
+    /**
+     * Outbound channel hook: returns the message to send, or null when it was held back for conflation
+     */
+    public Message<?> beforeSend(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        SessionState state = sessions.get(SimpMessageHeaderAccessor.getSessionId(headers));
+        if (state == null) {
+            return message;
+        }
+        long now = System.nanoTime();
+        if (state.lagNanos(now) > maxLagNanos) {
+            closeForLag(state, now);
+            return null;
+        }
+        String tableId = NativeMessageHeaderAccessor.getFirstNativeHeader(OrderBroadcaster.TABLE_HEADER, headers);
+        String key = tableId == null ? null : SimpMessageHeaderAccessor.getSubscriptionId(headers) + "|" + tableId;
+        // Once an event for a table is held, newer ones for that table are held too so they cannot overtake it
+        if (conflationEnabled && key != null
+                && (state.pending.get() >= conflationThreshold || state.held.containsKey(key))
+                && NativeMessageHeaderAccessor.getFirstNativeHeader(CONFLATED_HEADER, headers) == null) {
+            state.held.put(key, message);
+            state.conflatedTotal.increment();
+            conflated.increment();
+            // The backlog may have drained between the check above and the put
+            if (state.pending.get() < resumeBelow) {
+                flush(state);
+            }
+            return null;
+        }
+        if (state.pending.getAndIncrement() == 0) {
+            state.progressNanos = now;
+        }
+        queuedMessages.increment();
+        return message;
+    }
+
+    private void written(SessionState state) {
+        writtenMessages.increment();
+        state.progressNanos = System.nanoTime();
+        int pending = state.pending.updateAndGet(count -> Math.max(0, count - 1));
+        if (pending < resumeBelow && !state.held.isEmpty()) {
+            flush(state);
+        }
+    }
+
+    /**
+     * Re-send held messages (latest per subscription and table), marked as conflated
+     */
+    private void flush(SessionState state) {
+        Iterator<Map.Entry<String, Message<?>>> iterator = state.held.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Message<?>> entry = iterator.next();
+            if (!state.held.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(entry.getValue());
+            accessor.setNativeHeader(CONFLATED_HEADER, "true");
+            clientOutboundChannel.send(MessageBuilder.createMessage(entry.getValue().getPayload(), accessor.getMessageHeaders()));
+        }
+    }
+
+    /**
+     * Timer sweep: disconnect sessions past the lag limit even when nothing new is being sent to them
+     */
+    void closeLaggingSessions() {
+        long now = System.nanoTime();
+        for (SessionState state : sessions.values()) {
+            if (state.lagNanos(now) > maxLagNanos) {
+                closeForLag(state, now);
+            }
+        }
+    }
+
+    private void closeForLag(SessionState state, long now) {
+        // Send path and timer may both get here
+        if (!state.closedForLag.compareAndSet(false, true)) {
+            return;
+        }
+        slowDisconnects.increment();
+        logger.warn("Disconnecting slow WebSocket session {} - {} messages pending, no write progress for {}ms",
+                state.session.getId(), state.pending.get(), TimeUnit.NANOSECONDS.toMillis(state.lagNanos(now)));
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.debug("Error closing slow session {}: {}", state.session.getId(), e.getMessage());
+        }
+    }
+
+    public List<WebSocketSessionStats> getSessionStats() {
+        long now = System.nanoTime();
+        List<WebSocketSessionStats> stats = new ArrayList<>(sessions.size());
+        for (SessionState state : sessions.values()) {
+            stats.add(new WebSocketSessionStats(state.session.getId(), state.pending.get(),
+                    TimeUnit.NANOSECONDS.toMillis(state.lagNanos(now)), state.held.size(), state.conflatedTotal.sum()));
+        }
+        return stats;
+    }
+
+    private double totalPending() {
+        long total = 0;
+        for (SessionState state : sessions.values()) {
+            total += state.pending.get();
+        }
+        return total;
+    }
+
+    private double totalHeld() {
+        long total = 0;
+        for (SessionState state : sessions.values()) {
+            total += state.held.size();
+        }
+        return total;
+    }
+
+    private long highestLagNanos(long now) {
+        long max = 0;
+        for (SessionState state : sessions.values()) {
+            max = Math.max(max, state.lagNanos(now));
+        }
+        return max;
+    }
+
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.getPayload().startsWith("MESSAGE");
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload();
+            if (payload.remaining() < MESSAGE_COMMAND.length) {
+                return false;
+            }
+            for (int i = 0; i < MESSAGE_COMMAND.length; i++) {
+                if (payload.get(payload.position() + i) != MESSAGE_COMMAND[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static final class SessionState {
+        private final WebSocketSession session;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Map<String, Message<?>> held = new ConcurrentHashMap<>();
+        private final LongAdder conflatedTotal = new LongAdder();
+        private volatile long progressNanos = System.nanoTime();
+        private final AtomicBoolean closedForLag = new AtomicBoolean();
+
+        private SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        long lagNanos(long now) {
+            return pending.get() == 0 && held.isEmpty() ? 0 : Math.max(0, now - progressNanos);
+        }
+    }
+
+    /**
+     * Sits between the transport's concurrent send decorator and the raw session, so it sees each
+     * frame when it is actually written rather than when it is queued
+     */
+    private final class WriteTrackingSession extends WebSocketSessionDecorator {
+        private final SessionState state;
+
+        private WriteTrackingSession(WebSocketSession delegate, SessionState state) {
+            super(delegate);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            super.sendMessage(message);
+            if (isMessageFrame(message)) {
+                written(state);
+            }
+        }
+    }
+}
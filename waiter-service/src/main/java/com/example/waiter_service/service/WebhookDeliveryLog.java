@@ -0,0 +1,183 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable record of order-ready events the webhook.url endpoint confirmed (2xx)
+ *
+ * Append-only file of fixed 16-byte records (dedup key, confirmation time), forced to disk per
+ * delivery. This, not the order history (written before the webhook is even queued), is what the
+ * deduplicator's webhook window is rebuilt from on restart, so an event that was journaled but never
+ * delivered is webhooked again. Records older than the dedup window are dropped when the file is
+ * compacted: on open and whenever it reaches max-records.
+ * Filtered subscribers are not recorded: their queues live in memory and do not survive a restart.
+ */
+@Component
+public class WebhookDeliveryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDeliveryLog.class);
+    private static final int RECORD_BYTES = 16;
+
+    private final boolean enabled;
+    private final Path file;
+    private final long windowMs;
+    private final int maxRecords;
+
+    // Guarded by this
+    private FileChannel channel;
+    private long records;
+
+    public WebhookDeliveryLog(
+            @Value("${webhook.delivery-log.enabled:true}") boolean enabled,
+            @Value("${webhook.delivery-log.path:data/webhook-delivered.log}") String path,
+            @Value("${dedup.window-minutes:30}") long windowMinutes,
+            @Value("${webhook.delivery-log.max-records:131072}") int maxRecords) {
+        this.enabled = enabled;
+        this.file = Paths.get(path).toAbsolutePath();
+        this.windowMs = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.maxRecords = maxRecords;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            logger.info("WebhookDeliveryLog disabled");
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        compact(System.currentTimeMillis());
+        logger.info("WebhookDeliveryLog opened - {} confirmed deliveries within the window in {}", records, file);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close webhook delivery log: {}", e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Record the events of one confirmed delivery; a failure here only means a possible re-delivery after restart
+     */
+    public void confirmed(List<OrderReadyEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        ByteBuffer buffer = ByteBuffer.allocate(events.size() * RECORD_BYTES);
+        for (OrderReadyEvent event : events) {
+            long key = EventDeduplicator.keyOf(event);
+            if (key != 0) {
+                buffer.putLong(key).putLong(now);
+            }
+        }
+        buffer.flip();
+        if (!buffer.hasRemaining()) {
+            return;
+        }
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                if (records >= maxRecords) {
+                    compact(now);
+                }
+                int count = buffer.remaining() / RECORD_BYTES;
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                records += count;
+            } catch (IOException e) {
+                logger.warn("Failed to record confirmed webhook delivery of {} event(s): {}", events.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Dedup keys of deliveries confirmed at or after {@code fromEpochMs}
+     */
+    public synchronized long[] confirmedSince(long fromEpochMs) throws IOException {
+        if (!enabled || !Files.exists(file)) {
+            return new long[0];
+        }
+        ByteBuffer all = ByteBuffer.wrap(Files.readAllBytes(file));
+        long[] keys = new long[all.remaining() / RECORD_BYTES];
+        int count = 0;
+        while (all.remaining() >= RECORD_BYTES) {
+            long key = all.getLong();
+            if (all.getLong() >= fromEpochMs) {
+                keys[count++] = key;
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Rewrite the file with only the records inside the window (a torn trailing record is dropped)
+     * and reopen it for appending
+     */
+    private void compact(long nowEpochMs) throws IOException {
+        close();
+        long[] keep = Files.exists(file) ? readWindow(nowEpochMs - windowMs) : new long[0];
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(keep.length * 8);
+        for (long value : keep) {
+            buffer.putLong(value);
+        }
+        buffer.flip();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = keep.length / 2;
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Key/time pairs of records at or after {@code fromEpochMs}
+     */
+    private long[] readWindow(long fromEpochMs) throws IOException {
+        ByteBuffer all = ByteBuffer.wrap(Files.readAllBytes(file));
+        long[] pairs = new long[all.remaining() / RECORD_BYTES * 2];
+        int count = 0;
+        while (all.remaining() >= RECORD_BYTES) {
+            long key = all.getLong();
+            long confirmedAt = all.getLong();
+            if (confirmedAt >= fromEpochMs) {
+                pairs[count++] = key;
+                pairs[count++] = confirmedAt;
+            }
+        }
+        return Arrays.copyOf(pairs, count);
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.dto.WebhookDeadLetter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous webhook delivery
+ * Kafka listeners hand events off to a bounded queue without ever blocking on it; a fixed pool of workers
+ * delivers them with exponential-backoff retries. Deliveries that exhaust their retries (or find the queue
+ * full) go to a bounded dead-letter store that can be inspected and replayed via the API, as do retries
+ * still waiting and deliveries still queued at shutdown.
+ * The dead-letter store is in memory only: dead letters not replayed before a restart are lost.
+ * Optionally, workers coalesce queued events into one batched POST per flush interval.
+ */
+@Service
+public class WebhookDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+    private final WebhookService webhookService;
+    private final WebhookDeliveryLog deliveryLog;
+    private final BlockingQueue<Delivery> queue;
+    private final Deque<WebhookDeadLetter> deadLetters = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger deadLetterCount = new AtomicInteger();
+    // Deliveries waiting out a retry backoff on the scheduler
+    private final Set<Delivery> scheduledRetries = ConcurrentHashMap.newKeySet();
+
+    private final int workers;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final boolean batchEnabled;
+    private final int batchMaxSize;
+    private final long flushIntervalMs;
+    private final int deadLetterCapacity;
+    private final boolean virtualThreads;
+
+    private final Timer deliveryLatency;
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+
+    public WebhookDispatcher(
+            WebhookService webhookService,
+            WebhookDeliveryLog deliveryLog,
+            MeterRegistry meterRegistry,
+            @Value("${webhook.queue-capacity:1000}") int queueCapacity,
+            @Value("${webhook.workers:4}") int workers,
+            @Value("${webhook.retry.max-attempts:5}") int maxAttempts,
+            @Value("${webhook.retry.initial-backoff-ms:500}") long initialBackoffMs,
+            @Value("${webhook.retry.max-backoff-ms:30000}") long maxBackoffMs,
+            @Value("${webhook.batch.enabled:false}") boolean batchEnabled,
+            @Value("${webhook.batch.max-size:50}") int batchMaxSize,
+            @Value("${webhook.batch.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${webhook.dead-letter.capacity:500}") int deadLetterCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.webhookService = webhookService;
+        this.deliveryLog = deliveryLog;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.batchEnabled = batchEnabled;
+        this.batchMaxSize = batchMaxSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.deadLetterCapacity = deadLetterCapacity;
+        this.virtualThreads = virtualThreads;
+
+        Gauge.builder("waiter.webhook.queue.depth", queue, BlockingQueue::size)
+                .description("Webhook deliveries waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("waiter.webhook.dead.letters", deadLetterCount, AtomicInteger::get)
+                .description("Webhook deliveries currently held in the dead-letter store")
+                .register(meterRegistry);
+        this.deliveryLatency = Timer.builder("waiter.webhook.delivery.latency")
+                .description("Time from hand-off to successful webhook delivery")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.delivered = meterRegistry.counter("waiter.webhook.deliveries", "outcome", "success");
+        this.retried = meterRegistry.counter("waiter.webhook.deliveries", "outcome", "retry");
+        this.deadLettered = meterRegistry.counter("waiter.webhook.deliveries", "outcome", "dead_letter");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "webhook-retry"));
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Workers spend nearly all their time blocked on the queue or the webhook endpoint
+        workerPool = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("webhook-worker-", 1).factory())
+                : Executors.newFixedThreadPool(workers, r -> daemon(r, "webhook-worker-" + threadIndex.incrementAndGet()));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workerLoop);
+        }
+        logger.info("WebhookDispatcher started - workers: {}, queue capacity: {}, batching: {}, virtual threads: {}",
+                workers, queue.remainingCapacity(), batchEnabled, virtualThreads);
+    }
+
+    /**
+     * Stop accepting work and give workers a few seconds to drain what is already queued
+     * Retries still waiting out their backoff, and anything the workers did not drain, are dead-lettered
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        for (Delivery delivery : scheduledRetries) {
+            if (scheduledRetries.remove(delivery)) {
+                deadLetter(delivery, "shutdown before retry");
+            }
+        }
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(10, TimeUnit.SECONDS)) {
+            workerPool.shutdownNow();
+        }
+        Delivery undelivered;
+        while ((undelivered = queue.poll()) != null) {
+            deadLetter(undelivered, "shutdown before delivery");
+        }
+        logger.info("WebhookDispatcher stopped - {} deliveries in the dead-letter store", deadLetterCount.get());
+    }
+
+    /**
+     * Hand an event off for asynchronous delivery
+     * Never blocks: when the queue is full the event is dead-lettered at once, so a slow webhook
+     * endpoint cannot stall the Kafka listener and its polls
+     *
+     * @return true if queued, false if it went straight to the dead-letter store
+     */
+    public boolean dispatch(OrderReadyEvent event) {
+        Delivery delivery = new Delivery(List.of(event));
+        if (running && queue.offer(delivery)) {
+            return true;
+        }
+        deadLetter(delivery, "webhook queue full");
+        return false;
+    }
+
+    private void workerLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Delivery delivery = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (delivery == null) {
+                    continue;
+                }
+                attempt(batchEnabled ? coalesce(delivery) : delivery);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in webhook worker", e);
+            }
+        }
+    }
+
+    /**
+     * Collect further queued deliveries for up to flush-interval-ms (or batch max-size events)
+     * so they go out as a single POST
+     * The batch keeps the retry count of its newest delivery, so a fresh event never inherits the
+     * attempts an older one has already used up
+     */
+    private Delivery coalesce(Delivery first) throws InterruptedException {
+        List<OrderReadyEvent> events = new ArrayList<>(first.events);
+        long enqueuedAtNanos = first.enqueuedAtNanos;
+        long newestEnqueuedAtNanos = first.enqueuedAtNanos;
+        int attempts = first.attempts;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        while (events.size() < batchMaxSize) {
+            long remaining = deadline - System.nanoTime();
+            Delivery next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                break;
+            }
+            events.addAll(next.events);
+            enqueuedAtNanos = Math.min(enqueuedAtNanos, next.enqueuedAtNanos);
+            if (next.enqueuedAtNanos - newestEnqueuedAtNanos > 0) {
+                newestEnqueuedAtNanos = next.enqueuedAtNanos;
+                attempts = next.attempts;
+            }
+        }
+        if (events.size() == first.events.size()) {
+            return first;
+        }
+        Delivery batch = new Delivery(events, enqueuedAtNanos);
+        batch.attempts = attempts;
+        return batch;
+    }
+
+    private void attempt(Delivery delivery) {
+        try {
+            webhookService.sendOrderReadyNotifications(delivery.events);
+            deliveryLatency.record(System.nanoTime() - delivery.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+            delivered.increment(delivery.events.size());
+            deliveryLog.confirmed(delivery.events);
+        } catch (Exception e) {
+            delivery.attempts++;
+            if (delivery.attempts >= maxAttempts) {
+                deadLetter(delivery, "retries exhausted: " + e.getMessage());
+                return;
+            }
+            long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(delivery.attempts - 1, 20));
+            logger.warn("Webhook delivery failed (attempt {}/{}), retrying in {}ms: {}",
+                    delivery.attempts, maxAttempts, backoffMs, e.getMessage());
+            retried.increment();
+            scheduledRetries.add(delivery);
+            try {
+                retryScheduler.schedule(() -> requeue(delivery), backoffMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                if (scheduledRetries.remove(delivery)) {
+                    deadLetter(delivery, "shutdown during retry: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void requeue(Delivery delivery) {
+        if (!scheduledRetries.remove(delivery)) {
+            return;
+        }
+        if (!queue.offer(delivery)) {
+            deadLetter(delivery, "webhook queue full on retry");
+        }
+    }
+
+    private void deadLetter(Delivery delivery, String reason) {
+        logger.error("Dead-lettering webhook delivery of {} event(s), first orderId: {} - {}",
+                delivery.events.size(), delivery.events.get(0).getOrderId(), reason);
+        deadLetters.addFirst(new WebhookDeadLetter(delivery.events, reason, delivery.attempts, LocalDateTime.now()));
+        deadLettered.increment(delivery.events.size());
+        if (deadLetterCount.incrementAndGet() > deadLetterCapacity && deadLetters.pollLast() != null) {
+            deadLetterCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Dead-lettered deliveries, newest first (held in memory only - a restart clears them)
+     */
+    public List<WebhookDeadLetter> getDeadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    /**
+     * Move every dead letter back onto the queue with a fresh retry budget
+     *
+     * @return number of deliveries re-queued
+     */
+    public int replayDeadLetters() {
+        int replayed = 0;
+        WebhookDeadLetter deadLetter;
+        while ((deadLetter = deadLetters.pollLast()) != null) {
+            deadLetterCount.decrementAndGet();
+            if (!queue.offer(new Delivery(deadLetter.getEvents()))) {
+                deadLetters.addLast(deadLetter);
+                deadLetterCount.incrementAndGet();
+                break;
+            }
+            replayed++;
+        }
+        return replayed;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Delivery {
+        private final List<OrderReadyEvent> events;
+        private final long enqueuedAtNanos;
+        private int attempts;
+
+        private Delivery(List<OrderReadyEvent> events) {
+            this(events, System.nanoTime());
+        }
+
+        private Delivery(List<OrderReadyEvent> events, long enqueuedAtNanos) {
+            this.events = events;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+}
@@ -10,6 +10,12 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+
+/**
+ * HTTP delivery of order-ready notifications to the webhook endpoint
+ * Called from WebhookDispatcher workers, never from the Kafka consumer thread
+ */
 @Service
 public class WebhookService {
 
@@ -23,20 +29,27 @@ public class WebhookService {
         this.webhookUrl = webhookUrl;
     }
 
-    public void sendOrderReadyNotification(OrderReadyEvent event) {
-        try {
-            logger.info("Sending order ready notification to webhook: {}", webhookUrl);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<OrderReadyEvent> request = new HttpEntity<>(event, headers);
-            
-            restTemplate.postForObject(webhookUrl, request, String.class);
-            
-            logger.info("Webhook notification sent successfully for order: {}", event.getOrderId());
-        } catch (Exception e) {
-            logger.error("Failed to send webhook notification for order: {}", event.getOrderId(), e);
-        }
+    /**
+     * POST the events to the webhook - a single event is sent as an object (original payload shape),
+     * a coalesced batch as a JSON array. Throws on failure so the dispatcher can retry
+     */
+    public void sendOrderReadyNotifications(List<OrderReadyEvent> events) {
+        send(webhookUrl, events);
+    }
+
+    /**
+     * Same payload to any endpoint, e.g. a registered webhook subscriber
+     */
+    public void send(String url, List<OrderReadyEvent> events) {
+        logger.debug("Sending {} order ready notification(s) to webhook: {}", events.size(), url);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        Object payload = events.size() == 1 ? events.get(0) : events;
+        restTemplate.postForObject(url, new HttpEntity<>(payload, headers), String.class);
+
+        logger.info("Webhook notification sent successfully to {} for {} order(s), first orderId: {}",
+                url, events.size(), events.get(0).getOrderId());
     }
 }
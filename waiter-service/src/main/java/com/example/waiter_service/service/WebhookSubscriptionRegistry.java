@@ -0,0 +1,521 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.config.WebhookSubscriptionProperties;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.dto.WebhookDeadLetter;
+import com.example.waiter_service.dto.WebhookSubscription;
+import com.example.waiter_service.dto.WebhookSubscriptionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of filtered webhook subscribers, each delivered to on its own lane
+ *
+ * Every subscriber has a bounded queue drained by a dedicated thread with its own rate limit and
+ * retries, so a slow or failing endpoint only backs up its own queue; the Kafka consumer thread never
+ * blocks on it (a full queue dead-letters the event for that subscriber only). Subscribers are matched
+ * through an index per filter dimension (table, section, item name) rebuilt on every change: the
+ * smallest candidate list for the event is scanned, not the whole registry.
+ * The legacy webhook.url keeps going through WebhookDispatcher.
+ */
+@Service
+public class WebhookSubscriptionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookSubscriptionRegistry.class);
+
+    private final WebhookService webhookService;
+    private final OrderBroadcaster orderBroadcaster;
+    private final WebhookSubscriptionProperties properties;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final int deadLetterCapacity;
+    private final boolean virtualThreads;
+
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    // Guarded by this; index is rebuilt from it and published for lock-free matching
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private volatile Index index = Index.build(List.of());
+
+    public WebhookSubscriptionRegistry(
+            WebhookService webhookService,
+            OrderBroadcaster orderBroadcaster,
+            WebhookSubscriptionProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${webhook.retry.max-attempts:5}") int maxAttempts,
+            @Value("${webhook.retry.initial-backoff-ms:500}") long initialBackoffMs,
+            @Value("${webhook.retry.max-backoff-ms:30000}") long maxBackoffMs,
+            @Value("${webhook.dead-letter.capacity:500}") int deadLetterCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.webhookService = webhookService;
+        this.orderBroadcaster = orderBroadcaster;
+        this.properties = properties;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.deadLetterCapacity = deadLetterCapacity;
+        this.virtualThreads = virtualThreads;
+
+        Gauge.builder("waiter.webhook.subscribers", this, registry -> registry.index.size)
+                .description("Registered webhook subscribers")
+                .register(meterRegistry);
+        this.delivered = meterRegistry.counter("waiter.webhook.subscriber.deliveries", "outcome", "success");
+        this.retried = meterRegistry.counter("waiter.webhook.subscriber.deliveries", "outcome", "retry");
+        this.deadLettered = meterRegistry.counter("waiter.webhook.subscriber.deliveries", "outcome", "dead_letter");
+    }
+
+    @PostConstruct
+    public void start() {
+        // Configured subscribers are trusted: the host allowlist only applies to runtime registrations
+        properties.getSubscribers().forEach(subscription -> add(normalize(subscription)));
+        logger.info("WebhookSubscriptionRegistry started - {} configured subscribers, virtual threads: {}",
+                lanes.size(), virtualThreads);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        lanes.values().forEach(Lane::stop);
+        lanes.clear();
+        index = Index.build(List.of());
+    }
+
+    /**
+     * Add a subscriber at runtime, or replace the one with the same id; the url must be on an allowed host
+     */
+    public WebhookSubscription register(WebhookSubscription request) {
+        WebhookSubscription subscription = normalize(request);
+        String host = URI.create(subscription.getUrl()).getHost();
+        if (!isAllowedHost(host)) {
+            throw new IllegalArgumentException("webhook subscriber host " + host + " is not in webhook.allowed-hosts");
+        }
+        return add(subscription);
+    }
+
+    /**
+     * A replaced subscriber's lane finishes its in-flight delivery, then the new lane delivers the events
+     * still queued on it before its own, so none are lost or reordered; its dead letters carry over too
+     */
+    private synchronized WebhookSubscription add(WebhookSubscription subscription) {
+        Lane previous = lanes.get(subscription.getId());
+        Lane lane = new Lane(subscription);
+        if (previous != null) {
+            lane.takeOver(previous);
+        }
+        lanes.put(subscription.getId(), lane);
+        index = Index.build(lanes.values());
+        lane.start();
+        logger.info("Webhook subscriber {} {} - url: {}, tables: {}, sections: {}, items: {}, rate: {}/s",
+                subscription.getId(), previous == null ? "registered" : "replaced", subscription.getUrl(),
+                subscription.getTableIds(), subscription.getSections(), subscription.getItemNames(),
+                subscription.getRatePerSecond());
+        return subscription;
+    }
+
+    public synchronized boolean remove(String id) {
+        Lane lane = lanes.remove(id);
+        if (lane == null) {
+            return false;
+        }
+        lane.stop();
+        index = Index.build(lanes.values());
+        logger.info("Webhook subscriber {} removed - {} queued deliveries dropped", id, lane.queue.size());
+        return true;
+    }
+
+    public synchronized List<WebhookSubscriptionStatus> getSubscriptions() {
+        return lanes.values().stream().map(Lane::status).toList();
+    }
+
+    public synchronized WebhookSubscriptionStatus getSubscription(String id) {
+        Lane lane = lanes.get(id);
+        return lane == null ? null : lane.status();
+    }
+
+    public synchronized List<WebhookDeadLetter> getDeadLetters(String id) {
+        Lane lane = lanes.get(id);
+        return lane == null ? List.of() : new ArrayList<>(lane.deadLetters);
+    }
+
+    /**
+     * Queue the event on every matching subscriber's lane; never blocks
+     *
+     * @return number of subscribers it was queued for
+     */
+    public int dispatch(OrderReadyEvent event) {
+        List<Lane> matches = index.match(event, orderBroadcaster.sectionFor(event.getTableId()));
+        int queued = 0;
+        for (Lane lane : matches) {
+            if (lane.offer(event)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Ids of the subscribers an event goes to
+     */
+    List<String> matching(OrderReadyEvent event) {
+        return index.match(event, orderBroadcaster.sectionFor(event.getTableId())).stream()
+                .map(lane -> lane.subscription.getId()).toList();
+    }
+
+    /**
+     * True for "Bearer <webhook.admin-token>"; always false while no token is configured
+     */
+    public boolean isAuthorized(String authorization) {
+        String token = properties.getAdminToken();
+        if (token == null || token.isBlank() || authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean isAllowedHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        String normalized = host.toLowerCase(Locale.ROOT);
+        for (String allowed : properties.getAllowedHosts()) {
+            String pattern = allowed.toLowerCase(Locale.ROOT);
+            if (pattern.startsWith(".") ? normalized.endsWith(pattern) : normalized.equals(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static WebhookSubscription normalize(WebhookSubscription request) {
+        if (request == null || request.getUrl() == null || !request.getUrl().matches("(?i)https?://.+")) {
+            throw new IllegalArgumentException("webhook subscriber url must be an http(s) URL");
+        }
+        try {
+            URI uri = new URI(request.getUrl());
+            if (uri.getHost() == null || uri.getUserInfo() != null) {
+                throw new IllegalArgumentException("webhook subscriber url must name a host and carry no credentials");
+            }
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("webhook subscriber url is malformed: " + e.getMessage());
+        }
+        if (request.getRatePerSecond() < 0) {
+            throw new IllegalArgumentException("ratePerSecond must not be negative");
+        }
+        Set<String> itemNames = new HashSet<>();
+        if (request.getItemNames() != null) {
+            request.getItemNames().forEach(name -> itemNames.add(name.toLowerCase(Locale.ROOT)));
+        }
+        return new WebhookSubscription(
+                request.getId() == null || request.getId().isBlank() ? UUID.randomUUID().toString() : request.getId(),
+                request.getUrl(),
+                request.getTableIds() == null ? Set.of() : Set.copyOf(request.getTableIds()),
+                request.getSections() == null ? Set.of() : Set.copyOf(request.getSections()),
+                Set.copyOf(itemNames),
+                request.getRatePerSecond(),
+                request.getQueueCapacity() > 0 ? request.getQueueCapacity() : 500);
+    }
+
+    /**
+     * Immutable lookup tables from filter value to subscribers, plus the unfiltered ones per dimension
+     */
+    private static final class Index {
+        private final Map<Long, List<Lane>> byTable = new HashMap<>();
+        private final Map<String, List<Lane>> bySection = new HashMap<>();
+        private final Map<String, List<Lane>> byItem = new HashMap<>();
+        private final List<Lane> anyTable = new ArrayList<>();
+        private final List<Lane> anySection = new ArrayList<>();
+        private final List<Lane> anyItem = new ArrayList<>();
+        private int size;
+
+        static Index build(Iterable<Lane> lanes) {
+            Index index = new Index();
+            for (Lane lane : lanes) {
+                WebhookSubscription subscription = lane.subscription;
+                add(index.byTable, index.anyTable, subscription.getTableIds(), lane);
+                add(index.bySection, index.anySection, subscription.getSections(), lane);
+                add(index.byItem, index.anyItem, subscription.getItemNames(), lane);
+                index.size++;
+            }
+            return index;
+        }
+
+        private static <K> void add(Map<K, List<Lane>> byValue, List<Lane> any, Set<K> filter, Lane lane) {
+            if (filter.isEmpty()) {
+                any.add(lane);
+            }
+            for (K value : filter) {
+                byValue.computeIfAbsent(value, v -> new ArrayList<>()).add(lane);
+            }
+        }
+
+        /**
+         * Scan the smallest of the three candidate lists and check the full filter on each candidate
+         */
+        List<Lane> match(OrderReadyEvent event, String section) {
+            if (size == 0) {
+                return List.of();
+            }
+            List<Lane> tableCandidates = byTable.getOrDefault(event.getTableId(), List.of());
+            List<Lane> sectionCandidates = section == null ? List.of() : bySection.getOrDefault(section, List.of());
+            List<List<Lane>> itemCandidates = new ArrayList<>();
+            int itemCount = anyItem.size();
+            if (event.getItems() != null) {
+                for (OrderReadyEvent.OrderItem item : event.getItems()) {
+                    List<Lane> forItem = item.getItemName() == null ? null
+                            : byItem.get(item.getItemName().toLowerCase(Locale.ROOT));
+                    if (forItem != null) {
+                        itemCandidates.add(forItem);
+                        itemCount += forItem.size();
+                    }
+                }
+            }
+            itemCandidates.add(anyItem);
+
+            int tableCount = tableCandidates.size() + anyTable.size();
+            int sectionCount = sectionCandidates.size() + anySection.size();
+            List<List<Lane>> smallest;
+            if (tableCount <= sectionCount && tableCount <= itemCount) {
+                smallest = List.of(tableCandidates, anyTable);
+            } else if (sectionCount <= itemCount) {
+                smallest = List.of(sectionCandidates, anySection);
+            } else {
+                smallest = itemCandidates;
+            }
+
+            List<Lane> matches = new ArrayList<>();
+            // A subscriber filtering on several of the event's items appears in more than one item list
+            Set<Lane> seen = smallest == itemCandidates && itemCandidates.size() > 2
+                    ? Collections.newSetFromMap(new IdentityHashMap<>()) : null;
+            for (List<Lane> candidates : smallest) {
+                for (Lane lane : candidates) {
+                    if (lane.matches(event, section) && (seen == null || seen.add(lane))) {
+                        matches.add(lane);
+                    }
+                }
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * One subscriber's bounded queue, worker thread and rate limit
+     */
+    private final class Lane {
+        private final WebhookSubscription subscription;
+        private final BlockingQueue<OrderReadyEvent> queue;
+        private final long intervalNanos;
+        private final Deque<WebhookDeadLetter> deadLetters = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger deadLetterCount = new AtomicInteger();
+        private final AtomicLong deliveredCount = new AtomicLong();
+        private final AtomicLong failedCount = new AtomicLong();
+        private final Thread worker;
+        private long nextSendNanos = System.nanoTime();
+        private volatile boolean running = true;
+        // Lane this one replaced; its queue is delivered first, once its worker has finished
+        private volatile Lane predecessor;
+        private volatile Lane successor;
+
+        Lane(WebhookSubscription subscription) {
+            this.subscription = subscription;
+            this.queue = new ArrayBlockingQueue<>(subscription.getQueueCapacity());
+            this.intervalNanos = subscription.getRatePerSecond() > 0
+                    ? (long) (TimeUnit.SECONDS.toNanos(1) / subscription.getRatePerSecond()) : 0;
+            String name = "webhook-subscriber-" + subscription.getId();
+            this.worker = virtualThreads ? Thread.ofVirtual().name(name).unstarted(this::run)
+                    : Thread.ofPlatform().name(name).daemon(true).unstarted(this::run);
+        }
+
+        void start() {
+            worker.start();
+        }
+
+        void stop() {
+            running = false;
+            worker.interrupt();
+        }
+
+        /**
+         * Replace {@code previous}: it stops taking events and exits after its in-flight delivery
+         * (not interrupted, so that delivery completes or exhausts its retries as usual)
+         */
+        void takeOver(Lane previous) {
+            predecessor = previous;
+            synchronized (previous) {
+                previous.successor = this;
+                previous.running = false;
+            }
+            deadLetters.addAll(previous.deadLetters);
+            deadLetterCount.addAndGet(previous.deadLetterCount.get());
+        }
+
+        boolean matches(OrderReadyEvent event, String section) {
+            Set<Long> tableIds = subscription.getTableIds();
+            Set<String> sections = subscription.getSections();
+            return (tableIds.isEmpty() || tableIds.contains(event.getTableId()))
+                    && (sections.isEmpty() || (section != null && sections.contains(section)))
+                    && (subscription.getItemNames().isEmpty() || hasItem(event));
+        }
+
+        private boolean hasItem(OrderReadyEvent event) {
+            if (event.getItems() == null) {
+                return false;
+            }
+            for (OrderReadyEvent.OrderItem item : event.getItems()) {
+                if (item.getItemName() != null
+                        && subscription.getItemNames().contains(item.getItemName().toLowerCase(Locale.ROOT))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean offer(OrderReadyEvent event) {
+            // Under the lock takeOver closes this lane with: once the successor starts draining this queue,
+            // no offer can still land on it
+            synchronized (this) {
+                if (running && queue.offer(event)) {
+                    return true;
+                }
+            }
+            Lane next = successor;
+            if (next != null) {
+                // Matched against the index from before the replacement
+                return next.offer(event);
+            }
+            deadLetter(event, "subscriber queue full", 0);
+            return false;
+        }
+
+        private void run() {
+            try {
+                drainPredecessor();
+            } catch (InterruptedException e) {
+                return;
+            }
+            while (running) {
+                try {
+                    OrderReadyEvent event = queue.poll(500, TimeUnit.MILLISECONDS);
+                    if (event != null) {
+                        pace();
+                        deliver(event);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    logger.error("Unexpected error in webhook subscriber {} lane", subscription.getId(), e);
+                }
+            }
+        }
+
+        private void drainPredecessor() throws InterruptedException {
+            Lane previous = predecessor;
+            if (previous == null) {
+                return;
+            }
+            previous.worker.join();
+            OrderReadyEvent event;
+            while ((event = previous.queue.poll()) != null) {
+                pace();
+                deliver(event);
+            }
+            predecessor = null;
+        }
+
+        /**
+         * Wait for the next send slot; an idle lane does not bank slots beyond the current one
+         */
+        private void pace() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (nextSendNanos > now) {
+                TimeUnit.NANOSECONDS.sleep(nextSendNanos - now);
+                now = nextSendNanos;
+            }
+            nextSendNanos = now + intervalNanos;
+        }
+
+        /**
+         * Retries stay on this lane, so backoff delays this subscriber only and keeps its events in order
+         */
+        private void deliver(OrderReadyEvent event) throws InterruptedException {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    webhookService.send(subscription.getUrl(), List.of(event));
+                    deliveredCount.incrementAndGet();
+                    delivered.increment();
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= maxAttempts) {
+                        failedCount.incrementAndGet();
+                        deadLetter(event, "retries exhausted: " + e.getMessage(), attempt);
+                        return;
+                    }
+                    long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+                    logger.warn("Webhook subscriber {} delivery failed (attempt {}/{}), retrying in {}ms: {}",
+                            subscription.getId(), attempt, maxAttempts, backoffMs, e.getMessage());
+                    retried.increment();
+                    Thread.sleep(backoffMs);
+                }
+            }
+        }
+
+        private void deadLetter(OrderReadyEvent event, String reason, int attempts) {
+            Lane next = successor;
+            if (next != null) {
+                // This lane's dead letters were handed over on replacement: keep them in one place
+                next.deadLetter(event, reason, attempts);
+                return;
+            }
+            logger.error("Dead-lettering webhook delivery to subscriber {}, orderId: {} - {}",
+                    subscription.getId(), event.getOrderId(), reason);
+            deadLetters.addFirst(new WebhookDeadLetter(List.of(event), reason, attempts, LocalDateTime.now()));
+            deadLettered.increment();
+            if (deadLetterCount.incrementAndGet() > deadLetterCapacity && deadLetters.pollLast() != null) {
+                deadLetterCount.decrementAndGet();
+            }
+        }
+
+        WebhookSubscriptionStatus status() {
+            Lane previous = predecessor;
+            int queued = queue.size() + (previous == null ? 0 : previous.queue.size());
+            return new WebhookSubscriptionStatus(subscription, queued, deliveredCount.get(), failedCount.get(),
+                    deadLetterCount.get());
+        }
+    }
+}
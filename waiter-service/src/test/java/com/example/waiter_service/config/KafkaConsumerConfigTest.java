@@ -0,0 +1,37 @@
+package com.example.waiter_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the order-ready consumer factory
+ */
+class KafkaConsumerConfigTest {
+
+    @Test
+    void testTimedConsumerFactory_LeavesBootFactoryUntouched() {
+        // Arrange - Boot's shared factory, as other consumers see it
+        DefaultKafkaConsumerFactory<Object, Object> bootFactory = new DefaultKafkaConsumerFactory<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class));
+
+        // Act
+        DefaultKafkaConsumerFactory<Object, Object> orderReady =
+                KafkaConsumerConfig.timedConsumerFactory(bootFactory, new SimpleMeterRegistry());
+
+        // Assert - timed JSON chain for order-ready only, same client settings
+        assertInstanceOf(ErrorHandlingDeserializer.class, orderReady.getValueDeserializer());
+        assertNotSame(orderReady.getValueDeserializer(), orderReady.getValueDeserializer(), "One instance per consumer");
+        assertNull(bootFactory.getValueDeserializer());
+        assertEquals("localhost:9092", orderReady.getConfigurationProperties().get(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for duplicate suppression of order-ready events
+ */
+class EventDeduplicatorTest {
+
+    private static final LocalDateTime READY = LocalDateTime.of(2024, 5, 1, 19, 30, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDuplicates_SuppressedPerStage() throws IOException {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EventDeduplicator deduplicator = new EventDeduplicator(history(), deliveryLog(), registry, 30, 1024);
+
+        // Act & Assert - same order and readyTime is a duplicate, a new readyTime is a new event
+        assertTrue(deduplicator.firstDelivery(event(1L, READY)));
+        assertFalse(deduplicator.firstDelivery(event(1L, READY)));
+        assertTrue(deduplicator.firstDelivery(event(1L, READY.plusMinutes(5))));
+        assertTrue(deduplicator.firstWebhook(event(1L, READY)), "Webhook stage keeps its own window");
+        assertFalse(deduplicator.firstWebhook(event(1L, READY)));
+        assertTrue(deduplicator.firstDelivery(event(null, READY)), "Events without an orderId are never suppressed");
+        assertTrue(deduplicator.firstDelivery(event(null, READY)));
+
+        assertEquals(1.0, registry.get("waiter.events.duplicates").tag("stage", "delivery").counter().count());
+        assertEquals(1.0, registry.get("waiter.events.duplicates").tag("stage", "webhook").counter().count());
+    }
+
+    @Test
+    void testEventId_RetriedTransitionIsDuplicateDespiteNewReadyTime() throws IOException {
+        // Arrange
+        EventDeduplicator deduplicator = new EventDeduplicator(history(), deliveryLog(), new SimpleMeterRegistry(), 30, 1024);
+
+        // Act & Assert - the KDS re-published the same READY transition
+        assertTrue(deduplicator.firstDelivery(event(1L, READY, "1-ready-100")));
+        assertFalse(deduplicator.firstDelivery(event(1L, READY.plusSeconds(2), "1-ready-100")));
+        assertTrue(deduplicator.firstDelivery(event(1L, READY, "1-ready-900")), "A later READY transition is new");
+    }
+
+    @Test
+    void testRestart_WebhookWindowSeededFromConfirmedDeliveriesOnly() throws IOException {
+        // Arrange - a previous run journaled orders 7 and 9, but only 9's webhook was confirmed
+        OrderHistoryStore history = history();
+        history.append(event(7L, READY, "7-ready-1"));
+        history.append(event(9L, READY, "9-ready-1"));
+        WebhookDeliveryLog deliveryLog = deliveryLog();
+        deliveryLog.confirmed(List.of(event(9L, READY, "9-ready-1")));
+        deliveryLog.close();
+
+        // Act
+        EventDeduplicator deduplicator = new EventDeduplicator(history, deliveryLog(), new SimpleMeterRegistry(), 30, 1024);
+        deduplicator.rebuildFromHistory();
+
+        // Assert
+        assertFalse(deduplicator.firstDelivery(event(7L, READY, "7-ready-1")));
+        assertTrue(deduplicator.firstWebhook(event(7L, READY, "7-ready-1")), "Journaled but never delivered");
+        assertFalse(deduplicator.firstWebhook(event(9L, READY, "9-ready-1")));
+        assertTrue(deduplicator.firstDelivery(event(8L, READY)));
+        history.close();
+    }
+
+    @Test
+    void testWindow_OldestGenerationForgottenAfterTwoRotations() {
+        // Arrange - 10ms generations
+        EventDeduplicator.WindowedKeySet set = new EventDeduplicator.WindowedKeySet(64, 10);
+
+        // Act & Assert
+        assertTrue(set.add(42, 0));
+        assertFalse(set.add(42, 5));
+        assertTrue(set.add(43, 10), "Rotates: 42 moves to the previous generation");
+        assertFalse(set.add(42, 15), "Still remembered within the window");
+        assertTrue(set.add(44, 20), "Rotates again: the generation holding 42 is cleared");
+        assertTrue(set.add(42, 21));
+    }
+
+    @Test
+    void testCapacity_RotatesWhenHalfFull() {
+        // Arrange - 16 slots, at most 8 keys per generation
+        EventDeduplicator.WindowedKeySet set = new EventDeduplicator.WindowedKeySet(16, Long.MAX_VALUE);
+
+        // Act
+        for (long key = 1; key <= 17; key++) {
+            assertTrue(set.add(key, 0));
+        }
+
+        // Assert - bounded memory: the first generation (keys 1-8) was dropped
+        assertTrue(set.add(1, 0));
+        assertFalse(set.add(17, 0));
+    }
+
+    private OrderHistoryStore history() throws IOException {
+        OrderHistoryStore store = new OrderHistoryStore(new ObjectMapper().findAndRegisterModules(), true,
+                directory.toString(), 1 << 20, 24, Long.MAX_VALUE, 60_000);
+        store.open();
+        return store;
+    }
+
+    private WebhookDeliveryLog deliveryLog() throws IOException {
+        WebhookDeliveryLog deliveryLog = new WebhookDeliveryLog(true, directory.resolve("webhook-delivered.log").toString(),
+                30, 1024);
+        deliveryLog.open();
+        return deliveryLog;
+    }
+
+    private static OrderReadyEvent event(Long orderId, LocalDateTime readyTime) {
+        return event(orderId, readyTime, null);
+    }
+
+    private static OrderReadyEvent event(Long orderId, LocalDateTime readyTime, String eventId) {
+        return new OrderReadyEvent(orderId, 3L, List.of(new OrderReadyEvent.OrderItem("Soup", 1)), readyTime, eventId);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.config.RoutingProperties;
+import com.example.waiter_service.dto.EventReplayResponse;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.dto.SequencedOrderEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for gap-free resume from the replay journal
+ */
+class EventReplayServiceTest {
+
+    private final RecentOrderBuffer journal = new RecentOrderBuffer(3);
+    private final MessageChannel clientOutboundChannel = mock(MessageChannel.class);
+    private final EventReplayService replay = new EventReplayService(journal, broadcaster(), clientOutboundChannel);
+
+    @Test
+    void testEventsAfter_ReturnsOnlyMissedEventsForCurrentEpoch() {
+        // Arrange
+        appendOrders(1L, 2L, 3L);
+
+        // Act
+        EventReplayResponse response = replay.eventsAfter(1L, journal.getEpoch(), null);
+
+        // Assert
+        assertEquals(List.of(2L, 3L), sequences(response));
+        assertEquals(journal.getEpoch(), response.getEpoch());
+        assertEquals(3L, response.getLastSequence());
+        assertFalse(response.isTruncated());
+    }
+
+    @Test
+    void testEventsAfter_TruncatedWhenCursorFellOutOfJournal() {
+        // Arrange - capacity 3, so sequences 1 and 2 were overwritten
+        appendOrders(1L, 2L, 3L, 4L, 5L);
+
+        // Act
+        EventReplayResponse response = replay.eventsAfter(1L, journal.getEpoch(), null);
+
+        // Assert
+        assertEquals(List.of(3L, 4L, 5L), sequences(response));
+        assertTrue(response.isTruncated());
+    }
+
+    @Test
+    void testEventsAfter_StaleCursorReplaysWholeJournalAsTruncated() {
+        // Arrange - the client last saw seq 40 before a restart; sequences began again at 1
+        appendOrders(1L, 2L);
+
+        // Act
+        EventReplayResponse otherEpoch = replay.eventsAfter(1L, "previous", null);
+        EventReplayResponse ahead = replay.eventsAfter(40L, null, null);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), sequences(otherEpoch));
+        assertTrue(otherEpoch.isTruncated());
+        assertEquals(List.of(1L, 2L), sequences(ahead));
+        assertTrue(ahead.isTruncated());
+    }
+
+    @Test
+    void testReplayToSubscription_SendsMissedEventsWithCursorHeaders() {
+        // Arrange - order 2 is for another table
+        journal.append(event(1L, 7L));
+        journal.append(event(2L, 8L));
+        journal.append(event(3L, 7L));
+
+        // Act
+        replay.replayToSubscription("s1", "sub-0", "/topic/tables/7", 0L, journal.getEpoch());
+
+        // Assert
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(clientOutboundChannel, times(2)).send(sent.capture());
+        List<String> seqs = sent.getAllValues().stream()
+                .map(message -> SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(OrderBroadcaster.SEQUENCE_HEADER))
+                .toList();
+        assertEquals(List.of("1", "3"), seqs);
+        assertEquals(journal.getEpoch(), SimpMessageHeaderAccessor.wrap(sent.getValue())
+                .getFirstNativeHeader(OrderBroadcaster.EPOCH_HEADER));
+    }
+
+    @Test
+    void testReplayToSubscription_StaleEpochReplaysFromStart() {
+        // Arrange
+        journal.append(event(1L, 7L));
+        journal.append(event(2L, 7L));
+
+        // Act - the cursor's seq 2 belongs to the previous process
+        replay.replayToSubscription("s1", "sub-0", "/topic/tables/7", 2L, "previous");
+
+        // Assert
+        verify(clientOutboundChannel, times(2)).send(any());
+    }
+
+    private void appendOrders(Long... orderIds) {
+        for (Long orderId : orderIds) {
+            journal.append(event(orderId, 7L));
+        }
+    }
+
+    private OrderBroadcaster broadcaster() {
+        RoutingProperties routing = new RoutingProperties();
+        routing.setSections(Map.of());
+        return new OrderBroadcaster(null, new ObjectMapper().registerModule(new JavaTimeModule()), routing, journal);
+    }
+
+    private static List<Long> sequences(EventReplayResponse response) {
+        return response.getEvents().stream().map(SequencedOrderEvent::getSequence).toList();
+    }
+
+    private static OrderReadyEvent event(Long orderId, Long tableId) {
+        return new OrderReadyEvent(orderId, tableId, List.of(), LocalDateTime.of(2026, 1, 1, 12, 0), null);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for catch-up mode (freshness horizon)
+ */
+class FreshnessHorizonTest {
+
+    private static final TopicPartition STALE = new TopicPartition("order-ready", 0);
+    private static final TopicPartition CURRENT = new TopicPartition("order-ready", 1);
+    private static final TopicPartition ALL_STALE = new TopicPartition("order-ready", 2);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOnPartitionsAssigned_SeeksPastRecordsOlderThanHorizon() {
+        // Arrange - partition 0 starts at 0 with fresh records from 40, 1 is already past them, 2 has none
+        FreshnessHorizon horizon = new FreshnessHorizon(new SimpleMeterRegistry(), true, 15, "ready", ZoneId.systemDefault().getId(), 1000);
+        Consumer<String, OrderReadyEvent> consumer = mock(Consumer.class);
+        when(consumer.offsetsForTimes(anyMap(), any(Duration.class)))
+                .thenReturn(Map.of(STALE, new OffsetAndTimestamp(40, 0), CURRENT, new OffsetAndTimestamp(5, 0)));
+        when(consumer.endOffsets(anyCollection(), any(Duration.class)))
+                .thenReturn(Map.of(STALE, 50L, CURRENT, 20L, ALL_STALE, 7L));
+        when(consumer.position(eq(STALE), any(Duration.class))).thenReturn(0L);
+        when(consumer.position(eq(CURRENT), any(Duration.class))).thenReturn(12L);
+        when(consumer.position(eq(ALL_STALE), any(Duration.class))).thenReturn(3L);
+
+        // Act
+        horizon.onPartitionsAssigned(consumer, List.of(STALE, CURRENT, ALL_STALE));
+
+        // Assert
+        verify(consumer).seek(STALE, 40L);
+        verify(consumer).seek(ALL_STALE, 7L);
+        verify(consumer, never()).seek(eq(CURRENT), anyLong());
+        assertEquals(44, horizon.getSkipped());
+    }
+
+    @Test
+    void testIsFresh_JudgesByReadyTimeAndCountsSkipped() {
+        // Arrange
+        FreshnessHorizon horizon = new FreshnessHorizon(new SimpleMeterRegistry(), true, 15, "ready", ZoneId.systemDefault().getId(), 1000);
+        long now = System.currentTimeMillis();
+
+        // Act / Assert - a stale readyTime wins over a fresh record timestamp
+        assertTrue(horizon.isFresh(record(LocalDateTime.now().minusMinutes(1), now)));
+        assertFalse(horizon.isFresh(record(LocalDateTime.now().minusMinutes(30), now)));
+        assertFalse(horizon.isFresh(record(null, now - 3_600_000)));
+        assertEquals(2, horizon.getSkipped());
+    }
+
+    @Test
+    void testConstructor_ReadyTimeSourceNeedsExplicitZone() {
+        // Act / Assert - readyTime is zoneless, so ready mode must be told which zone it is in
+        assertThrows(IllegalArgumentException.class,
+                () -> new FreshnessHorizon(new SimpleMeterRegistry(), true, 15, "ready", "", 1000));
+    }
+
+    @Test
+    void testIsFresh_RecordTimeSourceIgnoresReadyTime() {
+        // Arrange
+        FreshnessHorizon horizon = new FreshnessHorizon(new SimpleMeterRegistry(), true, 15, "record", "", 1000);
+        long now = System.currentTimeMillis();
+
+        // Act / Assert - judged by the record timestamp only
+        assertTrue(horizon.isFresh(record(LocalDateTime.now().minusMinutes(30), now)));
+        assertFalse(horizon.isFresh(record(LocalDateTime.now(), now - 3_600_000)));
+        assertEquals(1, horizon.getSkipped());
+    }
+
+    private static ConsumerRecord<String, OrderReadyEvent> record(LocalDateTime readyTime, long timestamp) {
+        OrderReadyEvent event = new OrderReadyEvent(1L, 5L, List.of(), readyTime, null);
+        return new ConsumerRecord<>("order-ready", 0, 0L, timestamp, TimestampType.CREATE_TIME,
+                0, 0, "1", event, new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the per-replica fan-out relay and the shared listener's duplicate handling
+ */
+@ExtendWith(MockitoExtension.class)
+class KafkaConsumerServiceTest {
+
+    @Mock private OrderBroadcaster orderBroadcaster;
+    @Mock private WebhookDispatcher webhookDispatcher;
+    @Mock private WebhookSubscriptionRegistry webhookSubscriptions;
+    @Mock private RecentOrderBuffer recentOrders;
+    @Mock private OrderHistoryStore orderHistory;
+    @Mock private KafkaDiagnostics diagnostics;
+    @Mock private EventDeduplicator deduplicator;
+    @Mock private KeyOrderedDispatcher keyOrderedDispatcher;
+    @Mock private TableReadinessView tableReadiness;
+    @Mock private FreshnessHorizon freshnessHorizon;
+    @Mock private Acknowledgment acknowledgment;
+    @Spy private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private KafkaConsumerService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "fanoutMode", "kafka");
+        service.initMetrics();
+    }
+
+    @Test
+    void testRelay_DeliversLocallySkipsWebhooksAndCommits() throws Exception {
+        // Arrange
+        OrderReadyEvent event = new OrderReadyEvent(10L, 2L, List.of(new OrderReadyEvent.OrderItem("Burger", 1)),
+                LocalDateTime.of(2026, 1, 1, 12, 0), null);
+        ConsumerRecord<String, OrderReadyEvent> record = new ConsumerRecord<>("order-ready", 0, 5L, "2", event);
+        when(freshnessHorizon.isFresh(record)).thenReturn(true);
+        when(deduplicator.firstDelivery(event)).thenReturn(true);
+        when(recentOrders.append(event)).thenReturn(7L);
+
+        // Act
+        service.relay(List.of(record), acknowledgment);
+
+        // Assert - delivered to this replica's sessions, the shared group owns webhooks and table state
+        verify(orderBroadcaster).broadcast(event, 7L);
+        verify(orderHistory).append(event);
+        verifyNoInteractions(webhookDispatcher, webhookSubscriptions, tableReadiness);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void testListen_RedeliveredEventDoesNotRewriteTableReadiness() throws Exception {
+        // Arrange - the same event twice, the second time after its webhook window entry exists
+        OrderReadyEvent event = new OrderReadyEvent(12L, 4L, List.of(), LocalDateTime.of(2026, 1, 1, 12, 0), "12-ready-1");
+        ConsumerRecord<String, OrderReadyEvent> first = new ConsumerRecord<>("order-ready", 0, 8L, "4", event);
+        ConsumerRecord<String, OrderReadyEvent> redelivered = new ConsumerRecord<>("order-ready", 0, 9L, "4", event);
+        when(freshnessHorizon.isFresh(any())).thenReturn(true);
+        when(deduplicator.firstWebhook(event)).thenReturn(true, false);
+
+        // Act
+        service.listen(List.of(first, redelivered), acknowledgment, mock(Consumer.class));
+
+        // Assert - written once, with the order-ready record's timestamp
+        verify(tableReadiness, times(1)).orderReady(event, first.timestamp());
+        verify(webhookDispatcher, times(1)).dispatch(event);
+    }
+
+    @Test
+    void testRelay_CommitsBatchEvenWhenEveryRecordIsSkipped() throws Exception {
+        // Arrange - a tombstone and an event past the freshness horizon
+        OrderReadyEvent stale = new OrderReadyEvent(11L, 3L, List.of(), LocalDateTime.of(2020, 1, 1, 12, 0), null);
+        ConsumerRecord<String, OrderReadyEvent> tombstone = new ConsumerRecord<>("order-ready", 0, 6L, "3", null);
+        ConsumerRecord<String, OrderReadyEvent> old = new ConsumerRecord<>("order-ready", 0, 7L, "3", stale);
+        when(freshnessHorizon.isFresh(old)).thenReturn(false);
+
+        // Act
+        service.relay(List.of(tombstone, old), acknowledgment);
+
+        // Assert
+        verify(diagnostics).recordNullValue(tombstone);
+        verify(orderBroadcaster, never()).broadcast(any(), anyLong());
+        verify(acknowledgment).acknowledge();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.waiter_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the toggleable Kafka diagnostics tap
+ */
+class KafkaDiagnosticsTest {
+
+    @Test
+    void testDisabled_CountsButCapturesNothing() {
+        // Arrange
+        KafkaDiagnostics diagnostics = new KafkaDiagnostics(new SimpleMeterRegistry(), false, 1, 5, 5);
+
+        // Act
+        for (long offset = 0; offset < 10; offset++) {
+            diagnostics.recordReceived(record(offset, "value-" + offset));
+        }
+
+        // Assert
+        assertEquals(10, diagnostics.getRecordCount());
+        assertTrue(diagnostics.getSamples().isEmpty());
+    }
+
+    @Test
+    void testEnabled_SamplesOneInNIntoBoundedRing() {
+        // Arrange
+        KafkaDiagnostics diagnostics = new KafkaDiagnostics(new SimpleMeterRegistry(), false, 1, 3, 5);
+        diagnostics.configure(true, 2);
+
+        // Act - 10 records, every 2nd sampled, ring keeps the last 3
+        for (long offset = 0; offset < 10; offset++) {
+            diagnostics.recordReceived(record(offset, "value-" + offset));
+        }
+
+        // Assert - newest first
+        assertEquals(3, diagnostics.getSamples().size());
+        assertTrue(diagnostics.getSamples().get(0).contains("@9"));
+        assertTrue(diagnostics.getSamples().get(2).contains("@5"));
+    }
+
+    @Test
+    void testNullValue_RecoversRawPayloadFromDeserializerHeader() {
+        // Arrange
+        KafkaDiagnostics diagnostics = new KafkaDiagnostics(new SimpleMeterRegistry(), false, 1, 5, 5);
+        ConsumerRecord<String, Object> failed = record(42, null);
+        SerializationUtils.deserializationException(failed.headers(), "{not json".getBytes(StandardCharsets.UTF_8),
+                new IllegalStateException("bad payload"), false);
+
+        // Act
+        diagnostics.recordNullValue(failed);
+        diagnostics.recordNullValue(record(43, null));
+
+        // Assert
+        assertEquals(1L, diagnostics.getStatus().get("deserializationErrors"));
+        assertEquals(1L, diagnostics.getStatus().get("nullValues"));
+        assertTrue(diagnostics.getErrors().get(1).contains("{not json"));
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, Object value) {
+        return new ConsumerRecord<>("order-ready", 0, offset, "key", value);
+    }
+}
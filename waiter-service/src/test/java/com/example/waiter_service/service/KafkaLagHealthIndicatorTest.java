@@ -0,0 +1,80 @@
+package com.example.waiter_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for consumer lag gauges and the lag health check
+ */
+class KafkaLagHealthIndicatorTest {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry = mock(KafkaListenerEndpointRegistry.class);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testScrape_ReadsClientMetricsOncePerCacheInterval() {
+        // Arrange - 8 assigned partitions
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        for (int partition = 0; partition < 8; partition++) {
+            metrics.putAll(recordsLag(partition, partition * 10));
+        }
+        containerReports(metrics);
+        KafkaLagHealthIndicator indicator = new KafkaLagHealthIndicator(listenerRegistry, meterRegistry, 1000, 30000, 60_000);
+        indicator.partitionLag();
+
+        // Act - one scrape reads every gauge
+        meterRegistry.getMeters().forEach(meter -> meter.measure().forEach(measurement -> measurement.getValue()));
+
+        // Assert - 8 partition gauges plus max and sum, served from one walk of the client metrics
+        assertEquals(8, meterRegistry.find("waiter.kafka.consumer.partition.lag").gauges().size());
+        assertEquals(70.0, meterRegistry.get("waiter.kafka.consumer.partition.lag").tag("partition", "7").gauge().value());
+        assertEquals(280.0, meterRegistry.get("waiter.kafka.consumer.lag").tag("aggregate", "sum").gauge().value());
+        verify(container, times(1)).metrics();
+    }
+
+    @Test
+    void testHealth_DownOnlyOnceLagIsSustained() {
+        // Arrange - no caching, lag above the threshold
+        containerReports(recordsLag(0, 5000));
+        KafkaLagHealthIndicator sustained = new KafkaLagHealthIndicator(listenerRegistry, meterRegistry, 1000, 0, 0);
+        KafkaLagHealthIndicator fresh = new KafkaLagHealthIndicator(listenerRegistry, new SimpleMeterRegistry(), 1000, 60_000, 0);
+
+        // Act
+        sustained.health();
+        Health down = sustained.health();
+        Health stillUp = fresh.health();
+
+        // Assert
+        assertEquals(Status.DOWN, down.getStatus());
+        assertEquals(5000.0, down.getDetails().get("maxLag"));
+        assertEquals(Status.UP, stillUp.getStatus());
+    }
+
+    private void containerReports(Map<MetricName, ? extends Metric> metrics) {
+        when(listenerRegistry.getListenerContainer(KafkaConsumerService.LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+        Map<String, Map<MetricName, ? extends Metric>> byClient = Map.of("consumer-waiter-group-v2-1", metrics);
+        doReturn(byClient).when(container).metrics();
+    }
+
+    private static Map<MetricName, Metric> recordsLag(int partition, double lag) {
+        MetricName name = new MetricName("records-lag", "consumer-fetch-manager-metrics", "",
+                Map.of("topic", "order-ready", "partition", String.valueOf(partition)));
+        Metric metric = mock(Metric.class);
+        when(metric.metricValue()).thenReturn(lag);
+        return Map.of(name, metric);
+    }
+}
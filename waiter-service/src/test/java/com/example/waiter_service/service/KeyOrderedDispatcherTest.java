@@ -0,0 +1,148 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for key-ordered parallel processing and contiguous offset commits
+ */
+class KeyOrderedDispatcherTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("order-ready", 0);
+
+    @Test
+    void testSlowTable_DoesNotBlockOtherTablesButHoldsBackCommit() throws Exception {
+        // Arrange - table 1's first event is stuck
+        KeyOrderedDispatcher dispatcher = dispatcher();
+        Consumer<?, ?> consumer = consumer();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch table2Done = new CountDownLatch(2);
+        List<Long> processed = new CopyOnWriteArrayList<>();
+
+        // Act
+        dispatcher.submit(record(0, 1L), () -> {
+            await(release);
+            processed.add(0L);
+        });
+        dispatcher.submit(record(1, 2L), () -> { processed.add(1L); table2Done.countDown(); });
+        dispatcher.submit(record(2, 2L), () -> { processed.add(2L); table2Done.countDown(); });
+        dispatcher.submit(record(3, 1L), () -> processed.add(3L));
+
+        // Assert - table 2 went ahead, but nothing is committable past the stuck offset 0
+        assertTrue(table2Done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L), processed);
+        dispatcher.commitCompleted(consumer);
+        verify(consumer, never()).commitAsync(anyMap(), any());
+
+        // Act - the slow record finishes, then table 1's next event runs after it
+        release.countDown();
+        waitUntil(() -> dispatcher.getInFlight() == 0);
+        dispatcher.commitCompleted(consumer);
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 0L, 3L), processed);
+        verify(consumer).commitAsync(eq(Map.of(PARTITION, new OffsetAndMetadata(4))), any());
+        dispatcher.close();
+    }
+
+    @Test
+    void testRevocation_CommitsOnlyTheCompletedPrefix() throws Exception {
+        // Arrange - offset 1 never finishes within the drain timeout
+        KeyOrderedDispatcher dispatcher = dispatcher();
+        Consumer<?, ?> consumer = consumer();
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.submit(record(0, 1L), () -> { });
+        dispatcher.submit(record(1, 2L), () -> await(release));
+        dispatcher.submit(record(2, 3L), () -> { });
+        waitUntil(() -> dispatcher.getInFlight() == 1);
+
+        // Act
+        dispatcher.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        // Assert - offset 1 is left for the next owner
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(1)));
+        release.countDown();
+        dispatcher.close();
+    }
+
+    @Test
+    void testFailedCommit_OfferedAgainOnNextIdleCommit() throws Exception {
+        // Arrange - one completed record, its async commit fails
+        KeyOrderedDispatcher dispatcher = dispatcher();
+        Consumer<?, ?> consumer = consumer();
+        dispatcher.submit(record(0, 1L), () -> { });
+        waitUntil(() -> dispatcher.getInFlight() == 0);
+        dispatcher.commitCompleted(consumer);
+        ArgumentCaptor<OffsetCommitCallback> callback = ArgumentCaptor.forClass(OffsetCommitCallback.class);
+        verify(consumer).commitAsync(anyMap(), callback.capture());
+        Map<TopicPartition, OffsetAndMetadata> offsets = Map.of(PARTITION, new OffsetAndMetadata(1));
+        callback.getValue().onComplete(offsets, new RetriableCommitFailedException("coordinator moved"));
+
+        // Act - no new records arrive, only the idle commit
+        dispatcher.commitCompleted(consumer);
+
+        // Assert - the same offset is sent again; once confirmed it is not repeated
+        verify(consumer, times(2)).commitAsync(eq(offsets), callback.capture());
+        callback.getValue().onComplete(offsets, null);
+        dispatcher.commitCompleted(consumer);
+        verify(consumer, times(2)).commitAsync(anyMap(), any());
+        dispatcher.close();
+    }
+
+    private static KeyOrderedDispatcher dispatcher() {
+        return new KeyOrderedDispatcher(new SimpleMeterRegistry(), "key-ordered", "table", 4, 100, 200, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<?, ?> consumer() {
+        Consumer<String, OrderReadyEvent> consumer = mock(Consumer.class);
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata(KafkaConsumerService.GROUP_ID));
+        return consumer;
+    }
+
+    private static ConsumerRecord<String, OrderReadyEvent> record(long offset, Long tableId) {
+        OrderReadyEvent event = new OrderReadyEvent(100 + offset, tableId,
+                List.of(new OrderReadyEvent.OrderItem("Soup", 1)), LocalDateTime.now(), null);
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, String.valueOf(100 + offset), event);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
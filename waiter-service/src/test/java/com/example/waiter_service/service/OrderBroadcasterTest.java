@@ -0,0 +1,97 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.config.RoutingProperties;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for scoped per-table and per-section STOMP destinations
+ */
+class OrderBroadcasterTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final RecentOrderBuffer journal = new RecentOrderBuffer(10);
+
+    @Test
+    void testBroadcast_SendsSameBytesToTableSectionAndFirehose() throws Exception {
+        // Arrange - table 2 is on the terrace
+        OrderBroadcaster broadcaster = broadcaster(true);
+
+        // Act
+        broadcaster.broadcast(event(10L, 2L), 7);
+
+        // Assert
+        byte[] payload = broadcaster.serialize(event(10L, 2L));
+        verify(messagingTemplate).convertAndSend(eq("/topic/orders"), eq(payload), headers("7", "2"));
+        verify(messagingTemplate).convertAndSend(eq("/topic/tables/2"), eq(payload), headers("7", "2"));
+        verify(messagingTemplate).convertAndSend(eq("/topic/sections/terrace"), eq(payload), headers("7", "2"));
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void testBroadcast_WithoutFirehoseOnlyTablelessEventsGoToOrdersTopic() throws Exception {
+        // Arrange
+        OrderBroadcaster broadcaster = broadcaster(false);
+
+        // Act
+        broadcaster.broadcast(event(11L, 9L), 8);
+        broadcaster.broadcast(event(12L, null), 9);
+
+        // Assert - unmapped table: table topic only; no table: no scoped destination, so /topic/orders
+        verify(messagingTemplate).convertAndSend(eq("/topic/tables/9"), any(Object.class), anyMap());
+        verify(messagingTemplate).convertAndSend(eq("/topic/orders"), any(Object.class),
+                argThat((Map<String, Object> headers) -> "9".equals(headers.get(OrderBroadcaster.SEQUENCE_HEADER))));
+        verify(messagingTemplate, times(2)).convertAndSend(anyString(), any(Object.class), anyMap());
+        assertTrue(broadcaster.isDeliveredTo("/topic/orders", event(12L, null)));
+        assertFalse(broadcaster.isDeliveredTo("/topic/tables/9", event(12L, null)));
+    }
+
+    @Test
+    void testIsDeliveredTo_MatchesBroadcastDestinations() {
+        // Arrange
+        OrderBroadcaster broadcaster = broadcaster(false);
+        OrderReadyEvent event = event(10L, 2L);
+
+        // Act & Assert
+        assertTrue(broadcaster.isDeliveredTo("/topic/tables/2", event));
+        assertTrue(broadcaster.isDeliveredTo("/topic/sections/terrace", event));
+        assertFalse(broadcaster.isDeliveredTo("/topic/tables/3", event));
+        assertFalse(broadcaster.isDeliveredTo("/topic/sections/bar", event));
+        assertFalse(broadcaster.isDeliveredTo("/topic/orders", event));
+        assertEquals(2L, OrderBroadcaster.tableIdOf("/topic/tables/2"));
+        assertNull(OrderBroadcaster.tableIdOf("/topic/tables/x"));
+    }
+
+    private OrderBroadcaster broadcaster(boolean broadcastAll) {
+        RoutingProperties routing = new RoutingProperties();
+        routing.setBroadcastAll(broadcastAll);
+        routing.setSections(Map.of("terrace", List.of(1L, 2L), "bar", List.of(5L)));
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new OrderBroadcaster(messagingTemplate, objectMapper, routing, journal);
+    }
+
+    private Map<String, Object> headers(String sequence, String table) {
+        return argThat(headers -> sequence.equals(headers.get(OrderBroadcaster.SEQUENCE_HEADER))
+                && journal.getEpoch().equals(headers.get(OrderBroadcaster.EPOCH_HEADER))
+                && table.equals(headers.get(OrderBroadcaster.TABLE_HEADER)));
+    }
+
+    private static OrderReadyEvent event(Long orderId, Long tableId) {
+        return new OrderReadyEvent(orderId, tableId, List.of(new OrderReadyEvent.OrderItem("Burger", 1)),
+                LocalDateTime.of(2026, 1, 1, 12, 0), null);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderHistoryEntry;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the segment-file order history store
+ */
+class OrderHistoryStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testQuery_FiltersByTableAndTimeAcrossSegments() throws IOException {
+        // Arrange - tiny segments so the events spread over several files
+        OrderHistoryStore store = store(400, Long.MAX_VALUE);
+        long before = System.currentTimeMillis();
+        for (long orderId = 1; orderId <= 20; orderId++) {
+            store.append(event(orderId, orderId % 2 == 0 ? 14L : 7L));
+        }
+        long after = System.currentTimeMillis();
+
+        // Act
+        List<OrderHistoryEntry> table14 = store.query(before, after, 14L, 100);
+        List<OrderHistoryEntry> limited = store.query(before, after, null, 5);
+        List<OrderHistoryEntry> future = store.query(after + 1, Long.MAX_VALUE, null, 100);
+
+        // Assert
+        assertTrue(store.getSegmentCount() > 1, "Small segment size should have rolled segments");
+        assertEquals(List.of(2L, 4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L, 20L), orderIds(table14));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), orderIds(limited), "Oldest first, capped at the limit");
+        assertTrue(future.isEmpty());
+        store.close();
+    }
+
+    @Test
+    void testReopen_RebuildsIndexesAndTruncatesTornTail() throws IOException {
+        // Arrange
+        OrderHistoryStore store = store(1 << 20, Long.MAX_VALUE);
+        store.append(event(1L, 3L));
+        store.append(event(2L, 3L));
+        store.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        long intactSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            // Half-written record: header claims 500 bytes of payload that never made it to disk
+            channel.write(ByteBuffer.allocate(OrderHistoryStore.HEADER_BYTES).putInt(0, 500));
+        }
+
+        // Act
+        OrderHistoryStore reopened = store(1 << 20, Long.MAX_VALUE);
+        reopened.append(event(3L, 3L));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), orderIds(reopened.query(0, Long.MAX_VALUE, 3L, 100)));
+        assertEquals(1, reopened.getSegmentCount(), "Should keep appending to the recovered segment");
+        assertTrue(Files.size(segment) > intactSize);
+        reopened.close();
+    }
+
+    @Test
+    void testRetention_DropsOldestSegmentsOverSizeLimit() throws IOException {
+        // Arrange
+        OrderHistoryStore store = store(400, 1000);
+        for (long orderId = 1; orderId <= 20; orderId++) {
+            store.append(event(orderId, 1L));
+        }
+
+        // Act
+        store.enforceRetention();
+
+        // Assert - the newest events survive, the oldest were deleted with their segments
+        List<Long> remaining = orderIds(store.query(0, Long.MAX_VALUE, null, 100));
+        assertFalse(remaining.contains(1L));
+        assertEquals(20L, remaining.get(remaining.size() - 1));
+        assertTrue(store.getSizeBytes() <= 1000 + 400, "Only the active segment may exceed the limit");
+        store.close();
+    }
+
+    private OrderHistoryStore store(long segmentBytes, long maxBytes) throws IOException {
+        OrderHistoryStore store = new OrderHistoryStore(objectMapper, true, directory.toString(),
+                segmentBytes, 24, maxBytes, 60_000);
+        store.open();
+        return store;
+    }
+
+    private static OrderReadyEvent event(Long orderId, Long tableId) {
+        return new OrderReadyEvent(orderId, tableId,
+                List.of(new OrderReadyEvent.OrderItem("Burger", 1)), LocalDateTime.now(), null);
+    }
+
+    private static List<Long> orderIds(List<OrderHistoryEntry> entries) {
+        return entries.stream().map(entry -> entry.getEvent().getOrderId()).toList();
+    }
+}
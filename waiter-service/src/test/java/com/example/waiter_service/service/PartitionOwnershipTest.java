@@ -0,0 +1,53 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.config.RoutingProperties;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for table and section ownership of order-ready partitions
+ */
+class PartitionOwnershipTest {
+
+    @Test
+    void testPartition_MatchesKdsKeyHashing() {
+        // Arrange - the KDS hashes the tableId, or the section id under section partitioning
+        int byTable = Utils.toPositive(Utils.murmur2("7".getBytes(StandardCharsets.UTF_8))) % 6;
+        int bySection = Utils.toPositive(Utils.murmur2("terrace".getBytes(StandardCharsets.UTF_8))) % 6;
+
+        // Act & Assert
+        assertEquals(byTable, PartitionOwnership.partition("table", 7L, "terrace", 6));
+        assertEquals(bySection, PartitionOwnership.partition("section", 7L, "terrace", 6));
+        assertEquals(byTable, PartitionOwnership.partition("section", 7L, null, 6), "Unmapped tables go by table");
+    }
+
+    @Test
+    void testReplicaId_ReadBackFromClientId() {
+        // Act & Assert
+        assertEquals("waiter-7f9c-abc12", PartitionOwnership.replicaOf("waiter-waiter-7f9c-abc12-0"));
+        assertEquals("pod-1", PartitionOwnership.replicaOf("waiter-pod-1-3"));
+        assertEquals("consumer-waiter-group-v2-1", PartitionOwnership.replicaOf("consumer-waiter-group-v2-1"));
+    }
+
+    @Test
+    void testOrderPartitioning_EveryReplicaServesEverySection() {
+        // Arrange
+        RoutingProperties routing = new RoutingProperties();
+        routing.setSections(Map.of("terrace", List.of(20L, 21L)));
+        routing.setReplicaId("pod-1");
+        PartitionOwnership ownership = new PartitionOwnership(new KafkaAdmin(Map.of()), routing, "order-ready");
+
+        // Act & Assert
+        assertFalse(ownership.isPartitioned());
+        assertTrue(ownership.ownerOfSection("terrace").isLocal());
+        assertNull(ownership.ownerOfSection("bar"));
+        assertEquals(Map.of("terrace", ownership.ownerOfSection("terrace")), ownership.sectionOwners());
+    }
+}
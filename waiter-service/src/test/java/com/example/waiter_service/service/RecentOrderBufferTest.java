@@ -0,0 +1,185 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the lock-free recent-orders ring buffer
+ */
+class RecentOrderBufferTest {
+
+    @Test
+    void testAppend_NewestFirstWithinCapacity() {
+        // Arrange
+        RecentOrderBuffer buffer = new RecentOrderBuffer(3);
+
+        // Act
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            assertEquals(orderId, buffer.append(event(orderId, 1L)), "Sequence should follow append order");
+        }
+
+        // Assert - only the last 3 survive, newest first
+        assertEquals(List.of(5L, 4L, 3L), orderIds(buffer.latest(null, 10)));
+        assertEquals(3, buffer.size());
+        assertEquals(5L, buffer.getLastSequence());
+    }
+
+    @Test
+    void testPerTableLookup_FollowsTableChainOnly() {
+        // Arrange
+        RecentOrderBuffer buffer = new RecentOrderBuffer(10);
+        buffer.append(event(1L, 7L));
+        buffer.append(event(2L, 8L));
+        buffer.append(event(3L, 7L));
+        buffer.append(event(4L, 9L));
+        buffer.append(event(5L, 7L));
+
+        // Act + Assert
+        assertEquals(List.of(5L, 3L, 1L), orderIds(buffer.latest(7L, 10)));
+        assertEquals(List.of(2L), orderIds(buffer.latest(8L, 10)));
+        assertEquals(List.of(5L, 3L), orderIds(buffer.latest(7L, 2)));
+        assertTrue(buffer.latest(99L, 10).isEmpty());
+    }
+
+    @Test
+    void testPerTableLookup_StopsWhenChainLeavesWindow() {
+        // Arrange
+        RecentOrderBuffer buffer = new RecentOrderBuffer(3);
+        buffer.append(event(1L, 7L));
+        buffer.append(event(2L, 8L));
+        buffer.append(event(3L, 8L));
+        buffer.append(event(4L, 7L));
+
+        // Act + Assert - order 1's slot was reused by order 4
+        assertEquals(List.of(4L), orderIds(buffer.latest(7L, 10)));
+    }
+
+    @Test
+    void testFailedAppend_StillReleasesItsSequence() {
+        // Arrange - linking the first event into its table chain throws
+        RecentOrderBuffer buffer = new RecentOrderBuffer(10);
+        OrderReadyEvent broken = new OrderReadyEvent(1L, 1L, List.of(), LocalDateTime.now(), null) {
+            @Override
+            public Long getTableId() {
+                throw new IllegalStateException("boom");
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> buffer.append(broken));
+
+        // Act
+        long startedAt = System.nanoTime();
+        long sequence = buffer.append(event(2L, 1L));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // Assert - the next writer is published without waiting out the stuck-writer timeout
+        assertEquals(2L, sequence);
+        assertTrue(elapsedMs < 500, "append waited " + elapsedMs + "ms on the failed sequence");
+        assertEquals(2L, buffer.getLastSequence());
+    }
+
+    @Test
+    void testConcurrentWriters_NoLostOrMisLinkedEntries() throws InterruptedException {
+        // Arrange
+        int writers = 4;
+        int perWriter = 2_000;
+        RecentOrderBuffer buffer = new RecentOrderBuffer(writers * perWriter);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act - every writer hits the same two tables
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perWriter; i++) {
+                    buffer.append(event((long) writer * perWriter + i, (long) (i % 2)));
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(writers * perWriter, buffer.latest(null, Integer.MAX_VALUE).size());
+        List<Long> sequences = new ArrayList<>();
+        buffer.forEachForTable(0L, entry -> {
+            assertEquals(0L, entry.getEvent().getTableId());
+            sequences.add(entry.getSequence());
+            return true;
+        });
+        assertEquals(writers * perWriter / 2, sequences.size(), "Table chain should reach every entry");
+        for (int i = 1; i < sequences.size(); i++) {
+            assertTrue(sequences.get(i) < sequences.get(i - 1), "Table chain must be newest-first");
+        }
+    }
+
+    @Test
+    void testConcurrentWriters_ResumingFromLastSequenceNeverSkipsAnEntry() throws InterruptedException {
+        // Arrange
+        int writers = 4;
+        int perWriter = 2_000;
+        RecentOrderBuffer buffer = new RecentOrderBuffer(writers * perWriter);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perWriter; i++) {
+                    buffer.append(event((long) writer * perWriter + i, (long) (i % 2)));
+                }
+            });
+        }
+
+        // Act - a reader resumes from the cursor it was handed, like a reconnecting client
+        start.countDown();
+        List<Long> seen = new ArrayList<>();
+        long cursor = 0;
+        while (cursor < writers * perWriter) {
+            long last = buffer.getLastSequence();
+            for (RecentOrderBuffer.Entry entry : buffer.entriesAfter(cursor, null)) {
+                if (entry.getSequence() <= last) {
+                    seen.add(entry.getSequence());
+                }
+            }
+            cursor = last;
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(writers * perWriter, seen.size(), "Every sequence should be read exactly once");
+        for (int i = 0; i < seen.size(); i++) {
+            assertEquals(i + 1L, seen.get(i));
+        }
+    }
+
+    private static OrderReadyEvent event(Long orderId, Long tableId) {
+        return new OrderReadyEvent(orderId, tableId, List.of(), LocalDateTime.now(), null);
+    }
+
+    private static List<Long> orderIds(List<OrderReadyEvent> events) {
+        List<Long> ids = new ArrayList<>();
+        events.forEach(e -> ids.add(e.getOrderId()));
+        return ids;
+    }
+}
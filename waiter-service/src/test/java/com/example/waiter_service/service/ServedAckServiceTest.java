@@ -0,0 +1,56 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderServedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for pickup acknowledgements
+ */
+class ServedAckServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final TableReadinessView tableReadiness = mock(TableReadinessView.class);
+    private final ServedAckService service = new ServedAckService(kafkaTemplate, tableReadiness,
+            new SimpleMeterRegistry(), "order-served");
+
+    @Test
+    void testAcknowledge_PublishesReadyOrderWithTableFromView() {
+        // Arrange
+        when(tableReadiness.isEnabled()).thenReturn(true);
+        when(tableReadiness.isReady(42L)).thenReturn(true);
+        when(tableReadiness.orderServed(null, 42L)).thenReturn(14L);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+
+        // Act
+        OrderServedEvent event = service.acknowledge(new OrderServedEvent(42L, null, "waiter-7", null));
+
+        // Assert
+        assertEquals(14L, event.getTableId());
+        assertNotNull(event.getServedTime());
+        verify(kafkaTemplate).send(eq("order-served"), eq("42"), eq(event));
+    }
+
+    @Test
+    void testAcknowledge_RejectsOrderNotReadyInView() {
+        // Arrange - already served, or never marked ready
+        when(tableReadiness.isEnabled()).thenReturn(true);
+        when(tableReadiness.isReady(43L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> service.acknowledge(new OrderServedEvent(43L, null, "waiter-7", null)));
+        verify(tableReadiness, never()).orderServed(any(), any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+}
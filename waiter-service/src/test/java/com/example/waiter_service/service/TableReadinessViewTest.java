@@ -0,0 +1,170 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.dto.SectionOwner;
+import com.example.waiter_service.dto.TableReadiness;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the table-readiness materialized view
+ */
+class TableReadinessViewTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final PartitionOwnership partitionOwnership = mock(PartitionOwnership.class);
+
+    @Test
+    void testOrderReady_PublishesOneRecordPerOrderAndIsIdempotent() {
+        // Arrange
+        TableReadinessView view = view();
+
+        // Act - order 10 is redelivered, order 11 joins the same table
+        view.orderReady(event(10L, 5L), minutesAgo(2));
+        view.orderReady(event(10L, 5L), minutesAgo(2));
+        view.orderReady(event(11L, 5L), System.currentTimeMillis());
+
+        // Assert - each write carries only its own order, never the table's other orders
+        TableReadiness table = view.getTable(5L);
+        assertEquals(List.of(10L, 11L), table.getOrders().stream().map(OrderReadyEvent::getOrderId).toList());
+        verify(kafkaTemplate, times(2)).send(eq("table-readiness"), isNull(), anyLong(), eq("5:10"), any(OrderReadyEvent.class));
+        verify(kafkaTemplate).send(eq("table-readiness"), isNull(), anyLong(), eq("5:11"), any(OrderReadyEvent.class));
+        assertEquals(2, view.getOrderCount());
+    }
+
+    @Test
+    void testOrderServed_FindsTableAndTombstonesTheOrder() {
+        // Arrange
+        TableReadinessView view = view();
+        view.orderReady(event(20L, 9L), System.currentTimeMillis());
+        view.orderReady(event(21L, 9L), System.currentTimeMillis());
+
+        // Act - the ack does not say which table
+        Long tableId = view.orderServed(null, 20L);
+
+        // Assert
+        assertEquals(9L, tableId);
+        assertEquals(List.of(21L), view.getTable(9L).getOrders().stream().map(OrderReadyEvent::getOrderId).toList());
+        verify(kafkaTemplate).send(eq("table-readiness"), eq("9:20"), isNull());
+
+        // Act - a repeated ack finds nothing left to tombstone
+        view.orderServed(9L, 20L);
+
+        // Assert
+        verify(kafkaTemplate, times(1)).send(eq("table-readiness"), eq("9:20"), isNull());
+    }
+
+    @Test
+    void testApply_ConcurrentWritersOfOneTableDoNotOverwriteEachOther() {
+        // Arrange - two replicas each wrote one order of table 7
+        TableReadinessView view = view();
+
+        // Act
+        view.apply("7:1", event(1L, 7L), System.currentTimeMillis());
+        view.apply("7:2", event(2L, 7L), System.currentTimeMillis());
+        view.apply("7:1", null, System.currentTimeMillis());
+        view.apply("7", event(3L, 7L), System.currentTimeMillis());
+
+        // Assert - only order 2 left, the malformed key is ignored
+        assertEquals(List.of(2L), view.getTable(7L).getOrders().stream().map(OrderReadyEvent::getOrderId).toList());
+
+        // Act
+        view.apply("7:2", null, System.currentTimeMillis());
+
+        // Assert
+        assertNull(view.getTable(7L));
+        assertTrue(view.getTables().isEmpty());
+    }
+
+    @Test
+    void testExpireOrders_OwnerTombstonesOnlyStaleOrders() {
+        // Arrange
+        TableReadinessView view = view();
+        when(partitionOwnership.isPartitioned()).thenReturn(true);
+        when(partitionOwnership.ownerOfTable(3L)).thenReturn(new SectionOwner(null, 3L, 0, "local", null, true));
+        when(partitionOwnership.ownerOfTable(4L)).thenReturn(new SectionOwner(null, 4L, 1, "other", null, false));
+        view.orderReady(event(30L, 3L), minutesAgo(300));
+        view.orderReady(event(31L, 3L), System.currentTimeMillis());
+        view.orderReady(event(40L, 4L), minutesAgo(300));
+
+        // Act
+        view.expireOrders();
+
+        // Assert - table 4 belongs to another replica
+        assertEquals(List.of(31L), view.getTable(3L).getOrders().stream().map(OrderReadyEvent::getOrderId).toList());
+        assertNotNull(view.getTable(4L));
+        verify(kafkaTemplate).send(eq("table-readiness"), eq("3:30"), isNull());
+        verify(kafkaTemplate, never()).send(eq("table-readiness"), eq("4:40"), isNull());
+    }
+
+    @Test
+    void testExpireOrders_AgesByRecordTimestampNotReadyTime() {
+        // Arrange - one order without a readyTime, one whose readyTime claims it is fresh
+        TableReadinessView view = view();
+        when(partitionOwnership.isPartitioned()).thenReturn(false);
+        when(partitionOwnership.getLocalPartitions()).thenReturn(Set.of(0));
+        OrderReadyEvent noReadyTime = event(60L, 8L);
+        noReadyTime.setReadyTime(null);
+        view.apply("8:60", noReadyTime, minutesAgo(300));
+        view.apply("8:61", event(61L, 8L), minutesAgo(300));
+
+        // Act
+        view.expireOrders();
+
+        // Assert
+        assertNull(view.getTable(8L));
+        verify(kafkaTemplate).send(eq("table-readiness"), eq("8:60"), isNull());
+        verify(kafkaTemplate).send(eq("table-readiness"), eq("8:61"), isNull());
+    }
+
+    @Test
+    void testExpireOrders_UnpartitionedOnlyOnReplicaHoldingPartitionZero() {
+        // Arrange
+        TableReadinessView view = view();
+        when(partitionOwnership.isPartitioned()).thenReturn(false);
+        when(partitionOwnership.getLocalPartitions()).thenReturn(Set.of(1, 2));
+        view.orderReady(event(50L, 6L), minutesAgo(300));
+
+        // Act
+        view.expireOrders();
+
+        // Assert - not this replica's sweep
+        assertNotNull(view.getTable(6L));
+
+        // Act
+        when(partitionOwnership.getLocalPartitions()).thenReturn(Set.of(0));
+        view.expireOrders();
+
+        // Assert
+        assertNull(view.getTable(6L));
+        verify(kafkaTemplate).send(eq("table-readiness"), eq("6:50"), isNull());
+    }
+
+    @SuppressWarnings("unchecked")
+    private TableReadinessView view() {
+        return new TableReadinessView(mock(ConsumerFactory.class), kafkaTemplate, partitionOwnership,
+                new SimpleMeterRegistry(), "table-readiness", true, 1000, 240);
+    }
+
+    private static OrderReadyEvent event(Long orderId, Long tableId) {
+        return new OrderReadyEvent(orderId, tableId, List.of(new OrderReadyEvent.OrderItem("Burger", 1)), LocalDateTime.now(), null);
+    }
+
+    private static long minutesAgo(long minutes) {
+        return System.currentTimeMillis() - minutes * 60_000;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.waiter_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for per-session backlog tracking and conflation
+ */
+class WebSocketSessionMonitorTest {
+
+    private final List<Message<?>> resent = new CopyOnWriteArrayList<>();
+    private final MessageChannel outbound = (message, timeout) -> resent.add(message);
+
+    @Test
+    void testLaggingSession_GetsLatestEventPerTableOnceDrained() throws IOException {
+        // Arrange - conflate from 3 pending, resume below 1
+        WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(outbound, new SimpleMeterRegistry(), true, 3, 1, 60_000, 0);
+        WebSocketSession session = monitor.track(session("s1"));
+
+        // Act - nothing is written yet, so the 4th+ events are held back, one per table
+        for (long seq = 1; seq <= 3; seq++) {
+            assertNotNull(monitor.beforeSend(message("s1", seq, "7")));
+        }
+        assertNull(monitor.beforeSend(message("s1", 4, "7")));
+        assertNull(monitor.beforeSend(message("s1", 5, "9")));
+        assertNull(monitor.beforeSend(message("s1", 6, "7")));
+
+        // Assert - backlog and held tables are visible
+        assertEquals(3, monitor.getSessionStats().get(0).getPendingMessages());
+        assertEquals(2, monitor.getSessionStats().get(0).getConflatedTables());
+        assertTrue(resent.isEmpty());
+
+        // Act - the client drains its backlog
+        for (int i = 0; i < 3; i++) {
+            session.sendMessage(new TextMessage("MESSAGE\ndestination:/topic/orders\n\n{}\u0000"));
+        }
+
+        // Assert - only the latest held event per table is re-sent, marked as conflated
+        assertEquals(List.of("5", "6"), resent.stream().map(m -> header(m, "seq")).sorted().toList());
+        assertTrue(resent.stream().allMatch(m -> "true".equals(header(m, WebSocketSessionMonitor.CONFLATED_HEADER))));
+        assertEquals(0, monitor.getSessionStats().get(0).getConflatedTables());
+        resent.forEach(monitor::beforeSend);
+        assertEquals(2, monitor.getSessionStats().get(0).getPendingMessages(), "Re-sent messages are not conflated again");
+    }
+
+    @Test
+    void testStalledSession_DisconnectedAfterMaxLag() throws Exception {
+        // Arrange - any lag is too much
+        WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(outbound, new SimpleMeterRegistry(), true, 100, 10, 0, 0);
+        WebSocketSession raw = session("s2");
+        monitor.track(raw);
+
+        // Act
+        assertNotNull(monitor.beforeSend(message("s2", 1, "1")));
+        Thread.sleep(5);
+        Message<?> dropped = monitor.beforeSend(message("s2", 2, "1"));
+        monitor.untrack("s2", CloseStatus.SESSION_NOT_RELIABLE);
+
+        // Assert
+        assertNull(dropped);
+        verify(raw).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertTrue(monitor.getSessionStats().isEmpty());
+    }
+
+    @Test
+    void testIdleStuckSession_ClosedByTimerAndOnlyAggregateMetrics() throws Exception {
+        // Arrange - two messages queued, then nothing more is sent to the session
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(outbound, meterRegistry, true, 100, 10, 300, 10);
+        WebSocketSession raw = session("s3");
+        monitor.track(raw);
+        monitor.beforeSend(message("s3", 1, "1"));
+        monitor.beforeSend(message("s3", 2, "2"));
+
+        // Assert - backlog shows in the aggregate gauge, no series carries a session id
+        assertEquals(2.0, meterRegistry.get("waiter.websocket.outbound.pending").gauge().value());
+        assertTrue(meterRegistry.getMeters().stream().noneMatch(meter -> meter.getId().getTag("session") != null));
+
+        // Act
+        monitor.start();
+        try {
+            verify(raw, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        } finally {
+            monitor.stop();
+        }
+
+        // Assert - counted once as a lag disconnect
+        monitor.untrack("s3", CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1.0, meterRegistry.counter("waiter.websocket.disconnects", "reason", "max_lag").count());
+        assertEquals(0.0, meterRegistry.counter("waiter.websocket.disconnects", "reason", "transport_limit").count());
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    private static Message<byte[]> message(String sessionId, long seq, String tableId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/orders");
+        accessor.setNativeHeader(OrderBroadcaster.SEQUENCE_HEADER, String.valueOf(seq));
+        accessor.setNativeHeader(OrderBroadcaster.TABLE_HEADER, tableId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static String header(Message<?> message, String name) {
+        return NativeMessageHeaderAccessor.getFirstNativeHeader(name, message.getHeaders());
+    }
+}
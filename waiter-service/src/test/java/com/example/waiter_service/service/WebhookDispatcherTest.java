@@ -0,0 +1,173 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.dto.OrderReadyEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for asynchronous webhook delivery (retries, dead-lettering, coalescing)
+ */
+class WebhookDispatcherTest {
+
+    private WebhookDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void testFailingEndpoint_RetriedThenDeadLettered() throws InterruptedException {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        dispatcher = newDispatcher(events -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("503 from webhook");
+        }, false);
+
+        // Act
+        assertTrue(dispatcher.dispatch(event(1L)));
+
+        // Assert
+        waitUntil(() -> dispatcher.getDeadLetters().size() == 1);
+        assertEquals(3, calls.get(), "Should attempt max-attempts times");
+        assertEquals(3, dispatcher.getDeadLetters().get(0).getAttempts());
+        assertEquals(1L, dispatcher.getDeadLetters().get(0).getEvents().get(0).getOrderId());
+    }
+
+    @Test
+    void testTransientFailure_DeliveredOnRetry() throws InterruptedException {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        List<OrderReadyEvent> delivered = new CopyOnWriteArrayList<>();
+        dispatcher = newDispatcher(events -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("timeout");
+            }
+            delivered.addAll(events);
+        }, false);
+
+        // Act
+        dispatcher.dispatch(event(2L));
+
+        // Assert
+        waitUntil(() -> delivered.size() == 1);
+        assertTrue(dispatcher.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void testBatching_CoalescesQueuedEventsIntoOnePost() throws InterruptedException {
+        // Arrange
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        dispatcher = newDispatcher(events -> batchSizes.add(events.size()), true);
+
+        // Act
+        for (long i = 0; i < 5; i++) {
+            dispatcher.dispatch(event(i));
+        }
+
+        // Assert
+        waitUntil(() -> batchSizes.stream().mapToInt(Integer::intValue).sum() == 5);
+        assertEquals(List.of(5), batchSizes, "All events within one flush interval should share a POST");
+    }
+
+    @Test
+    void testFullQueue_DeadLettersWithoutBlockingTheCaller() throws InterruptedException {
+        // Arrange - the only worker is stuck on a slow endpoint and the one queue slot is taken
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        dispatcher = newDispatcher(events -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, false, 10, 1);
+        dispatcher.dispatch(event(4L));
+        waitUntil(() -> calls.get() == 1);
+        assertTrue(dispatcher.dispatch(event(5L)));
+
+        // Act
+        long startedAt = System.nanoTime();
+        boolean queued = dispatcher.dispatch(event(6L));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        release.countDown();
+
+        // Assert
+        assertFalse(queued);
+        assertTrue(elapsedMs < 500, "dispatch must not wait for queue space, took " + elapsedMs + "ms");
+        assertEquals("webhook queue full", dispatcher.getDeadLetters().get(0).getReason());
+        assertEquals(6L, dispatcher.getDeadLetters().get(0).getEvents().get(0).getOrderId());
+    }
+
+    @Test
+    void testStop_DeadLettersRetryStillWaitingOutItsBackoff() throws InterruptedException {
+        // Arrange - a failed delivery scheduled for retry a minute from now
+        AtomicInteger calls = new AtomicInteger();
+        dispatcher = newDispatcher(events -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("503 from webhook");
+        }, false, 60000);
+        dispatcher.dispatch(event(3L));
+        waitUntil(() -> calls.get() == 1);
+
+        // Act
+        dispatcher.stop();
+
+        // Assert - kept for replay instead of vanishing with the scheduler
+        assertEquals(1, dispatcher.getDeadLetters().size());
+        assertEquals("shutdown before retry", dispatcher.getDeadLetters().get(0).getReason());
+        assertEquals(3L, dispatcher.getDeadLetters().get(0).getEvents().get(0).getOrderId());
+    }
+
+    private WebhookDispatcher newDispatcher(Sender sender, boolean batching) {
+        return newDispatcher(sender, batching, 10);
+    }
+
+    private WebhookDispatcher newDispatcher(Sender sender, boolean batching, long initialBackoffMs) {
+        return newDispatcher(sender, batching, initialBackoffMs, 100);
+    }
+
+    private WebhookDispatcher newDispatcher(Sender sender, boolean batching, long initialBackoffMs, int queueCapacity) {
+        WebhookService webhookService = new WebhookService(null, "http://localhost/webhook") {
+            @Override
+            public void sendOrderReadyNotifications(List<OrderReadyEvent> events) {
+                sender.send(events);
+            }
+        };
+        WebhookDispatcher created = new WebhookDispatcher(webhookService, new WebhookDeliveryLog(false, "unused", 30, 1),
+                new SimpleMeterRegistry(), queueCapacity, 1, 3, initialBackoffMs, Math.max(50, initialBackoffMs), batching, 50, 300, 10, false);
+        created.start();
+        return created;
+    }
+
+    private static OrderReadyEvent event(Long orderId) {
+        return new OrderReadyEvent(orderId, 5L, List.of(new OrderReadyEvent.OrderItem("Burger", 1)), LocalDateTime.now(), null);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Sender {
+        void send(List<OrderReadyEvent> events);
+    }
+}
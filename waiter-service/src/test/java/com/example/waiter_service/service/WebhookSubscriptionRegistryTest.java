@@ -0,0 +1,219 @@
+package com.example.waiter_service.service;
+
+import com.example.waiter_service.config.RoutingProperties;
+import com.example.waiter_service.config.WebhookSubscriptionProperties;
+import com.example.waiter_service.dto.OrderReadyEvent;
+import com.example.waiter_service.dto.WebhookSubscription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for filtered webhook subscribers and their isolated delivery lanes
+ */
+class WebhookSubscriptionRegistryTest {
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WebhookSubscriptionRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        registry.stop();
+    }
+
+    @Test
+    void testMatching_AndsFilterDimensionsAndOrsValues() {
+        // Arrange
+        registry = registry();
+        registry.register(subscription("all", "http://all"));
+        WebhookSubscription terrace = subscription("terrace", "http://terrace");
+        terrace.setSections(Set.of("terrace"));
+        registry.register(terrace);
+        WebhookSubscription cake = subscription("cake", "http://cake");
+        cake.setTableIds(Set.of(1L, 21L));
+        cake.setItemNames(Set.of("Birthday Cake"));
+        registry.register(cake);
+
+        // Act
+        List<String> terraceCake = registry.matching(event(21L, "birthday cake"));
+        List<String> terraceBurger = registry.matching(event(20L, "Burger"));
+        List<String> mainFloorCake = registry.matching(event(1L, "Birthday Cake"));
+
+        // Assert
+        assertEquals(Set.of("all", "terrace", "cake"), Set.copyOf(terraceCake));
+        assertEquals(Set.of("all", "terrace"), Set.copyOf(terraceBurger));
+        assertEquals(Set.of("all", "cake"), Set.copyOf(mainFloorCake));
+    }
+
+    @Test
+    void testSlowSubscriber_DoesNotDelayOthers() throws InterruptedException {
+        // Arrange - the slow endpoint blocks until the end of the test
+        registry = registry();
+        registry.register(subscription("slow", "http://slow"));
+        registry.register(subscription("fast", "http://fast"));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, registry.dispatch(event(1L, "Burger")));
+        }
+
+        // Assert
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.stream().filter("http://fast"::equals).count() < 3) {
+            assertTrue(System.nanoTime() < deadline, "fast subscriber should not wait for the slow one");
+            Thread.sleep(10);
+        }
+        assertEquals(3, registry.getSubscription("fast").getDelivered());
+        assertEquals(0, registry.getSubscription("slow").getDelivered());
+    }
+
+    @Test
+    void testRegister_RejectsInvalidUrlAndRemoveStopsMatching() {
+        // Arrange
+        registry = registry();
+        registry.register(subscription("pos", "http://pos"));
+
+        // Act / Assert
+        assertThrows(IllegalArgumentException.class, () -> registry.register(subscription("bad", "ftp://nope")));
+        assertTrue(registry.remove("pos"));
+        assertTrue(registry.matching(event(1L, "Burger")).isEmpty());
+        assertFalse(registry.remove("pos"));
+    }
+
+    @Test
+    void testRegister_RejectsHostOutsideAllowlist() {
+        // Arrange
+        registry = registry();
+
+        // Act / Assert
+        assertThrows(IllegalArgumentException.class, () -> registry.register(subscription("meta", "http://169.254.169.254/latest")));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(subscription("creds", "http://user:pw@pos/hook")));
+        assertEquals("pos", registry.register(subscription("pos", "http://POS:8080/hook")).getId());
+        assertTrue(registry.isAllowedHost("kds.hooks.example.com"));
+        assertFalse(registry.isAllowedHost("example.com.evil"));
+    }
+
+    @Test
+    void testIsAuthorized_RequiresConfiguredBearerToken() {
+        // Arrange
+        registry = registry();
+
+        // Act / Assert
+        assertTrue(registry.isAuthorized("Bearer s3cret"));
+        assertFalse(registry.isAuthorized("Bearer wrong"));
+        assertFalse(registry.isAuthorized(null));
+    }
+
+    @Test
+    void testRegister_ReplacementDeliversEventsQueuedOnOldLaneInOrder() throws InterruptedException {
+        // Arrange - the first event is in flight on the blocked endpoint, two more queued behind it
+        registry = registry();
+        registry.register(subscription("pos", "http://slow"));
+        for (long orderId = 1; orderId <= 3; orderId++) {
+            registry.dispatch(event(orderId, 1L, "Burger"));
+        }
+        Thread.sleep(100);
+
+        // Act - re-point the subscriber, then queue one more
+        registry.register(subscription("pos", "http://fast"));
+        registry.dispatch(event(4L, 1L, "Burger"));
+        release.countDown();
+
+        // Assert - the in-flight delivery completes on the old url, the rest follow on the new one in order
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.size() < 4) {
+            assertTrue(System.nanoTime() < deadline, "queued events should be handed over, got " + delivered);
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("http://slow#1", "http://fast#2", "http://fast#3", "http://fast#4"), delivered);
+        assertEquals(0, registry.getSubscription("pos").getDeadLetters());
+    }
+
+    @Test
+    void testRegister_ReplacementWhileDispatchingLosesNoEvents() throws InterruptedException {
+        // Arrange - events keep arriving on another thread while the subscriber is re-pointed
+        registry = registry();
+        int events = 2000;
+        registry.register(subscription("pos", "http://pos", events));
+        Thread producer = new Thread(() -> {
+            for (long orderId = 1; orderId <= events; orderId++) {
+                registry.dispatch(event(orderId, 1L, "Burger"));
+            }
+        });
+
+        // Act
+        producer.start();
+        for (int i = 0; i < 50 && producer.isAlive(); i++) {
+            registry.register(subscription("pos", i % 2 == 0 ? "http://fast" : "http://pos", events));
+        }
+        producer.join();
+
+        // Assert - every event is delivered by some lane, none stranded in a replaced lane's queue
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.size() < events) {
+            assertTrue(System.nanoTime() < deadline, "events were lost, delivered " + delivered.size());
+            Thread.sleep(10);
+        }
+        assertEquals(0, registry.getSubscription("pos").getDeadLetters());
+    }
+
+    private WebhookSubscriptionRegistry registry() {
+        WebhookService webhookService = new WebhookService(null, "http://localhost/webhook") {
+            @Override
+            public void send(String url, List<OrderReadyEvent> events) {
+                if (url.equals("http://slow")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                sent.add(url);
+                events.forEach(event -> delivered.add(url + "#" + event.getOrderId()));
+            }
+        };
+        RoutingProperties routing = new RoutingProperties();
+        routing.setSections(Map.of("terrace", List.of(20L, 21L)));
+        OrderBroadcaster broadcaster = new OrderBroadcaster(null, new ObjectMapper(), routing, new RecentOrderBuffer(1));
+        WebhookSubscriptionProperties properties = new WebhookSubscriptionProperties();
+        properties.setAdminToken("s3cret");
+        properties.setAllowedHosts(List.of("all", "terrace", "cake", "slow", "fast", "pos", ".hooks.example.com"));
+        return new WebhookSubscriptionRegistry(webhookService, broadcaster, properties,
+                new SimpleMeterRegistry(), 3, 10, 50, 10, false);
+    }
+
+    private static WebhookSubscription subscription(String id, String url) {
+        WebhookSubscription subscription = new WebhookSubscription();
+        subscription.setId(id);
+        subscription.setUrl(url);
+        return subscription;
+    }
+
+    private static WebhookSubscription subscription(String id, String url, int queueCapacity) {
+        WebhookSubscription subscription = subscription(id, url);
+        subscription.setQueueCapacity(queueCapacity);
+        return subscription;
+    }
+
+    private static OrderReadyEvent event(Long tableId, String itemName) {
+        return event(100L, tableId, itemName);
+    }
+
+    private static OrderReadyEvent event(Long orderId, Long tableId, String itemName) {
+        return new OrderReadyEvent(orderId, tableId, List.of(new OrderReadyEvent.OrderItem(itemName, 1)), LocalDateTime.now(), null);
+    }
+}